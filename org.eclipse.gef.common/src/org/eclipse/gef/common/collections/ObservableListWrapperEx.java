@@ -138,6 +138,53 @@ class ObservableListWrapperEx<E> extends ForwardingList<E>
 		helper.addListener(listener);
 	}
 
+	/**
+	 * Computes the elementary changes for the removal of those elements of the
+	 * given previous contents that are contained (or not contained, if
+	 * <code>retain</code> is <code>true</code>) in the given collection. Each
+	 * run of consecutive removed elements results in a single elementary
+	 * change, whose index takes into account the elements that have already
+	 * been removed by preceding elementary changes.
+	 *
+	 * @param previousContents
+	 *            The contents before the removal.
+	 * @param collection
+	 *            The collection passed to removeAll() or retainAll().
+	 * @param retain
+	 *            <code>true</code> if the elements contained in the
+	 *            collection are retained, <code>false</code> if they are
+	 *            removed.
+	 * @return The elementary changes of the removal.
+	 */
+	private List<ElementarySubChange<E>> computeRemovals(
+			List<E> previousContents, Collection<?> collection,
+			boolean retain) {
+		List<ElementarySubChange<E>> elementaryChanges = new ArrayList<>();
+		List<E> removed = null;
+		int index = 0;
+		int removeCount = 0;
+		for (int i = 0; i < previousContents.size(); i++) {
+			E e = previousContents.get(i);
+			if (collection.contains(e) != retain) {
+				if (removed == null) {
+					removed = new ArrayList<>();
+					index = i - removeCount;
+				}
+				removed.add(e);
+			} else if (removed != null) {
+				elementaryChanges
+						.add(ElementarySubChange.removed(removed, index, index));
+				removeCount += removed.size();
+				removed = null;
+			}
+		}
+		if (removed != null) {
+			elementaryChanges
+					.add(ElementarySubChange.removed(removed, index, index));
+		}
+		return elementaryChanges;
+	}
+
 	@Override
 	public void clear() {
 		List<E> previousContents = delegateCopy();
@@ -212,46 +259,10 @@ class ObservableListWrapperEx<E> extends ForwardingList<E>
 	public boolean removeAll(Collection<?> collection) {
 		List<E> previousContents = delegateCopy();
 		if (super.removeAll(collection)) {
-			// check which have been removed
-			List<ElementarySubChange<E>> elementaryChanges = new ArrayList<>();
-			ElementarySubChange<E> currentElementaryChange = null;
-			int removeCount = 0;
-			for (E e : previousContents) {
-				if (collection.contains(e)) {
-					// create a new elementary change, if elements are not
-					// 'continuous' (ensure that the count of elements that have
-					// already been deleted by preceding elementary changes is
-					// subtracted from the index)
-					if (currentElementaryChange == null
-							|| previousContents.indexOf(e)
-									- currentElementaryChange.getFrom() > 1) {
-						if (currentElementaryChange != null) {
-							removeCount += currentElementaryChange.getRemoved()
-									.size();
-						}
-						int index = previousContents.indexOf(e) - removeCount;
-						currentElementaryChange = ElementarySubChange.removed(
-								Collections.singletonList(e), index, index);
-						elementaryChanges.add(currentElementaryChange);
-					} else {
-						// replace current elementary change (i.e. append the
-						// removed element)
-						List<E> removed = new ArrayList<>(
-								currentElementaryChange.getRemoved());
-						removed.add(e);
-						int index = currentElementaryChange.getFrom();
-						elementaryChanges.remove(currentElementaryChange);
-						currentElementaryChange = ElementarySubChange
-								.removed(removed, index, index);
-						elementaryChanges.add(currentElementaryChange);
-					}
-				}
-			}
-			// determine lowest index that was removed (will be used as from and
-			// to index)
 			helper.fireValueChangedEvent(
 					new ListListenerHelperEx.AtomicChange<>(this,
-							previousContents, elementaryChanges));
+							previousContents, computeRemovals(previousContents,
+									collection, false)));
 			return true;
 		}
 		return false;
@@ -277,46 +288,10 @@ class ObservableListWrapperEx<E> extends ForwardingList<E>
 	public boolean retainAll(Collection<?> collection) {
 		List<E> previousContents = delegateCopy();
 		if (super.retainAll(collection)) {
-			// check which have been removed
-			List<ElementarySubChange<E>> elementaryChanges = new ArrayList<>();
-			ElementarySubChange<E> currentElementaryChange = null;
-			int removeCount = 0;
-			for (E e : previousContents) {
-				if (!collection.contains(e)) {
-					// create a new elementary change, if elements are not
-					// 'continuous' (ensure that the count of elements that have
-					// already been deleted by preceding elementary changes is
-					// subtracted from the index)
-					if (currentElementaryChange == null
-							|| previousContents.indexOf(e)
-									- currentElementaryChange.getFrom() > 1) {
-						if (currentElementaryChange != null) {
-							removeCount += currentElementaryChange.getRemoved()
-									.size();
-						}
-						int index = previousContents.indexOf(e) - removeCount;
-						currentElementaryChange = ElementarySubChange.removed(
-								Collections.singletonList(e), index, index);
-						elementaryChanges.add(currentElementaryChange);
-					} else {
-						// replace current elementary change (i.e. append the
-						// removed element)
-						List<E> removed = new ArrayList<>(
-								currentElementaryChange.getRemoved());
-						removed.add(e);
-						int index = currentElementaryChange.getFrom();
-						elementaryChanges.remove(currentElementaryChange);
-						currentElementaryChange = ElementarySubChange
-								.removed(removed, index, index);
-						elementaryChanges.add(currentElementaryChange);
-					}
-				}
-			}
-			// determine lowest index that was removed (will be used as from and
-			// to index)
 			helper.fireValueChangedEvent(
 					new ListListenerHelperEx.AtomicChange<>(this,
-							previousContents, elementaryChanges));
+							previousContents, computeRemovals(previousContents,
+									collection, true)));
 			return true;
 		}
 		return false;
@@ -64,6 +64,7 @@ import org.eclipse.gef.layout.ILayoutAlgorithm;
 import org.eclipse.gef.layout.algorithms.GridLayoutAlgorithm;
 import org.eclipse.gef.layout.algorithms.RadialLayoutAlgorithm;
 import org.eclipse.gef.layout.algorithms.SpringLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.StressLayoutAlgorithm;
 import org.eclipse.gef.layout.algorithms.TreeLayoutAlgorithm;
 import org.eclipse.gef.zest.fx.ZestProperties;
 
@@ -107,6 +108,15 @@ public class Dot2ZestAttributesConverter implements IAttributeCopier {
 		 * it is to be transformed without inversion.
 		 */
 		public boolean invertYAxis = false;
+
+		/**
+		 * Specifies whether the 'neato' layout is to be emulated by a
+		 * {@link StressLayoutAlgorithm} (which, like Graphviz' neato,
+		 * minimizes the stress of the layout). If set to <code>false</code>,
+		 * a {@link RadialLayoutAlgorithm} is used instead. Only evaluated if
+		 * {@link #emulateLayout} is set to <code>true</code>.
+		 */
+		public boolean emulateStressLayout = false;
 	}
 
 	private DotColorUtil colorUtil = new DotColorUtil();
@@ -872,7 +882,10 @@ public class Dot2ZestAttributesConverter implements IAttributeCopier {
 			// convert layout and rankdir to LayoutAlgorithm
 			Object dotLayout = DotAttributes.getLayout(dot);
 			ILayoutAlgorithm algo = null;
-			if (Layout.CIRCO.toString().equals(dotLayout)
+			if (Layout.NEATO.toString().equals(dotLayout)
+					&& options().emulateStressLayout) {
+				algo = new StressLayoutAlgorithm();
+			} else if (Layout.CIRCO.toString().equals(dotLayout)
 					|| Layout.NEATO.toString().equals(dotLayout)
 					|| Layout.TWOPI.toString().equals(dotLayout)) {
 				algo = new RadialLayoutAlgorithm();
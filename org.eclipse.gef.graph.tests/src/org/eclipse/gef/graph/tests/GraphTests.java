@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.graph.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.eclipse.gef.graph.Edge;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.GraphEditor;
+import org.eclipse.gef.graph.Node;
+import org.junit.Test;
+
+import javafx.collections.ListChangeListener;
+
+public class GraphTests {
+
+	@Test
+	public void update() {
+		final Node n = new Node();
+		final Node m = new Node();
+		final Edge nm = new Edge(n, m);
+		final Graph g = new Graph(Arrays.asList(n), new ArrayList<Edge>());
+
+		// record all changes and whether the graph was updating
+		final List<Boolean> changes = new ArrayList<>();
+		ListChangeListener<Object> listener = new ListChangeListener<Object>() {
+			@Override
+			public void onChanged(ListChangeListener.Change<? extends Object> c) {
+				changes.add(g.isUpdating());
+			}
+		};
+		g.getNodes().addListener(listener);
+		g.getEdges().addListener(listener);
+
+		final List<Node> nodesWithinUpdate = new ArrayList<>();
+		g.update(new Consumer<GraphEditor>() {
+			@Override
+			public void accept(GraphEditor editor) {
+				for (int i = 0; i < 100; i++) {
+					Node o = new Node();
+					editor.addNode(o);
+					editor.addEdge(new Edge(n, o));
+				}
+				editor.addNode(m);
+				editor.addEdge(nm);
+				// changes are pending until the update is finished
+				assertEquals(1, g.getNodes().size());
+				assertTrue(g.getEdges().isEmpty());
+				nodesWithinUpdate.addAll(editor.getNodes());
+			}
+		});
+
+		// one intermediate nodes change, and one final edges change
+		assertEquals(Arrays.asList(true, false), changes);
+		assertFalse(g.isUpdating());
+		assertEquals(102, g.getNodes().size());
+		assertEquals(nodesWithinUpdate, g.getNodes());
+		assertEquals(101, g.getEdges().size());
+		assertSame(g, m.getGraph());
+		assertSame(g, nm.getGraph());
+		assertEquals(101, n.getOutgoingEdges().size());
+
+		// removals (and additions of removed elements) are applied in bulk
+		changes.clear();
+		g.update(new Consumer<GraphEditor>() {
+			@Override
+			public void accept(GraphEditor editor) {
+				editor.removeNode(m);
+				editor.removeEdge(nm);
+				editor.removeNode(n);
+				editor.addNode(n);
+			}
+		});
+		assertEquals(Arrays.asList(true, false), changes);
+		assertEquals(101, g.getNodes().size());
+		assertSame(n, g.getNodes().get(100));
+		assertSame(g, n.getGraph());
+		assertNull(m.getGraph());
+		assertNull(nm.getGraph());
+		assertTrue(m.getIncomingEdges().isEmpty());
+
+		// an update that only changes the nodes is notified as final change
+		changes.clear();
+		g.update(new Consumer<GraphEditor>() {
+			@Override
+			public void accept(GraphEditor editor) {
+				editor.addNode(m);
+			}
+		});
+		assertEquals(Arrays.asList(false), changes);
+
+		// an update without effective changes is not notified
+		changes.clear();
+		g.update(new Consumer<GraphEditor>() {
+			@Override
+			public void accept(GraphEditor editor) {
+				editor.removeNode(m);
+				editor.addNode(m);
+			}
+		});
+		assertTrue(changes.isEmpty());
+	}
+
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.graph.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.eclipse.gef.graph.Edge;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.Node;
+import org.junit.Test;
+
+public class NodeTests {
+
+	@Test
+	public void adjacencyViewsAreLive() {
+		Node n = new Node();
+		Node m = new Node();
+		Node o = new Node();
+		Edge nm = new Edge(n, m);
+		Graph g = new Graph(Arrays.asList(n, m, o), Arrays.asList(nm));
+
+		Set<Edge> outgoing = n.getOutgoingEdges();
+		Set<Edge> incoming = m.getIncomingEdges();
+		Set<Node> successors = n.getSuccessorNodes();
+		Set<Node> neighbors = m.getNeighbors();
+		assertEquals(Collections.singleton(nm), outgoing);
+		assertEquals(Collections.singleton(nm), incoming);
+		assertEquals(Collections.singleton(m), successors);
+		assertEquals(Collections.singleton(n), neighbors);
+		assertTrue(n.getIncomingEdges().isEmpty());
+
+		// add a parallel edge and an edge to another node
+		Edge nm2 = new Edge(n, m);
+		Edge no = new Edge(n, o);
+		g.getEdges().addAll(nm2, no);
+		assertEquals(3, outgoing.size());
+		assertEquals(2, incoming.size());
+		assertEquals(2, successors.size());
+		assertTrue(successors.contains(o));
+		assertEquals(1, neighbors.size());
+
+		// re-target an edge
+		nm2.setTarget(o);
+		assertEquals(Collections.singleton(nm), incoming);
+		assertEquals(2, o.getIncomingEdges().size());
+		assertEquals(Collections.singleton(n), o.getPredecessorNodes());
+
+		// remove edges
+		g.getEdges().removeAll(nm, nm2);
+		assertTrue(incoming.isEmpty());
+		assertTrue(neighbors.isEmpty());
+		assertEquals(Collections.singleton(no), outgoing);
+		assertEquals(Collections.singleton(no), o.getIncomingEdges());
+		assertFalse(outgoing.contains(nm));
+
+		// edges that are not contained in a graph are not indexed
+		Edge detached = new Edge(o, n);
+		assertTrue(o.getOutgoingEdges().isEmpty());
+		detached.setTarget(m);
+		assertTrue(m.getIncomingEdges().isEmpty());
+	}
+
+	@Test
+	public void adjacencyViewsAreLocal() {
+		Node n = new Node();
+		Node m = new Node();
+		Edge nm = new Edge(n, m);
+		new Graph(Arrays.asList(n, m), Collections.<Edge> emptyList());
+		// the edge belongs to another graph
+		new Graph(Collections.<Node> emptyList(), Arrays.asList(nm));
+		assertTrue(n.getOutgoingEdges().isEmpty());
+		assertTrue(m.getPredecessorNodes().isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void adjacencyViewsAreUnmodifiable() {
+		Node n = new Node();
+		Node m = new Node();
+		new Graph(Arrays.asList(n, m), Arrays.asList(new Edge(n, m)));
+		n.getOutgoingEdges().clear();
+	}
+
+	@Test
+	public void cachedEdgeCountsAreInvalidated() {
+		Node n = new Node();
+		Node m = new Node();
+		Edge nm = new Edge(n, m);
+		Graph g = new Graph(Arrays.asList(n, m), Arrays.asList(nm));
+		Set<Edge> outgoing = n.getOutgoingEdges();
+		assertEquals(1, outgoing.size());
+		assertEquals(1, m.getIncomingEdges().size());
+
+		// changes of the edge indexes
+		Edge nm2 = new Edge(n, m);
+		g.getEdges().add(nm2);
+		assertEquals(2, outgoing.size());
+		assertEquals(2, m.getIncomingEdges().size());
+
+		// an indexed edge is moved to another graph
+		new Graph(Collections.<Node> emptyList(), Arrays.asList(nm2));
+		assertEquals(1, outgoing.size());
+		assertEquals(1, m.getIncomingEdges().size());
+
+		// the node is removed from its graph
+		g.getNodes().remove(n);
+		assertEquals(0, outgoing.size());
+		assertTrue(outgoing.isEmpty());
+	}
+
+	@Test
+	public void cachedNeighborsAreInvalidated() {
+		Node n = new Node();
+		Node m = new Node();
+		Node o = new Node();
+		Edge nm = new Edge(n, m);
+		Graph g = new Graph(Arrays.asList(n, m, o), Arrays.asList(nm));
+		Set<Node> neighbors = n.getNeighbors();
+		assertEquals(Collections.singleton(m), neighbors);
+		assertEquals(Collections.singleton(m), n.getNeighbors());
+
+		// changes of the edge indexes
+		Edge no = new Edge(n, o);
+		g.getEdges().add(no);
+		assertEquals(2, neighbors.size());
+		assertTrue(n.getNeighbors().contains(o));
+		assertEquals(Collections.singleton(n), o.getPredecessorNodes());
+
+		// an indexed edge is moved to another graph
+		new Graph(Collections.<Node> emptyList(), Arrays.asList(no));
+		assertEquals(Collections.singleton(m), neighbors);
+		assertTrue(o.getPredecessorNodes().isEmpty());
+
+		// the node is removed from its graph
+		g.getNodes().remove(n);
+		assertTrue(neighbors.isEmpty());
+		assertFalse(n.getNeighbors().iterator().hasNext());
+	}
+
+	@Test
+	public void replaceEdges() {
+		Node n = new Node();
+		Node m = new Node();
+		Edge nm = new Edge(n, m);
+		Edge mn = new Edge(m, n);
+		Graph g = new Graph(Arrays.asList(n, m), Arrays.asList(nm));
+		// replaced edges that are contained before and after stay indexed
+		g.getEdges().setAll(nm, mn);
+		assertEquals(g, nm.getGraph());
+		assertEquals(Collections.singleton(nm), n.getOutgoingEdges());
+		assertEquals(Collections.singleton(mn), n.getIncomingEdges());
+	}
+
+}
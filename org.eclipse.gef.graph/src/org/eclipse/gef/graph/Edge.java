@@ -291,14 +291,29 @@ public class Edge implements IAttributeStore {
 
 	/**
 	 * Sets the {@link Graph} to which this {@link Edge} belongs to the given
-	 * value.
+	 * value. This {@link Edge} is registered at the edge indexes of its source
+	 * and target {@link Node}s while it belongs to a {@link Graph}.
+	 * <p>
+	 * This method is only called by the {@link Graph} when this {@link Edge}
+	 * is added to or removed from its edges, so that the containment does not
+	 * need to be checked.
 	 *
 	 * @param graph
 	 *            The new {@link Graph} for this {@link Edge}.
 	 */
 	void setGraph(Graph graph) {
-		if (graph != null && !graph.getEdges().contains(this)) {
-			throw new IllegalArgumentException("Edge is not contained in graph " + graph);
+		if (this.graph == null && graph != null) {
+			index(source, target);
+		} else if (this.graph != null && graph == null) {
+			unindex(source, target);
+		} else if (this.graph != graph) {
+			// the local edges of the indexed nodes change
+			if (source != null) {
+				source.indexedEdgeMoved();
+			}
+			if (target != null) {
+				target.indexedEdgeMoved();
+			}
 		}
 		this.graph = graph;
 	}
@@ -310,6 +325,10 @@ public class Edge implements IAttributeStore {
 	 *            The new source {@link Node} for this {@link Edge}.
 	 */
 	public void setSource(Node source) {
+		if (graph != null) {
+			unindex(this.source, null);
+			index(source, null);
+		}
 		this.source = source;
 	}
 
@@ -320,9 +339,31 @@ public class Edge implements IAttributeStore {
 	 *            The new target {@link Node} for this {@link Edge}.
 	 */
 	public void setTarget(Node target) {
+		if (graph != null) {
+			unindex(null, this.target);
+			index(null, target);
+		}
 		this.target = target;
 	}
 
+	private void index(Node source, Node target) {
+		if (source != null) {
+			source.addOutgoingEdge(this);
+		}
+		if (target != null) {
+			target.addIncomingEdge(this);
+		}
+	}
+
+	private void unindex(Node source, Node target) {
+		if (source != null) {
+			source.removeOutgoingEdge(this);
+		}
+		if (target != null) {
+			target.removeIncomingEdge(this);
+		}
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
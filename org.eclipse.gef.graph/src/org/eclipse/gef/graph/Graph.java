@@ -24,6 +24,7 @@ import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import org.eclipse.gef.common.attributes.IAttributeStore;
 import org.eclipse.gef.common.beans.property.ReadOnlyListWrapperEx;
@@ -332,6 +333,12 @@ public final class Graph implements IAttributeStore {
 	 */
 	private Node nestingNode; // when contained as a nested graph within a node
 
+	/**
+	 * Whether the changes of an {@link #update(Consumer)} are currently being
+	 * applied, and further list changes are about to follow.
+	 */
+	private boolean updating = false;
+
 	/**
 	 * Default constructor, using empty collections for attributes, nodes, and
 	 * edges.
@@ -372,12 +379,14 @@ public final class Graph implements IAttributeStore {
 			@Override
 			public void onChanged(ListChangeListener.Change<? extends Node> c) {
 				while (c.next()) {
-					for (Node n : c.getAddedSubList()) {
-						n.setGraph(Graph.this);
-					}
+					// process removals first, so that replaced elements stay
+					// associated
 					for (Node n : c.getRemoved()) {
 						n.setGraph(null);
 					}
+					for (Node n : c.getAddedSubList()) {
+						n.setGraph(Graph.this);
+					}
 				}
 			}
 		});
@@ -385,12 +394,14 @@ public final class Graph implements IAttributeStore {
 			@Override
 			public void onChanged(ListChangeListener.Change<? extends Edge> c) {
 				while (c.next()) {
-					for (Edge e : c.getAddedSubList()) {
-						e.setGraph(Graph.this);
-					}
+					// process removals first, so that replaced elements stay
+					// associated
 					for (Edge e : c.getRemoved()) {
 						e.setGraph(null);
 					}
+					for (Edge e : c.getAddedSubList()) {
+						e.setGraph(Graph.this);
+					}
 				}
 			}
 		});
@@ -403,6 +414,34 @@ public final class Graph implements IAttributeStore {
 		return attributesProperty.getReadOnlyProperty();
 	}
 
+	/**
+	 * Applies the given node and edge lists as pending changes of an
+	 * {@link #update(Consumer)}, firing at most one change per list.
+	 *
+	 * @param nodes
+	 *            The new {@link Node}s, or <code>null</code> if the nodes did
+	 *            not change.
+	 * @param edges
+	 *            The new {@link Edge}s, or <code>null</code> if the edges did
+	 *            not change.
+	 */
+	void commit(List<Node> nodes, List<Edge> edges) {
+		boolean edgesChanged = edges != null && !edges.equals(edgesProperty);
+		if (nodes != null) {
+			// an edges change follows, so that the nodes change is
+			// intermediate
+			updating = edgesChanged;
+			try {
+				nodesProperty.setAll(nodes);
+			} finally {
+				updating = false;
+			}
+		}
+		if (edgesChanged) {
+			edgesProperty.setAll(edges);
+		}
+	}
+
 	/**
 	 * Returns a read-only list property containing the {@link Edge}s of this
 	 * {@link Graph}.
@@ -460,6 +499,21 @@ public final class Graph implements IAttributeStore {
 		}
 	}
 
+	/**
+	 * Returns <code>true</code> while the changes of an
+	 * {@link #update(Consumer)} are being applied and further changes of the
+	 * same update are about to follow. Listeners that react to changes of both,
+	 * {@link #getNodes()} and {@link #getEdges()}, may ignore changes that are
+	 * notified while this {@link Graph} is updating, as the last change of an
+	 * update is notified after this flag is reset.
+	 *
+	 * @return <code>true</code> while intermediate changes of an update are
+	 *         notified, <code>false</code> otherwise.
+	 */
+	public boolean isUpdating() {
+		return updating;
+	}
+
 	/**
 	 * Returns a read-only list property containing the {@link Node}s of this
 	 * {@link Graph}.
@@ -530,4 +584,22 @@ public final class Graph implements IAttributeStore {
 		return sb.toString();
 	}
 
+	/**
+	 * Applies the changes that the given updater performs on a
+	 * {@link GraphEditor} in bulk, i.e. the {@link #getNodes() nodes} and
+	 * {@link #getEdges() edges} lists are modified only once when the updater
+	 * returns, each firing a single change notification (nodes before edges).
+	 * Listeners that observe both lists can use {@link #isUpdating()} to react
+	 * on the last change of an update only.
+	 *
+	 * @param updater
+	 *            The {@link Consumer} that adds and removes {@link Node}s and
+	 *            {@link Edge}s using the passed in {@link GraphEditor}.
+	 */
+	public void update(Consumer<GraphEditor> updater) {
+		GraphEditor editor = new GraphEditor(this);
+		updater.accept(editor);
+		editor.commit();
+	}
+
 }
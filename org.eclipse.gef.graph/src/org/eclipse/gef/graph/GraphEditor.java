@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link GraphEditor} collects changes to the {@link Node}s and {@link Edge}s
+ * of a {@link Graph} within {@link Graph#update(java.util.function.Consumer)},
+ * so that they can be applied as a single change per list when the update is
+ * finished.
+ * <p>
+ * The pending changes are not visible via {@link Graph#getNodes()} and
+ * {@link Graph#getEdges()} before the update is finished, but they are
+ * reflected by {@link #getNodes()} and {@link #getEdges()}.
+ */
+public class GraphEditor {
+
+	/**
+	 * The pending contents of a single list. Removals are collected within an
+	 * identity set and are only applied when the contents are queried, or when
+	 * a removed element is added again.
+	 *
+	 * @param <T>
+	 *            The element type.
+	 */
+	private static class PendingList<T> {
+
+		private final List<? extends T> original;
+		private List<T> contents;
+		private final Set<T> removed = Collections
+				.newSetFromMap(new IdentityHashMap<T, Boolean>());
+
+		public PendingList(List<? extends T> original) {
+			this.original = original;
+		}
+
+		public void add(T element) {
+			if (removed.contains(element)) {
+				flush();
+			}
+			getOrCreateContents().add(element);
+		}
+
+		private void flush() {
+			if (removed.isEmpty()) {
+				return;
+			}
+			List<T> remaining = new ArrayList<>();
+			for (T element : getOrCreateContents()) {
+				if (!removed.contains(element)) {
+					remaining.add(element);
+				}
+			}
+			removed.clear();
+			contents = remaining;
+		}
+
+		public List<T> get() {
+			flush();
+			return contents == null ? Collections.<T> emptyList()
+					: Collections.unmodifiableList(contents);
+		}
+
+		private List<T> getOrCreateContents() {
+			if (contents == null) {
+				contents = new ArrayList<>(original);
+			}
+			return contents;
+		}
+
+		public boolean isChanged() {
+			return contents != null || !removed.isEmpty();
+		}
+
+		public void remove(T element) {
+			getOrCreateContents();
+			removed.add(element);
+		}
+	}
+
+	private final Graph graph;
+	private final PendingList<Node> nodes;
+	private final PendingList<Edge> edges;
+
+	/**
+	 * Creates a new {@link GraphEditor} for the given {@link Graph}.
+	 *
+	 * @param graph
+	 *            The {@link Graph} that is edited.
+	 */
+	GraphEditor(Graph graph) {
+		this.graph = graph;
+		this.nodes = new PendingList<>(graph.getNodes());
+		this.edges = new PendingList<>(graph.getEdges());
+	}
+
+	/**
+	 * Adds the given {@link Edge} to the {@link Graph}.
+	 *
+	 * @param edge
+	 *            The {@link Edge} to add.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor addEdge(Edge edge) {
+		edges.add(edge);
+		return this;
+	}
+
+	/**
+	 * Adds the given {@link Edge}s to the {@link Graph}.
+	 *
+	 * @param edges
+	 *            The {@link Edge}s to add.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor addEdges(Collection<? extends Edge> edges) {
+		for (Edge e : edges) {
+			addEdge(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the given {@link Edge}s to the {@link Graph}.
+	 *
+	 * @param edges
+	 *            The {@link Edge}s to add.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor addEdges(Edge... edges) {
+		return addEdges(Arrays.asList(edges));
+	}
+
+	/**
+	 * Adds the given {@link Node} to the {@link Graph}.
+	 *
+	 * @param node
+	 *            The {@link Node} to add.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor addNode(Node node) {
+		nodes.add(node);
+		return this;
+	}
+
+	/**
+	 * Adds the given {@link Node}s to the {@link Graph}.
+	 *
+	 * @param nodes
+	 *            The {@link Node}s to add.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor addNodes(Collection<? extends Node> nodes) {
+		for (Node n : nodes) {
+			addNode(n);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the given {@link Node}s to the {@link Graph}.
+	 *
+	 * @param nodes
+	 *            The {@link Node}s to add.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor addNodes(Node... nodes) {
+		return addNodes(Arrays.asList(nodes));
+	}
+
+	/**
+	 * Applies the pending changes to the {@link Graph}.
+	 */
+	void commit() {
+		graph.commit(nodes.isChanged() ? nodes.get() : null,
+				edges.isChanged() ? edges.get() : null);
+	}
+
+	/**
+	 * Returns the {@link Graph} that is edited by this {@link GraphEditor}.
+	 *
+	 * @return The {@link Graph} that is edited.
+	 */
+	public Graph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Returns an unmodifiable list of the {@link Edge}s that the {@link Graph}
+	 * will contain after the update, i.e. including the pending changes.
+	 *
+	 * @return The pending {@link Edge}s of the {@link Graph}.
+	 */
+	public List<Edge> getEdges() {
+		return edges.isChanged() ? edges.get() : graph.getEdges();
+	}
+
+	/**
+	 * Returns an unmodifiable list of the {@link Node}s that the {@link Graph}
+	 * will contain after the update, i.e. including the pending changes.
+	 *
+	 * @return The pending {@link Node}s of the {@link Graph}.
+	 */
+	public List<Node> getNodes() {
+		return nodes.isChanged() ? nodes.get() : graph.getNodes();
+	}
+
+	/**
+	 * Removes the given {@link Edge} from the {@link Graph}.
+	 *
+	 * @param edge
+	 *            The {@link Edge} to remove.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor removeEdge(Edge edge) {
+		edges.remove(edge);
+		return this;
+	}
+
+	/**
+	 * Removes the given {@link Edge}s from the {@link Graph}.
+	 *
+	 * @param edges
+	 *            The {@link Edge}s to remove.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor removeEdges(Collection<? extends Edge> edges) {
+		for (Edge e : edges) {
+			removeEdge(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Removes the given {@link Node} from the {@link Graph}.
+	 *
+	 * @param node
+	 *            The {@link Node} to remove.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor removeNode(Node node) {
+		nodes.remove(node);
+		return this;
+	}
+
+	/**
+	 * Removes the given {@link Node}s from the {@link Graph}.
+	 *
+	 * @param nodes
+	 *            The {@link Node}s to remove.
+	 * @return <code>this</code> for convenience.
+	 */
+	public GraphEditor removeNodes(Collection<? extends Node> nodes) {
+		for (Node n : nodes) {
+			removeNode(n);
+		}
+		return this;
+	}
+
+}
@@ -14,11 +14,15 @@
 package org.eclipse.gef.graph;
 
 import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -209,6 +213,148 @@ public class Node implements IAttributeStore {
 
 	}
 
+	/**
+	 * An unmodifiable live view on the local {@link Edge}s that are contained
+	 * in an edge index of this {@link Node}, i.e. on those indexed edges that
+	 * belong to the {@link #getGraph() associated graph}. The number of local
+	 * edges is cached by the {@link Node} until its edge indexes or its
+	 * {@link Graph} change.
+	 */
+	private class LocalEdgeSet extends AbstractSet<Edge> {
+
+		private final Set<Edge> index;
+
+		public LocalEdgeSet(Set<Edge> index) {
+			this.index = index;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return graph != null && index.contains(o) && ((Edge) o).getGraph() == graph;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size() == 0;
+		}
+
+		@Override
+		public Iterator<Edge> iterator() {
+			final Iterator<Edge> iterator = graph == null ? Collections.<Edge>emptyIterator() : index.iterator();
+			return new Iterator<Edge>() {
+				private Edge next = advance();
+
+				private Edge advance() {
+					while (iterator.hasNext()) {
+						Edge e = iterator.next();
+						if (e.getGraph() == graph) {
+							return e;
+						}
+					}
+					return null;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return next != null;
+				}
+
+				@Override
+				public Edge next() {
+					if (next == null) {
+						throw new NoSuchElementException();
+					}
+					Edge current = next;
+					next = advance();
+					return current;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			validateLocalCaches();
+			int size = index == incomingEdges ? localIncomingEdgeCount : localOutgoingEdgeCount;
+			if (size < 0) {
+				size = 0;
+				for (Iterator<Edge> it = iterator(); it.hasNext(); it.next()) {
+					size++;
+				}
+				if (index == incomingEdges) {
+					localIncomingEdgeCount = size;
+				} else {
+					localOutgoingEdgeCount = size;
+				}
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * An unmodifiable live view on the (distinct) local predecessor and/or
+	 * successor {@link Node}s of this {@link Node}, which is computed from the
+	 * edge indexes of this {@link Node}. The computed nodes are cached by the
+	 * {@link Node} until its edge indexes or its {@link Graph} change.
+	 */
+	private class LocalNodeSet extends AbstractSet<Node> {
+
+		private final boolean predecessors;
+		private final boolean successors;
+
+		public LocalNodeSet(boolean predecessors, boolean successors) {
+			this.predecessors = predecessors;
+			this.successors = successors;
+		}
+
+		private Set<Node> collect() {
+			validateLocalCaches();
+			Set<Node> nodes = predecessors ? (successors ? localNeighbors : localPredecessors) : localSuccessors;
+			if (nodes != null) {
+				return nodes;
+			}
+			nodes = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+			if (predecessors) {
+				for (Edge e : getIncomingEdges()) {
+					nodes.add(e.getSource());
+				}
+			}
+			if (successors) {
+				for (Edge e : getOutgoingEdges()) {
+					nodes.add(e.getTarget());
+				}
+			}
+			nodes = Collections.unmodifiableSet(nodes);
+			if (predecessors && successors) {
+				localNeighbors = nodes;
+			} else if (predecessors) {
+				localPredecessors = nodes;
+			} else {
+				localSuccessors = nodes;
+			}
+			return nodes;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return collect().contains(o);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return (!predecessors || getIncomingEdges().isEmpty()) && (!successors || getOutgoingEdges().isEmpty());
+		}
+
+		@Override
+		public Iterator<Node> iterator() {
+			return collect().iterator();
+		}
+
+		@Override
+		public int size() {
+			return collect().size();
+		}
+	}
+
 	private final ReadOnlyMapWrapper<String, Object> attributesProperty = new ReadOnlyMapWrapperEx<>(this,
 			ATTRIBUTES_PROPERTY, FXCollections.<String, Object>observableHashMap());
 
@@ -221,6 +367,30 @@ public class Node implements IAttributeStore {
 	 */
 	private Graph nestedGraph;
 
+	/**
+	 * The {@link Edge}s that have this {@link Node} as their target, indexed
+	 * while they are contained in a {@link Graph}.
+	 */
+	private final Set<Edge> incomingEdges = new LinkedHashSet<>();
+	/**
+	 * The {@link Edge}s that have this {@link Node} as their source, indexed
+	 * while they are contained in a {@link Graph}.
+	 */
+	private final Set<Edge> outgoingEdges = new LinkedHashSet<>();
+	/**
+	 * The number of modifications of the edge indexes, which is used to
+	 * invalidate the cached local predecessors, successors, and neighbors, as
+	 * well as the cached numbers of local incoming and outgoing edges.
+	 */
+	private int edgeIndexModificationCount;
+	private int localCachesModificationCount = -1;
+	private Graph localCachesGraph;
+	private Set<Node> localPredecessors;
+	private Set<Node> localSuccessors;
+	private Set<Node> localNeighbors;
+	private int localIncomingEdgeCount = -1;
+	private int localOutgoingEdgeCount = -1;
+
 	/**
 	 * Constructs a new {@link Node}.
 	 */
@@ -242,6 +412,30 @@ public class Node implements IAttributeStore {
 		this.attributesProperty.putAll(attributes);
 	}
 
+	/**
+	 * Adds the given {@link Edge} to the incoming edge index of this
+	 * {@link Node}.
+	 *
+	 * @param edge
+	 *            The {@link Edge} that targets this {@link Node}.
+	 */
+	void addIncomingEdge(Edge edge) {
+		incomingEdges.add(edge);
+		edgeIndexModificationCount++;
+	}
+
+	/**
+	 * Adds the given {@link Edge} to the outgoing edge index of this
+	 * {@link Node}.
+	 *
+	 * @param edge
+	 *            The {@link Edge} that originates at this {@link Node}.
+	 */
+	void addOutgoingEdge(Edge edge) {
+		outgoingEdges.add(edge);
+		edgeIndexModificationCount++;
+	}
+
 	@Override
 	public ReadOnlyMapProperty<String, Object> attributesProperty() {
 		return attributesProperty.getReadOnlyProperty();
@@ -353,35 +547,29 @@ public class Node implements IAttributeStore {
 
 	/**
 	 * Returns the local incoming {@link Edge}s of this {@link Node}. Only the
-	 * {@link #getGraph() associated graph} is scanned for incoming edges, and
-	 * not the whole graph hierarchy.
+	 * {@link #getGraph() associated graph} is considered for incoming edges,
+	 * and not the whole graph hierarchy.
+	 * <p>
+	 * The returned {@link Set} is an unmodifiable live view, which is backed by
+	 * an edge index of this {@link Node}, so that it can be iterated in
+	 * <code>O(degree)</code>. Its size is cached until the edges of this
+	 * {@link Node} change.
 	 *
 	 * @return The local incoming {@link Edge}s.
 	 */
 	public Set<Edge> getIncomingEdges() {
-		if (graph == null) {
-			return Collections.emptySet();
-		}
-		Set<Edge> incoming = Collections.newSetFromMap(new IdentityHashMap<Edge, Boolean>());
-		for (Edge e : graph.getEdges()) {
-			if (e.getTarget() == this) {
-				incoming.add(e);
-			}
-		}
-		return incoming;
+		return new LocalEdgeSet(incomingEdges);
 	}
 
 	/**
 	 * Returns all (local) neighbors of this {@link Node}, i.e. the union of the
-	 * {@link #getPredecessorNodes()} and {@link #getSuccessorNodes()} .
+	 * {@link #getPredecessorNodes()} and {@link #getSuccessorNodes()}. The
+	 * returned {@link Set} is an unmodifiable live view.
 	 *
 	 * @return All (local) neighbors of this {@link Node}.
 	 */
 	public Set<Node> getNeighbors() {
-		Set<Node> neighbors = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
-		neighbors.addAll(getPredecessorNodes());
-		neighbors.addAll(getSuccessorNodes());
-		return neighbors;
+		return new LocalNodeSet(true, true);
 	}
 
 	/**
@@ -397,65 +585,87 @@ public class Node implements IAttributeStore {
 
 	/**
 	 * Returns the local outgoing {@link Edge}s of this {@link Node}. Only the
-	 * {@link #getGraph() associated graph} is scanned for outgoing edges, and
-	 * not the whole graph hierarchy.
+	 * {@link #getGraph() associated graph} is considered for outgoing edges,
+	 * and not the whole graph hierarchy.
+	 * <p>
+	 * The returned {@link Set} is an unmodifiable live view, which is backed by
+	 * an edge index of this {@link Node}, so that it can be iterated in
+	 * <code>O(degree)</code>. Its size is cached until the edges of this
+	 * {@link Node} change.
 	 *
 	 * @return The local outgoing {@link Edge}s.
 	 */
 	public Set<Edge> getOutgoingEdges() {
-		if (graph == null) {
-			return Collections.emptySet();
-		}
-		Set<Edge> outgoing = Collections.newSetFromMap(new IdentityHashMap<Edge, Boolean>());
-		for (Edge e : graph.getEdges()) {
-			if (e.getSource() == this) {
-				outgoing.add(e);
-			}
-		}
-		return outgoing;
+		return new LocalEdgeSet(outgoingEdges);
 	}
 
 	/**
 	 * Returns the local predecessor {@link Node}s of this {@link Node}. Only
-	 * the {@link #getGraph() associated graph} is scanned for predecessor
-	 * nodes, and not the whole graph hierarchy.
+	 * the {@link #getGraph() associated graph} is considered for predecessor
+	 * nodes, and not the whole graph hierarchy. The returned {@link Set} is an
+	 * unmodifiable live view.
 	 *
 	 * @return The local predecessor {@link Node}s.
 	 */
 	public Set<Node> getPredecessorNodes() {
-		Set<Node> predecessors = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
-		for (Edge incoming : getIncomingEdges()) {
-			predecessors.add(incoming.getSource());
-		}
-		return predecessors;
+		return new LocalNodeSet(true, false);
 	}
 
 	/**
 	 * Returns the local successor {@link Node}s of this {@link Node}. Only the
-	 * {@link #getGraph() associated graph} is scanned for successor nodes, and
-	 * not the whole graph hierarchy.
+	 * {@link #getGraph() associated graph} is considered for successor nodes,
+	 * and not the whole graph hierarchy. The returned {@link Set} is an
+	 * unmodifiable live view.
 	 *
 	 * @return The local successor {@link Node}s.
 	 */
 	public Set<Node> getSuccessorNodes() {
-		Set<Node> successors = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
-		for (Edge outgoing : getOutgoingEdges()) {
-			successors.add(outgoing.getTarget());
-		}
-		return successors;
+		return new LocalNodeSet(false, true);
+	}
+
+	/**
+	 * Removes the given {@link Edge} from the incoming edge index of this
+	 * {@link Node}.
+	 *
+	 * @param edge
+	 *            The {@link Edge} to remove from the index.
+	 */
+	void removeIncomingEdge(Edge edge) {
+		incomingEdges.remove(edge);
+		edgeIndexModificationCount++;
+	}
+
+	/**
+	 * Removes the given {@link Edge} from the outgoing edge index of this
+	 * {@link Node}.
+	 *
+	 * @param edge
+	 *            The {@link Edge} to remove from the index.
+	 */
+	void removeOutgoingEdge(Edge edge) {
+		outgoingEdges.remove(edge);
+		edgeIndexModificationCount++;
+	}
+
+	/**
+	 * Notifies this {@link Node} that an indexed {@link Edge} was moved to
+	 * another {@link Graph}, which changes the local edges of this
+	 * {@link Node} although the edge indexes did not change.
+	 */
+	void indexedEdgeMoved() {
+		edgeIndexModificationCount++;
 	}
 
 	/**
 	 * Sets the {@link Graph} to which this {@link Node} belongs to the given
-	 * value.
+	 * value. This method is only called by the {@link Graph} when this
+	 * {@link Node} is added to or removed from its nodes, so that the
+	 * containment does not need to be checked.
 	 *
 	 * @param graph
 	 *            The new {@link Graph} for this {@link Node}.
 	 */
 	void setGraph(Graph graph) {
-		if (graph != null && !graph.getNodes().contains(this)) {
-			throw new IllegalArgumentException("Node is not contained in graph " + graph);
-		}
 		this.graph = graph;
 	}
 
@@ -496,4 +706,21 @@ public class Node implements IAttributeStore {
 		return sb.toString();
 	}
 
+	/**
+	 * Discards the cached local predecessors, successors, neighbors, and edge
+	 * counts if the edge indexes or the {@link Graph} of this {@link Node}
+	 * changed since they were computed.
+	 */
+	private void validateLocalCaches() {
+		if (localCachesModificationCount != edgeIndexModificationCount || localCachesGraph != graph) {
+			localPredecessors = null;
+			localSuccessors = null;
+			localNeighbors = null;
+			localIncomingEdgeCount = -1;
+			localOutgoingEdgeCount = -1;
+			localCachesModificationCount = edgeIndexModificationCount;
+			localCachesGraph = graph;
+		}
+	}
+
 }
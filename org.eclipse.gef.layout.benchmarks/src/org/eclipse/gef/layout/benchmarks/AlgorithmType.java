@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.benchmarks;
+
+import java.util.function.Supplier;
+
+import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.BoxLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.ComponentLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.GridLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.HorizontalShiftAlgorithm;
+import org.eclipse.gef.layout.algorithms.MultilevelLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.RadialLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.SpaceTreeLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.SpringLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.StressLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm.Direction;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm.RankingLayerProvider;
+import org.eclipse.gef.layout.algorithms.TreeLayoutAlgorithm;
+
+/**
+ * The {@link ILayoutAlgorithm}s that are benchmarked, each in its default
+ * configuration (unless stated otherwise).
+ */
+public enum AlgorithmType {
+
+	/**
+	 * The {@link BoxLayoutAlgorithm}.
+	 */
+	BOX {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new BoxLayoutAlgorithm();
+		}
+	},
+
+	/**
+	 * The {@link ComponentLayoutAlgorithm}, laying out the components in
+	 * parallel using {@link SpringLayoutAlgorithm}s with Barnes-Hut
+	 * approximation.
+	 */
+	COMPONENT {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new ComponentLayoutAlgorithm(
+					new Supplier<ILayoutAlgorithm>() {
+						@Override
+						public ILayoutAlgorithm get() {
+							return SPRING_BARNES_HUT.create();
+						}
+					});
+		}
+	},
+
+	/**
+	 * The {@link GridLayoutAlgorithm}.
+	 */
+	GRID {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new GridLayoutAlgorithm();
+		}
+	},
+
+	/**
+	 * The {@link HorizontalShiftAlgorithm}.
+	 */
+	HORIZONTAL_SHIFT {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new HorizontalShiftAlgorithm();
+		}
+	},
+
+	/**
+	 * The {@link MultilevelLayoutAlgorithm}.
+	 */
+	MULTILEVEL {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new MultilevelLayoutAlgorithm();
+		}
+	},
+
+	/**
+	 * The {@link RadialLayoutAlgorithm}.
+	 */
+	RADIAL {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new RadialLayoutAlgorithm();
+		}
+	},
+
+	/**
+	 * The {@link SpaceTreeLayoutAlgorithm}.
+	 */
+	SPACE_TREE {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new SpaceTreeLayoutAlgorithm();
+		}
+	},
+
+	/**
+	 * The {@link SpringLayoutAlgorithm} with exact repulsion, which is
+	 * quadratic in the number of nodes per iteration.
+	 */
+	SPRING {
+		@Override
+		public ILayoutAlgorithm create() {
+			SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm();
+			algorithm.setRandomSeed(SEED);
+			return algorithm;
+		}
+	},
+
+	/**
+	 * The {@link SpringLayoutAlgorithm} with Barnes-Hut approximation.
+	 */
+	SPRING_BARNES_HUT {
+		@Override
+		public ILayoutAlgorithm create() {
+			SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm();
+			algorithm.setRandomSeed(SEED);
+			algorithm.setSpringBarnesHut(true);
+			return algorithm;
+		}
+	},
+
+	/**
+	 * The {@link StressLayoutAlgorithm}.
+	 */
+	STRESS {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new StressLayoutAlgorithm();
+		}
+	},
+
+	/**
+	 * The {@link SugiyamaLayoutAlgorithm} using a {@link RankingLayerProvider},
+	 * as the default layer provider is limited to a depth of 10 layers.
+	 */
+	SUGIYAMA {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new SugiyamaLayoutAlgorithm(Direction.VERTICAL,
+					new RankingLayerProvider());
+		}
+	},
+
+	/**
+	 * The {@link TreeLayoutAlgorithm}.
+	 */
+	TREE {
+		@Override
+		public ILayoutAlgorithm create() {
+			return new TreeLayoutAlgorithm();
+		}
+	};
+
+	// the seed used for randomized algorithms, so that runs are comparable
+	private static final long SEED = 42;
+
+	/**
+	 * Creates a new instance of the {@link ILayoutAlgorithm}.
+	 *
+	 * @return A new {@link ILayoutAlgorithm} instance.
+	 */
+	public abstract ILayoutAlgorithm create();
+
+}
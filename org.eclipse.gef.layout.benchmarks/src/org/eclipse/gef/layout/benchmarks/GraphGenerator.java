@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
+import org.eclipse.gef.geometry.planar.Rectangle;
+import org.eclipse.gef.graph.Edge;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.Node;
+import org.eclipse.gef.layout.LayoutProperties;
+
+/**
+ * The {@link GraphGenerator} creates synthetic {@link Graph}s of a given size
+ * for benchmarking layout algorithms. All graphs are deterministic for a given
+ * seed. The nodes are placed randomly within the layout bounds, which grow
+ * with the square root of the number of nodes (800 x 600 for 100 nodes), and
+ * are all of size 20 x 10.
+ */
+public final class GraphGenerator {
+
+	private static final Dimension NODE_SIZE = new Dimension(20, 10);
+
+	private GraphGenerator() {
+		// utility class
+	}
+
+	private static Graph createGraph(List<Node> nodes, List<Edge> edges,
+			Random random) {
+		double scale = Math.max(1, Math.sqrt(nodes.size() / 100d));
+		Rectangle bounds = new Rectangle(0, 0, 800 * scale, 600 * scale);
+		for (Node node : nodes) {
+			LayoutProperties.setLocation(node,
+					new Point(random.nextDouble() * bounds.getWidth(),
+							random.nextDouble() * bounds.getHeight()));
+			LayoutProperties.setSize(node, NODE_SIZE.getCopy());
+		}
+		Graph graph = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(graph, bounds);
+		return graph;
+	}
+
+	private static List<Node> createNodes(int size) {
+		List<Node> nodes = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			nodes.add(new Node());
+		}
+		return nodes;
+	}
+
+	/**
+	 * Creates a layered directed acyclic graph. The nodes are distributed
+	 * among (approximately) <code>sqrt(size)</code> layers, and every node
+	 * that is not part of the first layer has one to three predecessors, which
+	 * are mostly located within the preceding layer.
+	 *
+	 * @param size
+	 *            The number of nodes.
+	 * @param seed
+	 *            The seed for the random number generator.
+	 * @return The generated {@link Graph}.
+	 */
+	public static Graph dag(int size, long seed) {
+		Random random = new Random(seed);
+		List<Node> nodes = createNodes(size);
+		List<Edge> edges = new ArrayList<>();
+		int width = Math.max(1, (int) Math.sqrt(size));
+		for (int i = width; i < size; i++) {
+			int layerStart = i / width * width;
+			int predecessors = 1 + random.nextInt(3);
+			for (int p = 0; p < predecessors; p++) {
+				// 80% of the edges span a single layer
+				int source = random.nextInt(5) > 0
+						? layerStart - width + random.nextInt(width)
+						: random.nextInt(layerStart);
+				edges.add(new Edge(nodes.get(source), nodes.get(i)));
+			}
+		}
+		return createGraph(nodes, edges, random);
+	}
+
+	/**
+	 * Creates a forest of random trees, which consist of 1 to 100 nodes each.
+	 *
+	 * @param size
+	 *            The number of nodes.
+	 * @param seed
+	 *            The seed for the random number generator.
+	 * @return The generated {@link Graph}.
+	 */
+	public static Graph forest(int size, long seed) {
+		Random random = new Random(seed);
+		List<Node> nodes = createNodes(size);
+		List<Edge> edges = new ArrayList<>();
+		int root = 0;
+		while (root < size) {
+			int treeSize = Math.min(size - root, 1 + random.nextInt(100));
+			for (int i = root + 1; i < root + treeSize; i++) {
+				edges.add(new Edge(nodes.get(root + random.nextInt(i - root)),
+						nodes.get(i)));
+			}
+			root += treeSize;
+		}
+		return createGraph(nodes, edges, random);
+	}
+
+	/**
+	 * Creates a (nearly square) grid graph, in which every node is connected to
+	 * its right and bottom neighbor.
+	 *
+	 * @param size
+	 *            The number of nodes.
+	 * @param seed
+	 *            The seed for the random number generator.
+	 * @return The generated {@link Graph}.
+	 */
+	public static Graph grid(int size, long seed) {
+		Random random = new Random(seed);
+		List<Node> nodes = createNodes(size);
+		List<Edge> edges = new ArrayList<>();
+		int columns = Math.max(1, (int) Math.ceil(Math.sqrt(size)));
+		for (int i = 0; i < size; i++) {
+			if ((i + 1) % columns != 0 && i + 1 < size) {
+				edges.add(new Edge(nodes.get(i), nodes.get(i + 1)));
+			}
+			if (i + columns < size) {
+				edges.add(new Edge(nodes.get(i), nodes.get(i + columns)));
+			}
+		}
+		return createGraph(nodes, edges, random);
+	}
+
+	/**
+	 * Creates a scale-free graph using the preferential attachment model of
+	 * Barabási and Albert, where every new node is connected to two existing
+	 * nodes, which are chosen with a probability proportional to their degree.
+	 *
+	 * @param size
+	 *            The number of nodes.
+	 * @param seed
+	 *            The seed for the random number generator.
+	 * @return The generated {@link Graph}.
+	 */
+	public static Graph scaleFree(int size, long seed) {
+		Random random = new Random(seed);
+		List<Node> nodes = createNodes(size);
+		List<Edge> edges = new ArrayList<>();
+		// every node occurs once per incident edge, so that sampling from the
+		// endpoints is proportional to the degree
+		int[] endpoints = new int[4 * size];
+		int endpointCount = 0;
+		if (size > 1) {
+			edges.add(new Edge(nodes.get(0), nodes.get(1)));
+			endpoints[endpointCount++] = 0;
+			endpoints[endpointCount++] = 1;
+		}
+		for (int i = 2; i < size; i++) {
+			int first = endpoints[random.nextInt(endpointCount)];
+			int second = endpoints[random.nextInt(endpointCount)];
+			edges.add(new Edge(nodes.get(first), nodes.get(i)));
+			endpoints[endpointCount++] = first;
+			endpoints[endpointCount++] = i;
+			if (second != first) {
+				edges.add(new Edge(nodes.get(second), nodes.get(i)));
+				endpoints[endpointCount++] = second;
+				endpoints[endpointCount++] = i;
+			}
+		}
+		return createGraph(nodes, edges, random);
+	}
+
+	/**
+	 * Creates a random tree, in which the parent of every node is chosen
+	 * uniformly among the previously created nodes.
+	 *
+	 * @param size
+	 *            The number of nodes.
+	 * @param seed
+	 *            The seed for the random number generator.
+	 * @return The generated {@link Graph}.
+	 */
+	public static Graph tree(int size, long seed) {
+		Random random = new Random(seed);
+		List<Node> nodes = createNodes(size);
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 1; i < size; i++) {
+			edges.add(new Edge(nodes.get(random.nextInt(i)), nodes.get(i)));
+		}
+		return createGraph(nodes, edges, random);
+	}
+
+}
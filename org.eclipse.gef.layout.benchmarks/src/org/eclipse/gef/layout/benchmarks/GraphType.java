@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.benchmarks;
+
+import org.eclipse.gef.graph.Graph;
+
+/**
+ * The kinds of synthetic {@link Graph}s that are generated by the
+ * {@link GraphGenerator} for benchmarking.
+ */
+public enum GraphType {
+
+	/**
+	 * A random tree, see {@link GraphGenerator#tree(int, long)}.
+	 */
+	TREE {
+		@Override
+		public Graph generate(int size, long seed) {
+			return GraphGenerator.tree(size, seed);
+		}
+	},
+
+	/**
+	 * A layered directed acyclic graph, see
+	 * {@link GraphGenerator#dag(int, long)}.
+	 */
+	DAG {
+		@Override
+		public Graph generate(int size, long seed) {
+			return GraphGenerator.dag(size, seed);
+		}
+	},
+
+	/**
+	 * A scale-free graph, see {@link GraphGenerator#scaleFree(int, long)}.
+	 */
+	SCALE_FREE {
+		@Override
+		public Graph generate(int size, long seed) {
+			return GraphGenerator.scaleFree(size, seed);
+		}
+	},
+
+	/**
+	 * A grid graph, see {@link GraphGenerator#grid(int, long)}.
+	 */
+	GRID {
+		@Override
+		public Graph generate(int size, long seed) {
+			return GraphGenerator.grid(size, seed);
+		}
+	},
+
+	/**
+	 * A forest of small random trees, see
+	 * {@link GraphGenerator#forest(int, long)}.
+	 */
+	FOREST {
+		@Override
+		public Graph generate(int size, long seed) {
+			return GraphGenerator.forest(size, seed);
+		}
+	};
+
+	/**
+	 * Generates a {@link Graph} of this type.
+	 *
+	 * @param size
+	 *            The number of nodes.
+	 * @param seed
+	 *            The seed for the random number generator.
+	 * @return The generated {@link Graph}.
+	 */
+	public abstract Graph generate(int size, long seed);
+
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.Node;
+import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.LayoutContext;
+import org.eclipse.gef.layout.LayoutProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a single (full) layout pass of an {@link ILayoutAlgorithm} (see
+ * {@link AlgorithmType}) on a synthetic {@link Graph} (see {@link GraphType})
+ * of a given size.
+ * <p>
+ * Since a layout pass takes milliseconds to minutes, every iteration consists
+ * of a single layout pass ({@link Mode#SingleShotTime}), which is performed
+ * on the initial (random) node locations and with a new algorithm instance.
+ * Note that the complete parameter matrix takes very long to run, because
+ * some algorithms are quadratic (or worse) in the number of nodes, e.g. the
+ * {@link AlgorithmType#SPRING} algorithm (without Barnes-Hut approximation),
+ * or the {@link AlgorithmType#SPACE_TREE} algorithm for graphs that are not
+ * trees. Use JMH's <code>-p</code> option to restrict the parameters (e.g.
+ * <code>-p size=100,1000 -p algorithm=TREE,SUGIYAMA</code>).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class LayoutBenchmark {
+
+	// the seed for generating the graphs, so that runs are comparable
+	private static final long SEED = 4711;
+
+	/**
+	 * The {@link ILayoutAlgorithm} to benchmark.
+	 */
+	@Param
+	public AlgorithmType algorithm;
+
+	/**
+	 * The kind of {@link Graph} to lay out.
+	 */
+	@Param
+	public GraphType graphType;
+
+	/**
+	 * The number of nodes of the {@link Graph}.
+	 */
+	@Param({ "100", "1000", "10000", "100000" })
+	public int size;
+
+	private LayoutContext context;
+	private Point[] initialLocations;
+	private Dimension[] initialSizes;
+
+	/**
+	 * Performs a full layout pass.
+	 *
+	 * @return The {@link LayoutContext}, so that the computation cannot be
+	 *         eliminated.
+	 */
+	@Benchmark
+	public LayoutContext layout() {
+		context.applyLayout(true);
+		return context;
+	}
+
+	/**
+	 * Restores the initial locations and sizes of the nodes, and creates a new
+	 * {@link ILayoutAlgorithm} instance, so that every iteration performs the
+	 * same computation.
+	 */
+	@Setup(Level.Iteration)
+	public void reset() {
+		List<Node> nodes = context.getGraph().getNodes();
+		for (int i = 0; i < initialLocations.length; i++) {
+			LayoutProperties.setLocation(nodes.get(i),
+					initialLocations[i].getCopy());
+			LayoutProperties.setSize(nodes.get(i), initialSizes[i].getCopy());
+		}
+		context.setLayoutAlgorithm(algorithm.create());
+	}
+
+	/**
+	 * Generates the {@link Graph} and remembers the initial locations and
+	 * sizes of its nodes.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		Graph graph = graphType.generate(size, SEED);
+		List<Node> nodes = graph.getNodes();
+		initialLocations = new Point[nodes.size()];
+		initialSizes = new Dimension[nodes.size()];
+		for (int i = 0; i < initialLocations.length; i++) {
+			initialLocations[i] = LayoutProperties.getLocation(nodes.get(i));
+			initialSizes[i] = LayoutProperties.getSize(nodes.get(i));
+		}
+		context = new LayoutContext();
+		context.setGraph(graph);
+	}
+
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link LayoutBenchmark} with the {@link GCProfiler} (allocation
+ * rate) and the {@link PeakMemoryProfiler} (peak heap usage) enabled, and
+ * writes the results in JSON format to <code>layout-benchmarks.json</code>,
+ * so that they can be tracked over time. All JMH command line options are
+ * supported and take precedence, e.g. <code>-rff</code> to change the result
+ * file, or <code>-p</code> to restrict the benchmark parameters.
+ */
+public class LayoutBenchmarks {
+
+	/**
+	 * Runs the layout benchmarks.
+	 *
+	 * @param args
+	 *            The JMH command line options.
+	 * @throws CommandLineOptionException
+	 *             If the command line options cannot be parsed.
+	 * @throws RunnerException
+	 *             If the benchmarks cannot be run.
+	 */
+	public static void main(String[] args)
+			throws CommandLineOptionException, RunnerException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLineOptions);
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			builder.include(LayoutBenchmark.class.getName());
+		}
+		if (!commandLineOptions.getResultFormat().hasValue()) {
+			builder.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLineOptions.getResult().hasValue()) {
+			builder.result("layout-benchmarks.json");
+		}
+		if (commandLineOptions.getProfilers().isEmpty()) {
+			builder.addProfiler(GCProfiler.class);
+			builder.addProfiler(PeakMemoryProfiler.class);
+		}
+		Options options = builder.build();
+		new Runner(options).run();
+	}
+
+}
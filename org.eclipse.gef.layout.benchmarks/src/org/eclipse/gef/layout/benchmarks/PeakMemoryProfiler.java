@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * A JMH profiler that reports the peak heap usage of each iteration. Before an
+ * iteration, a garbage collection is requested and the peak usage of all heap
+ * memory pools is reset. After the iteration, the heap usage that was retained
+ * before the iteration (<code>heap.retained</code>), and the sum of the peak
+ * usages of the heap memory pools (<code>heap.peak</code>) are reported. As
+ * the pools do not necessarily reach their peaks at the same time, the latter
+ * is an upper bound of the actual peak heap usage.
+ * <p>
+ * The profiler can be enabled using
+ * <code>-prof org.eclipse.gef.layout.benchmarks.PeakMemoryProfiler</code>.
+ */
+public class PeakMemoryProfiler implements InternalProfiler {
+
+	private static final double MB = 1024 * 1024;
+
+	private long retained;
+
+	@Override
+	public Collection<? extends Result> afterIteration(
+			BenchmarkParams benchmarkParams, IterationParams iterationParams,
+			IterationResult result) {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : getHeapPools()) {
+			peak += pool.getPeakUsage().getUsed();
+		}
+		List<Result> results = new ArrayList<>();
+		results.add(new ScalarResult("heap.peak", peak / MB, "MB",
+				AggregationPolicy.MAX));
+		results.add(new ScalarResult("heap.retained", retained / MB, "MB",
+				AggregationPolicy.AVG));
+		return results;
+	}
+
+	@Override
+	public void beforeIteration(BenchmarkParams benchmarkParams,
+			IterationParams iterationParams) {
+		System.gc();
+		retained = 0;
+		for (MemoryPoolMXBean pool : getHeapPools()) {
+			retained += pool.getUsage().getUsed();
+			pool.resetPeakUsage();
+		}
+	}
+
+	@Override
+	public String getDescription() {
+		return "Peak heap usage per iteration";
+	}
+
+	private List<MemoryPoolMXBean> getHeapPools() {
+		List<MemoryPoolMXBean> pools = new ArrayList<>();
+		for (MemoryPoolMXBean pool : ManagementFactory
+				.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+
+}
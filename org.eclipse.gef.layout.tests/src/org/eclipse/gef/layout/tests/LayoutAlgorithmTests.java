@@ -10,11 +10,58 @@
  *******************************************************************************/
 package org.eclipse.gef.layout.tests;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
+import org.eclipse.gef.geometry.planar.Rectangle;
+import org.eclipse.gef.graph.Edge;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.Node;
 import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.ILayoutFilter;
+import org.eclipse.gef.layout.LayoutCache;
+import org.eclipse.gef.layout.LayoutContext;
+import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
+import org.eclipse.gef.layout.algorithms.ComponentLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.ConstrainedSpringLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.MultilevelLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.RadialLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.SpringLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.StressLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm.BrandesKoepfCoordinateAssigner;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm.Direction;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm.LayerSweepCrossingReducer;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm.RankingLayerProvider;
+import org.eclipse.gef.layout.algorithms.SugiyamaLayoutAlgorithm.RankingLayerProvider.Ranking;
+import org.eclipse.gef.layout.algorithms.TreeLayoutAlgorithm;
 import org.eclipse.gef.layout.algorithms.TreeLayoutHelper;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javafx.collections.MapChangeListener;
+
 /**
  * Tests involving the {@link ILayoutAlgorithm} interface.
  *
@@ -83,4 +130,1144 @@ public class LayoutAlgorithmTests {
 		Assert.assertFalse(node3.isAncestorOf(node4));
 		Assert.assertFalse(node4.isAncestorOf(node3));
 	}
+
+	/**
+	 * Creates a random tree with the given number of nodes, which are placed
+	 * randomly within bounds of 800 x 600.
+	 */
+	private static Graph createRandomTree(int numberOfNodes, long seed) {
+		Random random = new Random(seed);
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 0; i < numberOfNodes; i++) {
+			Node node = new Node();
+			LayoutProperties.setLocation(node, new Point(
+					random.nextDouble() * 800, random.nextDouble() * 600));
+			LayoutProperties.setSize(node, new Dimension(20, 10));
+			nodes.add(node);
+			if (i > 0) {
+				edges.add(new Edge(nodes.get(random.nextInt(i)), node));
+			}
+		}
+		Graph graph = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(graph, new Rectangle(0, 0, 800, 600));
+		return graph;
+	}
+
+	private static void assertWithinBounds(Graph graph) {
+		Rectangle bounds = LayoutProperties.getBounds(graph);
+		for (Node node : graph.getNodes()) {
+			Point location = LayoutProperties.getLocation(node);
+			Assert.assertFalse(Double.isNaN(location.x));
+			Assert.assertFalse(Double.isNaN(location.y));
+			Assert.assertTrue(bounds.getExpanded(1, 1).contains(location));
+		}
+	}
+
+	/**
+	 * Ensures the Barnes-Hut approximation of the
+	 * {@link SpringLayoutAlgorithm} places all nodes within the layout bounds.
+	 */
+	@Test
+	public void testSpringLayoutBarnesHut() {
+		Graph graph = createRandomTree(300, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm();
+		algorithm.setSpringBarnesHut(true);
+		algorithm.setSpringTimeout(0);
+		algorithm.setIterations(50);
+		context.setLayoutAlgorithm(algorithm);
+		context.applyLayout(true);
+		assertWithinBounds(graph);
+	}
+
+	/**
+	 * Ensures the parallel computation of the {@link SpringLayoutAlgorithm}
+	 * is reproducible when using a fixed random seed, and that it computes
+	 * the same layout as the serial computation. As the forces are summed up
+	 * in a different order, both only agree up to rounding errors, which are
+	 * amplified by every iteration, so that they are compared after a few
+	 * iterations only.
+	 */
+	@Test
+	public void testSpringLayoutParallelIsDeterministic() {
+		Point[] parallel = computeSpringLayout(true, 50);
+		Point[] repeated = computeSpringLayout(true, 50);
+		for (int i = 0; i < parallel.length; i++) {
+			Assert.assertEquals(parallel[i], repeated[i]);
+		}
+		parallel = computeSpringLayout(true, 5);
+		Point[] serial = computeSpringLayout(false, 5);
+		for (int i = 0; i < parallel.length; i++) {
+			Assert.assertEquals(serial[i].x, parallel[i].x, 1e-6);
+			Assert.assertEquals(serial[i].y, parallel[i].y, 1e-6);
+		}
+	}
+
+	private Point[] computeSpringLayout(boolean parallel, int iterations) {
+		Graph graph = createRandomTree(300, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm();
+		algorithm.setSpringParallel(parallel);
+		algorithm.setRandomSeed(7L);
+		algorithm.setSpringTimeout(0);
+		algorithm.setIterations(iterations);
+		context.setLayoutAlgorithm(algorithm);
+		context.applyLayout(true);
+		assertWithinBounds(graph);
+		Point[] locations = new Point[graph.getNodes().size()];
+		for (int i = 0; i < locations.length; i++) {
+			locations[i] = LayoutProperties
+					.getLocation(graph.getNodes().get(i));
+		}
+		return locations;
+	}
+
+	/**
+	 * Ensures an asynchronous layout pass publishes its results (and performs
+	 * the post-layout pass) using the publish executor, and that a cancelled
+	 * layout pass does not publish anything.
+	 */
+	@Test
+	public void testApplyLayoutAsync() {
+		final Graph graph = createRandomTree(100, 42);
+		final Node node = graph.getNodes().get(5);
+		final Point initialLocation = LayoutProperties.getLocation(node);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm();
+		algorithm.setSpringTimeout(0);
+		algorithm.setIterations(20);
+		context.setLayoutAlgorithm(algorithm);
+		final List<Runnable> published = new ArrayList<>();
+		Executor publishExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				published.add(command);
+			}
+		};
+		final boolean[] postLayout = new boolean[1];
+		context.schedulePostLayoutPass(new Runnable() {
+			@Override
+			public void run() {
+				postLayout[0] = true;
+			}
+		});
+
+		// cancelled layout pass is not published
+		CompletableFuture<Void> layoutPass = context.applyLayoutAsync(true,
+				ForkJoinPool.commonPool(), publishExecutor, null);
+		layoutPass.cancel(false);
+		ForkJoinPool.commonPool().awaitQuiescence(10,
+				TimeUnit.SECONDS);
+		for (Runnable r : published) {
+			r.run();
+		}
+		Assert.assertFalse(postLayout[0]);
+		Assert.assertSame(initialLocation,
+				LayoutProperties.getLocation(node));
+
+		// completed layout pass is published in one batch
+		published.clear();
+		final double[] progress = new double[1];
+		layoutPass = context.applyLayoutAsync(true, ForkJoinPool.commonPool(),
+				publishExecutor, p -> progress[0] = p);
+		ForkJoinPool.commonPool().awaitQuiescence(10,
+				TimeUnit.SECONDS);
+		Assert.assertEquals(1, published.size());
+		Assert.assertSame(initialLocation,
+				LayoutProperties.getLocation(node));
+		published.get(0).run();
+		Assert.assertTrue(layoutPass.isDone());
+		Assert.assertTrue(postLayout[0]);
+		Assert.assertEquals(1, progress[0], 0);
+		Assert.assertNotSame(initialLocation,
+				LayoutProperties.getLocation(node));
+		assertWithinBounds(graph);
+	}
+
+	/**
+	 * Ensures overlapping asynchronous layout passes do not apply the same
+	 * layout algorithm concurrently, i.e. that a layout pass waits until a
+	 * cancelled layout pass has stopped using the algorithm.
+	 */
+	@Test
+	public void testApplyLayoutAsyncOverlapping() throws InterruptedException {
+		Graph graph = createRandomTree(10, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		final CountDownLatch firstStarted = new CountDownLatch(1);
+		final AtomicInteger passes = new AtomicInteger();
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		context.setLayoutAlgorithm(new ILayoutAlgorithm() {
+			@Override
+			public void applyLayout(LayoutContext layoutContext,
+					boolean clean) {
+				maxRunning.accumulateAndGet(running.incrementAndGet(),
+						Math::max);
+				try {
+					if (passes.incrementAndGet() == 1) {
+						// keep using the algorithm a while after cancellation
+						firstStarted.countDown();
+						while (!layoutContext.isLayoutCancelled()) {
+							Thread.sleep(1);
+						}
+						Thread.sleep(100);
+					}
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		});
+		Executor layoutExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				new Thread(command).start();
+			}
+		};
+		final List<Runnable> published = Collections
+				.synchronizedList(new ArrayList<Runnable>());
+		Executor publishExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				published.add(command);
+			}
+		};
+
+		CompletableFuture<Void> first = context.applyLayoutAsync(true,
+				layoutExecutor, publishExecutor, null);
+		Assert.assertTrue(firstStarted.await(10, TimeUnit.SECONDS));
+		CompletableFuture<Void> second = context.applyLayoutAsync(true,
+				layoutExecutor, publishExecutor, null);
+		long timeout = System.currentTimeMillis() + 10000;
+		while (published.isEmpty() && System.currentTimeMillis() < timeout) {
+			Thread.sleep(1);
+		}
+		Assert.assertTrue(first.isCancelled());
+		Assert.assertEquals(1, published.size());
+		published.get(0).run();
+		Assert.assertTrue(second.isDone());
+		Assert.assertFalse(second.isCompletedExceptionally());
+		Assert.assertEquals(2, passes.get());
+		Assert.assertEquals(1, maxRunning.get());
+	}
+
+	/**
+	 * Ensures a synchronous layout pass does not wait for a cancelled
+	 * asynchronous layout pass whose algorithm does not stop early, but is
+	 * deferred until the algorithm is released.
+	 */
+	@Test(timeout = 10000)
+	public void testApplyLayoutDuringNonCancellableAsyncLayout()
+			throws InterruptedException {
+		Graph graph = createRandomTree(10, 42);
+		final LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		final CountDownLatch asyncStarted = new CountDownLatch(1);
+		final CountDownLatch asyncReleased = new CountDownLatch(1);
+		final AtomicInteger syncPasses = new AtomicInteger();
+		context.setLayoutAlgorithm(new ILayoutAlgorithm() {
+			@Override
+			public void applyLayout(LayoutContext layoutContext,
+					boolean clean) {
+				if (layoutContext == context) {
+					syncPasses.incrementAndGet();
+					return;
+				}
+				// ignore cancellation
+				asyncStarted.countDown();
+				try {
+					asyncReleased.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+		Executor layoutExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				new Thread(command).start();
+			}
+		};
+		final List<Runnable> published = Collections
+				.synchronizedList(new ArrayList<Runnable>());
+		Executor publishExecutor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				published.add(command);
+			}
+		};
+
+		CompletableFuture<Void> async = context.applyLayoutAsync(true,
+				layoutExecutor, publishExecutor, null);
+		Assert.assertTrue(asyncStarted.await(10, TimeUnit.SECONDS));
+		// returns while the algorithm is still applied
+		context.applyLayout(true);
+		Assert.assertTrue(async.isCancelled());
+		Assert.assertEquals(0, syncPasses.get());
+
+		asyncReleased.countDown();
+		while (published.isEmpty()) {
+			Thread.sleep(1);
+		}
+		Assert.assertEquals(1, published.size());
+		published.get(0).run();
+		Assert.assertEquals(1, syncPasses.get());
+	}
+
+	/**
+	 * Ensures an incremental layout pass only moves the changed nodes and
+	 * their neighbors.
+	 */
+	@Test
+	public void testSpringLayoutIncremental() {
+		Graph graph = createRandomTree(100, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm();
+		algorithm.setSpringTimeout(0);
+		algorithm.setIterations(20);
+		algorithm.setRandomSeed(42L);
+		context.setLayoutAlgorithm(algorithm);
+		context.applyLayout(true);
+
+		Node changed = graph.getNodes().get(99);
+		Node neighbor = changed.getIncomingEdges().iterator().next()
+				.getSource();
+		LayoutProperties.setLocation(changed, new Point(0, 0));
+		Map<Node, Point> locations = new IdentityHashMap<>();
+		for (Node node : graph.getNodes()) {
+			locations.put(node, LayoutProperties.getLocation(node));
+		}
+		context.applyIncrementalLayout(Collections.singleton(changed));
+
+		for (Node node : graph.getNodes()) {
+			if (node != changed && node != neighbor) {
+				Assert.assertEquals(locations.get(node),
+						LayoutProperties.getLocation(node));
+			}
+		}
+		Assert.assertNotEquals(new Point(0, 0),
+				LayoutProperties.getLocation(changed));
+		assertWithinBounds(graph);
+	}
+
+	/**
+	 * Ensures an incremental layout pass of the {@link SpringLayoutAlgorithm}
+	 * only touches the affected nodes, i.e. the attributes of all other
+	 * (pinned) nodes are neither read back nor written, so that they keep
+	 * their exact locations.
+	 */
+	@Test
+	public void testSpringLayoutIncrementalTouchesAffectedNodesOnly() {
+		Graph graph = createRandomTree(2000, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		SpringLayoutAlgorithm algorithm = new SpringLayoutAlgorithm();
+		algorithm.setSpringTimeout(0);
+		algorithm.setIterations(10);
+		algorithm.setRandomSeed(42L);
+		context.setLayoutAlgorithm(algorithm);
+
+		Node changed = graph.getNodes().get(1999);
+		final Set<Node> affected = new HashSet<>(changed.getNeighbors());
+		affected.add(changed);
+		Map<Node, Point> locations = new IdentityHashMap<>();
+		final Set<Node> touched = Collections
+				.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		for (final Node node : graph.getNodes()) {
+			locations.put(node, LayoutProperties.getLocation(node));
+			node.attributesProperty().addListener(
+					new MapChangeListener<String, Object>() {
+						@Override
+						public void onChanged(
+								MapChangeListener.Change<? extends String, ? extends Object> change) {
+							touched.add(node);
+						}
+					});
+		}
+		context.applyIncrementalLayout(Collections.singleton(changed));
+
+		Assert.assertFalse(touched.isEmpty());
+		Assert.assertTrue(affected.containsAll(touched));
+		for (Node node : graph.getNodes()) {
+			if (!affected.contains(node)) {
+				Assert.assertSame(locations.get(node),
+						LayoutProperties.getLocation(node));
+			}
+		}
+		assertWithinBounds(graph);
+	}
+
+	/**
+	 * Ensures the {@link LayerSweepCrossingReducer} removes all crossings of a
+	 * (shuffled) balanced tree.
+	 */
+	@Test
+	public void testSugiyamaLayerSweepCrossingReducer() {
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		nodes.add(new Node());
+		for (int i = 1; i < 121; i++) {
+			Node node = new Node();
+			nodes.add(node);
+			edges.add(new Edge(nodes.get((i - 1) / 3), node));
+		}
+		Collections.shuffle(nodes, new Random(42));
+		Graph graph = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(graph, new Rectangle(0, 0, 800, 600));
+
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(new SugiyamaLayoutAlgorithm(
+				Direction.VERTICAL, new LayerSweepCrossingReducer()));
+		context.applyLayout(true);
+
+		for (Edge e1 : edges) {
+			for (Edge e2 : edges) {
+				double sourceDelta = LayoutProperties.getLocation(e1.getSource()).x
+						- LayoutProperties.getLocation(e2.getSource()).x;
+				double targetDelta = LayoutProperties.getLocation(e1.getTarget()).x
+						- LayoutProperties.getLocation(e2.getTarget()).x;
+				Assert.assertFalse(sourceDelta * targetDelta < 0);
+			}
+		}
+	}
+
+	/**
+	 * Ensures the {@link BrandesKoepfCoordinateAssigner} respects the node
+	 * sizes, i.e. that nodes of the same layer do not overlap.
+	 */
+	@Test
+	public void testSugiyamaBrandesKoepfCoordinateAssigner() {
+		Random random = new Random(42);
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			Node node = new Node();
+			LayoutProperties.setSize(node, new Dimension(
+					10 + random.nextInt(50), 10 + random.nextInt(20)));
+			nodes.add(node);
+		}
+		// edges from lower to higher levels, so that there are at most six
+		// layers
+		for (int i = 40; i < 200; i++) {
+			for (int k = 0; k < 2; k++) {
+				int source = random.nextInt(40 * (i / 40));
+				edges.add(new Edge(nodes.get(source), nodes.get(i)));
+			}
+		}
+		Graph graph = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(graph, new Rectangle(0, 0, 800, 600));
+
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(new SugiyamaLayoutAlgorithm(
+				Direction.VERTICAL, null, null, new LayerSweepCrossingReducer(),
+				new BrandesKoepfCoordinateAssigner(10, 20)));
+		context.applyLayout(true);
+
+		for (Node n1 : nodes) {
+			Point l1 = LayoutProperties.getLocation(n1);
+			Dimension s1 = LayoutProperties.getSize(n1);
+			Assert.assertTrue(l1.x - s1.width / 2 >= -1e-9);
+			for (Node n2 : nodes) {
+				Point l2 = LayoutProperties.getLocation(n2);
+				Dimension s2 = LayoutProperties.getSize(n2);
+				if (n1 != n2 && l1.y == l2.y) {
+					Assert.assertTrue(Math.abs(l1.x - l2.x)
+							- (s1.width + s2.width) / 2 >= 10 - 1e-9);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ensures the {@link BrandesKoepfCoordinateAssigner} handles nodes that do
+	 * not provide a size, which are placed like points.
+	 */
+	@Test
+	public void testSugiyamaBrandesKoepfCoordinateAssignerUnsizedNodes() {
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			Node node = new Node();
+			if (i % 2 == 0) {
+				LayoutProperties.setSize(node, new Dimension(30, 10));
+			}
+			nodes.add(node);
+			if (i > 0) {
+				edges.add(new Edge(nodes.get((i - 1) / 2), node));
+			}
+		}
+		Graph graph = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(graph, new Rectangle(0, 0, 800, 600));
+
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(new SugiyamaLayoutAlgorithm(
+				Direction.VERTICAL, null, null, new LayerSweepCrossingReducer(),
+				new BrandesKoepfCoordinateAssigner(10, 20)));
+		context.applyLayout(true);
+
+		for (Node n1 : nodes) {
+			Point l1 = LayoutProperties.getLocation(n1);
+			Assert.assertFalse(Double.isNaN(l1.x) || Double.isNaN(l1.y));
+			double w1 = LayoutProperties.getSize(n1) == null ? 0
+					: LayoutProperties.getSize(n1).width;
+			for (Node n2 : nodes) {
+				Point l2 = LayoutProperties.getLocation(n2);
+				double w2 = LayoutProperties.getSize(n2) == null ? 0
+						: LayoutProperties.getSize(n2).width;
+				if (n1 != n2 && l1.y == l2.y) {
+					Assert.assertTrue(Math.abs(l1.x - l2.x)
+							- (w1 + w2) / 2 >= 10 - 1e-9);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ensures the {@link RankingLayerProvider} breaks cycles, and that network
+	 * simplex ranking shortens edges compared to longest path ranking.
+	 */
+	@Test
+	public void testSugiyamaRankingLayerProvider() {
+		Node s1 = new Node();
+		Node s2 = new Node();
+		Node a = new Node();
+		Node b = new Node();
+		Node c = new Node();
+		// s1 -> a -> b -> c (-> a), s2 -> c
+		Graph graph = new Graph(new HashMap<String, Object>(),
+				Arrays.asList(s1, s2, a, b, c),
+				Arrays.asList(new Edge(s1, a), new Edge(a, b), new Edge(b, c),
+						new Edge(c, a), new Edge(s2, c)));
+		LayoutProperties.setBounds(graph, new Rectangle(0, 0, 800, 600));
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+
+		context.setLayoutAlgorithm(
+				new SugiyamaLayoutAlgorithm(Direction.VERTICAL,
+						new RankingLayerProvider(Ranking.LONGEST_PATH)));
+		context.applyLayout(true);
+		Assert.assertTrue(LayoutProperties.getLocation(s1).y < LayoutProperties
+				.getLocation(a).y);
+		Assert.assertTrue(LayoutProperties.getLocation(a).y < LayoutProperties
+				.getLocation(b).y);
+		Assert.assertTrue(LayoutProperties.getLocation(b).y < LayoutProperties
+				.getLocation(c).y);
+		Assert.assertEquals(LayoutProperties.getLocation(s1).y,
+				LayoutProperties.getLocation(s2).y, 0);
+
+		context.setLayoutAlgorithm(
+				new SugiyamaLayoutAlgorithm(Direction.VERTICAL,
+						new RankingLayerProvider(Ranking.NETWORK_SIMPLEX)));
+		context.applyLayout(true);
+		Assert.assertTrue(LayoutProperties.getLocation(s1).y < LayoutProperties
+				.getLocation(a).y);
+		Assert.assertTrue(LayoutProperties.getLocation(a).y < LayoutProperties
+				.getLocation(b).y);
+		Assert.assertTrue(LayoutProperties.getLocation(b).y < LayoutProperties
+				.getLocation(c).y);
+		Assert.assertEquals(LayoutProperties.getLocation(b).y,
+				LayoutProperties.getLocation(s2).y, 0);
+	}
+
+	/**
+	 * Ensures a {@link LayoutSnapshot} captures the layout relevant nodes and
+	 * edges, and only writes back changed locations and sizes.
+	 */
+	@Test
+	public void testLayoutSnapshot() {
+		Graph graph = createRandomTree(10, 42);
+		final Node irrelevant = new Node();
+		graph.getNodes().add(irrelevant);
+		graph.getEdges().add(new Edge(graph.getNodes().get(0), irrelevant));
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.addLayoutFilter(new ILayoutFilter() {
+			@Override
+			public boolean isLayoutIrrelevant(Edge edge) {
+				return false;
+			}
+
+			@Override
+			public boolean isLayoutIrrelevant(Node node) {
+				return node == irrelevant;
+			}
+		});
+		graph.getNodes().get(3).getAttributes()
+				.put(LayoutProperties.MOVABLE_PROPERTY, false);
+
+		LayoutSnapshot snapshot = context.createLayoutSnapshot();
+		Assert.assertEquals(10, snapshot.getNodeCount());
+		Assert.assertEquals(9, snapshot.getEdgeCount());
+		Assert.assertEquals(-1, snapshot.getId(irrelevant));
+		Assert.assertFalse(snapshot.isMovable(3));
+		Assert.assertTrue(snapshot.isMovable(4));
+		int[] offsets = snapshot.getIncidenceOffsets();
+		int[] incident = snapshot.getIncidentEdges();
+		Assert.assertEquals(18, offsets[10]);
+		for (int i = 0; i < 10; i++) {
+			Node node = snapshot.getNode(i);
+			Assert.assertEquals(i, snapshot.getId(node));
+			Assert.assertEquals(LayoutProperties.getLocation(node).x,
+					snapshot.getX()[i], 0);
+			Assert.assertEquals(LayoutProperties.getSize(node).width,
+					snapshot.getWidth()[i], 0);
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				Edge edge = snapshot.getEdge(incident[k]);
+				Assert.assertTrue(
+						edge.getSource() == node || edge.getTarget() == node);
+			}
+		}
+
+		// only changed nodes are written back
+		final List<Object> changed = new ArrayList<>();
+		for (Node node : graph.getNodes()) {
+			node.attributesProperty().addListener(
+					new MapChangeListener<String, Object>() {
+						@Override
+						public void onChanged(
+								MapChangeListener.Change<? extends String, ? extends Object> change) {
+							changed.add(change.getKey());
+						}
+					});
+		}
+		snapshot.getX()[2] += 10;
+		snapshot.writeBack();
+		Assert.assertEquals(
+				Collections.singletonList(LayoutProperties.LOCATION_PROPERTY),
+				changed);
+		Assert.assertEquals(snapshot.getX()[2],
+				LayoutProperties.getLocation(snapshot.getNode(2)).x, 0);
+		changed.clear();
+		snapshot.writeBack();
+		Assert.assertTrue(changed.isEmpty());
+	}
+
+	/**
+	 * Ensures the {@link LayoutContext} evaluates the layout filters only once
+	 * until the graph, the layout filters, or the layout relevance change.
+	 */
+	@Test
+	public void testLayoutContextFilterCache() {
+		Graph graph = createRandomTree(10, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		final Set<Node> hidden = new HashSet<>();
+		final int[] evaluations = new int[1];
+		context.addLayoutFilter(new ILayoutFilter() {
+			@Override
+			public boolean isLayoutIrrelevant(Edge edge) {
+				return hidden.contains(edge.getSource())
+						|| hidden.contains(edge.getTarget());
+			}
+
+			@Override
+			public boolean isLayoutIrrelevant(Node node) {
+				evaluations[0]++;
+				return hidden.contains(node);
+			}
+		});
+
+		Node[] nodes = context.getNodes();
+		Assert.assertEquals(10, nodes.length);
+		Assert.assertEquals(10, evaluations[0]);
+		nodes[0] = null;
+		Assert.assertArrayEquals(graph.getNodes().toArray(),
+				context.getNodes());
+		Assert.assertEquals(10, evaluations[0]);
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals(i, context.getNodeIndex(graph.getNodes().get(i)));
+		}
+		Assert.assertEquals(8,
+				context.getEdgeIndex(graph.getEdges().get(8)));
+
+		// changes of the layout relevance have to be reported
+		hidden.add(graph.getNodes().get(0));
+		Assert.assertEquals(10, context.getNodes().length);
+		context.invalidateLayoutRelevance();
+		Assert.assertEquals(9, context.getNodes().length);
+		Assert.assertEquals(-1, context.getNodeIndex(graph.getNodes().get(0)));
+		Assert.assertEquals(0, context.getNodeIndex(graph.getNodes().get(1)));
+		Assert.assertTrue(context.getEdges().length < 9);
+
+		// changes of the graph are detected
+		final Node added = new Node();
+		graph.getNodes().add(added);
+		Assert.assertEquals(10, context.getNodes().length);
+		Assert.assertEquals(9, context.getNodeIndex(added));
+		graph.getEdges().clear();
+		Assert.assertEquals(0, context.getEdges().length);
+
+		// changes of the layout filters are detected
+		context.addLayoutFilter(new ILayoutFilter() {
+			@Override
+			public boolean isLayoutIrrelevant(Edge edge) {
+				return false;
+			}
+
+			@Override
+			public boolean isLayoutIrrelevant(Node node) {
+				return node == added;
+			}
+		});
+		Assert.assertEquals(9, context.getNodes().length);
+		Assert.assertEquals(-1, context.getNodeIndex(added));
+	}
+
+	/**
+	 * Ensures the {@link TreeLayoutAlgorithm} does not overlap the nodes of a
+	 * level, centers parents above their children, and supports deep trees.
+	 */
+	@Test
+	public void testTreeLayoutTidy() {
+		Graph graph = createRandomTree(500, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(new TreeLayoutAlgorithm(
+				TreeLayoutAlgorithm.TOP_DOWN, new Dimension(30, 20)));
+		context.applyLayout(true);
+
+		Map<Double, List<Double>> levels = new HashMap<>();
+		for (Node node : graph.getNodes()) {
+			Point location = LayoutProperties.getLocation(node);
+			if (!levels.containsKey(location.y)) {
+				levels.put(location.y, new ArrayList<Double>());
+			}
+			levels.get(location.y).add(location.x);
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (Node child : node.getSuccessorNodes()) {
+				Point childLocation = LayoutProperties.getLocation(child);
+				Assert.assertEquals(location.y + 20, childLocation.y, 1e-9);
+				min = Math.min(min, childLocation.x);
+				max = Math.max(max, childLocation.x);
+			}
+			if (!node.getSuccessorNodes().isEmpty()) {
+				Assert.assertEquals((min + max) / 2, location.x, 1e-6);
+			}
+		}
+		for (List<Double> level : levels.values()) {
+			Collections.sort(level);
+			for (int i = 1; i < level.size(); i++) {
+				Assert.assertTrue(level.get(i) - level.get(i - 1) >= 30 - 1e-6);
+			}
+		}
+
+		// a deep chain is laid out without recursion
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			Node node = new Node();
+			LayoutProperties.setSize(node, new Dimension(20, 10));
+			nodes.add(node);
+			if (i > 0) {
+				edges.add(new Edge(nodes.get(i - 1), node));
+			}
+		}
+		Graph chain = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(chain, new Rectangle(0, 0, 800, 600));
+		context.setGraph(chain);
+		context.setLayoutAlgorithm(new RadialLayoutAlgorithm());
+		context.applyLayout(true);
+		assertWithinBounds(chain);
+	}
+
+	/**
+	 * Ensures the {@link StressLayoutAlgorithm} is deterministic, places all
+	 * nodes (including disconnected ones) within the layout bounds, and
+	 * approximates the graph theoretic distances.
+	 */
+	@Test
+	public void testStressLayout() {
+		Graph graph = createRandomTree(500, 42);
+		Node disconnected = new Node();
+		LayoutProperties.setSize(disconnected, new Dimension(20, 10));
+		graph.getNodes().add(disconnected);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(new StressLayoutAlgorithm());
+		context.applyLayout(true);
+		assertWithinBounds(graph);
+		List<Point> locations = new ArrayList<>();
+		for (Node node : graph.getNodes()) {
+			locations.add(LayoutProperties.getLocation(node).getCopy());
+		}
+		context.applyLayout(true);
+		for (int i = 0; i < locations.size(); i++) {
+			Assert.assertEquals(locations.get(i),
+					LayoutProperties.getLocation(graph.getNodes().get(i)));
+		}
+
+		// a path is laid out (almost) straight
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			Node node = new Node();
+			LayoutProperties.setSize(node, new Dimension(2, 2));
+			nodes.add(node);
+			if (i > 0) {
+				edges.add(new Edge(nodes.get(i - 1), node));
+			}
+		}
+		Graph path = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(path, new Rectangle(0, 0, 800, 600));
+		context.setGraph(path);
+		context.applyLayout(true);
+		double edgeLengths = 0;
+		for (Edge edge : edges) {
+			edgeLengths += LayoutProperties.getLocation(edge.getSource())
+					.getDistance(LayoutProperties.getLocation(edge.getTarget()));
+		}
+		double endToEnd = LayoutProperties.getLocation(nodes.get(0))
+				.getDistance(LayoutProperties.getLocation(nodes.get(29)));
+		Assert.assertTrue(endToEnd > 0.9 * edgeLengths);
+	}
+
+	/**
+	 * Ensures the {@link StressLayoutAlgorithm} keeps pinned nodes at their
+	 * locations, and places the other nodes consistently around them.
+	 */
+	@Test
+	public void testStressLayoutPinnedNodes() {
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		for (int i = 0; i < 11; i++) {
+			Node node = new Node();
+			LayoutProperties.setSize(node, new Dimension(2, 2));
+			nodes.add(node);
+			if (i > 0) {
+				edges.add(new Edge(nodes.get(i - 1), node));
+			}
+		}
+		Graph path = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(path, new Rectangle(0, 0, 800, 600));
+		Point first = new Point(100, 300);
+		Point last = new Point(700, 300);
+		LayoutProperties.setLocation(nodes.get(0), first);
+		LayoutProperties.setMovable(nodes.get(0), false);
+		LayoutProperties.setLocation(nodes.get(10), last);
+		LayoutProperties.setMovable(nodes.get(10), false);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(path);
+		context.setLayoutAlgorithm(new StressLayoutAlgorithm());
+		context.applyLayout(true);
+
+		// the path is laid out (almost) straight between the pinned nodes
+		Assert.assertSame(first, LayoutProperties.getLocation(nodes.get(0)));
+		Assert.assertSame(last, LayoutProperties.getLocation(nodes.get(10)));
+		for (int i = 1; i < 10; i++) {
+			Point location = LayoutProperties.getLocation(nodes.get(i));
+			Assert.assertEquals(100 + 60 * i, location.x, 10);
+			Assert.assertEquals(300, location.y, 10);
+		}
+
+		// a single pinned node is surrounded by its neighbors
+		LayoutProperties.setMovable(nodes.get(10), true);
+		context.applyLayout(true);
+		Assert.assertSame(first, LayoutProperties.getLocation(nodes.get(0)));
+		double edgeLength = LayoutProperties.getLocation(nodes.get(1))
+				.getDistance(LayoutProperties.getLocation(nodes.get(2)));
+		Assert.assertEquals(edgeLength,
+				first.getDistance(LayoutProperties.getLocation(nodes.get(1))),
+				0.1 * edgeLength);
+	}
+
+	/**
+	 * Ensures the {@link MultilevelLayoutAlgorithm} places all nodes within the
+	 * layout bounds, both for graphs that are coarsened and for graphs that
+	 * are directly laid out by the coarsest algorithm.
+	 */
+	@Test
+	public void testMultilevelLayout() {
+		SpringLayoutAlgorithm coarsest = new SpringLayoutAlgorithm();
+		coarsest.setRandomSeed(42L);
+		coarsest.setSpringTimeout(0);
+		coarsest.setIterations(100);
+		SpringLayoutAlgorithm refinement = new SpringLayoutAlgorithm();
+		refinement.setRandom(false);
+		refinement.setSpringBarnesHut(true);
+		refinement.setSpringTimeout(0);
+		refinement.setIterations(10);
+		MultilevelLayoutAlgorithm algorithm = new MultilevelLayoutAlgorithm(
+				coarsest, refinement);
+
+		Graph graph = createRandomTree(2000, 42);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(algorithm);
+		context.applyLayout(true);
+		assertWithinBounds(graph);
+
+		graph = createRandomTree(20, 42);
+		context.setGraph(graph);
+		context.applyLayout(true);
+		assertWithinBounds(graph);
+	}
+
+	/**
+	 * Ensures the {@link ComponentLayoutAlgorithm} lays out the connected
+	 * components (in parallel) without overlapping each other.
+	 */
+	@Test
+	public void testComponentLayout() {
+		List<Node> nodes = new ArrayList<>();
+		List<Edge> edges = new ArrayList<>();
+		List<List<Node>> components = new ArrayList<>();
+		for (int size : new int[] { 50, 30, 20, 1, 1, 1 }) {
+			Graph tree = createRandomTree(size, size);
+			nodes.addAll(tree.getNodes());
+			edges.addAll(tree.getEdges());
+			components.add(new ArrayList<>(tree.getNodes()));
+		}
+		Graph graph = new Graph(new HashMap<String, Object>(), nodes, edges);
+		LayoutProperties.setBounds(graph, new Rectangle(0, 0, 800, 600));
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(
+				new ComponentLayoutAlgorithm(new Supplier<ILayoutAlgorithm>() {
+					@Override
+					public ILayoutAlgorithm get() {
+						return new TreeLayoutAlgorithm();
+					}
+				}));
+		context.applyLayout(true);
+		assertWithinBounds(graph);
+
+		// the (center) bounds of the components do not intersect
+		List<Rectangle> componentBounds = new ArrayList<>();
+		for (List<Node> component : components) {
+			Rectangle bounds = null;
+			for (Node node : component) {
+				Point location = LayoutProperties.getLocation(node);
+				bounds = bounds == null ? new Rectangle(location, location)
+						: bounds.union(location);
+			}
+			for (Rectangle other : componentBounds) {
+				Assert.assertFalse(bounds.getExpanded(-0.5, -0.5)
+						.touches(other.getExpanded(-0.5, -0.5)));
+			}
+			componentBounds.add(bounds);
+		}
+	}
+
+	/**
+	 * Ensures the {@link LayoutCache} restores a stored layout onto a
+	 * structurally equal graph, distinguishes algorithm parameters, evicts
+	 * least recently used entries, and persists entries on disk.
+	 */
+	@Test
+	public void testLayoutCache() throws IOException {
+		Graph graph = createRandomTree(100, 7);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		context.setLayoutAlgorithm(new TreeLayoutAlgorithm());
+		LayoutCache cache = new LayoutCache(1);
+		String key = cache.computeKey(context);
+		Assert.assertFalse(cache.restore(key, context));
+		context.applyLayout(true);
+		cache.store(key, context);
+		Assert.assertEquals(1, cache.size());
+
+		// restore onto a fresh copy of the graph (with random locations)
+		Graph copy = createRandomTree(100, 7);
+		LayoutContext copyContext = new LayoutContext();
+		copyContext.setGraph(copy);
+		copyContext.setLayoutAlgorithm(new TreeLayoutAlgorithm());
+		Assert.assertEquals(key, cache.computeKey(copyContext));
+		Assert.assertTrue(cache.restore(key, copyContext));
+		for (int i = 0; i < graph.getNodes().size(); i++) {
+			Assert.assertEquals(
+					LayoutProperties.getLocation(graph.getNodes().get(i)),
+					LayoutProperties.getLocation(copy.getNodes().get(i)));
+		}
+
+		// changed parameters, sizes, or bounds result in different keys
+		copyContext.setLayoutAlgorithm(
+				new TreeLayoutAlgorithm(TreeLayoutAlgorithm.LEFT_RIGHT));
+		String otherKey = cache.computeKey(copyContext);
+		Assert.assertNotEquals(key, otherKey);
+		copyContext.setLayoutAlgorithm(new TreeLayoutAlgorithm());
+		LayoutProperties.setSize(copy.getNodes().get(0), new Dimension(30, 10));
+		Assert.assertNotEquals(key, cache.computeKey(copyContext));
+		LayoutProperties.setSize(copy.getNodes().get(0), new Dimension(20, 10));
+		LayoutProperties.setBounds(copy, new Rectangle(0, 0, 400, 300));
+		Assert.assertNotEquals(key, cache.computeKey(copyContext));
+
+		// least recently used entries are evicted
+		cache.store(otherKey, context);
+		Assert.assertEquals(1, cache.size());
+		Assert.assertFalse(cache.restore(key, context));
+		Assert.assertTrue(cache.restore(otherKey, context));
+
+		// entries are restored from disk by another cache
+		File directory = Files.createTempDirectory("layoutcache").toFile();
+		try {
+			LayoutCache diskCache = new LayoutCache(1, directory);
+			diskCache.store(key, graphContext(graph));
+			LayoutCache otherDiskCache = new LayoutCache(1, directory);
+			Graph other = createRandomTree(100, 7);
+			Assert.assertTrue(otherDiskCache.restore(key, graphContext(other)));
+			Assert.assertEquals(
+					LayoutProperties.getLocation(graph.getNodes().get(99)),
+					LayoutProperties.getLocation(other.getNodes().get(99)));
+			otherDiskCache.clear();
+			Assert.assertFalse(new LayoutCache(1, directory).restore(key,
+					graphContext(other)));
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Ensures the key of the {@link LayoutCache} only depends on the
+	 * parameters of the layout algorithm (and not on the state of a layout
+	 * pass), so that a {@link LayoutContext} restores a layout that was
+	 * computed before, and that layout algorithms that do not provide their
+	 * parameters are not cached.
+	 */
+	@Test
+	public void testLayoutCacheHit() {
+		SpringLayoutAlgorithm spring = new SpringLayoutAlgorithm();
+		spring.setSpringTimeout(0);
+		spring.setIterations(20);
+		ILayoutAlgorithm[] algorithms = { spring,
+				new MultilevelLayoutAlgorithm(),
+				new ComponentLayoutAlgorithm(new TreeLayoutAlgorithm()),
+				new SugiyamaLayoutAlgorithm(Direction.HORIZONTAL, null,
+						new RankingLayerProvider(), null,
+						new BrandesKoepfCoordinateAssigner()),
+				new StressLayoutAlgorithm(),
+				new ConstrainedSpringLayoutAlgorithm() };
+		for (ILayoutAlgorithm algorithm : algorithms) {
+			LayoutCache cache = new LayoutCache(1);
+			Graph graph = createRandomTree(50, 3);
+			LayoutContext context = new LayoutContext();
+			context.setGraph(graph);
+			context.setLayoutAlgorithm(algorithm);
+			context.setLayoutCache(cache);
+			String key = cache.computeKey(context);
+			Assert.assertNotNull(key);
+			context.applyLayout(true);
+			Assert.assertEquals(algorithm.getClass().getName(), key,
+					cache.computeKey(context));
+			Assert.assertEquals(1, cache.size());
+
+			// the (random) spring layout is restored instead of re-computed
+			Graph copy = createRandomTree(50, 3);
+			LayoutContext copyContext = new LayoutContext();
+			copyContext.setGraph(copy);
+			copyContext.setLayoutAlgorithm(algorithm);
+			copyContext.setLayoutCache(cache);
+			copyContext.applyLayout(true);
+			for (int i = 0; i < graph.getNodes().size(); i++) {
+				Assert.assertEquals(
+						LayoutProperties.getLocation(graph.getNodes().get(i)),
+						LayoutProperties.getLocation(copy.getNodes().get(i)));
+			}
+		}
+
+		// algorithms that do not provide their parameters are not cached
+		LayoutContext context = graphContext(createRandomTree(10, 3));
+		context.setLayoutAlgorithm(new ILayoutAlgorithm() {
+			@Override
+			public void applyLayout(LayoutContext layoutContext,
+					boolean clean) {
+			}
+		});
+		Assert.assertNull(new LayoutCache(1).computeKey(context));
+		context.setLayoutAlgorithm(new MultilevelLayoutAlgorithm(
+				context.getLayoutAlgorithm(), new SpringLayoutAlgorithm()));
+		Assert.assertNull(new LayoutCache(1).computeKey(context));
+	}
+
+	/**
+	 * Ensures the {@link ConstrainedSpringLayoutAlgorithm} does not move pinned
+	 * nodes, aligns alignment groups, separates nodes, and only relaxes the
+	 * neighborhood of dragged nodes.
+	 */
+	@Test
+	public void testConstrainedSpringLayout() {
+		Graph graph = createRandomTree(100, 11);
+		List<Node> nodes = graph.getNodes();
+		Node pinned = nodes.get(0);
+		LayoutProperties.setMovable(pinned, false);
+		Point pinnedLocation = LayoutProperties.getLocation(pinned);
+		for (int i = 1; i <= 5; i++) {
+			LayoutProperties.setHorizontalAlignment(nodes.get(i), "row");
+			LayoutProperties.setVerticalAlignment(nodes.get(10 + i), "column");
+		}
+		LayoutProperties.setHorizontalAlignment(nodes.get(6), "pinned-row");
+		LayoutProperties.setHorizontalAlignment(pinned, "pinned-row");
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		ConstrainedSpringLayoutAlgorithm algorithm = new ConstrainedSpringLayoutAlgorithm();
+		context.setLayoutAlgorithm(algorithm);
+		context.applyLayout(true);
+		assertWithinBounds(graph);
+
+		Assert.assertEquals(pinnedLocation, LayoutProperties.getLocation(pinned));
+		for (int i = 2; i <= 5; i++) {
+			Assert.assertEquals(LayoutProperties.getLocation(nodes.get(1)).y,
+					LayoutProperties.getLocation(nodes.get(i)).y, 1e-9);
+			Assert.assertEquals(LayoutProperties.getLocation(nodes.get(11)).x,
+					LayoutProperties.getLocation(nodes.get(10 + i)).x, 1e-9);
+		}
+		Assert.assertEquals(pinnedLocation.y,
+				LayoutProperties.getLocation(nodes.get(6)).y, 1e-9);
+		for (int i = 0; i < nodes.size(); i++) {
+			Rectangle bounds = new Rectangle(
+					LayoutProperties.getLocation(nodes.get(i)),
+					LayoutProperties.getSize(nodes.get(i)));
+			for (int j = i + 1; j < nodes.size(); j++) {
+				Rectangle other = new Rectangle(
+						LayoutProperties.getLocation(nodes.get(j)),
+						LayoutProperties.getSize(nodes.get(j)));
+				Assert.assertFalse(bounds.getExpanded(-0.5, -0.5)
+						.touches(other.getExpanded(-0.5, -0.5)));
+			}
+		}
+
+		// dragging a node relaxes its neighborhood only
+		Node dragged = nodes.get(50);
+		Map<Node, Point> locations = new HashMap<>();
+		for (Node node : nodes) {
+			locations.put(node, LayoutProperties.getLocation(node));
+		}
+		ConstrainedSpringLayoutAlgorithm.Relaxation relaxation = algorithm
+				.createRelaxation(context, Collections.singleton(dragged));
+		Set<Node> relaxed = new HashSet<>(
+				Arrays.asList(relaxation.getRelaxedNodes()));
+		Assert.assertFalse(relaxed.isEmpty());
+		Assert.assertFalse(relaxed.contains(dragged));
+		Assert.assertFalse(relaxed.contains(pinned));
+		Point location = locations.get(dragged);
+		relaxation.moveTo(dragged, location.x + 50, location.y + 30);
+		relaxation.relax();
+		Assert.assertEquals(new Point(location.x + 50, location.y + 30),
+				LayoutProperties.getLocation(dragged));
+		for (Node node : nodes) {
+			if (node != dragged && !relaxed.contains(node)) {
+				Assert.assertEquals(locations.get(node),
+						LayoutProperties.getLocation(node));
+			}
+		}
+	}
+
+	private static LayoutContext graphContext(Graph graph) {
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		return context;
+	}
 }
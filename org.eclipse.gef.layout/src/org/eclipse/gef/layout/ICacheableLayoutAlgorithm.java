@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout;
+
+/**
+ * An {@link ICacheableLayoutAlgorithm} is an {@link ILayoutAlgorithm} whose
+ * results can be stored within a {@link LayoutCache}, because it explicitly
+ * provides the parameters that influence the computed layout.
+ *
+ * @see LayoutCache#computeKey(LayoutContext)
+ */
+public interface ICacheableLayoutAlgorithm extends ILayoutAlgorithm {
+
+	/**
+	 * Returns the parameters of this layout algorithm that influence the
+	 * computed layout, in a fixed order. The state of a layout pass must not
+	 * be included. Supported parameter values are <code>null</code>,
+	 * primitive wrappers, {@link String}s, {@link Enum}s,
+	 * {@link org.eclipse.gef.geometry.planar.Dimension}s,
+	 * {@link org.eclipse.gef.geometry.planar.Point}s,
+	 * {@link org.eclipse.gef.geometry.planar.Rectangle}s, nested
+	 * {@link ICacheableLayoutAlgorithm}s, and arrays of these. Of all other
+	 * objects, only the class is considered, while nested
+	 * {@link ILayoutAlgorithm}s that are not cacheable prevent caching.
+	 *
+	 * @return The parameters of this layout algorithm.
+	 */
+	public Object[] getLayoutParameters();
+
+}
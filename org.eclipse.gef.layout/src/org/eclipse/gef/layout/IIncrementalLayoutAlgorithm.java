@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout;
+
+import java.util.Set;
+
+import org.eclipse.gef.graph.Node;
+
+/**
+ * An {@link IIncrementalLayoutAlgorithm} is an {@link ILayoutAlgorithm} that
+ * is capable of updating an existing layout after small changes, i.e. of
+ * laying out a subset of the nodes while keeping the locations of all other
+ * nodes.
+ *
+ * @see LayoutContext#applyIncrementalLayout(java.util.Collection)
+ */
+public interface IIncrementalLayoutAlgorithm extends ILayoutAlgorithm {
+
+	/**
+	 * Makes this algorithm lay out the given affected nodes, while all other
+	 * (layout relevant) nodes of the given {@link LayoutContext} are pinned,
+	 * i.e. their locations are not to be changed.
+	 *
+	 * @param layoutContext
+	 *            The {@link LayoutContext} that provides all relevant
+	 *            information about what to layout.
+	 * @param affectedNodes
+	 *            The layout relevant {@link Node}s that may be moved, i.e. the
+	 *            changed nodes and their neighborhood.
+	 */
+	public void applyIncrementalLayout(LayoutContext layoutContext,
+			Set<Node> affectedNodes);
+
+}
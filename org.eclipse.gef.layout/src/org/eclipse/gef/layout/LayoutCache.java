@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
+import org.eclipse.gef.geometry.planar.Rectangle;
+
+/**
+ * A {@link LayoutCache} stores the results of layout passes, so that the
+ * layout of a previously seen graph can be restored instead of being
+ * re-computed. Layout results are identified by a key (see
+ * {@link #computeKey(LayoutContext)}), which is a fingerprint of:
+ * <ul>
+ * <li>the class and the parameters of the {@link ICacheableLayoutAlgorithm}
+ * (see {@link ICacheableLayoutAlgorithm#getLayoutParameters()}), including
+ * those of nested layout algorithms,
+ * <li>the {@link LayoutProperties#getBounds(org.eclipse.gef.graph.Graph)
+ * layout bounds},
+ * <li>the sizes and the movable/resizable flags of the layout relevant nodes
+ * (as well as the locations of the nodes that are not movable), and
+ * <li>the layout relevant edges (their source and target node indices, and
+ * their weights).
+ * </ul>
+ * The results are stored by node index, i.e. they can be restored for other
+ * {@link org.eclipse.gef.graph.Node} instances (e.g. after a graph was
+ * re-created from the same input), as long as the nodes are provided in the
+ * same order. Layout algorithms that are not an
+ * {@link ICacheableLayoutAlgorithm} are not cached.
+ * <p>
+ * The cache keeps at most a given number of results in memory, evicting the
+ * least recently used ones. Optionally, all results are additionally written
+ * to (and read from) a directory, so that they survive restarts. Accessing
+ * the disk store is best effort, i.e. I/O failures are treated as cache
+ * misses. All methods are thread-safe.
+ */
+public class LayoutCache {
+
+	/**
+	 * The locations and sizes of the nodes, indexed by node.
+	 */
+	private static class Entry {
+		final double[] x;
+		final double[] y;
+		final double[] width;
+		final double[] height;
+
+		Entry(double[] x, double[] y, double[] width, double[] height) {
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	// identifies (the version of) the disk format
+	private static final int MAGIC = 0x47454c31;
+
+	private final int maximumSize;
+	private final File directory;
+	private final LinkedHashMap<String, Entry> entries;
+
+	/**
+	 * Constructs a new {@link LayoutCache} that keeps at most the given number
+	 * of layout results in memory.
+	 *
+	 * @param maximumSize
+	 *            The maximum number of layout results that are kept in
+	 *            memory.
+	 */
+	public LayoutCache(int maximumSize) {
+		this(maximumSize, null);
+	}
+
+	/**
+	 * Constructs a new {@link LayoutCache} that keeps at most the given number
+	 * of layout results in memory, and stores all results within the given
+	 * directory (if not <code>null</code>).
+	 *
+	 * @param maximumSize
+	 *            The maximum number of layout results that are kept in
+	 *            memory.
+	 * @param directory
+	 *            The directory in which layout results are stored, or
+	 *            <code>null</code> if results should only be kept in memory.
+	 */
+	public LayoutCache(final int maximumSize, File directory) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException(
+					"Invalid maximum size: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		this.directory = directory;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, Entry> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/**
+	 * Removes all layout results from memory and from the directory (if
+	 * specified).
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		if (directory != null) {
+			File[] files = directory.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					if (file.getName().endsWith(".layout")) {
+						file.delete();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the key that identifies the layout result for the current
+	 * state of the given {@link LayoutContext}. Needs to be called after the
+	 * sizes of the nodes were determined (i.e. after
+	 * {@link LayoutContext#preLayout()}).
+	 *
+	 * @param context
+	 *            The {@link LayoutContext} for which to compute the key.
+	 * @return The key identifying the layout result for the given
+	 *         {@link LayoutContext}, or <code>null</code> if its layout
+	 *         algorithm is not an {@link ICacheableLayoutAlgorithm}.
+	 */
+	public String computeKey(LayoutContext context) {
+		if (!(context
+				.getLayoutAlgorithm() instanceof ICacheableLayoutAlgorithm)) {
+			return null;
+		}
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+		DataOutputStream out = new DataOutputStream(
+				new DigestOutputStream(new OutputStream() {
+					@Override
+					public void write(int b) {
+					}
+				}, digest));
+		try {
+			if (!writeParameters(out, context.getLayoutAlgorithm())) {
+				return null;
+			}
+			Rectangle bounds = LayoutProperties.getBounds(context.getGraph());
+			out.writeBoolean(bounds != null);
+			if (bounds != null) {
+				out.writeDouble(bounds.getX());
+				out.writeDouble(bounds.getY());
+				out.writeDouble(bounds.getWidth());
+				out.writeDouble(bounds.getHeight());
+			}
+			LayoutSnapshot snapshot = context.createLayoutSnapshot();
+			int n = snapshot.getNodeCount();
+			out.writeInt(n);
+			for (int i = 0; i < n; i++) {
+				out.writeDouble(snapshot.getWidth()[i]);
+				out.writeDouble(snapshot.getHeight()[i]);
+				out.writeBoolean(snapshot.isResizable(i));
+				out.writeBoolean(snapshot.isMovable(i));
+				if (!snapshot.isMovable(i)) {
+					out.writeDouble(snapshot.getX()[i]);
+					out.writeDouble(snapshot.getY()[i]);
+				}
+			}
+			int m = snapshot.getEdgeCount();
+			out.writeInt(m);
+			for (int e = 0; e < m; e++) {
+				out.writeInt(snapshot.getEdgeSources()[e]);
+				out.writeInt(snapshot.getEdgeTargets()[e]);
+				out.writeDouble(snapshot.getEdgeWeights()[e]);
+			}
+			out.flush();
+		} catch (IOException e) {
+			// cannot happen, the stream does not write anything
+			throw new IllegalStateException(e);
+		}
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest()) {
+			key.append(String.format("%02x", b));
+		}
+		return key.toString();
+	}
+
+	private File getFile(String key) {
+		return new File(directory, key + ".layout");
+	}
+
+	/**
+	 * Returns the maximum number of layout results that are kept in memory.
+	 *
+	 * @return The maximum number of layout results that are kept in memory.
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	private Entry read(String key) {
+		File file = getFile(key);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				return null;
+			}
+			int n = in.readInt();
+			double[] x = new double[n];
+			double[] y = new double[n];
+			double[] width = new double[n];
+			double[] height = new double[n];
+			for (int i = 0; i < n; i++) {
+				x[i] = in.readDouble();
+				y[i] = in.readDouble();
+				width[i] = in.readDouble();
+				height[i] = in.readDouble();
+			}
+			return new Entry(x, y, width, height);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Restores the layout result that is stored for the given key, if any,
+	 * by transferring the stored locations and sizes to the layout relevant
+	 * nodes of the given {@link LayoutContext} (respecting their movable and
+	 * resizable flags).
+	 *
+	 * @param key
+	 *            The key identifying the layout result (see
+	 *            {@link #computeKey(LayoutContext)}).
+	 * @param context
+	 *            The {@link LayoutContext} to which the layout result is
+	 *            transferred.
+	 * @return <code>true</code> if a layout result was restored, otherwise
+	 *         <code>false</code>.
+	 */
+	public boolean restore(String key, LayoutContext context) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry == null && directory != null) {
+				entry = read(key);
+				if (entry != null) {
+					entries.put(key, entry);
+				}
+			}
+		}
+		if (entry == null) {
+			return false;
+		}
+		LayoutSnapshot snapshot = context.createLayoutSnapshot();
+		int n = snapshot.getNodeCount();
+		if (n != entry.x.length) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			if (snapshot.isMovable(i)) {
+				snapshot.getX()[i] = entry.x[i];
+				snapshot.getY()[i] = entry.y[i];
+			}
+			if (snapshot.isResizable(i)) {
+				snapshot.getWidth()[i] = entry.width[i];
+				snapshot.getHeight()[i] = entry.height[i];
+			}
+		}
+		snapshot.writeBack();
+		return true;
+	}
+
+	/**
+	 * Returns the number of layout results that are currently kept in
+	 * memory.
+	 *
+	 * @return The number of layout results that are kept in memory.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Stores the current locations and sizes of the layout relevant nodes of
+	 * the given {@link LayoutContext} for the given key.
+	 *
+	 * @param key
+	 *            The key identifying the layout result (see
+	 *            {@link #computeKey(LayoutContext)}), which has to be
+	 *            computed before the layout pass.
+	 * @param context
+	 *            The {@link LayoutContext} whose layout result is stored.
+	 */
+	public void store(String key, LayoutContext context) {
+		store(key, context, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+	}
+
+	/**
+	 * Stores the current locations and sizes of the layout relevant nodes of
+	 * the given {@link LayoutContext} for the given key. The layout result is
+	 * kept in memory immediately, while it is written to the directory (if
+	 * specified) using the given {@link Executor}.
+	 *
+	 * @param key
+	 *            The key identifying the layout result (see
+	 *            {@link #computeKey(LayoutContext)}), which has to be
+	 *            computed before the layout pass.
+	 * @param context
+	 *            The {@link LayoutContext} whose layout result is stored.
+	 * @param writeExecutor
+	 *            The {@link Executor} that is used to write the layout result
+	 *            to the directory.
+	 */
+	public void store(final String key, LayoutContext context,
+			Executor writeExecutor) {
+		LayoutSnapshot snapshot = context.createLayoutSnapshot();
+		final Entry entry = new Entry(snapshot.getX().clone(),
+				snapshot.getY().clone(), snapshot.getWidth().clone(),
+				snapshot.getHeight().clone());
+		synchronized (this) {
+			entries.put(key, entry);
+		}
+		if (directory != null) {
+			writeExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					write(key, entry);
+				}
+			});
+		}
+	}
+
+	private void write(String key, Entry entry) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return;
+		}
+		// write to a temporary file first, so that a concurrent read never
+		// sees an incomplete result
+		File file = getFile(key);
+		File tmpFile = new File(directory, key + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(entry.x.length);
+			for (int i = 0; i < entry.x.length; i++) {
+				out.writeDouble(entry.x[i]);
+				out.writeDouble(entry.y[i]);
+				out.writeDouble(entry.width[i]);
+				out.writeDouble(entry.height[i]);
+			}
+		} catch (IOException e) {
+			// remove incomplete results
+			tmpFile.delete();
+			return;
+		}
+		file.delete();
+		if (!tmpFile.renameTo(file)) {
+			tmpFile.delete();
+		}
+	}
+
+	/**
+	 * Writes the given parameter value to the given stream. Values of
+	 * primitive wrapper, {@link String}, {@link Enum}, or geometric types are
+	 * written by value, the parameters of {@link ICacheableLayoutAlgorithm}s
+	 * and the elements of arrays are written recursively, and for all other
+	 * objects, only the class is written. Returns <code>false</code> if a
+	 * layout algorithm is encountered that is not cacheable.
+	 */
+	private boolean writeParameters(DataOutputStream out, Object value)
+			throws IOException {
+		if (value == null) {
+			out.writeUTF("null");
+			return true;
+		}
+		if (value instanceof String || value instanceof Number
+				|| value instanceof Boolean || value instanceof Character
+				|| value instanceof Enum || value instanceof Dimension
+				|| value instanceof Point || value instanceof Rectangle) {
+			out.writeUTF(value.toString());
+			return true;
+		}
+		out.writeUTF(value.getClass().getName());
+		if (value instanceof ICacheableLayoutAlgorithm) {
+			Object[] parameters = ((ICacheableLayoutAlgorithm) value)
+					.getLayoutParameters();
+			out.writeInt(parameters.length);
+			for (Object parameter : parameters) {
+				if (!writeParameters(out, parameter)) {
+					return false;
+				}
+			}
+		} else if (value instanceof ILayoutAlgorithm) {
+			return false;
+		} else if (value instanceof Object[]) {
+			Object[] array = (Object[]) value;
+			out.writeInt(array.length);
+			for (Object element : array) {
+				if (!writeParameters(out, element)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
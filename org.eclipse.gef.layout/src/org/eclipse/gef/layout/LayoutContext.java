@@ -13,21 +13,52 @@
 package org.eclipse.gef.layout;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleConsumer;
 
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.graph.Edge;
 import org.eclipse.gef.graph.Graph;
 import org.eclipse.gef.graph.Node;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.WeakInvalidationListener;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.ObservableList;
 
 /**
  * The {@link LayoutContext} provides the context in which to layout a
  * {@link Graph}. It maintains an {@link ILayoutAlgorithm} that can be applied,
  * supports the handling and execution of pre and post {@link Runnable}s, and
- * filtering of layout objects using {@link ILayoutFilter}.
+ * filtering of layout objects using {@link ILayoutFilter}. A layout pass can
+ * either be applied synchronously ({@link #applyLayout(boolean)}), or
+ * asynchronously on a snapshot of the layout relevant nodes and edges (
+ * {@link #applyLayoutAsync(boolean, Executor, Executor, DoubleConsumer)}).
+ * Layout algorithms may compute their layout against a primitive
+ * {@link #createLayoutSnapshot() snapshot} of the layout relevant nodes and
+ * edges.
+ * <p>
+ * The layout relevant nodes and edges are cached, so that the
+ * {@link ILayoutFilter}s are only evaluated once after the nodes or edges of
+ * the graph, or the layout filters changed. While the cache is valid, the
+ * layout relevant nodes and edges keep their indices (see
+ * {@link #getNodeIndex(Node)} and {@link #getEdgeIndex(Edge)}). If the result
+ * of a layout filter changes for another reason (e.g. because a node was
+ * hidden), {@link #invalidateLayoutRelevance()} has to be called.
+ * <p>
+ * If a {@link LayoutCache} is set (see {@link #setLayoutCache(LayoutCache)}),
+ * the results of full layout passes are stored within it, and restored
+ * instead of being re-computed.
  * 
  * @author mwienand
  *
@@ -48,6 +79,44 @@ public class LayoutContext {
 	private final List<Runnable> preLayoutPass = new ArrayList<>();
 	private final List<ILayoutFilter> layoutFilters = new ArrayList<>();
 
+	// the cache for the results of full layout passes (optional)
+	private LayoutCache layoutCache;
+
+	// the asynchronous layout pass that is currently pending
+	private CompletableFuture<Void> asyncLayoutPass;
+
+	// the algorithm that is applied by a (possibly cancelled) asynchronous
+	// layout pass, the executor used by that pass to publish its layout, and
+	// the synchronous layout passes that are deferred until the algorithm is
+	// released (guarded by algorithmLock)
+	private final Object algorithmLock = new Object();
+	private ILayoutAlgorithm busyLayoutAlgorithm;
+	private Executor busyPublishExecutor;
+	private boolean deferredLayout;
+	private boolean deferredClear;
+	private Set<Node> deferredChangedNodes;
+
+	// cancellation and progress reporting of a snapshot context
+	private CompletableFuture<Void> snapshotLayoutPass;
+	private DoubleConsumer progressCallback;
+
+	// the cached layout relevant nodes and edges (null if invalid), and their
+	// indices (computed on demand)
+	private Node[] layoutRelevantNodes;
+	private Edge[] layoutRelevantEdges;
+	private Map<Node, Integer> nodeIndices;
+	private Map<Edge, Integer> edgeIndices;
+
+	private final InvalidationListener graphObserver = new InvalidationListener() {
+		@Override
+		public void invalidated(Observable observable) {
+			invalidateLayoutRelevance();
+		}
+	};
+	// the graph does not keep this context alive
+	private final InvalidationListener weakGraphObserver = new WeakInvalidationListener(
+			graphObserver);
+
 	/**
 	 * Adds the given ILayoutFilter to this {@link LayoutContext}.
 	 * 
@@ -56,24 +125,435 @@ public class LayoutContext {
 	 */
 	public void addLayoutFilter(ILayoutFilter layoutFilter) {
 		layoutFilters.add(layoutFilter);
+		invalidateLayoutRelevance();
 	}
 
 	/**
 	 * Applies the layout algorithm of this LayoutContext. The clean flag is
 	 * passed-in to the layout algorithm to indicate whether the context changed
 	 * significantly since the last layout pass.
+	 * <p>
+	 * If the layout algorithm is still applied by a cancelled asynchronous
+	 * layout pass, the layout pass is deferred until the algorithm is
+	 * released, and is then performed by the publish {@link Executor} of the
+	 * asynchronous layout pass (see
+	 * {@link #applyLayoutAsync(boolean, Executor, Executor, DoubleConsumer)}).
 	 * 
 	 * @param clear
 	 *            <code>true</code> to indicate that the algorithm has to fully
 	 *            re-compute the layout, otherwise <code>false</code>.
 	 */
 	public void applyLayout(boolean clear) {
+		// a synchronous layout pass supersedes a pending asynchronous one
+		cancelAsyncLayout();
 		ILayoutAlgorithm layoutAlgorithm = layoutAlgorithmProperty.get();
 		if (layoutAlgorithm != null) {
+			if (deferLayout(layoutAlgorithm, clear, null)) {
+				return;
+			}
 			preLayout();
+			// restore a previously computed layout (if possible)
+			String cacheKey = clear && layoutCache != null
+					? layoutCache.computeKey(this) : null;
+			if (cacheKey != null && layoutCache.restore(cacheKey, this)) {
+				postLayout();
+				return;
+			}
 			layoutAlgorithm.applyLayout(this, clear);
+			if (cacheKey != null) {
+				// write to disk off the calling thread
+				layoutCache.store(cacheKey, this, ForkJoinPool.commonPool());
+			}
+			postLayout();
+		}
+	}
+
+	/**
+	 * Incrementally updates the layout after the given nodes were changed
+	 * (e.g. added, shown, or hidden). The changed nodes and their (direct)
+	 * neighbors are laid out, while the locations of all other nodes are
+	 * kept. This requires the layout algorithm to be an
+	 * {@link IIncrementalLayoutAlgorithm}. Otherwise, the layout is fully
+	 * re-computed (see {@link #applyLayout(boolean)}). Like a full layout
+	 * pass, an incremental layout pass is deferred while the layout algorithm
+	 * is still applied by a cancelled asynchronous layout pass.
+	 * 
+	 * @param changedNodes
+	 *            The {@link Node}s that changed since the last layout pass.
+	 *            Nodes that are irrelevant for layout only contribute their
+	 *            neighbors. Nodes that are no longer contained in the graph are
+	 *            ignored, because their former neighbors cannot be determined
+	 *            anymore. Therefore, the former neighbors of removed nodes
+	 *            (e.g. the source and target nodes of removed edges) have to be
+	 *            passed in as changed nodes instead.
+	 */
+	public void applyIncrementalLayout(Collection<Node> changedNodes) {
+		ILayoutAlgorithm layoutAlgorithm = layoutAlgorithmProperty.get();
+		if (!(layoutAlgorithm instanceof IIncrementalLayoutAlgorithm)) {
+			applyLayout(true);
+			return;
+		}
+		cancelAsyncLayout();
+		if (deferLayout(layoutAlgorithm, false, changedNodes)) {
+			return;
+		}
+
+		// determine affected nodes, i.e. changed nodes and their neighbors
+		Set<Node> affectedNodes = Collections
+				.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		for (Node changed : changedNodes) {
+			if (changed.getGraph() != graph) {
+				continue;
+			}
+			if (getNodeIndex(changed) >= 0) {
+				affectedNodes.add(changed);
+			}
+			for (Node neighbor : changed.getNeighbors()) {
+				if (getNodeIndex(neighbor) >= 0) {
+					affectedNodes.add(neighbor);
+				}
+			}
+		}
+		if (affectedNodes.isEmpty()) {
+			return;
+		}
+
+		preLayout();
+		((IIncrementalLayoutAlgorithm) layoutAlgorithm)
+				.applyIncrementalLayout(this, affectedNodes);
+		postLayout();
+	}
+
+	/**
+	 * Applies the layout algorithm of this {@link LayoutContext}
+	 * asynchronously, using the given layout {@link Executor}, and returns a
+	 * {@link CompletableFuture} that is completed when the computed layout was
+	 * published.
+	 * <p>
+	 * The pre-layout pass is performed on the calling thread, where a layout
+	 * that is stored within the {@link #getLayoutCache() layout cache} is
+	 * restored (if possible) instead of being re-computed. Afterwards, the
+	 * locations and sizes of all layout relevant nodes are captured in a
+	 * snapshot, i.e. a detached copy of the layout relevant part of the
+	 * {@link #getGraph() graph}, which is laid out using the given layout
+	 * {@link Executor}. Therefore, the {@link ILayoutAlgorithm} does neither
+	 * access the graph nor the {@link ILayoutFilter}s of this context. The
+	 * computed locations and sizes are then transferred back to the graph in
+	 * a single batch, followed by the post-layout pass, both executed by the
+	 * given publish {@link Executor} (e.g. the JavaFX application thread).
+	 * <p>
+	 * The returned {@link CompletableFuture} may be cancelled, in which case
+	 * the computed layout is not published. Starting another layout pass
+	 * (synchronous or asynchronous) cancels a pending asynchronous layout
+	 * pass. Iterative layout algorithms can query
+	 * {@link #isLayoutCancelled()} to stop early, and may report their
+	 * progress via {@link #reportLayoutProgress(double)}.
+	 * <p>
+	 * An {@link ILayoutAlgorithm} is never applied by multiple layout passes
+	 * at the same time, because it may keep per-pass state in its fields.
+	 * Therefore, a subsequent asynchronous layout pass waits (using the layout
+	 * {@link Executor}) until a cancelled layout pass has stopped using the
+	 * algorithm, while a subsequent synchronous layout pass is deferred (see
+	 * {@link #applyLayout(boolean)}), so that the calling thread is never
+	 * blocked. Pending deferred layout passes are superseded by an
+	 * asynchronous layout pass.
+	 * 
+	 * @param clean
+	 *            <code>true</code> to indicate that the algorithm has to fully
+	 *            re-compute the layout, otherwise <code>false</code>.
+	 * @param layoutExecutor
+	 *            The {@link Executor} that is used to apply the layout
+	 *            algorithm.
+	 * @param publishExecutor
+	 *            The {@link Executor} that is used to publish the computed
+	 *            layout, i.e. the thread on which the graph may be modified.
+	 * @param progressCallback
+	 *            A {@link DoubleConsumer} that is notified about the progress
+	 *            (between <code>0</code> and <code>1</code>) on the thread
+	 *            used by the layout algorithm, or <code>null</code>.
+	 * @return A {@link CompletableFuture} that is completed after the computed
+	 *         layout was published.
+	 */
+	public CompletableFuture<Void> applyLayoutAsync(final boolean clean,
+			final Executor layoutExecutor, final Executor publishExecutor,
+			DoubleConsumer progressCallback) {
+		cancelAsyncLayout();
+		final CompletableFuture<Void> layoutPass = new CompletableFuture<>();
+		final ILayoutAlgorithm layoutAlgorithm = layoutAlgorithmProperty.get();
+		if (layoutAlgorithm == null) {
+			layoutPass.complete(null);
+			return layoutPass;
+		}
+		asyncLayoutPass = layoutPass;
+		synchronized (algorithmLock) {
+			deferredLayout = false;
+			deferredClear = false;
+			deferredChangedNodes = null;
+		}
+
+		// transfer layout information to the graph and capture a snapshot
+		preLayout();
+		final String cacheKey = clean && layoutCache != null
+				? layoutCache.computeKey(this) : null;
+		if (cacheKey != null && layoutCache.restore(cacheKey, this)) {
+			asyncLayoutPass = null;
 			postLayout();
+			layoutPass.complete(null);
+			return layoutPass;
+		}
+		final Node[] nodes = getNodes();
+		final LayoutContext snapshot = createSnapshot();
+		snapshot.snapshotLayoutPass = layoutPass;
+		snapshot.progressCallback = progressCallback;
+
+		layoutExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (layoutPass.isDone()) {
+					return;
+				}
+				final double[] x = new double[nodes.length];
+				final double[] y = new double[nodes.length];
+				final double[] width = new double[nodes.length];
+				final double[] height = new double[nodes.length];
+				try {
+					// a cancelled pass may still apply the algorithm, which
+					// is not reentrant
+					synchronized (layoutAlgorithm) {
+						if (!acquireLayoutAlgorithm(layoutAlgorithm,
+								layoutPass, publishExecutor)) {
+							return;
+						}
+						try {
+							layoutAlgorithm.applyLayout(snapshot, clean);
+						} finally {
+							releaseLayoutAlgorithm();
+						}
+					}
+					Node[] snapshotNodes = snapshot.getNodes();
+					for (int i = 0; i < snapshotNodes.length; i++) {
+						Point location = LayoutProperties
+								.getLocation(snapshotNodes[i]);
+						Dimension size = LayoutProperties
+								.getSize(snapshotNodes[i]);
+						x[i] = location == null ? Double.NaN : location.x;
+						y[i] = location == null ? Double.NaN : location.y;
+						width[i] = size == null ? Double.NaN : size.width;
+						height[i] = size == null ? Double.NaN : size.height;
+					}
+				} catch (Throwable t) {
+					layoutPass.completeExceptionally(t);
+					// the pending pass is reset on the publish thread, on
+					// which it is set
+					publishExecutor.execute(new Runnable() {
+						@Override
+						public void run() {
+							if (asyncLayoutPass == layoutPass) {
+								asyncLayoutPass = null;
+							}
+						}
+					});
+					return;
+				}
+				if (layoutPass.isDone()) {
+					return;
+				}
+				publishExecutor.execute(new Runnable() {
+					@Override
+					public void run() {
+						if (layoutPass.isDone()) {
+							return;
+						}
+						try {
+							publishLayout(nodes, x, y, width, height);
+							if (cacheKey != null) {
+								layoutCache.store(cacheKey, LayoutContext.this,
+										layoutExecutor);
+							}
+							postLayout();
+						} catch (Throwable t) {
+							layoutPass.completeExceptionally(t);
+							return;
+						} finally {
+							if (asyncLayoutPass == layoutPass) {
+								asyncLayoutPass = null;
+							}
+						}
+						layoutPass.complete(null);
+					}
+				});
+			}
+		});
+		return layoutPass;
+	}
+
+	/**
+	 * Applies the layout algorithm of this {@link LayoutContext}
+	 * asynchronously, fully re-computing the layout, and without progress
+	 * notifications.
+	 * 
+	 * @param layoutExecutor
+	 *            The {@link Executor} that is used to apply the layout
+	 *            algorithm.
+	 * @param publishExecutor
+	 *            The {@link Executor} that is used to publish the computed
+	 *            layout, i.e. the thread on which the graph may be modified.
+	 * @return A {@link CompletableFuture} that is completed after the computed
+	 *         layout was published.
+	 * @see #applyLayoutAsync(boolean, Executor, Executor, DoubleConsumer)
+	 */
+	public CompletableFuture<Void> applyLayoutAsync(Executor layoutExecutor,
+			Executor publishExecutor) {
+		return applyLayoutAsync(true, layoutExecutor, publishExecutor, null);
+	}
+
+	/**
+	 * Marks the given {@link ILayoutAlgorithm} as being applied by the given
+	 * asynchronous layout pass, unless that pass was already cancelled.
+	 */
+	private boolean acquireLayoutAlgorithm(ILayoutAlgorithm layoutAlgorithm,
+			CompletableFuture<Void> layoutPass, Executor publishExecutor) {
+		synchronized (algorithmLock) {
+			// the pass is cancelled before deferLayout() is evaluated
+			if (layoutPass.isDone()) {
+				return false;
+			}
+			busyLayoutAlgorithm = layoutAlgorithm;
+			busyPublishExecutor = publishExecutor;
+			return true;
+		}
+	}
+
+	/**
+	 * Cancels the pending asynchronous layout pass (if any).
+	 */
+	private void cancelAsyncLayout() {
+		if (asyncLayoutPass != null) {
+			asyncLayoutPass.cancel(false);
+			asyncLayoutPass = null;
+		}
+	}
+
+	/**
+	 * Defers a synchronous layout pass if the given {@link ILayoutAlgorithm} is
+	 * currently applied by a (cancelled) asynchronous layout pass. A deferred
+	 * full layout pass supersedes deferred incremental layout passes.
+	 * 
+	 * @return <code>true</code> if the layout pass was deferred, otherwise
+	 *         <code>false</code>.
+	 */
+	private boolean deferLayout(ILayoutAlgorithm layoutAlgorithm,
+			boolean clear, Collection<Node> changedNodes) {
+		synchronized (algorithmLock) {
+			if (busyLayoutAlgorithm != layoutAlgorithm) {
+				return false;
+			}
+			if (changedNodes == null) {
+				deferredLayout = true;
+				deferredClear |= clear;
+				deferredChangedNodes = null;
+			} else if (!deferredLayout) {
+				if (deferredChangedNodes == null) {
+					deferredChangedNodes = Collections.newSetFromMap(
+							new IdentityHashMap<Node, Boolean>());
+				}
+				deferredChangedNodes.addAll(changedNodes);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Releases the layout algorithm that was acquired by an asynchronous
+	 * layout pass, and performs the deferred layout passes (if any) using the
+	 * publish {@link Executor} of that pass.
+	 */
+	private void releaseLayoutAlgorithm() {
+		final boolean layout;
+		final boolean clear;
+		final Set<Node> changedNodes;
+		Executor publishExecutor;
+		synchronized (algorithmLock) {
+			layout = deferredLayout;
+			clear = deferredClear;
+			changedNodes = deferredChangedNodes;
+			publishExecutor = busyPublishExecutor;
+			busyLayoutAlgorithm = null;
+			busyPublishExecutor = null;
+			deferredLayout = false;
+			deferredClear = false;
+			deferredChangedNodes = null;
 		}
+		if (layout) {
+			publishExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					// superseded by a subsequent asynchronous layout pass
+					if (asyncLayoutPass == null) {
+						applyLayout(clear);
+					}
+				}
+			});
+		} else if (changedNodes != null) {
+			publishExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					// superseded by a subsequent asynchronous layout pass
+					if (asyncLayoutPass == null) {
+						applyIncrementalLayout(changedNodes);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Creates a {@link LayoutSnapshot} of the layout relevant nodes and edges
+	 * of this {@link LayoutContext}, against which an {@link ILayoutAlgorithm}
+	 * can compute its layout without accessing the attributes of the nodes.
+	 * The computed layout has to be transferred back to the nodes via
+	 * {@link LayoutSnapshot#writeBack()}.
+	 * 
+	 * @return A new {@link LayoutSnapshot} of the layout relevant nodes and
+	 *         edges.
+	 */
+	public LayoutSnapshot createLayoutSnapshot() {
+		// the snapshot copies the nodes, and does not modify the edges
+		return new LayoutSnapshot(getLayoutRelevantNodes(),
+				getLayoutRelevantEdges());
+	}
+
+	/**
+	 * Creates a {@link LayoutContext} for a detached copy of the layout
+	 * relevant nodes and edges (see
+	 * {@link LayoutSnapshot#createDetachedGraph(int[], int, int)}), whose
+	 * graph has the same attributes as the graph of this context.
+	 */
+	private LayoutContext createSnapshot() {
+		LayoutSnapshot layoutSnapshot = createLayoutSnapshot();
+		int[] ids = new int[layoutSnapshot.getNodeCount()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = i;
+		}
+		Graph copy = layoutSnapshot.createDetachedGraph(ids, 0, ids.length);
+		copy.getAttributes().putAll(graph.getAttributes());
+		LayoutContext snapshot = new LayoutContext();
+		snapshot.setGraph(copy);
+		snapshot.setLayoutAlgorithm(getLayoutAlgorithm());
+		return snapshot;
+	}
+
+	/**
+	 * Returns <code>true</code> if the (asynchronous) layout pass that is
+	 * performed within this {@link LayoutContext} was cancelled. Iterative
+	 * layout algorithms should query this flag to stop early. Always returns
+	 * <code>false</code> for synchronous layout passes.
+	 * 
+	 * @return <code>true</code> if the current layout pass was cancelled,
+	 *         otherwise <code>false</code>.
+	 */
+	public boolean isLayoutCancelled() {
+		return snapshotLayoutPass != null && snapshotLayoutPass.isDone();
 	}
 
 	/**
@@ -87,6 +567,23 @@ public class LayoutContext {
 		}
 	}
 
+	/**
+	 * Transfers the given locations and sizes (as computed by an asynchronous
+	 * layout pass) to the given nodes. <code>NaN</code> values are skipped.
+	 */
+	private void publishLayout(Node[] nodes, double[] x, double[] y,
+			double[] width, double[] height) {
+		for (int i = 0; i < nodes.length; i++) {
+			if (!Double.isNaN(width[i]) && !Double.isNaN(height[i])) {
+				LayoutProperties.setSize(nodes[i],
+						new Dimension(width[i], height[i]));
+			}
+			if (!Double.isNaN(x[i]) && !Double.isNaN(y[i])) {
+				LayoutProperties.setLocation(nodes[i], new Point(x[i], y[i]));
+			}
+		}
+	}
+
 	/**
 	 * Initiated by the context or by an {@link ILayoutAlgorithm} to perform
 	 * steps that are scheduled to be run before the layout pass. Should not be
@@ -107,6 +604,23 @@ public class LayoutContext {
 		return graph;
 	}
 
+	/**
+	 * Called by an {@link ILayoutAlgorithm} to report the progress of the
+	 * current layout pass, which is forwarded to the progress callback of an
+	 * asynchronous layout pass (see
+	 * {@link #applyLayoutAsync(boolean, Executor, Executor, DoubleConsumer)}).
+	 * Has no effect for synchronous layout passes.
+	 * 
+	 * @param progress
+	 *            The progress of the current layout pass, between
+	 *            <code>0</code> and <code>1</code>.
+	 */
+	public void reportLayoutProgress(double progress) {
+		if (progressCallback != null) {
+			progressCallback.accept(progress);
+		}
+	}
+
 	/**
 	 * Sets the graph that is to be layouted by this context.
 	 * 
@@ -119,7 +633,14 @@ public class LayoutContext {
 		if (graph == null) {
 			graph = new Graph();
 		}
+		if (this.graph != null) {
+			this.graph.getNodes().removeListener(weakGraphObserver);
+			this.graph.getEdges().removeListener(weakGraphObserver);
+		}
 		this.graph = graph;
+		graph.getNodes().addListener(weakGraphObserver);
+		graph.getEdges().addListener(weakGraphObserver);
+		invalidateLayoutRelevance();
 	}
 
 	/**
@@ -130,14 +651,7 @@ public class LayoutContext {
 	 */
 	// TODO: remove this (algorithms should use getGraph().getNodes())
 	public Node[] getNodes() {
-		ObservableList<Node> nodes = graph.getNodes();
-		List<Node> layoutRelevantNodes = new ArrayList<>();
-		for (Node n : nodes) {
-			if (!isLayoutIrrelevant(n)) {
-				layoutRelevantNodes.add(n);
-			}
-		}
-		return layoutRelevantNodes.toArray(new Node[] {});
+		return getLayoutRelevantNodes().clone();
 	}
 
 	/**
@@ -147,14 +661,96 @@ public class LayoutContext {
 	 * @return array of connections between nodes
 	 */
 	public Edge[] getEdges() {
-		ObservableList<Edge> edges = graph.getEdges();
-		List<Edge> layoutRelevantEdges = new ArrayList<>();
-		for (Edge e : edges) {
-			if (!isLayoutIrrelevant(e)) {
-				layoutRelevantEdges.add(e);
+		return getLayoutRelevantEdges().clone();
+	}
+
+	/**
+	 * Returns the index of the given {@link Edge} within the layout relevant
+	 * edges (see {@link #getEdges()}), or <code>-1</code> if the given
+	 * {@link Edge} is not relevant for layout. The index remains valid until
+	 * the edges of the graph, the layout filters, or the layout relevance
+	 * change.
+	 * 
+	 * @param edge
+	 *            The {@link Edge} in question.
+	 * @return The index of the given {@link Edge} within the layout relevant
+	 *         edges, or <code>-1</code>.
+	 */
+	public int getEdgeIndex(Edge edge) {
+		if (edgeIndices == null) {
+			Edge[] edges = getLayoutRelevantEdges();
+			edgeIndices = new IdentityHashMap<>(edges.length);
+			for (int i = 0; i < edges.length; i++) {
+				edgeIndices.put(edges[i], i);
+			}
+		}
+		Integer index = edgeIndices.get(edge);
+		return index == null ? -1 : index;
+	}
+
+	private Edge[] getLayoutRelevantEdges() {
+		if (layoutRelevantEdges == null) {
+			List<Edge> edges = new ArrayList<>();
+			for (Edge e : graph.getEdges()) {
+				if (!isLayoutIrrelevant(e)) {
+					edges.add(e);
+				}
+			}
+			layoutRelevantEdges = edges.toArray(new Edge[edges.size()]);
+		}
+		return layoutRelevantEdges;
+	}
+
+	private Node[] getLayoutRelevantNodes() {
+		if (layoutRelevantNodes == null) {
+			List<Node> nodes = new ArrayList<>();
+			for (Node n : graph.getNodes()) {
+				if (!isLayoutIrrelevant(n)) {
+					nodes.add(n);
+				}
 			}
+			layoutRelevantNodes = nodes.toArray(new Node[nodes.size()]);
 		}
-		return layoutRelevantEdges.toArray(new Edge[] {});
+		return layoutRelevantNodes;
+	}
+
+	/**
+	 * Returns the index of the given {@link Node} within the layout relevant
+	 * nodes (see {@link #getNodes()}), or <code>-1</code> if the given
+	 * {@link Node} is not relevant for layout. The index remains valid until
+	 * the nodes of the graph, the layout filters, or the layout relevance
+	 * change.
+	 * 
+	 * @param node
+	 *            The {@link Node} in question.
+	 * @return The index of the given {@link Node} within the layout relevant
+	 *         nodes, or <code>-1</code>.
+	 */
+	public int getNodeIndex(Node node) {
+		if (nodeIndices == null) {
+			Node[] nodes = getLayoutRelevantNodes();
+			nodeIndices = new IdentityHashMap<>(nodes.length);
+			for (int i = 0; i < nodes.length; i++) {
+				nodeIndices.put(nodes[i], i);
+			}
+		}
+		Integer index = nodeIndices.get(node);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Discards the cached layout relevant nodes and edges, so that the
+	 * {@link ILayoutFilter}s are re-evaluated when they are accessed the next
+	 * time. Changes of the nodes and edges of the graph, as well as the
+	 * addition and removal of layout filters, are detected automatically.
+	 * However, this method has to be called when the result of a layout filter
+	 * changes for other reasons, e.g. because a node was hidden or shown.
+	 */
+	public void invalidateLayoutRelevance() {
+		layoutRelevantNodes = null;
+		layoutRelevantEdges = null;
+		nodeIndices = null;
+		edgeIndices = null;
 	}
 
 	/**
@@ -167,6 +763,18 @@ public class LayoutContext {
 		return layoutAlgorithmProperty.get();
 	}
 
+	/**
+	 * Returns the {@link LayoutCache} in which the results of full layout
+	 * passes are stored, or <code>null</code> if layout results are not
+	 * cached.
+	 * 
+	 * @return The {@link LayoutCache} of this {@link LayoutContext}, or
+	 *         <code>null</code>.
+	 */
+	public LayoutCache getLayoutCache() {
+		return layoutCache;
+	}
+
 	/**
 	 * Returns <code>true</code> when the given {@link Edge} is not relevant for
 	 * layout according to the configured {@link ILayoutFilter layout filters}.
@@ -227,7 +835,9 @@ public class LayoutContext {
 	 *            The ILayoutFilter to remove to this context.
 	 */
 	public void removeLayoutFilter(ILayoutFilter layoutFilter) {
-		layoutFilters.remove(layoutFilter);
+		if (layoutFilters.remove(layoutFilter)) {
+			invalidateLayoutRelevance();
+		}
 	}
 
 	/**
@@ -277,6 +887,20 @@ public class LayoutContext {
 		layoutAlgorithmProperty.set(algorithm);
 	}
 
+	/**
+	 * Sets the {@link LayoutCache} in which the results of full layout passes
+	 * are stored, and from which they are restored if the same layout
+	 * algorithm is applied to a structurally equal graph again (see
+	 * {@link LayoutCache#computeKey(LayoutContext)}).
+	 * 
+	 * @param layoutCache
+	 *            The {@link LayoutCache} to use, or <code>null</code> to not
+	 *            cache layout results.
+	 */
+	public void setLayoutCache(LayoutCache layoutCache) {
+		this.layoutCache = layoutCache;
+	}
+
 	/**
 	 * Removes the given {@link Runnable} from the list of runnables which are
 	 * called when this {@link LayoutContext} is asked to apply all changes made
@@ -112,6 +112,20 @@ public class LayoutProperties {
 	 */
 	public static final Integer DEFAULT_DIRECTION = DIRECTION_TOP_DOWN;
 
+	/**
+	 * Stores the horizontal alignment group of this EntityLayout. All nodes
+	 * with an equal (non-<code>null</code>) group are placed on a common
+	 * horizontal line, i.e. their locations share the same y coordinate.
+	 */
+	public static final String HORIZONTAL_ALIGNMENT_PROPERTY = "layout_horizontal-alignment";
+
+	/**
+	 * Stores the vertical alignment group of this EntityLayout. All nodes with
+	 * an equal (non-<code>null</code>) group are placed on a common vertical
+	 * line, i.e. their locations share the same x coordinate.
+	 */
+	public static final String VERTICAL_ALIGNMENT_PROPERTY = "layout_vertical-alignment";
+
 	/**
 	 * Returns the value of the {@link #BOUNDS_PROPERTY} of the given
 	 * {@link LayoutContext}.
@@ -216,6 +230,76 @@ public class LayoutProperties {
 		return DEFAULT_MOVABLE;
 	}
 
+	/**
+	 * Returns the value of the {@link #HORIZONTAL_ALIGNMENT_PROPERTY} of the
+	 * given {@link Node}.
+	 * 
+	 * @param node
+	 *            The {@link Node} whose {@link #HORIZONTAL_ALIGNMENT_PROPERTY}
+	 *            is read.
+	 * @return The value of the {@link #HORIZONTAL_ALIGNMENT_PROPERTY} of the
+	 *         given {@link Node}, or <code>null</code> if the {@link Node} is
+	 *         not part of a horizontal alignment group.
+	 */
+	public static Object getHorizontalAlignment(Node node) {
+		return node.getAttributes().get(HORIZONTAL_ALIGNMENT_PROPERTY);
+	}
+
+	/**
+	 * Returns the value of the {@link #VERTICAL_ALIGNMENT_PROPERTY} of the
+	 * given {@link Node}.
+	 * 
+	 * @param node
+	 *            The {@link Node} whose {@link #VERTICAL_ALIGNMENT_PROPERTY} is
+	 *            read.
+	 * @return The value of the {@link #VERTICAL_ALIGNMENT_PROPERTY} of the
+	 *         given {@link Node}, or <code>null</code> if the {@link Node} is
+	 *         not part of a vertical alignment group.
+	 */
+	public static Object getVerticalAlignment(Node node) {
+		return node.getAttributes().get(VERTICAL_ALIGNMENT_PROPERTY);
+	}
+
+	/**
+	 * Sets the value of the {@link #HORIZONTAL_ALIGNMENT_PROPERTY} of the given
+	 * {@link Node} to the given value.
+	 * 
+	 * @param node
+	 *            The {@link Node} whose {@link #HORIZONTAL_ALIGNMENT_PROPERTY}
+	 *            is changed.
+	 * @param group
+	 *            The new value for the {@link #HORIZONTAL_ALIGNMENT_PROPERTY}
+	 *            of the given {@link Node}, or <code>null</code> to remove the
+	 *            {@link Node} from its alignment group.
+	 */
+	public static void setHorizontalAlignment(Node node, Object group) {
+		if (group == null) {
+			node.getAttributes().remove(HORIZONTAL_ALIGNMENT_PROPERTY);
+		} else {
+			node.getAttributes().put(HORIZONTAL_ALIGNMENT_PROPERTY, group);
+		}
+	}
+
+	/**
+	 * Sets the value of the {@link #VERTICAL_ALIGNMENT_PROPERTY} of the given
+	 * {@link Node} to the given value.
+	 * 
+	 * @param node
+	 *            The {@link Node} whose {@link #VERTICAL_ALIGNMENT_PROPERTY} is
+	 *            changed.
+	 * @param group
+	 *            The new value for the {@link #VERTICAL_ALIGNMENT_PROPERTY} of
+	 *            the given {@link Node}, or <code>null</code> to remove the
+	 *            {@link Node} from its alignment group.
+	 */
+	public static void setVerticalAlignment(Node node, Object group) {
+		if (group == null) {
+			node.getAttributes().remove(VERTICAL_ALIGNMENT_PROPERTY);
+		} else {
+			node.getAttributes().put(VERTICAL_ALIGNMENT_PROPERTY, group);
+		}
+	}
+
 	/**
 	 * Sets the value of the {@link #LOCATION_PROPERTY} of the given
 	 * {@link Node} to the given value.
@@ -244,6 +328,20 @@ public class LayoutProperties {
 		node.getAttributes().put(SIZE_PROPERTY, size);
 	}
 
+	/**
+	 * Sets the value of the {@link #MOVABLE_PROPERTY} of the given {@link Node}
+	 * to the given value.
+	 * 
+	 * @param node
+	 *            The {@link Node} whose {@link #MOVABLE_PROPERTY} is changed.
+	 * @param movable
+	 *            The new value for the {@link #MOVABLE_PROPERTY} of the given
+	 *            {@link Node}.
+	 */
+	public static void setMovable(Node node, boolean movable) {
+		node.getAttributes().put(MOVABLE_PROPERTY, movable);
+	}
+
 	/**
 	 * Sets the value of the {@link #RESIZABLE_PROPERTY} of the given
 	 * {@link Node} to the given value.
@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
+import org.eclipse.gef.graph.Edge;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.Node;
+
+/**
+ * A {@link LayoutSnapshot} captures the layout relevant information of a set of
+ * {@link Node}s and {@link Edge}s in primitive arrays (struct-of-arrays), so
+ * that {@link ILayoutAlgorithm}s can compute a layout without accessing the
+ * (observable) attribute maps of the nodes within their hot loops:
+ * <ul>
+ * <li>Every node is identified by an <code>int</code> id, i.e. its index within
+ * {@link #getNodes()}.
+ * <li>The {@link #getX() x} and {@link #getY() y} coordinates of the node
+ * centers (see {@link LayoutProperties#getLocation(Node)}), as well as the
+ * {@link #getWidth() widths} and {@link #getHeight() heights} of the nodes are
+ * stored in <code>double[]</code>s. Missing values are represented by
+ * {@link Double#NaN}.
+ * <li>The {@link LayoutProperties#isMovable(Node) movable} and
+ * {@link LayoutProperties#isResizable(Node) resizable} flags are stored in
+ * {@link BitSet}s.
+ * <li>Every edge (between two captured nodes) is identified by an
+ * <code>int</code> id, and its {@link #getEdgeSources() source} and
+ * {@link #getEdgeTargets() target} node ids are stored in <code>int[]</code>s.
+ * The incident edges of each node are stored in compressed sparse row format
+ * (see {@link #getIncidenceOffsets()} and {@link #getIncidentEdges()}).
+ * </ul>
+ * The coordinate and size arrays are modified in place by the layout
+ * algorithm. The computed layout is transferred back to the nodes by
+ * {@link #writeBack()}, which only updates the attributes of those nodes whose
+ * location or size actually changed.
+ *
+ * @see LayoutContext#createLayoutSnapshot()
+ */
+public class LayoutSnapshot {
+
+	private final Node[] nodes;
+	private final Edge[] edges;
+	private final Map<Node, Integer> ids = new IdentityHashMap<>();
+
+	private final double[] x;
+	private final double[] y;
+	private final double[] width;
+	private final double[] height;
+	// the values that were last read from or written to the nodes
+	private final double[] attributeX;
+	private final double[] attributeY;
+	private final double[] attributeWidth;
+	private final double[] attributeHeight;
+	private final BitSet movable;
+	private final BitSet resizable;
+
+	private final int[] edgeSources;
+	private final int[] edgeTargets;
+	private final double[] edgeWeights;
+	private final int[] incidenceOffsets;
+	private final int[] incidentEdges;
+
+	/**
+	 * Creates a new {@link LayoutSnapshot} for the given {@link Node}s and
+	 * {@link Edge}s. Edges that are not connected to two of the given nodes
+	 * are ignored.
+	 *
+	 * @param nodes
+	 *            The {@link Node}s to capture.
+	 * @param edges
+	 *            The {@link Edge}s to capture.
+	 */
+	public LayoutSnapshot(Node[] nodes, Edge[] edges) {
+		int n = nodes.length;
+		this.nodes = nodes.clone();
+		x = new double[n];
+		y = new double[n];
+		width = new double[n];
+		height = new double[n];
+		movable = new BitSet(n);
+		resizable = new BitSet(n);
+		for (int i = 0; i < n; i++) {
+			Node node = nodes[i];
+			ids.put(node, i);
+			Point location = LayoutProperties.getLocation(node);
+			Dimension size = LayoutProperties.getSize(node);
+			x[i] = location == null ? Double.NaN : location.x;
+			y[i] = location == null ? Double.NaN : location.y;
+			width[i] = size == null ? Double.NaN : size.width;
+			height[i] = size == null ? Double.NaN : size.height;
+			movable.set(i, LayoutProperties.isMovable(node));
+			resizable.set(i, LayoutProperties.isResizable(node));
+		}
+		attributeX = x.clone();
+		attributeY = y.clone();
+		attributeWidth = width.clone();
+		attributeHeight = height.clone();
+
+		// capture edges between the given nodes
+		Edge[] capturedEdges = new Edge[edges.length];
+		int[] sources = new int[edges.length];
+		int[] targets = new int[edges.length];
+		int m = 0;
+		for (Edge edge : edges) {
+			Integer source = ids.get(edge.getSource());
+			Integer target = ids.get(edge.getTarget());
+			if (source != null && target != null) {
+				capturedEdges[m] = edge;
+				sources[m] = source;
+				targets[m] = target;
+				m++;
+			}
+		}
+		this.edges = Arrays.copyOf(capturedEdges, m);
+		edgeSources = Arrays.copyOf(sources, m);
+		edgeTargets = Arrays.copyOf(targets, m);
+		edgeWeights = new double[m];
+		for (int e = 0; e < m; e++) {
+			edgeWeights[e] = LayoutProperties.getWeight(this.edges[e]);
+		}
+
+		// incident edges in compressed sparse row format
+		incidenceOffsets = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			incidenceOffsets[edgeSources[e] + 1]++;
+			if (edgeTargets[e] != edgeSources[e]) {
+				incidenceOffsets[edgeTargets[e] + 1]++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			incidenceOffsets[i + 1] += incidenceOffsets[i];
+		}
+		incidentEdges = new int[incidenceOffsets[n]];
+		int[] fill = Arrays.copyOf(incidenceOffsets, n);
+		for (int e = 0; e < m; e++) {
+			incidentEdges[fill[edgeSources[e]]++] = e;
+			if (edgeTargets[e] != edgeSources[e]) {
+				incidentEdges[fill[edgeTargets[e]]++] = e;
+			}
+		}
+	}
+
+	/**
+	 * Creates a new {@link Graph} that contains a detached copy of the nodes
+	 * with the given ids (in the given order), and of the captured edges
+	 * between these nodes (in the order of their ids). The copies share all
+	 * attributes with the originals, except for the locations and sizes, which
+	 * are set to the current values of this {@link LayoutSnapshot}. The
+	 * returned graph does not have any attributes.
+	 *
+	 * @param ids
+	 *            An array containing the ids of the nodes to copy.
+	 * @param offset
+	 *            The index of the first id within the given array.
+	 * @param length
+	 *            The number of ids to copy.
+	 * @return A new {@link Graph} containing the copied nodes and edges.
+	 */
+	public Graph createDetachedGraph(int[] ids, int offset, int length) {
+		Map<Node, Node> copies = new IdentityHashMap<>();
+		List<Node> nodeCopies = new ArrayList<>(length);
+		int edgeCount = 0;
+		for (int m = offset; m < offset + length; m++) {
+			int i = ids[m];
+			Node copy = new Node(nodes[i].getAttributes());
+			if (!Double.isNaN(x[i]) && !Double.isNaN(y[i])) {
+				LayoutProperties.setLocation(copy, new Point(x[i], y[i]));
+			}
+			if (!Double.isNaN(width[i]) && !Double.isNaN(height[i])) {
+				LayoutProperties.setSize(copy,
+						new Dimension(width[i], height[i]));
+			}
+			copies.put(nodes[i], copy);
+			nodeCopies.add(copy);
+			edgeCount += incidenceOffsets[i + 1] - incidenceOffsets[i];
+		}
+
+		// collect every edge once (at its source), and keep the edge order
+		int[] copiedEdges = new int[edgeCount];
+		edgeCount = 0;
+		for (int m = offset; m < offset + length; m++) {
+			int i = ids[m];
+			for (int k = incidenceOffsets[i]; k < incidenceOffsets[i
+					+ 1]; k++) {
+				int e = incidentEdges[k];
+				if (edgeSources[e] == i
+						&& copies.containsKey(nodes[edgeTargets[e]])) {
+					copiedEdges[edgeCount++] = e;
+				}
+			}
+		}
+		Arrays.sort(copiedEdges, 0, edgeCount);
+		List<Edge> edgeCopies = new ArrayList<>(edgeCount);
+		for (int k = 0; k < edgeCount; k++) {
+			int e = copiedEdges[k];
+			edgeCopies.add(new Edge(edges[e].getAttributes(),
+					copies.get(nodes[edgeSources[e]]),
+					copies.get(nodes[edgeTargets[e]])));
+		}
+		return new Graph(new HashMap<String, Object>(), nodeCopies,
+				edgeCopies);
+	}
+
+	/**
+	 * Returns the {@link Edge} with the given id.
+	 *
+	 * @param id
+	 *            The id of the {@link Edge}.
+	 * @return The {@link Edge} with the given id.
+	 */
+	public Edge getEdge(int id) {
+		return edges[id];
+	}
+
+	/**
+	 * Returns the number of captured {@link Edge}s.
+	 *
+	 * @return The number of captured {@link Edge}s.
+	 */
+	public int getEdgeCount() {
+		return edges.length;
+	}
+
+	/**
+	 * Returns the source node ids of the captured edges (indexed by edge id).
+	 * The returned array may not be modified.
+	 *
+	 * @return The source node ids of the captured edges.
+	 */
+	public int[] getEdgeSources() {
+		return edgeSources;
+	}
+
+	/**
+	 * Returns the target node ids of the captured edges (indexed by edge id).
+	 * The returned array may not be modified.
+	 *
+	 * @return The target node ids of the captured edges.
+	 */
+	public int[] getEdgeTargets() {
+		return edgeTargets;
+	}
+
+	/**
+	 * Returns the {@link LayoutProperties#getWeight(Edge) weights} of the
+	 * captured edges (indexed by edge id). The returned array may not be
+	 * modified.
+	 *
+	 * @return The weights of the captured edges.
+	 */
+	public double[] getEdgeWeights() {
+		return edgeWeights;
+	}
+
+	/**
+	 * Returns the heights of the captured nodes (indexed by node id). The
+	 * returned array is modified in place by layout algorithms.
+	 *
+	 * @return The heights of the captured nodes.
+	 */
+	public double[] getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the id of the given {@link Node}, or <code>-1</code> if the node
+	 * is not captured by this {@link LayoutSnapshot}.
+	 *
+	 * @param node
+	 *            The {@link Node} for which to return the id.
+	 * @return The id of the given {@link Node}, or <code>-1</code>.
+	 */
+	public int getId(Node node) {
+		Integer id = ids.get(node);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the offsets of the incident edges of each node within
+	 * {@link #getIncidentEdges()}, i.e. the ids of the edges incident to node
+	 * <code>i</code> are stored at the indices
+	 * <code>[offsets[i], offsets[i + 1])</code>. The returned array has a
+	 * length of {@link #getNodeCount()} + 1, and may not be modified.
+	 *
+	 * @return The offsets of the incident edges of each node.
+	 */
+	public int[] getIncidenceOffsets() {
+		return incidenceOffsets;
+	}
+
+	/**
+	 * Returns the ids of the incident edges of all nodes (see
+	 * {@link #getIncidenceOffsets()}). Self-loops are only contained once. The
+	 * returned array may not be modified.
+	 *
+	 * @return The ids of the incident edges of all nodes.
+	 */
+	public int[] getIncidentEdges() {
+		return incidentEdges;
+	}
+
+	/**
+	 * Returns the {@link Node} with the given id.
+	 *
+	 * @param id
+	 *            The id of the {@link Node}.
+	 * @return The {@link Node} with the given id.
+	 */
+	public Node getNode(int id) {
+		return nodes[id];
+	}
+
+	/**
+	 * Returns the number of captured {@link Node}s.
+	 *
+	 * @return The number of captured {@link Node}s.
+	 */
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	/**
+	 * Returns a copy of the captured {@link Node}s, indexed by node id.
+	 *
+	 * @return The captured {@link Node}s.
+	 */
+	public Node[] getNodes() {
+		return nodes.clone();
+	}
+
+	/**
+	 * Returns the widths of the captured nodes (indexed by node id). The
+	 * returned array is modified in place by layout algorithms.
+	 *
+	 * @return The widths of the captured nodes.
+	 */
+	public double[] getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the x coordinates of the centers of the captured nodes (indexed
+	 * by node id). The returned array is modified in place by layout
+	 * algorithms.
+	 *
+	 * @return The x coordinates of the captured nodes.
+	 */
+	public double[] getX() {
+		return x;
+	}
+
+	/**
+	 * Returns the y coordinates of the centers of the captured nodes (indexed
+	 * by node id). The returned array is modified in place by layout
+	 * algorithms.
+	 *
+	 * @return The y coordinates of the captured nodes.
+	 */
+	public double[] getY() {
+		return y;
+	}
+
+	/**
+	 * Returns <code>true</code> if the node with the given id is
+	 * {@link LayoutProperties#isMovable(Node) movable}.
+	 *
+	 * @param id
+	 *            The id of the node.
+	 * @return <code>true</code> if the node is movable, otherwise
+	 *         <code>false</code>.
+	 */
+	public boolean isMovable(int id) {
+		return movable.get(id);
+	}
+
+	/**
+	 * Returns <code>true</code> if the node with the given id is
+	 * {@link LayoutProperties#isResizable(Node) resizable}.
+	 *
+	 * @param id
+	 *            The id of the node.
+	 * @return <code>true</code> if the node is resizable, otherwise
+	 *         <code>false</code>.
+	 */
+	public boolean isResizable(int id) {
+		return resizable.get(id);
+	}
+
+	/**
+	 * Transfers the locations and sizes that were computed within this
+	 * {@link LayoutSnapshot} to the captured nodes. Only those attributes that
+	 * changed since the snapshot was created (or since the last write back)
+	 * are updated, and <code>NaN</code> values are skipped.
+	 */
+	public void writeBack() {
+		for (int i = 0; i < nodes.length; i++) {
+			writeBack(i);
+		}
+	}
+
+	private void writeBack(int i) {
+		if (!Double.isNaN(width[i]) && !Double.isNaN(height[i])
+				&& (width[i] != attributeWidth[i]
+						|| height[i] != attributeHeight[i])) {
+			LayoutProperties.setSize(nodes[i],
+					new Dimension(width[i], height[i]));
+			attributeWidth[i] = width[i];
+			attributeHeight[i] = height[i];
+		}
+		if (!Double.isNaN(x[i]) && !Double.isNaN(y[i])
+				&& (x[i] != attributeX[i] || y[i] != attributeY[i])) {
+			LayoutProperties.setLocation(nodes[i], new Point(x[i], y[i]));
+			attributeX[i] = x[i];
+			attributeY[i] = y[i];
+		}
+	}
+
+	/**
+	 * Transfers the locations and sizes of the nodes with the given ids to the
+	 * captured nodes (see {@link #writeBack()}). This can be used if the
+	 * layout was only changed for a few nodes.
+	 * 
+	 * @param ids
+	 *            The ids of the nodes whose locations and sizes are
+	 *            transferred.
+	 */
+	public void writeBack(int[] ids) {
+		for (int i : ids) {
+			writeBack(i);
+		}
+	}
+
+}
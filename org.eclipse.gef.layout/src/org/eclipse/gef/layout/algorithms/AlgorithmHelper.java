@@ -17,6 +17,7 @@ import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
 import org.eclipse.gef.graph.Node;
 import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
 
 /**
  * The {@link AlgorithmHelper} class contains utility methods for the laying out
@@ -92,6 +93,73 @@ class AlgorithmHelper {
 		}
 	}
 
+	/**
+	 * Fits the nodes of the given {@link LayoutSnapshot} within the given
+	 * bounds, preserving their relative locations (see
+	 * {@link #fitWithinBounds(Node[], Rectangle, boolean)}). Only the arrays of
+	 * the snapshot are modified.
+	 * 
+	 * @param snapshot
+	 *            The {@link LayoutSnapshot} containing the nodes to fit.
+	 * @param destinationBounds
+	 *            The {@link Rectangle} representing the layout bounds.
+	 * @param resize
+	 *            <code>true</code> to indicate that the nodes can be resized,
+	 *            otherwise <code>false</code>.
+	 */
+	public static void fitWithinBounds(LayoutSnapshot snapshot,
+			Rectangle destinationBounds, boolean resize) {
+		int n = snapshot.getNodeCount();
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		double[] width = snapshot.getWidth();
+		double[] height = snapshot.getHeight();
+		if (n == 1) {
+			if (snapshot.isMovable(0)) {
+				x[0] = destinationBounds.getX()
+						+ destinationBounds.getWidth() / 2;
+				y[0] = destinationBounds.getY()
+						+ destinationBounds.getHeight() / 2;
+			}
+			if (resize && snapshot.isResizable(0)) {
+				Dimension size = new Dimension(destinationBounds.getWidth(),
+						destinationBounds.getHeight());
+				double preferredAspectRatio = LayoutProperties
+						.getPreferredAspectRatio(snapshot.getNode(0));
+				if (preferredAspectRatio > 0) {
+					size = fixAspectRatio(size.width, size.height,
+							preferredAspectRatio);
+				}
+				width[0] = size.width;
+				height[0] = size.height;
+			}
+			return;
+		}
+		Rectangle startingBounds = getLayoutBounds(snapshot, false);
+		double sizeScale = Math.min(
+				destinationBounds.getWidth() / startingBounds.getWidth(),
+				destinationBounds.getHeight() / startingBounds.getHeight());
+		for (int i = 0; i < n; i++) {
+			boolean scale = resize && snapshot.isResizable(i);
+			if (scale) {
+				width[i] *= sizeScale;
+				height[i] *= sizeScale;
+			}
+			if (snapshot.isMovable(i)) {
+				double percentX = startingBounds.getWidth() == 0 ? 0
+						: (x[i] - startingBounds.getX())
+								/ (startingBounds.getWidth());
+				double percentY = startingBounds.getHeight() == 0 ? 0
+						: (y[i] - startingBounds.getY())
+								/ (startingBounds.getHeight());
+				x[i] = destinationBounds.getX() + width[i] / 2 + percentX
+						* (destinationBounds.getWidth() - width[i]);
+				y[i] = destinationBounds.getY() + height[i] / 2 + percentY
+						* (destinationBounds.getHeight() - height[i]);
+			}
+		}
+	}
+
 	private static void fitSingleEntity(Node entity,
 			Rectangle destinationBounds, boolean resize) {
 		if (LayoutProperties.isMovable(entity)) {
@@ -148,6 +216,38 @@ class AlgorithmHelper {
 		}
 	}
 
+	/**
+	 * Resizes the nodes of the given {@link LayoutSnapshot} so that they have
+	 * a maximal area without overlapping each other (see
+	 * {@link #maximizeSizes(Node[])}). Only the arrays of the snapshot are
+	 * modified.
+	 * 
+	 * @param snapshot
+	 *            The {@link LayoutSnapshot} containing the nodes of which the
+	 *            sizes are maximized.
+	 */
+	public static void maximizeSizes(LayoutSnapshot snapshot) {
+		int n = snapshot.getNodeCount();
+		if (n > 1) {
+			Dimension minDistance = getMinimumDistance(snapshot);
+			double nodeSize = Math.max(minDistance.width, minDistance.height)
+					* PADDING_PERCENT;
+			for (int i = 0; i < n; i++) {
+				if (snapshot.isResizable(i)) {
+					Dimension size = new Dimension(nodeSize, nodeSize);
+					double preferredRatio = LayoutProperties
+							.getPreferredAspectRatio(snapshot.getNode(i));
+					if (preferredRatio > 0) {
+						size = fixAspectRatio(nodeSize, nodeSize,
+								preferredRatio);
+					}
+					snapshot.getWidth()[i] = size.width;
+					snapshot.getHeight()[i] = size.height;
+				}
+			}
+		}
+	}
+
 	private static Dimension fixAspectRatio(double width, double height,
 			double preferredRatio) {
 		double actualRatio = width / height;
@@ -209,6 +309,40 @@ class AlgorithmHelper {
 				bottomSide - topSide);
 	}
 
+	/**
+	 * Find the bounds in which the nodes of the given {@link LayoutSnapshot}
+	 * are located (see {@link #getLayoutBounds(Node[], boolean)}).
+	 * 
+	 * @param snapshot
+	 *            The {@link LayoutSnapshot} containing the nodes for which the
+	 *            layout bounds are computed.
+	 * @param includeNodeSize
+	 *            <code>true</code> to indicate that the nodes' sizes should be
+	 *            taken into consideration, otherwise <code>false</code>.
+	 * @return A {@link Rectangle} representing the layout bounds of the nodes.
+	 */
+	public static Rectangle getLayoutBounds(LayoutSnapshot snapshot,
+			boolean includeNodeSize) {
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		double[] width = snapshot.getWidth();
+		double[] height = snapshot.getHeight();
+		double rightSide = Double.NEGATIVE_INFINITY;
+		double bottomSide = Double.NEGATIVE_INFINITY;
+		double leftSide = Double.POSITIVE_INFINITY;
+		double topSide = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < snapshot.getNodeCount(); i++) {
+			double halfWidth = includeNodeSize ? width[i] / 2 : 0;
+			double halfHeight = includeNodeSize ? height[i] / 2 : 0;
+			leftSide = Math.min(x[i] - halfWidth, leftSide);
+			topSide = Math.min(y[i] - halfHeight, topSide);
+			rightSide = Math.max(x[i] + halfWidth, rightSide);
+			bottomSide = Math.max(y[i] + halfHeight, bottomSide);
+		}
+		return new Rectangle(leftSide, topSide, rightSide - leftSide,
+				bottomSide - topSide);
+	}
+
 	/**
 	 * minDistance is the closest that any two points are together. These two
 	 * points become the center points for the two closest nodes, which we wish
@@ -259,4 +393,35 @@ class AlgorithmHelper {
 		}
 		return horAndVertdistance;
 	}
+
+	/**
+	 * Computes the minimum distance between the nodes of the given
+	 * {@link LayoutSnapshot} (see {@link #getMinimumDistance(Node[])}).
+	 * 
+	 * @param snapshot
+	 *            The {@link LayoutSnapshot} containing the nodes for which the
+	 *            minimum distance is computed.
+	 * @return A {@link Dimension} representing the minimum distance (in x- and
+	 *         y-direction).
+	 */
+	public static Dimension getMinimumDistance(LayoutSnapshot snapshot) {
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		Dimension horAndVertdistance = new Dimension(Double.MAX_VALUE,
+				Double.MAX_VALUE);
+		double minDistance = Double.MAX_VALUE;
+		for (int i = 0; i < snapshot.getNodeCount(); i++) {
+			for (int j = i + 1; j < snapshot.getNodeCount(); j++) {
+				double distanceX = x[i] - x[j];
+				double distanceY = y[i] - y[j];
+				double distance = distanceX * distanceX + distanceY * distanceY;
+				if (distance < minDistance) {
+					minDistance = distance;
+					horAndVertdistance.width = Math.abs(distanceX);
+					horAndVertdistance.height = Math.abs(distanceY);
+				}
+			}
+		}
+		return horAndVertdistance;
+	}
 }
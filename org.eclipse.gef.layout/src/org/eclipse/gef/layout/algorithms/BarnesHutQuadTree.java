@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * The {@link BarnesHutQuadTree} is a region quadtree over a set of points that
+ * aggregates the number of points and their center of mass per cell. It is
+ * used to approximate the repulsive forces of a force-directed layout in
+ * <code>O(n log n)</code>, treating every cell that is far enough away from a
+ * point as a single body (Barnes-Hut approximation).
+ * <p>
+ * The tree is stored in flat arrays, so that it can be rebuilt for every
+ * iteration without allocating objects per cell.
+ */
+class BarnesHutQuadTree {
+
+	/**
+	 * The maximum depth of the tree. Points that cannot be separated within
+	 * this depth (i.e. (nearly) coincident points) are chained within a leaf.
+	 */
+	private static final int MAX_DEPTH = 48;
+
+	private double[] x;
+	private double[] y;
+	private int[] next = new int[0];
+
+	private int cellCount;
+	private int[] children = new int[0];
+	private int[] firstBody = new int[0];
+	private boolean[] divided = new boolean[0];
+	private double[] cellX = new double[0];
+	private double[] cellY = new double[0];
+	private double[] cellSize = new double[0];
+	private double[] mass = new double[0];
+	private double[] sumX = new double[0];
+	private double[] sumY = new double[0];
+
+	private int addCell(double cx, double cy, double size) {
+		if (cellCount == mass.length) {
+			int capacity = Math.max(16, 2 * cellCount);
+			children = Arrays.copyOf(children, 4 * capacity);
+			firstBody = Arrays.copyOf(firstBody, capacity);
+			divided = Arrays.copyOf(divided, capacity);
+			cellX = Arrays.copyOf(cellX, capacity);
+			cellY = Arrays.copyOf(cellY, capacity);
+			cellSize = Arrays.copyOf(cellSize, capacity);
+			mass = Arrays.copyOf(mass, capacity);
+			sumX = Arrays.copyOf(sumX, capacity);
+			sumY = Arrays.copyOf(sumY, capacity);
+		}
+		int c = cellCount++;
+		for (int q = 0; q < 4; q++) {
+			children[4 * c + q] = -1;
+		}
+		firstBody[c] = -1;
+		divided[c] = false;
+		cellX[c] = cx;
+		cellY[c] = cy;
+		cellSize[c] = size;
+		mass[c] = 0;
+		sumX[c] = 0;
+		sumY[c] = 0;
+		return c;
+	}
+
+	/**
+	 * Adds the repulsive force that all other points exert onto the point at
+	 * the given index to the given force arrays. The force between two bodies
+	 * is <code>gravitation / d^2</code> (directed away from the other body),
+	 * where the squared distance <code>d^2</code> is at least
+	 * <code>minDistanceSq</code>.
+	 *
+	 * @param i
+	 *            The index of the point for which to compute the force.
+	 * @param theta
+	 *            The opening criterion. A cell of size <code>s</code> at
+	 *            distance <code>d</code> is treated as a single body if
+	 *            <code>s / d &lt; theta</code>.
+	 * @param gravitation
+	 *            The repulsion strength.
+	 * @param minDistanceSq
+	 *            The minimum squared distance to consider between bodies.
+	 * @param stack
+	 *            A traversal stack as created by {@link #createStack()}. As
+	 *            the tree is not modified by this method, it may be called
+	 *            concurrently when passing in different stacks.
+	 * @param forcesX
+	 *            The array to which the horizontal force component is added.
+	 * @param forcesY
+	 *            The array to which the vertical force component is added.
+	 */
+	void accumulateRepulsion(int i, double theta, double gravitation,
+			double minDistanceSq, int[] stack, double[] forcesX,
+			double[] forcesY) {
+		if (cellCount == 0) {
+			return;
+		}
+		double xi = x[i];
+		double yi = y[i];
+		double thetaSq = theta * theta;
+		double fx = 0;
+		double fy = 0;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int c = stack[--top];
+			if (divided[c]) {
+				double dx = xi - sumX[c] / mass[c];
+				double dy = yi - sumY[c] / mass[c];
+				double distanceSq = dx * dx + dy * dy;
+				double size = cellSize[c];
+				boolean containsI = xi >= cellX[c] && xi <= cellX[c] + size
+						&& yi >= cellY[c] && yi <= cellY[c] + size;
+				if (!containsI && size * size < thetaSq * distanceSq) {
+					// far away cell, approximate by its center of mass
+					distanceSq = Math.max(minDistanceSq, distanceSq);
+					double distance = Math.sqrt(distanceSq);
+					double f = gravitation * mass[c] / distanceSq;
+					fx += f * dx / distance;
+					fy += f * dy / distance;
+				} else {
+					for (int q = 0; q < 4; q++) {
+						int child = children[4 * c + q];
+						if (child != -1) {
+							stack[top++] = child;
+						}
+					}
+				}
+			} else {
+				// leaf, compute exact forces for all contained bodies
+				for (int b = firstBody[c]; b != -1; b = next[b]) {
+					if (b == i) {
+						continue;
+					}
+					double dx = xi - x[b];
+					double dy = yi - y[b];
+					double distanceSq = Math.max(minDistanceSq,
+							dx * dx + dy * dy);
+					double distance = Math.sqrt(distanceSq);
+					double f = gravitation / distanceSq;
+					fx += f * dx / distance;
+					fy += f * dy / distance;
+				}
+			}
+		}
+		forcesX[i] += fx;
+		forcesY[i] += fy;
+	}
+
+	/**
+	 * Rebuilds this {@link BarnesHutQuadTree} for the given points. The given
+	 * arrays are referenced (not copied) until the next rebuild.
+	 *
+	 * @param x
+	 *            The x coordinates of the points.
+	 * @param y
+	 *            The y coordinates of the points.
+	 */
+	void build(double[] x, double[] y) {
+		this.x = x;
+		this.y = y;
+		int n = x.length;
+		cellCount = 0;
+		if (next.length != n) {
+			next = new int[n];
+		}
+		if (n == 0) {
+			return;
+		}
+
+		// compute (square) root cell
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		double size = Math.max(maxX - minX, maxY - minY);
+		size = size > 0 ? size * (1 + 1e-9) : 1;
+		addCell(minX, minY, size);
+
+		for (int i = 0; i < n; i++) {
+			insert(i);
+		}
+	}
+
+	/**
+	 * Creates a stack that can be used to traverse this tree within
+	 * {@link #accumulateRepulsion(int, double, double, double, int[], double[], double[])}
+	 * .
+	 *
+	 * @return A new traversal stack.
+	 */
+	int[] createStack() {
+		// a traversal keeps at most three siblings per level on the stack
+		return new int[4 * MAX_DEPTH + 4];
+	}
+
+	private int getOrCreateChild(int c, int q) {
+		int child = children[4 * c + q];
+		if (child == -1) {
+			double half = cellSize[c] / 2;
+			child = addCell(cellX[c] + ((q & 1) != 0 ? half : 0),
+					cellY[c] + ((q & 2) != 0 ? half : 0), half);
+			children[4 * c + q] = child;
+		}
+		return child;
+	}
+
+	private void insert(int i) {
+		next[i] = -1;
+		int c = 0;
+		int depth = 0;
+		while (true) {
+			mass[c] += 1;
+			sumX[c] += x[i];
+			sumY[c] += y[i];
+			if (divided[c]) {
+				c = getOrCreateChild(c, quadrant(c, i));
+				depth++;
+			} else if (firstBody[c] == -1) {
+				firstBody[c] = i;
+				return;
+			} else if (depth >= MAX_DEPTH) {
+				// (nearly) coincident points are chained within the leaf
+				next[i] = firstBody[c];
+				firstBody[c] = i;
+				return;
+			} else {
+				// split leaf and push down its single body
+				int other = firstBody[c];
+				firstBody[c] = -1;
+				divided[c] = true;
+				int child = getOrCreateChild(c, quadrant(c, other));
+				mass[child] += 1;
+				sumX[child] += x[other];
+				sumY[child] += y[other];
+				firstBody[child] = other;
+				c = getOrCreateChild(c, quadrant(c, i));
+				depth++;
+			}
+		}
+	}
+
+	private int quadrant(int c, int i) {
+		double half = cellSize[c] / 2;
+		int q = 0;
+		if (x[i] >= cellX[c] + half) {
+			q |= 1;
+		}
+		if (y[i] >= cellY[c] + half) {
+			q |= 2;
+		}
+		return q;
+	}
+
+}
@@ -63,6 +63,10 @@ public class BoxLayoutAlgorithm extends GridLayoutAlgorithm {
 		return orientation;
 	}
 
+	public Object[] getLayoutParameters() {
+		return new Object[] { super.getLayoutParameters(), orientation };
+	}
+
 	/**
 	 * Changes the orientation of this {@link BoxLayoutAlgorithm} to the given
 	 * value, which may either be {@link #HORIZONTAL} or {@link #VERTICAL}.
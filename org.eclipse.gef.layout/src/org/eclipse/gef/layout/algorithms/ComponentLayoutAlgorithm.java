@@ -0,0 +1,408 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.algorithms;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
+import org.eclipse.gef.geometry.planar.Rectangle;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.Node;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
+import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.LayoutContext;
+import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
+
+/**
+ * The {@link ComponentLayoutAlgorithm} splits the graph into its connected
+ * components (regarding edges as undirected), lays out each component
+ * independently by a delegate {@link ILayoutAlgorithm}, and packs the
+ * components next to each other:
+ * <ol>
+ * <li>The connected components are determined in linear time.
+ * <li>Every component (of more than one node) is laid out within its own
+ * {@link LayoutContext}, which contains a detached copy of the nodes and edges
+ * of the component. Its bounds are proportional to the number of nodes of the
+ * component. If the delegate algorithms are provided by a factory (see
+ * {@link #ComponentLayoutAlgorithm(Supplier)}), the components are laid out in
+ * parallel, using the common {@link ForkJoinPool}.
+ * <li>The bounding boxes of the components are packed into shelves (rows),
+ * ordered by decreasing height, and the result is fit within the layout
+ * bounds.
+ * </ol>
+ * Hence, force-directed algorithms do not compute repulsive forces between
+ * unrelated components, and tree-like algorithms lay out every component
+ * separately.
+ */
+public class ComponentLayoutAlgorithm implements ICacheableLayoutAlgorithm {
+
+	/**
+	 * Lays out the components within the given index range, splitting the
+	 * range until it contains a single component.
+	 */
+	private class ComponentAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final LayoutContext[] contexts;
+		private final int from;
+		private final int to;
+
+		public ComponentAction(LayoutContext[] contexts, int from, int to) {
+			this.contexts = contexts;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				if (contexts[from] != null) {
+					algorithmFactory.get().applyLayout(contexts[from], true);
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ComponentAction(contexts, from, mid),
+						new ComponentAction(contexts, mid, to));
+			}
+		}
+	}
+
+	/**
+	 * The default padding between components.
+	 */
+	private static final double DEFAULT_PADDING = 10;
+
+	private final Supplier<? extends ILayoutAlgorithm> algorithmFactory;
+	// provides the parameters of the (equally configured) delegates
+	private final ILayoutAlgorithm prototype;
+	private final boolean parallel;
+	private double padding = DEFAULT_PADDING;
+	private boolean resize = false;
+
+	/**
+	 * Constructs a new {@link ComponentLayoutAlgorithm} that lays out all
+	 * components (sequentially) by the given {@link ILayoutAlgorithm}.
+	 *
+	 * @param algorithm
+	 *            The {@link ILayoutAlgorithm} that is used to lay out the
+	 *            individual components.
+	 */
+	public ComponentLayoutAlgorithm(final ILayoutAlgorithm algorithm) {
+		this.algorithmFactory = new Supplier<ILayoutAlgorithm>() {
+			@Override
+			public ILayoutAlgorithm get() {
+				return algorithm;
+			}
+		};
+		this.prototype = algorithm;
+		this.parallel = false;
+	}
+
+	/**
+	 * Constructs a new {@link ComponentLayoutAlgorithm} that lays out the
+	 * components in parallel, each by a new {@link ILayoutAlgorithm} that is
+	 * provided by the given factory (so that stateful algorithms are not
+	 * shared between threads). The factory is invoked once during construction
+	 * to obtain the layout parameters of the delegates (see
+	 * {@link #getLayoutParameters()}), so it has to provide equally configured
+	 * algorithms.
+	 *
+	 * @param algorithmFactory
+	 *            A factory providing the {@link ILayoutAlgorithm}s that are
+	 *            used to lay out the individual components.
+	 */
+	public ComponentLayoutAlgorithm(
+			Supplier<? extends ILayoutAlgorithm> algorithmFactory) {
+		this.algorithmFactory = algorithmFactory;
+		this.prototype = algorithmFactory.get();
+		this.parallel = true;
+	}
+
+	public Object[] getLayoutParameters() {
+		return new Object[] { prototype, padding, resize };
+	}
+
+	public void applyLayout(LayoutContext context, boolean clean) {
+		if (!clean)
+			return;
+		LayoutSnapshot snapshot = context.createLayoutSnapshot();
+		int n = snapshot.getNodeCount();
+		if (n == 0) {
+			return;
+		}
+		int[] components = new int[n];
+		int componentCount = computeComponents(snapshot, components);
+		if (componentCount == 1) {
+			algorithmFactory.get().applyLayout(context, clean);
+			return;
+		}
+
+		// members of each component in compressed sparse row format
+		int[] memberOffsets = new int[componentCount + 1];
+		for (int i = 0; i < n; i++) {
+			memberOffsets[components[i] + 1]++;
+		}
+		for (int c = 0; c < componentCount; c++) {
+			memberOffsets[c + 1] += memberOffsets[c];
+		}
+		int[] members = new int[n];
+		int[] fill = Arrays.copyOf(memberOffsets, componentCount);
+		for (int i = 0; i < n; i++) {
+			members[fill[components[i]]++] = i;
+		}
+
+		// lay out the components within detached copies
+		Rectangle bounds = LayoutProperties.getBounds(context.getGraph());
+		LayoutContext[] contexts = new LayoutContext[componentCount];
+		for (int c = 0; c < componentCount; c++) {
+			int size = memberOffsets[c + 1] - memberOffsets[c];
+			if (size > 1) {
+				double scale = Math.sqrt((double) size / n);
+				Rectangle componentBounds = new Rectangle(0, 0,
+						bounds.getWidth() * scale, bounds.getHeight() * scale);
+				contexts[c] = createComponentContext(snapshot, members,
+						memberOffsets[c], size, componentBounds);
+			}
+		}
+		if (parallel) {
+			ForkJoinPool.commonPool()
+					.invoke(new ComponentAction(contexts, 0, componentCount));
+		} else {
+			for (int c = 0; c < componentCount; c++) {
+				if (contexts[c] != null) {
+					algorithmFactory.get().applyLayout(contexts[c], true);
+				}
+			}
+		}
+		if (context.isLayoutCancelled()) {
+			return;
+		}
+
+		// transfer the layout of the copies, and determine the bounding box of
+		// each component
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		double[] width = snapshot.getWidth();
+		double[] height = snapshot.getHeight();
+		Rectangle[] componentBounds = new Rectangle[componentCount];
+		for (int c = 0; c < componentCount; c++) {
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+				int i = members[m];
+				if (contexts[c] != null) {
+					Node copy = contexts[c].getGraph().getNodes()
+							.get(m - memberOffsets[c]);
+					Point location = LayoutProperties.getLocation(copy);
+					Dimension size = LayoutProperties.getSize(copy);
+					if (location != null && snapshot.isMovable(i)) {
+						x[i] = location.x;
+						y[i] = location.y;
+					}
+					if (size != null && snapshot.isResizable(i)) {
+						width[i] = size.width;
+						height[i] = size.height;
+					}
+				}
+				if (Double.isNaN(x[i]) || Double.isNaN(y[i])) {
+					x[i] = 0;
+					y[i] = 0;
+				}
+				double w = Double.isNaN(width[i]) ? 0 : width[i];
+				double h = Double.isNaN(height[i]) ? 0 : height[i];
+				minX = Math.min(minX, x[i] - w / 2);
+				minY = Math.min(minY, y[i] - h / 2);
+				maxX = Math.max(maxX, x[i] + w / 2);
+				maxY = Math.max(maxY, y[i] + h / 2);
+			}
+			componentBounds[c] = new Rectangle(minX, minY, maxX - minX,
+					maxY - minY);
+		}
+
+		// pack the components and move their nodes accordingly
+		Point[] offsets = pack(componentBounds,
+				bounds.getWidth() / Math.max(1, bounds.getHeight()));
+		for (int c = 0; c < componentCount; c++) {
+			for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+				int i = members[m];
+				if (snapshot.isMovable(i)) {
+					x[i] += offsets[c].x;
+					y[i] += offsets[c].y;
+				}
+			}
+		}
+
+		if (resize)
+			AlgorithmHelper.maximizeSizes(snapshot);
+		Rectangle fitBounds = bounds.getCopy();
+		int insets = 4;
+		fitBounds.setX(fitBounds.getX() + insets);
+		fitBounds.setY(fitBounds.getY() + insets);
+		fitBounds.setWidth(fitBounds.getWidth() - 2 * insets);
+		fitBounds.setHeight(fitBounds.getHeight() - 2 * insets);
+		AlgorithmHelper.fitWithinBounds(snapshot, fitBounds, resize);
+		snapshot.writeBack();
+	}
+
+	/**
+	 * Labels the connected components of the given {@link LayoutSnapshot}
+	 * (in order of their first node) by a breadth-first search, and returns
+	 * the number of components.
+	 */
+	private int computeComponents(LayoutSnapshot snapshot, int[] components) {
+		int n = snapshot.getNodeCount();
+		int[] sources = snapshot.getEdgeSources();
+		int[] targets = snapshot.getEdgeTargets();
+		int[] incidenceOffsets = snapshot.getIncidenceOffsets();
+		int[] incidentEdges = snapshot.getIncidentEdges();
+		Arrays.fill(components, -1);
+		int[] queue = new int[n];
+		int count = 0;
+		for (int root = 0; root < n; root++) {
+			if (components[root] != -1) {
+				continue;
+			}
+			components[root] = count;
+			queue[0] = root;
+			int size = 1;
+			for (int head = 0; head < size; head++) {
+				int v = queue[head];
+				for (int k = incidenceOffsets[v]; k < incidenceOffsets[v
+						+ 1]; k++) {
+					int e = incidentEdges[k];
+					int w = sources[e] == v ? targets[e] : sources[e];
+					if (components[w] == -1) {
+						components[w] = count;
+						queue[size++] = w;
+					}
+				}
+			}
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Creates a {@link LayoutContext} for a detached copy of the given
+	 * component (see
+	 * {@link LayoutSnapshot#createDetachedGraph(int[], int, int)}).
+	 */
+	private LayoutContext createComponentContext(LayoutSnapshot snapshot,
+			int[] members, int offset, int size, Rectangle bounds) {
+		Graph graph = snapshot.createDetachedGraph(members, offset, size);
+		LayoutProperties.setBounds(graph, bounds);
+		LayoutContext context = new LayoutContext();
+		context.setGraph(graph);
+		return context;
+	}
+
+	/**
+	 * Returns the padding between neighboring components.
+	 *
+	 * @return The padding between neighboring components.
+	 */
+	public double getPadding() {
+		return padding;
+	}
+
+	/**
+	 * Returns <code>true</code> if the components are laid out in parallel,
+	 * i.e. if the delegate algorithms are provided by a factory.
+	 *
+	 * @return <code>true</code> if the components are laid out in parallel,
+	 *         otherwise <code>false</code>.
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 *
+	 * @return true if this algorithm is set to resize elements
+	 */
+	public boolean isResizing() {
+		return resize;
+	}
+
+	/**
+	 * Packs the given bounding boxes into shelves (next fit, by decreasing
+	 * height), aiming at the given aspect ratio (width / height) of the
+	 * packing, and returns the translation for each bounding box.
+	 */
+	private Point[] pack(final Rectangle[] boxes, double aspectRatio) {
+		Integer[] order = new Integer[boxes.length];
+		double area = 0;
+		double maxWidth = 0;
+		for (int c = 0; c < boxes.length; c++) {
+			order[c] = c;
+			area += (boxes[c].getWidth() + padding)
+					* (boxes[c].getHeight() + padding);
+			maxWidth = Math.max(maxWidth, boxes[c].getWidth() + padding);
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(boxes[b].getHeight(),
+						boxes[a].getHeight());
+			}
+		});
+		double shelfWidth = Math.max(maxWidth, Math.sqrt(area * aspectRatio));
+		Point[] offsets = new Point[boxes.length];
+		double shelfX = 0;
+		double shelfY = 0;
+		double shelfHeight = 0;
+		for (int c : order) {
+			Rectangle box = boxes[c];
+			if (shelfX > 0 && shelfX + box.getWidth() > shelfWidth) {
+				// open a new shelf
+				shelfX = 0;
+				shelfY += shelfHeight + padding;
+				shelfHeight = 0;
+			}
+			offsets[c] = new Point(shelfX - box.getX(), shelfY - box.getY());
+			shelfX += box.getWidth() + padding;
+			shelfHeight = Math.max(shelfHeight, box.getHeight());
+		}
+		return offsets;
+	}
+
+	/**
+	 * Sets the padding between neighboring components.
+	 *
+	 * @param padding
+	 *            The padding between neighboring components.
+	 */
+	public void setPadding(double padding) {
+		this.padding = padding;
+	}
+
+	/**
+	 *
+	 * @param resizing
+	 *            true if this algorithm should resize elements (default is
+	 *            false)
+	 */
+	public void setResizing(boolean resizing) {
+		resize = resizing;
+	}
+
+}
@@ -12,6 +12,7 @@
  ******************************************************************************/
 package org.eclipse.gef.layout.algorithms;
 
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
 import org.eclipse.gef.layout.ILayoutAlgorithm;
 import org.eclipse.gef.layout.LayoutContext;
 
@@ -24,7 +25,7 @@ import org.eclipse.gef.layout.LayoutContext;
  * @author Mateusz Matela
  * @author mwienand
  */
-public class CompositeLayoutAlgorithm implements ILayoutAlgorithm {
+public class CompositeLayoutAlgorithm implements ICacheableLayoutAlgorithm {
 
 	private ILayoutAlgorithm[] algorithms = null;
 
@@ -40,6 +41,10 @@ public class CompositeLayoutAlgorithm implements ILayoutAlgorithm {
 		this.algorithms = algorithms;
 	}
 
+	public Object[] getLayoutParameters() {
+		return new Object[] { algorithms };
+	}
+
 	public void applyLayout(LayoutContext context, boolean clean) {
 		for (int i = 0; i < algorithms.length; i++) {
 			algorithms[i].applyLayout(context, clean);
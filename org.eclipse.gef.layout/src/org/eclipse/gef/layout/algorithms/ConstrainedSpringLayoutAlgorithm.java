@@ -0,0 +1,965 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.algorithms;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.gef.geometry.planar.Rectangle;
+import org.eclipse.gef.graph.Node;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
+import org.eclipse.gef.layout.IIncrementalLayoutAlgorithm;
+import org.eclipse.gef.layout.LayoutContext;
+import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
+
+/**
+ * The {@link ConstrainedSpringLayoutAlgorithm} is a force-directed layout
+ * algorithm (following Fruchterman and Reingold), which respects the following
+ * constraints:
+ * <ul>
+ * <li>Nodes that are not movable (see {@link LayoutProperties#isMovable(Node)})
+ * are pinned, i.e. they are never moved.</li>
+ * <li>Nodes that share a horizontal (vertical) alignment group (see
+ * {@link LayoutProperties#getHorizontalAlignment(Node)} and
+ * {@link LayoutProperties#getVerticalAlignment(Node)}) are placed on a common
+ * horizontal (vertical) line.</li>
+ * <li>The bounds of neighboring nodes are kept at least the minimum separation
+ * (see {@link #setMinimumSeparation(double)}) apart.</li>
+ * </ul>
+ * The constraints are evaluated once per layout pass and stored in arrays, so
+ * that the iterations do not access the attributes of the nodes. Repulsive
+ * forces are only computed between nodes that are located within twice the
+ * ideal edge length, which are found using a uniform grid. After each
+ * iteration, the constraints are restored by projecting the locations of the
+ * movable nodes.
+ * <p>
+ * In addition to full and incremental layout passes, the algorithm supports
+ * interactive relaxation (see {@link #createRelaxation(LayoutContext, Collection)}):
+ * while some nodes are dragged, only the nodes within a few hops of them are
+ * relaxed, which is cheap enough to be performed for every drag event.
+ */
+public class ConstrainedSpringLayoutAlgorithm
+		implements IIncrementalLayoutAlgorithm, ICacheableLayoutAlgorithm {
+
+	/**
+	 * A {@link Relaxation} moves the nodes within the neighborhood of a set of
+	 * dragged nodes in response to changes of the locations of the dragged
+	 * nodes. It is created via
+	 * {@link ConstrainedSpringLayoutAlgorithm#createRelaxation(LayoutContext, Collection)}
+	 * and operates on a {@link LayoutSnapshot} that is taken at creation, so
+	 * that the constraints and the neighborhood are only computed once per drag
+	 * interaction.
+	 */
+	public static class Relaxation {
+
+		private final Model model;
+		private final int[] dragged;
+		private final int[] neighborhood;
+		private final int iterations;
+		private final Node[] relaxedNodes;
+
+		private Relaxation(Model model, int[] dragged, int[] neighborhood,
+				int iterations) {
+			this.model = model;
+			this.dragged = dragged;
+			this.neighborhood = neighborhood;
+			this.iterations = iterations;
+			// the grid is built once and only updated for moved nodes
+			model.buildGrid();
+			model.persistentGrid = true;
+			relaxedNodes = new Node[neighborhood.length];
+			for (int i = 0; i < neighborhood.length; i++) {
+				relaxedNodes[i] = model.snapshot.getNode(neighborhood[i]);
+			}
+		}
+
+		/**
+		 * Returns the nodes that may be moved by {@link #relax()}, i.e. the
+		 * movable nodes within the neighborhood of the dragged nodes.
+		 *
+		 * @return The nodes that may be moved by {@link #relax()}.
+		 */
+		public Node[] getRelaxedNodes() {
+			return relaxedNodes.clone();
+		}
+
+		/**
+		 * Changes the location of the given dragged node to the given
+		 * coordinates. The change is taken into account by the next call to
+		 * {@link #relax()}.
+		 *
+		 * @param node
+		 *            The dragged {@link Node}.
+		 * @param x
+		 *            The new x coordinate of the center of the node.
+		 * @param y
+		 *            The new y coordinate of the center of the node.
+		 */
+		public void moveTo(Node node, double x, double y) {
+			int i = model.snapshot.getId(node);
+			if (i < 0) {
+				throw new IllegalArgumentException(
+						"The given node is not part of this relaxation.");
+			}
+			model.x[i] = x;
+			model.y[i] = y;
+			model.updateGrid(i);
+		}
+
+		/**
+		 * Relaxes the neighborhood of the dragged nodes with respect to their
+		 * current locations, and writes the resulting locations back into the
+		 * {@link LayoutProperties} of the relaxed nodes.
+		 */
+		public void relax() {
+			double temperature = model.k / 4;
+			for (int i = 0; i < iterations; i++) {
+				model.step(neighborhood, temperature);
+				model.project(neighborhood);
+			}
+			model.snapshot.writeBack(dragged);
+			model.snapshot.writeBack(neighborhood);
+		}
+	}
+
+	/**
+	 * The constraints and adjacency of a {@link LayoutSnapshot}, which are
+	 * computed once per layout pass or relaxation.
+	 */
+	private static class Model {
+
+		private static final int PROJECTION_SWEEPS = 3;
+
+		final LayoutSnapshot snapshot;
+		final int n;
+		final double[] x, y;
+		final double[] halfWidth, halfHeight;
+		// movable and part of the current layout pass, and the alignment groups
+		// that contain active nodes
+		final boolean[] active;
+		int[] activeHorizontalGroups, activeVerticalGroups;
+		// symmetric adjacency in compressed sparse row format
+		final int[] adjacencyOffsets;
+		final int[] adjacency;
+		// alignment group per node (or -1), and members per group in
+		// compressed sparse row format
+		final int[] horizontalGroup, verticalGroup;
+		final int[] horizontalOffsets, horizontalMembers;
+		final int[] verticalOffsets, verticalMembers;
+		final Rectangle bounds;
+		final double k;
+		final double separation;
+		final double maxExtent;
+		final double[] displacementX, displacementY;
+		// uniform grid, nodes per cell as doubly linked lists; a persistent
+		// grid is only updated for moved nodes instead of being rebuilt
+		double cellSize, gridX, gridY;
+		int columns, rows;
+		int[] cellHead, nextInCell, previousInCell, cellOfNode;
+		boolean persistentGrid;
+
+		Model(LayoutSnapshot snapshot, Rectangle bounds, double springLength,
+				double separation) {
+			this.snapshot = snapshot;
+			this.bounds = bounds;
+			this.separation = separation;
+			n = snapshot.getNodeCount();
+			x = snapshot.getX();
+			y = snapshot.getY();
+			halfWidth = new double[n];
+			halfHeight = new double[n];
+			active = new boolean[n];
+			activeHorizontalGroups = new int[0];
+			activeVerticalGroups = new int[0];
+			displacementX = new double[n];
+			displacementY = new double[n];
+			double[] width = snapshot.getWidth();
+			double[] height = snapshot.getHeight();
+			double extent = 0;
+			for (int i = 0; i < n; i++) {
+				halfWidth[i] = Double.isNaN(width[i]) ? 0 : width[i] / 2;
+				halfHeight[i] = Double.isNaN(height[i]) ? 0 : height[i] / 2;
+				extent = Math.max(extent,
+						2 * Math.max(halfWidth[i], halfHeight[i]));
+			}
+			maxExtent = extent;
+
+			// adjacency (self loops are skipped)
+			int[] sources = snapshot.getEdgeSources();
+			int[] targets = snapshot.getEdgeTargets();
+			int[] incidenceOffsets = snapshot.getIncidenceOffsets();
+			int[] incidentEdges = snapshot.getIncidentEdges();
+			adjacencyOffsets = new int[n + 1];
+			int[] neighbors = new int[incidentEdges.length];
+			int count = 0;
+			for (int i = 0; i < n; i++) {
+				adjacencyOffsets[i] = count;
+				for (int e = incidenceOffsets[i]; e < incidenceOffsets[i
+						+ 1]; e++) {
+					int edge = incidentEdges[e];
+					int other = sources[edge] == i ? targets[edge]
+							: sources[edge];
+					if (other != i) {
+						neighbors[count++] = other;
+					}
+				}
+			}
+			adjacencyOffsets[n] = count;
+			adjacency = Arrays.copyOf(neighbors, count);
+
+			// alignment groups
+			horizontalGroup = new int[n];
+			verticalGroup = new int[n];
+			Map<Object, Integer> horizontalIds = new HashMap<>();
+			Map<Object, Integer> verticalIds = new HashMap<>();
+			for (int i = 0; i < n; i++) {
+				horizontalGroup[i] = groupId(horizontalIds, LayoutProperties
+						.getHorizontalAlignment(snapshot.getNode(i)));
+				verticalGroup[i] = groupId(verticalIds, LayoutProperties
+						.getVerticalAlignment(snapshot.getNode(i)));
+			}
+			horizontalOffsets = new int[horizontalIds.size() + 1];
+			horizontalMembers = members(horizontalGroup, horizontalOffsets);
+			verticalOffsets = new int[verticalIds.size() + 1];
+			verticalMembers = members(verticalGroup, verticalOffsets);
+
+			if (springLength > 0) {
+				k = springLength;
+			} else if (bounds != null && n > 0 && bounds.getWidth() > 0
+					&& bounds.getHeight() > 0) {
+				k = Math.sqrt(bounds.getWidth() * bounds.getHeight() / n);
+			} else {
+				k = Math.max(DEFAULT_SPRING_LENGTH, maxExtent + separation);
+			}
+		}
+
+		private static int groupId(Map<Object, Integer> ids, Object group) {
+			if (group == null) {
+				return -1;
+			}
+			Integer id = ids.get(group);
+			if (id == null) {
+				id = ids.size();
+				ids.put(group, id);
+			}
+			return id;
+		}
+
+		private static int[] members(int[] group, int[] offsets) {
+			int groups = offsets.length - 1;
+			for (int i = 0; i < group.length; i++) {
+				if (group[i] >= 0) {
+					offsets[group[i] + 1]++;
+				}
+			}
+			for (int g = 0; g < groups; g++) {
+				offsets[g + 1] += offsets[g];
+			}
+			int[] members = new int[offsets[groups]];
+			int[] next = Arrays.copyOf(offsets, groups);
+			for (int i = 0; i < group.length; i++) {
+				if (group[i] >= 0) {
+					members[next[group[i]]++] = i;
+				}
+			}
+			return members;
+		}
+
+		/**
+		 * Marks the given nodes as active and determines the alignment groups
+		 * that contain them.
+		 */
+		void activate(int[] nodes) {
+			for (int i : nodes) {
+				active[i] = true;
+			}
+			activeHorizontalGroups = activeGroups(nodes, horizontalGroup,
+					horizontalOffsets.length - 1);
+			activeVerticalGroups = activeGroups(nodes, verticalGroup,
+					verticalOffsets.length - 1);
+		}
+
+		private static int[] activeGroups(int[] nodes, int[] group,
+				int groups) {
+			boolean[] contained = new boolean[groups];
+			int[] activeGroups = new int[Math.min(nodes.length, groups)];
+			int count = 0;
+			for (int i : nodes) {
+				if (group[i] >= 0 && !contained[group[i]]) {
+					contained[group[i]] = true;
+					activeGroups[count++] = group[i];
+				}
+			}
+			return Arrays.copyOf(activeGroups, count);
+		}
+
+		/**
+		 * Aligns the members of all alignment groups that contain active nodes.
+		 * If a group contains a node that may not be moved, all members are
+		 * aligned to it, otherwise they are aligned to their mean coordinate.
+		 */
+		void align() {
+			align(activeHorizontalGroups, horizontalOffsets, horizontalMembers,
+					y);
+			align(activeVerticalGroups, verticalOffsets, verticalMembers, x);
+		}
+
+		private void align(int[] groups, int[] offsets, int[] members,
+				double[] c) {
+			for (int g : groups) {
+				double target = 0;
+				boolean pinned = false;
+				for (int m = offsets[g]; m < offsets[g + 1]; m++) {
+					int i = members[m];
+					if (active[i]) {
+						if (!pinned) {
+							target += c[i];
+						}
+					} else if (!pinned) {
+						pinned = true;
+						target = c[i];
+					}
+				}
+				if (!pinned) {
+					target /= offsets[g + 1] - offsets[g];
+				}
+				for (int m = offsets[g]; m < offsets[g + 1]; m++) {
+					if (active[members[m]]) {
+						c[members[m]] = target;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Sorts all nodes into a uniform grid, the cells of which are large
+		 * enough so that all nodes within repulsion range and all overlapping
+		 * nodes are located in adjacent cells.
+		 */
+		void buildGrid() {
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < n; i++) {
+				minX = Math.min(minX, x[i]);
+				minY = Math.min(minY, y[i]);
+				maxX = Math.max(maxX, x[i]);
+				maxY = Math.max(maxY, y[i]);
+			}
+			gridX = minX;
+			gridY = minY;
+			cellSize = Math.max(2 * k, maxExtent + separation);
+			columns = (int) ((maxX - minX) / cellSize) + 1;
+			rows = (int) ((maxY - minY) / cellSize) + 1;
+			// limit the number of cells for widely spread nodes
+			while ((long) columns * rows > 4L * n + 16) {
+				cellSize *= 2;
+				columns = (int) ((maxX - minX) / cellSize) + 1;
+				rows = (int) ((maxY - minY) / cellSize) + 1;
+			}
+			int cells = columns * rows;
+			if (cellHead == null || cellHead.length < cells) {
+				cellHead = new int[cells];
+			}
+			if (cellOfNode == null) {
+				nextInCell = new int[n];
+				previousInCell = new int[n];
+				cellOfNode = new int[n];
+			}
+			Arrays.fill(cellHead, 0, cells, -1);
+			for (int i = 0; i < n; i++) {
+				insertIntoCell(i, column(x[i]) + row(y[i]) * columns);
+			}
+		}
+
+		/**
+		 * Moves the given node into the cell that contains its current
+		 * location, if it changed. As nodes beyond the grid are assigned to
+		 * the border cells, all nodes within repulsion range and all
+		 * overlapping nodes remain located in adjacent cells.
+		 */
+		void updateGrid(int i) {
+			int cell = column(x[i]) + row(y[i]) * columns;
+			if (cell == cellOfNode[i]) {
+				return;
+			}
+			if (previousInCell[i] >= 0) {
+				nextInCell[previousInCell[i]] = nextInCell[i];
+			} else {
+				cellHead[cellOfNode[i]] = nextInCell[i];
+			}
+			if (nextInCell[i] >= 0) {
+				previousInCell[nextInCell[i]] = previousInCell[i];
+			}
+			insertIntoCell(i, cell);
+		}
+
+		private void insertIntoCell(int i, int cell) {
+			cellOfNode[i] = cell;
+			previousInCell[i] = -1;
+			nextInCell[i] = cellHead[cell];
+			if (cellHead[cell] >= 0) {
+				previousInCell[cellHead[cell]] = i;
+			}
+			cellHead[cell] = i;
+		}
+
+		/**
+		 * Rebuilds the grid, or only updates it for the given active nodes if
+		 * the grid is persistent (i.e. if only these nodes may have moved).
+		 */
+		private void prepareGrid(int[] nodes) {
+			if (persistentGrid) {
+				for (int i : nodes) {
+					updateGrid(i);
+				}
+			} else {
+				buildGrid();
+			}
+		}
+
+		private int column(double c) {
+			return Math.min(columns - 1,
+					Math.max(0, (int) ((c - gridX) / cellSize)));
+		}
+
+		private int row(double c) {
+			return Math.min(rows - 1,
+					Math.max(0, (int) ((c - gridY) / cellSize)));
+		}
+
+		/**
+		 * Clamps the given active nodes, so that their bounds are contained
+		 * within the layout bounds.
+		 */
+		void clamp(int[] nodes) {
+			if (bounds == null) {
+				return;
+			}
+			for (int i : nodes) {
+				x[i] = clamp(x[i], bounds.getX() + halfWidth[i],
+						bounds.getX() + bounds.getWidth() - halfWidth[i]);
+				y[i] = clamp(y[i], bounds.getY() + halfHeight[i],
+						bounds.getY() + bounds.getHeight() - halfHeight[i]);
+			}
+		}
+
+		private static double clamp(double c, double min, double max) {
+			if (max < min) {
+				return (min + max) / 2;
+			}
+			return Math.max(min, Math.min(max, c));
+		}
+
+		/**
+		 * Restores the constraints by separating overlapping nodes, clamping
+		 * the nodes to the layout bounds, and aligning the alignment groups.
+		 * Only active nodes are moved.
+		 */
+		void project(int[] nodes) {
+			for (int sweep = 0; sweep < PROJECTION_SWEEPS; sweep++) {
+				if (separation >= 0) {
+					separate(nodes);
+				}
+				clamp(nodes);
+				align();
+			}
+		}
+
+		private void separate(int[] nodes) {
+			prepareGrid(nodes);
+			for (int i : nodes) {
+				int column = column(x[i]);
+				int row = row(y[i]);
+				for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1,
+						row + 1); r++) {
+					for (int c = Math.max(0, column - 1); c <= Math
+							.min(columns - 1, column + 1); c++) {
+						int cell = c + r * columns;
+						for (int j = cellHead[cell]; j >= 0; j = nextInCell[j]) {
+							// handle pairs of active nodes only once
+							if (j == i || active[j] && j < i) {
+								continue;
+							}
+							separate(i, j);
+						}
+					}
+				}
+			}
+		}
+
+		private void separate(int i, int j) {
+			double dx = x[i] - x[j];
+			double dy = y[i] - y[j];
+			double overlapX = halfWidth[i] + halfWidth[j] + separation
+					- Math.abs(dx);
+			double overlapY = halfHeight[i] + halfHeight[j] + separation
+					- Math.abs(dy);
+			if (overlapX <= 0 || overlapY <= 0) {
+				return;
+			}
+			boolean sameRow = horizontalGroup[i] >= 0
+					&& horizontalGroup[i] == horizontalGroup[j];
+			boolean sameColumn = verticalGroup[i] >= 0
+					&& verticalGroup[i] == verticalGroup[j];
+			if (sameRow && sameColumn) {
+				return;
+			}
+			boolean alongX = sameRow || !sameColumn && overlapX < overlapY;
+			double share = active[j] ? 0.5 : 1;
+			if (alongX) {
+				double sign = dx > 0 || dx == 0 && i > j ? 1 : -1;
+				x[i] += sign * overlapX * share;
+				if (active[j]) {
+					x[j] -= sign * overlapX * share;
+				}
+			} else {
+				double sign = dy > 0 || dy == 0 && i > j ? 1 : -1;
+				y[i] += sign * overlapY * share;
+				if (active[j]) {
+					y[j] -= sign * overlapY * share;
+				}
+			}
+		}
+
+		/**
+		 * Computes the forces for the given active nodes and moves them by at
+		 * most the given temperature.
+		 */
+		void step(int[] nodes, double temperature) {
+			prepareGrid(nodes);
+			double k2 = k * k;
+			double range2 = 4 * k2;
+			for (int i : nodes) {
+				double fx = 0;
+				double fy = 0;
+				// repulsion from all nodes within range
+				int column = column(x[i]);
+				int row = row(y[i]);
+				for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1,
+						row + 1); r++) {
+					for (int c = Math.max(0, column - 1); c <= Math
+							.min(columns - 1, column + 1); c++) {
+						int cell = c + r * columns;
+						for (int j = cellHead[cell]; j >= 0; j = nextInCell[j]) {
+							if (j == i) {
+								continue;
+							}
+							double dx = x[i] - x[j];
+							double dy = y[i] - y[j];
+							double d2 = dx * dx + dy * dy;
+							if (d2 < MIN_DISTANCE) {
+								// deterministically separate coincident nodes
+								dx = i > j ? MIN_DISTANCE : -MIN_DISTANCE;
+								d2 = MIN_DISTANCE;
+							}
+							if (d2 < range2) {
+								fx += dx * k2 / d2;
+								fy += dy * k2 / d2;
+							}
+						}
+					}
+				}
+				// attraction towards all neighbors
+				for (int a = adjacencyOffsets[i]; a < adjacencyOffsets[i
+						+ 1]; a++) {
+					int j = adjacency[a];
+					double dx = x[i] - x[j];
+					double dy = y[i] - y[j];
+					double d = Math.sqrt(dx * dx + dy * dy);
+					fx -= dx * d / k;
+					fy -= dy * d / k;
+				}
+				displacementX[i] = fx;
+				displacementY[i] = fy;
+			}
+			for (int i : nodes) {
+				double length = Math.sqrt(displacementX[i] * displacementX[i]
+						+ displacementY[i] * displacementY[i]);
+				if (length > temperature) {
+					x[i] += displacementX[i] / length * temperature;
+					y[i] += displacementY[i] / length * temperature;
+				} else {
+					x[i] += displacementX[i];
+					y[i] += displacementY[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * The default number of iterations of a full layout pass.
+	 */
+	private static final int DEFAULT_ITERATIONS = 300;
+
+	/**
+	 * The default number of iterations of an incremental layout pass.
+	 */
+	private static final int DEFAULT_INCREMENTAL_ITERATIONS = 50;
+
+	/**
+	 * The default number of iterations per {@link Relaxation#relax()}.
+	 */
+	private static final int DEFAULT_RELAXATION_ITERATIONS = 5;
+
+	/**
+	 * The default number of hops from the dragged nodes within which nodes are
+	 * relaxed.
+	 */
+	private static final int DEFAULT_RELAXATION_DEPTH = 2;
+
+	/**
+	 * The default minimum distance between the bounds of two nodes.
+	 */
+	private static final double DEFAULT_MINIMUM_SEPARATION = 10;
+
+	/**
+	 * The ideal edge length that is used if neither a spring length nor layout
+	 * bounds are specified.
+	 */
+	private static final double DEFAULT_SPRING_LENGTH = 50;
+
+	/**
+	 * The minimum (squared) distance considered between nodes.
+	 */
+	private static final double MIN_DISTANCE = 1.0d;
+
+	private static final long RANDOM_SEED = 42;
+
+	private int iterations = DEFAULT_ITERATIONS;
+	private int incrementalIterations = DEFAULT_INCREMENTAL_ITERATIONS;
+	private int relaxationIterations = DEFAULT_RELAXATION_ITERATIONS;
+	private int relaxationDepth = DEFAULT_RELAXATION_DEPTH;
+	private double minimumSeparation = DEFAULT_MINIMUM_SEPARATION;
+	private double springLength = 0;
+
+	@Override
+	public void applyIncrementalLayout(LayoutContext layoutContext,
+			Set<Node> affectedNodes) {
+		LayoutSnapshot snapshot = layoutContext.createLayoutSnapshot();
+		Model model = new Model(snapshot,
+				LayoutProperties.getBounds(layoutContext.getGraph()),
+				springLength, minimumSeparation);
+		int[] nodes = new int[affectedNodes.size()];
+		int count = 0;
+		for (Node node : affectedNodes) {
+			int i = snapshot.getId(node);
+			if (i >= 0 && snapshot.isMovable(i)) {
+				nodes[count++] = i;
+			}
+		}
+		nodes = Arrays.copyOf(nodes, count);
+		model.activate(nodes);
+		placeNearFixedNeighbors(model, nodes);
+		run(layoutContext, model, nodes, incrementalIterations, model.k);
+		snapshot.writeBack();
+	}
+
+	@Override
+	public Object[] getLayoutParameters() {
+		// the relaxation parameters do not influence full layout passes
+		return new Object[] { iterations, incrementalIterations,
+				minimumSeparation, springLength };
+	}
+
+	@Override
+	public void applyLayout(LayoutContext layoutContext, boolean clean) {
+		if (!clean) {
+			return;
+		}
+		LayoutSnapshot snapshot = layoutContext.createLayoutSnapshot();
+		Rectangle bounds = LayoutProperties.getBounds(layoutContext.getGraph());
+		Model model = new Model(snapshot, bounds, springLength,
+				minimumSeparation);
+		int[] nodes = new int[model.n];
+		int count = 0;
+		for (int i = 0; i < model.n; i++) {
+			if (snapshot.isMovable(i)) {
+				nodes[count++] = i;
+			}
+		}
+		nodes = Arrays.copyOf(nodes, count);
+		model.activate(nodes);
+		placeRandomly(model, nodes);
+		double temperature = bounds == null ? 4 * model.k
+				: Math.max(bounds.getWidth(), bounds.getHeight()) / 10;
+		run(layoutContext, model, nodes, iterations, temperature);
+		snapshot.writeBack();
+	}
+
+	/**
+	 * Creates a {@link Relaxation} for the given dragged nodes. The
+	 * {@link LayoutProperties} of the nodes need to be up-to-date, i.e.
+	 * {@link LayoutContext#preLayout()} should have been called before. The
+	 * dragged nodes are treated as pinned, and all movable nodes within
+	 * {@link #getRelaxationDepth()} hops of them are relaxed.
+	 *
+	 * @param layoutContext
+	 *            The {@link LayoutContext} that provides the nodes.
+	 * @param draggedNodes
+	 *            The dragged nodes.
+	 * @return A new {@link Relaxation} for the given dragged nodes.
+	 */
+	public Relaxation createRelaxation(LayoutContext layoutContext,
+			Collection<Node> draggedNodes) {
+		LayoutSnapshot snapshot = layoutContext.createLayoutSnapshot();
+		Model model = new Model(snapshot,
+				LayoutProperties.getBounds(layoutContext.getGraph()),
+				springLength, minimumSeparation);
+		placeUnlocatedNodes(model, new Random(RANDOM_SEED));
+		// breadth-first search from the dragged nodes
+		boolean[] visited = new boolean[model.n];
+		int[] queue = new int[model.n];
+		int head = 0;
+		int tail = 0;
+		for (Node node : draggedNodes) {
+			int i = snapshot.getId(node);
+			if (i >= 0 && !visited[i]) {
+				visited[i] = true;
+				queue[tail++] = i;
+			}
+		}
+		int first = tail;
+		for (int depth = 0; depth < relaxationDepth; depth++) {
+			int end = tail;
+			while (head < end) {
+				int i = queue[head++];
+				for (int a = model.adjacencyOffsets[i]; a < model.adjacencyOffsets[i
+						+ 1]; a++) {
+					int j = model.adjacency[a];
+					if (!visited[j]) {
+						visited[j] = true;
+						queue[tail++] = j;
+					}
+				}
+			}
+		}
+		int[] neighborhood = new int[tail - first];
+		int count = 0;
+		for (int q = first; q < tail; q++) {
+			if (snapshot.isMovable(queue[q])) {
+				neighborhood[count++] = queue[q];
+			}
+		}
+		neighborhood = Arrays.copyOf(neighborhood, count);
+		model.activate(neighborhood);
+		return new Relaxation(model, Arrays.copyOf(queue, first), neighborhood,
+				relaxationIterations);
+	}
+
+	/**
+	 * Returns the number of iterations of an incremental layout pass.
+	 *
+	 * @return The number of iterations of an incremental layout pass.
+	 */
+	public int getIncrementalIterations() {
+		return incrementalIterations;
+	}
+
+	/**
+	 * Returns the number of iterations of a full layout pass.
+	 *
+	 * @return The number of iterations of a full layout pass.
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Returns the minimum distance between the bounds of two nodes.
+	 *
+	 * @return The minimum distance between the bounds of two nodes.
+	 */
+	public double getMinimumSeparation() {
+		return minimumSeparation;
+	}
+
+	/**
+	 * Returns the number of hops from the dragged nodes within which nodes are
+	 * relaxed.
+	 *
+	 * @return The number of hops from the dragged nodes within which nodes are
+	 *         relaxed.
+	 */
+	public int getRelaxationDepth() {
+		return relaxationDepth;
+	}
+
+	/**
+	 * Returns the number of iterations per {@link Relaxation#relax()}.
+	 *
+	 * @return The number of iterations per {@link Relaxation#relax()}.
+	 */
+	public int getRelaxationIterations() {
+		return relaxationIterations;
+	}
+
+	/**
+	 * Returns the ideal edge length, or <code>0</code> if it is derived from
+	 * the layout bounds.
+	 *
+	 * @return The ideal edge length.
+	 */
+	public double getSpringLength() {
+		return springLength;
+	}
+
+	private void placeNearFixedNeighbors(Model model, int[] nodes) {
+		Random random = new Random(RANDOM_SEED);
+		for (int i : nodes) {
+			double sumX = 0;
+			double sumY = 0;
+			int count = 0;
+			for (int a = model.adjacencyOffsets[i]; a < model.adjacencyOffsets[i
+					+ 1]; a++) {
+				int j = model.adjacency[a];
+				if (!model.active[j] && !Double.isNaN(model.x[j])
+						&& !Double.isNaN(model.y[j])) {
+					sumX += model.x[j];
+					sumY += model.y[j];
+					count++;
+				}
+			}
+			if (count > 0) {
+				model.x[i] = sumX / count
+						+ (random.nextDouble() - 0.5) * model.k;
+				model.y[i] = sumY / count
+						+ (random.nextDouble() - 0.5) * model.k;
+			} else if (Double.isNaN(model.x[i]) || Double.isNaN(model.y[i])) {
+				placeRandomly(model, random, i);
+			}
+		}
+		placeUnlocatedNodes(model, random);
+	}
+
+	private void placeRandomly(Model model, int[] nodes) {
+		Random random = new Random(RANDOM_SEED);
+		for (int i : nodes) {
+			placeRandomly(model, random, i);
+		}
+		placeUnlocatedNodes(model, random);
+	}
+
+	private void placeRandomly(Model model, Random random, int i) {
+		Rectangle bounds = model.bounds;
+		if (bounds == null) {
+			double extent = model.k * Math.sqrt(model.n);
+			model.x[i] = random.nextDouble() * extent;
+			model.y[i] = random.nextDouble() * extent;
+		} else {
+			model.x[i] = bounds.getX() + random.nextDouble() * bounds.getWidth();
+			model.y[i] = bounds.getY()
+					+ random.nextDouble() * bounds.getHeight();
+		}
+	}
+
+	/**
+	 * Places the remaining nodes that do not provide a location, so that all
+	 * coordinates are defined during the iterations.
+	 */
+	private void placeUnlocatedNodes(Model model, Random random) {
+		for (int i = 0; i < model.n; i++) {
+			if (Double.isNaN(model.x[i]) || Double.isNaN(model.y[i])) {
+				placeRandomly(model, random, i);
+			}
+		}
+	}
+
+	private void run(LayoutContext layoutContext, Model model, int[] nodes,
+			int iterations, double temperature) {
+		if (nodes.length == 0) {
+			return;
+		}
+		model.project(nodes);
+		for (int i = 0; i < iterations; i++) {
+			if (layoutContext.isLayoutCancelled()) {
+				return;
+			}
+			// linear cooling
+			model.step(nodes, temperature * (iterations - i) / iterations);
+			model.project(nodes);
+			layoutContext.reportLayoutProgress((double) (i + 1) / iterations);
+		}
+	}
+
+	/**
+	 * Sets the number of iterations of an incremental layout pass.
+	 *
+	 * @param incrementalIterations
+	 *            The number of iterations of an incremental layout pass.
+	 */
+	public void setIncrementalIterations(int incrementalIterations) {
+		this.incrementalIterations = incrementalIterations;
+	}
+
+	/**
+	 * Sets the number of iterations of a full layout pass.
+	 *
+	 * @param iterations
+	 *            The number of iterations of a full layout pass.
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Sets the minimum distance between the bounds of two nodes. A negative
+	 * value disables the separation constraint.
+	 *
+	 * @param minimumSeparation
+	 *            The minimum distance between the bounds of two nodes.
+	 */
+	public void setMinimumSeparation(double minimumSeparation) {
+		this.minimumSeparation = minimumSeparation;
+	}
+
+	/**
+	 * Sets the number of hops from the dragged nodes within which nodes are
+	 * relaxed.
+	 *
+	 * @param relaxationDepth
+	 *            The number of hops from the dragged nodes within which nodes
+	 *            are relaxed.
+	 */
+	public void setRelaxationDepth(int relaxationDepth) {
+		this.relaxationDepth = relaxationDepth;
+	}
+
+	/**
+	 * Sets the number of iterations per {@link Relaxation#relax()}.
+	 *
+	 * @param relaxationIterations
+	 *            The number of iterations per {@link Relaxation#relax()}.
+	 */
+	public void setRelaxationIterations(int relaxationIterations) {
+		this.relaxationIterations = relaxationIterations;
+	}
+
+	/**
+	 * Sets the ideal edge length. If it is not positive, the ideal edge length
+	 * is derived from the layout bounds and the number of nodes.
+	 *
+	 * @param springLength
+	 *            The ideal edge length.
+	 */
+	public void setSpringLength(double springLength) {
+		this.springLength = springLength;
+	}
+
+}
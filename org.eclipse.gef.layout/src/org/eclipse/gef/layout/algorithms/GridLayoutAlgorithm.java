@@ -12,13 +12,11 @@
  ******************************************************************************/
 package org.eclipse.gef.layout.algorithms;
 
-import org.eclipse.gef.geometry.planar.Dimension;
-import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
-import org.eclipse.gef.graph.Node;
-import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
 import org.eclipse.gef.layout.LayoutContext;
 import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
 
 /**
  * The {@link GridLayoutAlgorithm} lays out nodes in a grid.
@@ -29,7 +27,7 @@ import org.eclipse.gef.layout.LayoutProperties;
  * @author Mateusz Matela
  * @author mwienand
  */
-public class GridLayoutAlgorithm implements ILayoutAlgorithm {
+public class GridLayoutAlgorithm implements ICacheableLayoutAlgorithm {
 
 	private static final double PADDING_PERCENTAGE = 0.95;
 	private static final int MIN_ENTITY_SIZE = 5;
@@ -88,10 +86,19 @@ public class GridLayoutAlgorithm implements ILayoutAlgorithm {
 	public GridLayoutAlgorithm() {
 	}
 
+	public Object[] getLayoutParameters() {
+		return new Object[] { aspectRatio, rowPadding, resize };
+	}
+
 	public void applyLayout(LayoutContext context, boolean clean) {
 		if (!clean)
 			return;
-		numChildren = context.getNodes().length;
+		LayoutSnapshot snapshot = context.createLayoutSnapshot();
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		double[] width = snapshot.getWidth();
+		double[] height = snapshot.getHeight();
+		numChildren = snapshot.getNodeCount();
 		Rectangle bounds = LayoutProperties.getBounds(context.getGraph());
 		calculateGrid(bounds);
 
@@ -99,22 +106,24 @@ public class GridLayoutAlgorithm implements ILayoutAlgorithm {
 		for (int i = 0; i < rows; i++) {
 			for (int j = 0; j < cols; j++) {
 				if ((i * cols + j) < numChildren) {
-					Node node = context.getNodes()[index++];
-					if (resize && LayoutProperties.isResizable(node))
-						LayoutProperties.setSize(node, new Dimension(
-								Math.max(childrenWidth, MIN_ENTITY_SIZE),
-								Math.max(childrenHeight, MIN_ENTITY_SIZE)));
-					Dimension size = LayoutProperties.getSize(node);
+					int node = index++;
+					if (resize && snapshot.isResizable(node)) {
+						width[node] = Math.max(childrenWidth, MIN_ENTITY_SIZE);
+						height[node] = Math.max(childrenHeight,
+								MIN_ENTITY_SIZE);
+					}
 					double xmove = bounds.getX() + j * colWidth + offsetX
-							+ size.width / 2;
+							+ width[node] / 2;
 					double ymove = bounds.getY() + i * rowHeight + offsetY
-							+ size.height / 2;
-					if (LayoutProperties.isMovable(node))
-						LayoutProperties.setLocation(node,
-								new Point(xmove, ymove));
+							+ height[node] / 2;
+					if (snapshot.isMovable(node)) {
+						x[node] = xmove;
+						y[node] = ymove;
+					}
 				}
 			}
 		}
+		snapshot.writeBack();
 	}
 
 	/**
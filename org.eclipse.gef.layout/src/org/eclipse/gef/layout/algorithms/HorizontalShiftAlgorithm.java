@@ -22,7 +22,7 @@ import org.eclipse.gef.geometry.planar.Dimension;
 import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
 import org.eclipse.gef.graph.Node;
-import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
 import org.eclipse.gef.layout.LayoutContext;
 import org.eclipse.gef.layout.LayoutProperties;
 
@@ -33,12 +33,16 @@ import org.eclipse.gef.layout.LayoutProperties;
  * @author Mateusz Matela
  * @author mwienand
  */
-public class HorizontalShiftAlgorithm implements ILayoutAlgorithm {
+public class HorizontalShiftAlgorithm implements ICacheableLayoutAlgorithm {
 
 	private static final double DELTA = 10;
 
 	private static final double VSPACING = 16;
 
+	public Object[] getLayoutParameters() {
+		return new Object[0];
+	}
+
 	public void applyLayout(LayoutContext context, boolean clean) {
 		if (!clean)
 			return;
@@ -0,0 +1,500 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
+import org.eclipse.gef.geometry.planar.Rectangle;
+import org.eclipse.gef.graph.Edge;
+import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.Node;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
+import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.LayoutContext;
+import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
+
+/**
+ * The {@link MultilevelLayoutAlgorithm} wraps other {@link ILayoutAlgorithm}s
+ * (typically force-directed ones) to speed up the layout of large graphs:
+ * <ol>
+ * <li>The graph is repeatedly coarsened, until it is small enough (see
+ * {@link #setCoarsestSize(int)}) or cannot be reduced significantly anymore.
+ * On every level, adjacent nodes are merged along a (heavy edge) matching, and
+ * unmatched nodes are merged into the cluster of one of their (matched)
+ * neighbors.
+ * <li>The coarsest graph is laid out by the coarsest {@link ILayoutAlgorithm}.
+ * <li>Level by level, the nodes of the next finer graph are placed at the
+ * location of their cluster, and the layout is refined by the refinement
+ * {@link ILayoutAlgorithm}, which should therefore start from the given
+ * locations (e.g. a {@link SpringLayoutAlgorithm} that does not
+ * {@link SpringLayoutAlgorithm#setRandom(boolean) place randomly}).
+ * </ol>
+ * The coarser graphs are laid out within their own {@link LayoutContext}s,
+ * while the finest level is refined within the given {@link LayoutContext}.
+ * Similar to the {@link CompositeLayoutAlgorithm}, the
+ * {@link MultilevelLayoutAlgorithm} can itself be combined with other
+ * algorithms.
+ */
+public class MultilevelLayoutAlgorithm implements ICacheableLayoutAlgorithm {
+
+	/**
+	 * A level of the coarsening hierarchy, holding the (undirected, weighted)
+	 * adjacency of its nodes in compressed sparse row format.
+	 */
+	private static class Level {
+		int nodeCount;
+		int[] offsets;
+		int[] targets;
+		double[] weights;
+		double[] width;
+		double[] height;
+		// the node of the next coarser level that represents a node of this
+		// level (null for the coarsest level)
+		int[] clusters;
+	}
+
+	/**
+	 * The default number of nodes below which no further coarsening is
+	 * performed.
+	 */
+	private static final int DEFAULT_COARSEST_SIZE = 50;
+
+	/**
+	 * The minimum reduction of the node count per level. If a coarsening step
+	 * keeps more nodes, the coarsening is stopped.
+	 */
+	private static final double MIN_REDUCTION = 0.25;
+
+	/**
+	 * The default number of iterations of the default refinement algorithm.
+	 */
+	private static final int DEFAULT_REFINEMENT_ITERATIONS = 30;
+
+	private ILayoutAlgorithm coarsestAlgorithm;
+	private ILayoutAlgorithm refinementAlgorithm;
+	private int coarsestSize = DEFAULT_COARSEST_SIZE;
+
+	/**
+	 * Constructs a new {@link MultilevelLayoutAlgorithm} that lays out the
+	 * coarsest graph by a {@link SpringLayoutAlgorithm}, and refines the finer
+	 * graphs by a {@link SpringLayoutAlgorithm} that starts from the
+	 * interpolated locations, performs a reduced number of iterations, and
+	 * uses the Barnes-Hut approximation.
+	 */
+	public MultilevelLayoutAlgorithm() {
+		SpringLayoutAlgorithm refinement = new SpringLayoutAlgorithm();
+		refinement.setRandom(false);
+		refinement.setIterations(DEFAULT_REFINEMENT_ITERATIONS);
+		refinement.setSpringBarnesHut(true);
+		this.coarsestAlgorithm = new SpringLayoutAlgorithm();
+		this.refinementAlgorithm = refinement;
+	}
+
+	/**
+	 * Constructs a new {@link MultilevelLayoutAlgorithm} that lays out the
+	 * coarsest graph by the given coarsest {@link ILayoutAlgorithm}, and
+	 * refines the finer graphs by the given refinement
+	 * {@link ILayoutAlgorithm}.
+	 *
+	 * @param coarsestAlgorithm
+	 *            The {@link ILayoutAlgorithm} that is used to lay out the
+	 *            coarsest graph (as well as graphs that cannot be coarsened).
+	 * @param refinementAlgorithm
+	 *            The {@link ILayoutAlgorithm} that is used to refine the
+	 *            interpolated layout on all finer levels.
+	 */
+	public MultilevelLayoutAlgorithm(ILayoutAlgorithm coarsestAlgorithm,
+			ILayoutAlgorithm refinementAlgorithm) {
+		this.coarsestAlgorithm = coarsestAlgorithm;
+		this.refinementAlgorithm = refinementAlgorithm;
+	}
+
+	public Object[] getLayoutParameters() {
+		return new Object[] { coarsestAlgorithm, refinementAlgorithm,
+				coarsestSize };
+	}
+
+	public void applyLayout(LayoutContext context, boolean clean) {
+		if (!clean)
+			return;
+		LayoutSnapshot snapshot = context.createLayoutSnapshot();
+		List<Level> levels = new ArrayList<>();
+		Level level = createLevel(snapshot);
+		levels.add(level);
+		while (level.nodeCount > coarsestSize) {
+			Level coarser = coarsen(level);
+			if (coarser.nodeCount > (1 - MIN_REDUCTION) * level.nodeCount) {
+				level.clusters = null;
+				break;
+			}
+			levels.add(coarser);
+			level = coarser;
+		}
+		if (levels.size() == 1) {
+			// the graph cannot be coarsened
+			coarsestAlgorithm.applyLayout(context, clean);
+			return;
+		}
+
+		// lay out the coarsest level, and refine the finer levels, each
+		// starting from the locations of its clusters
+		Rectangle bounds = LayoutProperties.getBounds(context.getGraph());
+		int coarsest = levels.size() - 1;
+		double[] x = null;
+		double[] y = null;
+		for (int l = coarsest; l > 0; l--) {
+			if (context.isLayoutCancelled()) {
+				return;
+			}
+			Level current = levels.get(l);
+			double[] levelX = new double[current.nodeCount];
+			double[] levelY = new double[current.nodeCount];
+			if (x != null) {
+				interpolate(levels.get(l), x, y, levelX, levelY, bounds);
+			}
+			Node[] nodes = createNodes(current, x == null ? null : levelX,
+					levelY);
+			LayoutContext levelContext = new LayoutContext();
+			levelContext.setGraph(createGraph(current, nodes, bounds));
+			(l == coarsest ? coarsestAlgorithm : refinementAlgorithm)
+					.applyLayout(levelContext, true);
+			for (int i = 0; i < nodes.length; i++) {
+				Point location = LayoutProperties.getLocation(nodes[i]);
+				levelX[i] = location == null ? 0 : location.x;
+				levelY[i] = location == null ? 0 : location.y;
+			}
+			x = levelX;
+			y = levelY;
+			context.reportLayoutProgress((double) (coarsest - l + 1)
+					/ (coarsest + 1));
+		}
+		if (context.isLayoutCancelled()) {
+			return;
+		}
+
+		// refine the finest level within the given context
+		Level finest = levels.get(0);
+		double[] finestX = new double[finest.nodeCount];
+		double[] finestY = new double[finest.nodeCount];
+		interpolate(finest, x, y, finestX, finestY, bounds);
+		double[] snapshotX = snapshot.getX();
+		double[] snapshotY = snapshot.getY();
+		for (int i = 0; i < finest.nodeCount; i++) {
+			if (snapshot.isMovable(i)) {
+				snapshotX[i] = finestX[i];
+				snapshotY[i] = finestY[i];
+			}
+		}
+		snapshot.writeBack();
+		refinementAlgorithm.applyLayout(context, clean);
+	}
+
+	/**
+	 * Computes the next coarser level of the given {@link Level}, storing the
+	 * clusters within the given level.
+	 */
+	private Level coarsen(Level level) {
+		int n = level.nodeCount;
+		int[] offsets = level.offsets;
+		int[] targets = level.targets;
+		double[] weights = level.weights;
+
+		// heavy edge matching (preferring neighbors of low degree)
+		int[] clusters = new int[n];
+		Arrays.fill(clusters, -1);
+		int coarseCount = 0;
+		for (int u = 0; u < n; u++) {
+			if (clusters[u] != -1) {
+				continue;
+			}
+			int match = -1;
+			for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+				int v = targets[k];
+				if (clusters[v] != -1) {
+					continue;
+				}
+				if (match == -1 || weights[k] > weights[match]
+						|| weights[k] == weights[match]
+								&& degree(level, v) < degree(level,
+										targets[match])) {
+					match = k;
+				}
+			}
+			if (match != -1) {
+				clusters[u] = coarseCount;
+				clusters[targets[match]] = coarseCount;
+				coarseCount++;
+			}
+		}
+		// merge unmatched nodes (whose neighbors are all matched) into the
+		// cluster of their heaviest neighbor, and keep isolated nodes
+		int[] unmatchedClusters = new int[n];
+		for (int u = 0; u < n; u++) {
+			unmatchedClusters[u] = clusters[u];
+			if (clusters[u] != -1) {
+				continue;
+			}
+			int heaviest = -1;
+			for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+				if (clusters[targets[k]] != -1 && (heaviest == -1
+						|| weights[k] > weights[heaviest])) {
+					heaviest = k;
+				}
+			}
+			unmatchedClusters[u] = heaviest == -1 ? coarseCount++
+					: clusters[targets[heaviest]];
+		}
+		clusters = unmatchedClusters;
+		level.clusters = clusters;
+
+		// members of each cluster in compressed sparse row format
+		int[] memberOffsets = new int[coarseCount + 1];
+		for (int u = 0; u < n; u++) {
+			memberOffsets[clusters[u] + 1]++;
+		}
+		for (int c = 0; c < coarseCount; c++) {
+			memberOffsets[c + 1] += memberOffsets[c];
+		}
+		int[] members = new int[n];
+		int[] fill = Arrays.copyOf(memberOffsets, coarseCount);
+		for (int u = 0; u < n; u++) {
+			members[fill[clusters[u]]++] = u;
+		}
+
+		// sum up the weights of the edges between clusters
+		Level coarser = new Level();
+		coarser.nodeCount = coarseCount;
+		coarser.offsets = new int[coarseCount + 1];
+		coarser.width = new double[coarseCount];
+		coarser.height = new double[coarseCount];
+		int[] coarseTargets = new int[targets.length];
+		double[] coarseWeights = new double[targets.length];
+		int[] position = new int[coarseCount];
+		Arrays.fill(position, -1);
+		int size = 0;
+		for (int c = 0; c < coarseCount; c++) {
+			coarser.offsets[c] = size;
+			for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+				int u = members[m];
+				coarser.width[c] = Math.max(coarser.width[c], level.width[u]);
+				coarser.height[c] = Math.max(coarser.height[c],
+						level.height[u]);
+				for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+					int d = clusters[targets[k]];
+					if (d == c) {
+						continue;
+					}
+					if (position[d] >= coarser.offsets[c]) {
+						coarseWeights[position[d]] += weights[k];
+					} else {
+						position[d] = size;
+						coarseTargets[size] = d;
+						coarseWeights[size] = weights[k];
+						size++;
+					}
+				}
+			}
+		}
+		coarser.offsets[coarseCount] = size;
+		coarser.targets = Arrays.copyOf(coarseTargets, size);
+		coarser.weights = Arrays.copyOf(coarseWeights, size);
+		return coarser;
+	}
+
+	private Graph createGraph(Level level, Node[] nodes, Rectangle bounds) {
+		List<Edge> edges = new ArrayList<>();
+		for (int u = 0; u < level.nodeCount; u++) {
+			for (int k = level.offsets[u]; k < level.offsets[u + 1]; k++) {
+				int v = level.targets[k];
+				if (u < v) {
+					Edge edge = new Edge(nodes[u], nodes[v]);
+					LayoutProperties.setWeight(edge, level.weights[k]);
+					edges.add(edge);
+				}
+			}
+		}
+		Graph graph = new Graph(new HashMap<String, Object>(),
+				Arrays.asList(nodes), edges);
+		LayoutProperties.setBounds(graph, bounds);
+		return graph;
+	}
+
+	/**
+	 * Creates the finest {@link Level} from the given {@link LayoutSnapshot},
+	 * regarding its edges as undirected and summing up the weights of
+	 * parallel edges. Self-loops are ignored.
+	 */
+	private Level createLevel(LayoutSnapshot snapshot) {
+		int n = snapshot.getNodeCount();
+		int[] sources = snapshot.getEdgeSources();
+		int[] targets = snapshot.getEdgeTargets();
+		double[] edgeWeights = snapshot.getEdgeWeights();
+		int[] incidenceOffsets = snapshot.getIncidenceOffsets();
+		int[] incidentEdges = snapshot.getIncidentEdges();
+		Level level = new Level();
+		level.nodeCount = n;
+		level.offsets = new int[n + 1];
+		level.width = new double[n];
+		level.height = new double[n];
+		int[] levelTargets = new int[incidentEdges.length];
+		double[] levelWeights = new double[incidentEdges.length];
+		int[] position = new int[n];
+		Arrays.fill(position, -1);
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			level.offsets[i] = size;
+			double width = snapshot.getWidth()[i];
+			double height = snapshot.getHeight()[i];
+			level.width[i] = Double.isNaN(width) ? 0 : width;
+			level.height[i] = Double.isNaN(height) ? 0 : height;
+			for (int k = incidenceOffsets[i]; k < incidenceOffsets[i
+					+ 1]; k++) {
+				int e = incidentEdges[k];
+				int j = sources[e] == i ? targets[e] : sources[e];
+				if (j == i) {
+					continue;
+				}
+				double weight = edgeWeights[e] <= 0 ? 0.1 : edgeWeights[e];
+				if (position[j] >= level.offsets[i]) {
+					levelWeights[position[j]] += weight;
+				} else {
+					position[j] = size;
+					levelTargets[size] = j;
+					levelWeights[size] = weight;
+					size++;
+				}
+			}
+		}
+		level.offsets[n] = size;
+		level.targets = Arrays.copyOf(levelTargets, size);
+		level.weights = Arrays.copyOf(levelWeights, size);
+		return level;
+	}
+
+	private Node[] createNodes(Level level, double[] x, double[] y) {
+		Node[] nodes = new Node[level.nodeCount];
+		for (int i = 0; i < level.nodeCount; i++) {
+			nodes[i] = new Node();
+			LayoutProperties.setSize(nodes[i],
+					new Dimension(level.width[i], level.height[i]));
+			if (x != null) {
+				LayoutProperties.setLocation(nodes[i], new Point(x[i], y[i]));
+			}
+		}
+		return nodes;
+	}
+
+	private int degree(Level level, int node) {
+		return level.offsets[node + 1] - level.offsets[node];
+	}
+
+	/**
+	 * Returns the {@link ILayoutAlgorithm} that is used to lay out the
+	 * coarsest graph.
+	 *
+	 * @return The {@link ILayoutAlgorithm} that is used to lay out the
+	 *         coarsest graph.
+	 */
+	public ILayoutAlgorithm getCoarsestAlgorithm() {
+		return coarsestAlgorithm;
+	}
+
+	/**
+	 * Returns the number of nodes below which no further coarsening is
+	 * performed.
+	 *
+	 * @return The number of nodes below which no further coarsening is
+	 *         performed.
+	 */
+	public int getCoarsestSize() {
+		return coarsestSize;
+	}
+
+	/**
+	 * Returns the {@link ILayoutAlgorithm} that is used to refine the
+	 * interpolated layout on all finer levels.
+	 *
+	 * @return The {@link ILayoutAlgorithm} that is used to refine the
+	 *         interpolated layout.
+	 */
+	public ILayoutAlgorithm getRefinementAlgorithm() {
+		return refinementAlgorithm;
+	}
+
+	/**
+	 * Places the nodes of the given {@link Level} at the locations of their
+	 * clusters (given by coarseX and coarseY), with a small offset (along a
+	 * golden angle spiral), so that the members of a cluster do not coincide.
+	 */
+	private void interpolate(Level level, double[] coarseX, double[] coarseY,
+			double[] x, double[] y, Rectangle bounds) {
+		double radius = 0.1 * Math.sqrt(
+				bounds.getWidth() * bounds.getHeight() / level.nodeCount);
+		int[] memberIndex = new int[coarseX.length];
+		for (int i = 0; i < level.nodeCount; i++) {
+			int c = level.clusters[i];
+			int index = memberIndex[c]++;
+			double angle = index * 2.399963229728653;
+			x[i] = coarseX[c] + radius * Math.cos(angle);
+			y[i] = coarseY[c] + radius * Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Sets the {@link ILayoutAlgorithm} that is used to lay out the coarsest
+	 * graph (as well as graphs that cannot be coarsened).
+	 *
+	 * @param coarsestAlgorithm
+	 *            The {@link ILayoutAlgorithm} that is used to lay out the
+	 *            coarsest graph.
+	 */
+	public void setCoarsestAlgorithm(ILayoutAlgorithm coarsestAlgorithm) {
+		this.coarsestAlgorithm = coarsestAlgorithm;
+	}
+
+	/**
+	 * Sets the number of nodes below which no further coarsening is
+	 * performed.
+	 *
+	 * @param coarsestSize
+	 *            The number of nodes below which no further coarsening is
+	 *            performed.
+	 */
+	public void setCoarsestSize(int coarsestSize) {
+		if (coarsestSize < 1) {
+			throw new IllegalArgumentException(
+					"Invalid coarsest size: " + coarsestSize);
+		}
+		this.coarsestSize = coarsestSize;
+	}
+
+	/**
+	 * Sets the {@link ILayoutAlgorithm} that is used to refine the
+	 * interpolated layout on all finer levels. It should start from the
+	 * given locations instead of placing the nodes anew.
+	 *
+	 * @param refinementAlgorithm
+	 *            The {@link ILayoutAlgorithm} that is used to refine the
+	 *            interpolated layout.
+	 */
+	public void setRefinementAlgorithm(ILayoutAlgorithm refinementAlgorithm) {
+		this.refinementAlgorithm = refinementAlgorithm;
+	}
+
+}
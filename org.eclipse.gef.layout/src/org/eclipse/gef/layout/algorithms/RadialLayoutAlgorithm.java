@@ -12,12 +12,11 @@
  ******************************************************************************/
 package org.eclipse.gef.layout.algorithms;
 
-import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
-import org.eclipse.gef.graph.Node;
-import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
 import org.eclipse.gef.layout.LayoutContext;
 import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
 
 /**
  * This layout will take the given entities, apply a tree layout to them, and
@@ -29,7 +28,7 @@ import org.eclipse.gef.layout.LayoutProperties;
  * @author Mateusz Matela
  * @author mwienand
  */
-public class RadialLayoutAlgorithm implements ILayoutAlgorithm {
+public class RadialLayoutAlgorithm implements ICacheableLayoutAlgorithm {
 
 	private static final double MAX_DEGREES = Math.PI * 2;
 	private double startDegree = 0;
@@ -43,45 +42,51 @@ public class RadialLayoutAlgorithm implements ILayoutAlgorithm {
 	public RadialLayoutAlgorithm() {
 	}
 
+	public Object[] getLayoutParameters() {
+		return new Object[] { startDegree, endDegree, resize, treeLayout };
+	}
+
 	public void applyLayout(LayoutContext layoutContext, boolean clean) {
 		if (!clean)
 			return;
-		treeLayout.internalApplyLayout(layoutContext);
-		Node[] entities = layoutContext.getNodes();
+		LayoutSnapshot snapshot = layoutContext.createLayoutSnapshot();
+		treeLayout.internalApplyLayout(layoutContext, snapshot);
 		Rectangle bounds = LayoutProperties.getBounds(layoutContext.getGraph())
 				.getCopy();
-		computeRadialPositions(entities, bounds);
+		computeRadialPositions(snapshot, bounds);
 		if (resize)
-			AlgorithmHelper.maximizeSizes(entities);
+			AlgorithmHelper.maximizeSizes(snapshot);
 		int insets = 4;
 		bounds.setX(bounds.getX() + insets);
 		bounds.setY(bounds.getY() + insets);
 		bounds.setWidth(bounds.getWidth() - 2 * insets);
 		bounds.setHeight(bounds.getHeight() - 2 * insets);
-		AlgorithmHelper.fitWithinBounds(entities, bounds, resize);
+		AlgorithmHelper.fitWithinBounds(snapshot, bounds, resize);
+		snapshot.writeBack();
 	}
 
-	private void computeRadialPositions(Node[] entities, Rectangle bounds) {
-		Rectangle layoutBounds = AlgorithmHelper.getLayoutBounds(entities,
+	private void computeRadialPositions(LayoutSnapshot snapshot,
+			Rectangle bounds) {
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		Rectangle layoutBounds = AlgorithmHelper.getLayoutBounds(snapshot,
 				false);
 		layoutBounds.setX(bounds.getX());
 		layoutBounds.setWidth(bounds.getWidth());
-		for (int i = 0; i < entities.length; i++) {
-			Point location = LayoutProperties.getLocation(entities[i]);
+		for (int i = 0; i < snapshot.getNodeCount(); i++) {
 			if (layoutBounds.getWidth() == 0 || layoutBounds.getHeight() == 0) {
-				location.x = 0;
-				location.y = 0;
+				x[i] = 0;
+				y[i] = 0;
 			} else {
-				double percenttheta = (location.x - layoutBounds.getX())
+				double percenttheta = (x[i] - layoutBounds.getX())
 						/ layoutBounds.getWidth();
-				double distance = (location.y - layoutBounds.getY())
+				double distance = (y[i] - layoutBounds.getY())
 						/ layoutBounds.getHeight();
 				double theta = startDegree
 						+ Math.abs(endDegree - startDegree) * percenttheta;
-				location.x = distance * Math.cos(theta);
-				location.y = distance * Math.sin(theta);
+				x[i] = distance * Math.cos(theta);
+				y[i] = distance * Math.sin(theta);
 			}
-			LayoutProperties.setLocation(entities[i], location);
 		}
 	}
 
@@ -14,21 +14,30 @@
  ******************************************************************************/
 package org.eclipse.gef.layout.algorithms;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
-import org.eclipse.gef.geometry.planar.Dimension;
-import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
-import org.eclipse.gef.graph.Edge;
 import org.eclipse.gef.graph.Node;
-import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
+import org.eclipse.gef.layout.IIncrementalLayoutAlgorithm;
 import org.eclipse.gef.layout.LayoutContext;
 import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
 
 /**
  * The SpringLayoutAlgorithm has its own data repository and relation
  * repository. A user can populate the repository, specify the layout
  * conditions, do the computation and query the computed results.
+ * <p>
+ * The algorithm supports incremental layout (see
+ * {@link #applyIncrementalLayout(LayoutContext, Set)}), in which case only the
+ * affected nodes are moved, starting from the centroid of their pinned
+ * neighbors.
  * 
  * @author Jingwei Wu
  * @author Rob Lintern
@@ -37,7 +46,8 @@ import org.eclipse.gef.layout.LayoutProperties;
  * @author Mateusz Matela
  * @author mwienand
  */
-public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
+public class SpringLayoutAlgorithm implements IIncrementalLayoutAlgorithm,
+		ICacheableLayoutAlgorithm {
 
 	/**
 	 * The default value for the spring layout number of iterations.
@@ -74,6 +84,28 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 	 */
 	private static final double DEFAULT_SPRING_GRAVITATION = 2.0f;
 
+	/**
+	 * The default value for the Barnes-Hut approximation of repulsive forces.
+	 */
+	private static final boolean DEFAULT_SPRING_BARNES_HUT = false;
+
+	/**
+	 * The default value for the Barnes-Hut opening criterion (theta).
+	 */
+	private static final double DEFAULT_SPRING_BARNES_HUT_THETA = 0.8;
+
+	/**
+	 * The default value for the parallel force computation.
+	 */
+	private static final boolean DEFAULT_SPRING_PARALLEL = false;
+
+	/**
+	 * The number of chunks into which the nodes are split for the parallel
+	 * force computation. It is independent of the number of available
+	 * processors, so that the result is reproducible across machines.
+	 */
+	private static final int PARALLEL_CHUNKS = 32;
+
 	/**
 	 * Minimum distance considered between nodes
 	 */
@@ -117,17 +149,58 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 	 */
 	private double sprGravitation = DEFAULT_SPRING_GRAVITATION;
 
+	/**
+	 * The variable can be customized to set whether repulsive forces are
+	 * approximated using a Barnes-Hut quadtree.
+	 */
+	private boolean sprBarnesHut = DEFAULT_SPRING_BARNES_HUT;
+
+	/**
+	 * The variable can be customized to set the Barnes-Hut opening criterion.
+	 */
+	private double sprBarnesHutTheta = DEFAULT_SPRING_BARNES_HUT_THETA;
+
+	/**
+	 * The variable can be customized to set whether forces and positions are
+	 * computed in parallel.
+	 */
+	private boolean sprParallel = DEFAULT_SPRING_PARALLEL;
+
+	/**
+	 * The variable can be customized to set the seed that is used for the
+	 * random placement of nodes (<code>null</code> for a random seed).
+	 */
+	private Long sprRandomSeed = null;
+	private Random random;
+
 	/**
 	 * Variable indicating whether the algorithm should resize elements.
 	 */
 	private boolean resize = false;
 
 	private int iteration;
-	private double[][] srcDestToSumOfWeights;
+	// symmetric adjacency in compressed sparse row format, i.e. the
+	// neighbors of node i are stored at [adjacencyOffsets[i],
+	// adjacencyOffsets[i + 1]), along with the sum of the weights of all
+	// edges between both nodes
+	private int[] adjacencyOffsets;
+	private int[] adjacencyTargets;
+	private double[] adjacencyWeights;
+	private BarnesHutQuadTree quadTree;
+	private double[] normalizedX, normalizedY;
+	private double[][] chunkForcesX, chunkForcesY;
+	// the snapshot against which the layout is computed, and its nodes
+	private LayoutSnapshot snapshot;
 	private Node[] entities;
 	private double[] forcesX, forcesY;
 	private double[] locationsX, locationsY;
 	private double[] sizeW, sizeH;
+	private boolean[] movable;
+	// the movable nodes of an incremental layout pass (or null), which are
+	// the only nodes for which forces are computed
+	private int[] movableNodes;
+	// nodes that may be moved during an incremental layout pass (or null)
+	private Set<Node> incrementalNodes;
 	private Rectangle bounds;
 	private double boundsScaleX = 0.2;
 	private double boundsScaleY = 0.2;
@@ -138,20 +211,30 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 	// TODO: expose field
 	private boolean fitWithinBounds = true;
 
+	public Object[] getLayoutParameters() {
+		return new Object[] { sprIterations, maxTimeMS, sprRandom, sprMove,
+				sprStrain, sprLength, sprGravitation, sprBarnesHut,
+				sprBarnesHutTheta, sprRandomSeed, resize, fitWithinBounds };
+	}
+
 	public void applyLayout(LayoutContext layoutContext, boolean clean) {
 		this.layoutContext = layoutContext;
+		incrementalNodes = null;
 		initLayout(layoutContext);
 		if (!clean) {
 			return;
 		}
 
-		while (performAnotherNonContinuousIteration()) {
+		while (!layoutContext.isLayoutCancelled()
+				&& performAnotherNonContinuousIteration()) {
 			computeOneIteration();
+			layoutContext.reportLayoutProgress(
+					Math.min(1, (double) iteration / sprIterations));
 		}
 
-		saveLocations();
+		normalizeLocations();
 		if (resize)
-			AlgorithmHelper.maximizeSizes(entities);
+			AlgorithmHelper.maximizeSizes(snapshot);
 
 		if (fitWithinBounds) {
 			Rectangle bounds2 = new Rectangle(bounds);
@@ -160,7 +243,30 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 			bounds2.setY(bounds2.getY() + insets);
 			bounds2.setWidth(bounds2.getWidth() - 2 * insets);
 			bounds2.setHeight(bounds2.getHeight() - 2 * insets);
-			AlgorithmHelper.fitWithinBounds(entities, bounds2, resize);
+			AlgorithmHelper.fitWithinBounds(snapshot, bounds2, resize);
+		}
+		snapshot.writeBack();
+	}
+
+	public void applyIncrementalLayout(LayoutContext layoutContext,
+			Set<Node> affectedNodes) {
+		this.layoutContext = layoutContext;
+		incrementalNodes = affectedNodes;
+		try {
+			initLayout(layoutContext);
+			placeNearPinnedNeighbors();
+
+			while (!layoutContext.isLayoutCancelled()
+					&& performAnotherNonContinuousIteration()) {
+				computeOneIteration();
+				layoutContext.reportLayoutProgress(
+						Math.min(1, (double) iteration / sprIterations));
+			}
+
+			saveLocations();
+		} finally {
+			incrementalNodes = null;
+			movableNodes = null;
 		}
 	}
 
@@ -173,8 +279,6 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 	public void performNIteration(int n) {
 		layoutContext.preLayout();
 		if (iteration == 0) {
-			entities = layoutContext.getNodes();
-			loadLocations();
 			initLayout(layoutContext);
 		}
 		bounds = LayoutProperties.getBounds(layoutContext.getGraph());
@@ -192,8 +296,6 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 	public void performOneIteration() {
 		layoutContext.preLayout();
 		if (iteration == 0) {
-			entities = layoutContext.getNodes();
-			loadLocations();
 			initLayout(layoutContext);
 		}
 		bounds = LayoutProperties.getBounds(layoutContext.getGraph());
@@ -319,6 +421,84 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 		return sprGravitation;
 	}
 
+	/**
+	 * Sets whether or not this {@link SpringLayoutAlgorithm} approximates the
+	 * repulsive forces between nodes using a Barnes-Hut quadtree. The
+	 * approximation reduces the costs of an iteration from
+	 * <code>O(n^2)</code> to <code>O(n log n)</code>, and is therefore
+	 * recommended for large graphs. Attractive forces along edges are always
+	 * computed exactly. Per default, the exact computation is used.
+	 * 
+	 * @param barnesHut
+	 *            <code>true</code> to approximate repulsive forces using a
+	 *            Barnes-Hut quadtree, <code>false</code> to compute them
+	 *            exactly for all pairs of nodes.
+	 */
+	public void setSpringBarnesHut(boolean barnesHut) {
+		sprBarnesHut = barnesHut;
+	}
+
+	/**
+	 * Returns whether or not this {@link SpringLayoutAlgorithm} approximates
+	 * the repulsive forces between nodes using a Barnes-Hut quadtree.
+	 * 
+	 * @return <code>true</code> if repulsive forces are approximated,
+	 *         otherwise <code>false</code>.
+	 */
+	public boolean isSpringBarnesHut() {
+		return sprBarnesHut;
+	}
+
+	/**
+	 * Sets the opening criterion (theta) for the Barnes-Hut approximation. A
+	 * quadtree cell of size <code>s</code> at distance <code>d</code> is
+	 * treated as a single body if <code>s / d &lt; theta</code>. Smaller
+	 * values are more accurate but slower, a value of <code>0</code> results
+	 * in an exact computation.
+	 * 
+	 * @param theta
+	 *            The Barnes-Hut opening criterion.
+	 */
+	public void setSpringBarnesHutTheta(double theta) {
+		sprBarnesHutTheta = theta;
+	}
+
+	/**
+	 * Returns the opening criterion (theta) for the Barnes-Hut approximation.
+	 * 
+	 * @return The Barnes-Hut opening criterion.
+	 */
+	public double getSpringBarnesHutTheta() {
+		return sprBarnesHutTheta;
+	}
+
+	/**
+	 * Sets whether or not this {@link SpringLayoutAlgorithm} computes forces
+	 * and positions in parallel, using the common {@link ForkJoinPool}. The
+	 * result of the parallel computation is deterministic, i.e. it does not
+	 * depend on the scheduling of the workers, so that layouts can still be
+	 * reproduced (see {@link #setRandomSeed(Long)}). Per default, everything
+	 * is computed on the calling thread.
+	 * 
+	 * @param parallel
+	 *            <code>true</code> to compute forces and positions in
+	 *            parallel, otherwise <code>false</code>.
+	 */
+	public void setSpringParallel(boolean parallel) {
+		sprParallel = parallel;
+	}
+
+	/**
+	 * Returns whether or not this {@link SpringLayoutAlgorithm} computes
+	 * forces and positions in parallel.
+	 * 
+	 * @return <code>true</code> if forces and positions are computed in
+	 *         parallel, otherwise <code>false</code>.
+	 */
+	public boolean isSpringParallel() {
+		return sprParallel;
+	}
+
 	/**
 	 * Sets the number of iterations to be used.
 	 * 
@@ -360,35 +540,59 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 		return sprRandom;
 	}
 
+	/**
+	 * Sets the seed that is used when placing the nodes randomly before
+	 * beginning iterations. Using a fixed seed allows to reproduce a layout.
+	 * 
+	 * @param seed
+	 *            The seed for the random placement, or <code>null</code> to
+	 *            use a different seed for each layout pass (default).
+	 */
+	public void setRandomSeed(Long seed) {
+		sprRandomSeed = seed;
+	}
+
+	/**
+	 * Returns the seed that is used when placing the nodes randomly before
+	 * beginning iterations.
+	 * 
+	 * @return The seed for the random placement, or <code>null</code> if a
+	 *         different seed is used for each layout pass.
+	 */
+	public Long getRandomSeed() {
+		return sprRandomSeed;
+	}
+
 	private long startTime = 0;
 
 	private void initLayout(LayoutContext context) {
-		entities = context.getNodes();
+		snapshot = context.createLayoutSnapshot();
+		entities = snapshot.getNodes();
 		bounds = LayoutProperties.getBounds(context.getGraph());
 		loadLocations();
 
-		srcDestToSumOfWeights = new double[entities.length][entities.length];
-		HashMap<Node, Integer> entityToPosition = new HashMap<>();
-		for (int i = 0; i < entities.length; i++) {
-			entityToPosition.put(entities[i], new Integer(i));
-		}
-
-		Edge[] connections = context.getEdges();
-		for (int i = 0; i < connections.length; i++) {
-			Edge connection = connections[i];
-			Integer source = entityToPosition.get(connection.getSource());
-			Integer target = entityToPosition.get(connection.getTarget());
-			if (source == null || target == null)
+		int[] edgeSources = snapshot.getEdgeSources();
+		int[] edgeTargets = snapshot.getEdgeTargets();
+		double[] edgeWeights = snapshot.getEdgeWeights();
+		int[] sources = new int[edgeSources.length];
+		int[] targets = new int[edgeSources.length];
+		double[] weights = new double[edgeSources.length];
+		int connectionCount = 0;
+		for (int e = 0; e < edgeSources.length; e++) {
+			if (edgeSources[e] == edgeTargets[e])
 				continue;
-			double weight = LayoutProperties.getWeight(connection);
+			double weight = edgeWeights[e];
 			weight = (weight <= 0 ? 0.1 : weight);
-			srcDestToSumOfWeights[source.intValue()][target
-					.intValue()] += weight;
-			srcDestToSumOfWeights[target.intValue()][source
-					.intValue()] += weight;
+			sources[connectionCount] = edgeSources[e];
+			targets[connectionCount] = edgeTargets[e];
+			weights[connectionCount] = weight;
+			connectionCount++;
 		}
+		initAdjacency(sources, targets, weights, connectionCount);
 
-		if (sprRandom)
+		random = sprRandomSeed == null ? new Random()
+				: new Random(sprRandomSeed.longValue());
+		if (sprRandom && incrementalNodes == null)
 			placeRandomly(); // put vertices in random places
 
 		iteration = 1;
@@ -396,42 +600,123 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 		startTime = System.currentTimeMillis();
 	}
 
+	/**
+	 * Builds the symmetric adjacency (in compressed sparse row format) for the
+	 * given connections, summing up the weights of parallel edges. Requires
+	 * <code>O(n + e)</code> time and space.
+	 */
+	private void initAdjacency(int[] sources, int[] targets, double[] weights,
+			int connectionCount) {
+		int n = entities.length;
+		// count degrees and compute row offsets
+		int[] offsets = new int[n + 1];
+		for (int c = 0; c < connectionCount; c++) {
+			offsets[sources[c] + 1]++;
+			offsets[targets[c] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		// fill rows (including duplicates)
+		int[] fill = Arrays.copyOf(offsets, n);
+		int[] rowTargets = new int[2 * connectionCount];
+		double[] rowWeights = new double[2 * connectionCount];
+		for (int c = 0; c < connectionCount; c++) {
+			int source = sources[c];
+			int target = targets[c];
+			rowTargets[fill[source]] = target;
+			rowWeights[fill[source]++] = weights[c];
+			rowTargets[fill[target]] = source;
+			rowWeights[fill[target]++] = weights[c];
+		}
+		// merge duplicates (parallel edges) within each row
+		adjacencyOffsets = new int[n + 1];
+		int[] position = new int[n];
+		Arrays.fill(position, -1);
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			adjacencyOffsets[i] = size;
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				int j = rowTargets[k];
+				if (position[j] >= adjacencyOffsets[i]) {
+					rowWeights[position[j]] += rowWeights[k];
+				} else {
+					position[j] = size;
+					rowTargets[size] = j;
+					rowWeights[size] = rowWeights[k];
+					size++;
+				}
+			}
+		}
+		adjacencyOffsets[n] = size;
+		adjacencyTargets = Arrays.copyOf(rowTargets, size);
+		adjacencyWeights = Arrays.copyOf(rowWeights, size);
+	}
+
 	private void loadLocations() {
-		if (locationsX == null || locationsX.length != entities.length) {
+		// compute against the arrays of the snapshot
+		locationsX = snapshot.getX();
+		locationsY = snapshot.getY();
+		sizeW = snapshot.getWidth();
+		sizeH = snapshot.getHeight();
+		if (forcesX == null || forcesX.length != entities.length) {
 			int length = entities.length;
-			locationsX = new double[length];
-			locationsY = new double[length];
-			sizeW = new double[length];
-			sizeH = new double[length];
 			forcesX = new double[length];
 			forcesY = new double[length];
+			movable = new boolean[length];
 		}
+		int movableCount = 0;
 		for (int i = 0; i < entities.length; i++) {
-			Point location = LayoutProperties.getLocation(entities[i]);
-			locationsX[i] = location.x;
-			locationsY[i] = location.y;
-			Dimension size = LayoutProperties.getSize(entities[i]);
-			sizeW[i] = size.width;
-			sizeH[i] = size.height;
+			movable[i] = snapshot.isMovable(i) && (incrementalNodes == null
+					|| incrementalNodes.contains(entities[i]));
+			if (movable[i]) {
+				movableCount++;
+			}
+		}
+		movableNodes = null;
+		if (incrementalNodes != null) {
+			movableNodes = new int[movableCount];
+			movableCount = 0;
+			for (int i = 0; i < entities.length; i++) {
+				if (movable[i]) {
+					movableNodes[movableCount++] = i;
+				}
+			}
 		}
 	}
 
-	private void saveLocations() {
+	private void normalizeLocations() {
 		if (entities == null)
 			return;
 		for (int i = 0; i < entities.length; i++) {
-			// TODO ensure no dynamic layout passes are triggered as a result of
-			// storing the positions
+			if (incrementalNodes != null && !movable[i]) {
+				// pinned nodes keep their locations
+				continue;
+			}
 			// TODO: check where NaN values originate from
 			if (Double.isNaN(locationsX[i]) || Double.isNaN(locationsY[i])) {
 				locationsX[i] = 0;
 				locationsY[i] = 0;
 			}
-			LayoutProperties.setLocation(entities[i],
-					new Point(locationsX[i], locationsY[i]));
+			if (incrementalNodes != null && fitWithinBounds) {
+				// pinned nodes are not scaled, so keep moved nodes in bounds
+				locationsX[i] = Math.max(bounds.getX(), Math.min(
+						bounds.getX() + bounds.getWidth(), locationsX[i]));
+				locationsY[i] = Math.max(bounds.getY(), Math.min(
+						bounds.getY() + bounds.getHeight(), locationsY[i]));
+			}
 		}
 	}
 
+	private void saveLocations() {
+		if (entities == null)
+			return;
+		normalizeLocations();
+		// TODO ensure no dynamic layout passes are triggered as a result of
+		// storing the positions
+		snapshot.writeBack();
+	}
+
 	/**
 	 * Scales the current iteration counter based on how long the algorithm has
 	 * been running for. You can set the MaxTime in maxTimeMS!
@@ -489,7 +774,10 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 		Rectangle currentBounds = getLayoutBounds();
 		improveBoundScaleX(currentBounds);
 		improveBoundScaleY(currentBounds);
-		moveToCenter(currentBounds);
+		if (incrementalNodes == null) {
+			// pinned nodes may not be moved in an incremental layout pass
+			moveToCenter(currentBounds);
+		}
 		iteration++;
 	}
 
@@ -513,9 +801,53 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 			locationsY[1] = bounds.getY() + bounds.getHeight();
 			for (int i = 2; i < locationsX.length; i++) {
 				locationsX[i] = bounds.getX()
-						+ Math.random() * bounds.getWidth();
+						+ random.nextDouble() * bounds.getWidth();
 				locationsY[i] = bounds.getY()
-						+ Math.random() * bounds.getHeight();
+						+ random.nextDouble() * bounds.getHeight();
+			}
+		}
+	}
+
+	/**
+	 * Places the movable nodes close to the pinned nodes, so that nodes that
+	 * are added incrementally start close to their final location. Starting
+	 * from the pinned nodes, each movable node is placed at the centroid of
+	 * its already placed neighbors (with a small random offset).
+	 */
+	private void placeNearPinnedNeighbors() {
+		double jitterX = 0.01 * bounds.getWidth();
+		double jitterY = 0.01 * bounds.getHeight();
+		boolean[] placed = new boolean[entities.length];
+		for (int i = 0; i < entities.length; i++) {
+			placed[i] = !movable[i];
+		}
+		boolean progress = true;
+		while (progress) {
+			progress = false;
+			for (int i = 0; i < entities.length; i++) {
+				if (placed[i]) {
+					continue;
+				}
+				double sumX = 0;
+				double sumY = 0;
+				int count = 0;
+				for (int k = adjacencyOffsets[i]; k < adjacencyOffsets[i
+						+ 1]; k++) {
+					int j = adjacencyTargets[k];
+					if (placed[j]) {
+						sumX += locationsX[j];
+						sumY += locationsY[j];
+						count++;
+					}
+				}
+				if (count > 0) {
+					locationsX[i] = sumX / count
+							+ (random.nextDouble() - 0.5) * jitterX;
+					locationsY[i] = sumY / count
+							+ (random.nextDouble() - 0.5) * jitterY;
+					placed[i] = true;
+					progress = true;
+				}
 			}
 		}
 	}
@@ -540,69 +872,17 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 				locationsY[i] = this.locationsY[i];
 			}
 		}
-		// TODO: Again really really slow!
-
 		for (int k = 0; k < 2; k++) {
-			for (int i = 0; i < this.locationsX.length; i++) {
-
-				for (int j = i + 1; j < locationsX.length; j++) {
-					double dx = (locationsX[i] - locationsX[j])
-							/ bounds.getWidth() / boundsScaleX;
-					double dy = (locationsY[i] - locationsY[j])
-							/ bounds.getHeight() / boundsScaleY;
-					double distance_sq = dx * dx + dy * dy;
-					// make sure distance and distance squared not too small
-					distance_sq = Math.max(MIN_DISTANCE * MIN_DISTANCE,
-							distance_sq);
-					double distance = Math.sqrt(distance_sq);
-
-					// If there are relationships between srcObj and destObj
-					// then decrease force on srcObj (a pull) in direction of
-					// destObj
-					// If no relation between srcObj and destObj then increase
-					// force on srcObj (a push) from direction of destObj.
-					double sumOfWeights = srcDestToSumOfWeights[i][j];
-
-					double f;
-					if (sumOfWeights > 0) {
-						// nodes are pulled towards each other
-						f = -sprStrain * Math.log(distance / sprLength)
-								* sumOfWeights;
-					} else {
-						// nodes are repelled from each other
-						f = sprGravitation / (distance_sq);
-					}
-					double dfx = f * dx / distance;
-					double dfy = f * dy / distance;
-
-					forcesX[k][i] += dfx;
-					forcesY[k][i] += dfy;
-
-					forcesX[k][j] -= dfx;
-					forcesY[k][j] -= dfy;
-				}
-			}
-
-			for (int i = 0; i < entities.length; i++) {
-				if (LayoutProperties.isMovable(entities[i])) {
-					double deltaX = sprMove * forcesX[k][i];
-					double deltaY = sprMove * forcesY[k][i];
-
-					// constrain movement, so that nodes don't shoot way off to
-					// the
-					// edge
-					double dist = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
-					double maxMovement = 0.2d * sprMove;
-					if (dist > maxMovement) {
-						deltaX *= maxMovement / dist;
-						deltaY *= maxMovement / dist;
-					}
-
-					locationsX[i] += deltaX * bounds.getWidth() * boundsScaleX;
-					locationsY[i] += deltaY * bounds.getHeight() * boundsScaleY;
-				}
+			if (sprParallel && movableNodes == null) {
+				computeForcesInParallel(locationsX, locationsY, forcesX[k],
+						forcesY[k]);
+				moveNodesInParallel(forcesX[k], forcesY[k], locationsX,
+						locationsY);
+			} else {
+				computeForces(locationsX, locationsY, forcesX[k], forcesY[k]);
+				moveNodes(forcesX[k], forcesY[k], locationsX, locationsY, 0,
+						entities.length);
 			}
-
 		}
 		// // initialize all forces to zero
 		for (int i = 0; i < this.entities.length; i++) {
@@ -622,14 +902,268 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 
 	}
 
+	/**
+	 * Computes the forces at the given locations on the calling thread, and
+	 * adds them to the given force arrays. Within an incremental layout pass,
+	 * only the forces acting on the movable nodes are computed, so that the
+	 * effort is proportional to the number of movable nodes (instead of the
+	 * number of pairs of nodes).
+	 */
+	private void computeForces(double[] locationsX, double[] locationsY,
+			double[] forcesX, double[] forcesY) {
+		if (sprBarnesHut) {
+			buildQuadTree(locationsX, locationsY);
+		}
+		int[] stack = sprBarnesHut ? quadTree.createStack() : null;
+		if (movableNodes != null) {
+			for (int i : movableNodes) {
+				if (sprBarnesHut) {
+					quadTree.accumulateRepulsion(i, sprBarnesHutTheta,
+							sprGravitation, MIN_DISTANCE * MIN_DISTANCE, stack,
+							forcesX, forcesY);
+				} else {
+					computeRepulsiveForcesOnNode(i, locationsX, locationsY,
+							forcesX, forcesY);
+				}
+				computeEdgeForcesOnNode(i, locationsX, locationsY, forcesX,
+						forcesY);
+			}
+			return;
+		}
+		for (int i = 0; i < locationsX.length; i++) {
+			if (sprBarnesHut) {
+				quadTree.accumulateRepulsion(i, sprBarnesHutTheta,
+						sprGravitation, MIN_DISTANCE * MIN_DISTANCE, stack,
+						forcesX, forcesY);
+			} else {
+				computeRepulsiveForces(i, locationsX, locationsY, forcesX,
+						forcesY);
+			}
+			computeEdgeForces(i, locationsX, locationsY, forcesX, forcesY);
+		}
+	}
+
+	/**
+	 * Computes the forces at the given locations using the common
+	 * {@link ForkJoinPool}, and adds them to the given force arrays. The node
+	 * range is split into a fixed number of chunks, each of which accumulates
+	 * its forces into a separate buffer. The buffers are then reduced in chunk
+	 * order, so that the result does not depend on the scheduling of the
+	 * workers (or on the number of available processors).
+	 */
+	private void computeForcesInParallel(final double[] locationsX,
+			final double[] locationsY, double[] forcesX, double[] forcesY) {
+		final int n = locationsX.length;
+		final int chunks = Math.min(PARALLEL_CHUNKS, n);
+		if (chunkForcesX == null || chunkForcesX.length < chunks
+				|| chunkForcesX[0].length != n) {
+			chunkForcesX = new double[chunks][n];
+			chunkForcesY = new double[chunks][n];
+		}
+		if (sprBarnesHut) {
+			buildQuadTree(locationsX, locationsY);
+		}
+		invokeChunks(chunks, c -> {
+			double[] bufferX = chunkForcesX[c];
+			double[] bufferY = chunkForcesY[c];
+			Arrays.fill(bufferX, 0);
+			Arrays.fill(bufferY, 0);
+			int[] stack = sprBarnesHut ? quadTree.createStack() : null;
+			// interleave rows, so that the triangular workload of the exact
+			// computation is balanced between the chunks
+			for (int i = c; i < n; i += chunks) {
+				if (sprBarnesHut) {
+					quadTree.accumulateRepulsion(i, sprBarnesHutTheta,
+							sprGravitation, MIN_DISTANCE * MIN_DISTANCE, stack,
+							bufferX, bufferY);
+				} else {
+					computeRepulsiveForces(i, locationsX, locationsY, bufferX,
+							bufferY);
+				}
+				computeEdgeForces(i, locationsX, locationsY, bufferX, bufferY);
+			}
+		});
+		invokeChunks(chunks, c -> {
+			int from = c * n / chunks;
+			int to = (c + 1) * n / chunks;
+			for (int b = 0; b < chunks; b++) {
+				double[] bufferX = chunkForcesX[b];
+				double[] bufferY = chunkForcesY[b];
+				for (int i = from; i < to; i++) {
+					forcesX[i] += bufferX[i];
+					forcesY[i] += bufferY[i];
+				}
+			}
+		});
+	}
+
+	/**
+	 * Computes the repulsive forces between the node at the given index and
+	 * all nodes with a greater index, and adds them to the given force arrays.
+	 */
+	private void computeRepulsiveForces(int i, double[] locationsX,
+			double[] locationsY, double[] forcesX, double[] forcesY) {
+		for (int j = i + 1; j < locationsX.length; j++) {
+			addRepulsiveForce(i, j, true, locationsX, locationsY, forcesX,
+					forcesY);
+		}
+	}
+
+	/**
+	 * Computes the repulsive forces that all other nodes exert on the node at
+	 * the given index, and adds them to the given force arrays.
+	 */
+	private void computeRepulsiveForcesOnNode(int i, double[] locationsX,
+			double[] locationsY, double[] forcesX, double[] forcesY) {
+		for (int j = 0; j < locationsX.length; j++) {
+			if (j != i) {
+				addRepulsiveForce(i, j, false, locationsX, locationsY,
+						forcesX, forcesY);
+			}
+		}
+	}
+
+	/**
+	 * Adds the repulsive force that the node at index <code>j</code> exerts
+	 * on the node at index <code>i</code> to the given force arrays. If the
+	 * force is symmetric, the opposite force is added for node
+	 * <code>j</code>.
+	 */
+	private void addRepulsiveForce(int i, int j, boolean symmetric,
+			double[] locationsX, double[] locationsY, double[] forcesX,
+			double[] forcesY) {
+		double dx = (locationsX[i] - locationsX[j]) / bounds.getWidth()
+				/ boundsScaleX;
+		double dy = (locationsY[i] - locationsY[j]) / bounds.getHeight()
+				/ boundsScaleY;
+		double distance_sq = dx * dx + dy * dy;
+		// make sure distance and distance squared not too small
+		distance_sq = Math.max(MIN_DISTANCE * MIN_DISTANCE, distance_sq);
+		double distance = Math.sqrt(distance_sq);
+
+		// nodes are repelled from each other
+		double f = sprGravitation / (distance_sq);
+		double dfx = f * dx / distance;
+		double dfy = f * dy / distance;
+
+		forcesX[i] += dfx;
+		forcesY[i] += dfy;
+		if (symmetric) {
+			forcesX[j] -= dfx;
+			forcesY[j] -= dfy;
+		}
+	}
+
+	/**
+	 * Builds the Barnes-Hut quadtree for the given locations, which are
+	 * normalized to the same space as used by the exact computation, so that
+	 * <code>dx = normalizedX[i] - normalizedX[j]</code>.
+	 */
+	private void buildQuadTree(double[] locationsX, double[] locationsY) {
+		int n = locationsX.length;
+		if (normalizedX == null || normalizedX.length != n) {
+			normalizedX = new double[n];
+			normalizedY = new double[n];
+		}
+		double scaleX = bounds.getWidth() * boundsScaleX;
+		double scaleY = bounds.getHeight() * boundsScaleY;
+		for (int i = 0; i < n; i++) {
+			normalizedX[i] = locationsX[i] / scaleX;
+			normalizedY[i] = locationsY[i] / scaleY;
+		}
+		if (quadTree == null) {
+			quadTree = new BarnesHutQuadTree();
+		}
+		quadTree.build(normalizedX, normalizedY);
+	}
+
+	/**
+	 * Computes the forces along the edges between the node at the given index
+	 * and all adjacent nodes with a greater index, and adds them to the given
+	 * force arrays. Nodes that are connected by an edge are pulled towards
+	 * each other instead of being repelled from each other, so the repulsive
+	 * force that was previously added for all pairs of nodes is replaced by
+	 * the attractive force for each pair of adjacent nodes.
+	 */
+	private void computeEdgeForces(int i, double[] locationsX,
+			double[] locationsY, double[] forcesX, double[] forcesY) {
+		for (int k = adjacencyOffsets[i]; k < adjacencyOffsets[i + 1]; k++) {
+			// handle each pair only once
+			if (adjacencyTargets[k] >= i) {
+				addEdgeForce(i, k, true, locationsX, locationsY, forcesX,
+						forcesY);
+			}
+		}
+	}
+
+	/**
+	 * Computes the forces along the edges between the node at the given index
+	 * and all adjacent nodes, and adds them to the force arrays of the node
+	 * at the given index only (see
+	 * {@link #computeEdgeForces(int, double[], double[], double[], double[])}).
+	 */
+	private void computeEdgeForcesOnNode(int i, double[] locationsX,
+			double[] locationsY, double[] forcesX, double[] forcesY) {
+		for (int k = adjacencyOffsets[i]; k < adjacencyOffsets[i + 1]; k++) {
+			addEdgeForce(i, k, false, locationsX, locationsY, forcesX,
+					forcesY);
+		}
+	}
+
+	/**
+	 * Adds the force along the edge at the given adjacency index (of the node
+	 * at index <code>i</code>) to the given force arrays of node
+	 * <code>i</code>. If the force is symmetric, the opposite force is added
+	 * for the adjacent node.
+	 */
+	private void addEdgeForce(int i, int k, boolean symmetric,
+			double[] locationsX, double[] locationsY, double[] forcesX,
+			double[] forcesY) {
+		int j = adjacencyTargets[k];
+		double dx = (locationsX[i] - locationsX[j]) / bounds.getWidth()
+				/ boundsScaleX;
+		double dy = (locationsY[i] - locationsY[j]) / bounds.getHeight()
+				/ boundsScaleY;
+		double distance_sq = Math.max(MIN_DISTANCE * MIN_DISTANCE,
+				dx * dx + dy * dy);
+		double distance = Math.sqrt(distance_sq);
+
+		// nodes are pulled towards each other (and not repelled)
+		double f = -sprStrain * Math.log(distance / sprLength)
+				* adjacencyWeights[k] - sprGravitation / distance_sq;
+		double dfx = f * dx / distance;
+		double dfy = f * dy / distance;
+
+		forcesX[i] += dfx;
+		forcesY[i] += dfy;
+		if (symmetric) {
+			forcesX[j] -= dfx;
+			forcesY[j] -= dfy;
+		}
+	}
+
 	/**
 	 * Computes the position for each node in this SpringLayoutAlgorithm. The
 	 * computed position will be stored in the data repository. position =
 	 * position + sprMove * force
 	 */
 	protected void computePositions() {
-		for (int i = 0; i < entities.length; i++) {
-			if (LayoutProperties.isMovable(entities[i])) {
+		if (sprParallel) {
+			moveNodesInParallel(forcesX, forcesY, locationsX, locationsY);
+		} else {
+			moveNodes(forcesX, forcesY, locationsX, locationsY, 0,
+					entities.length);
+		}
+	}
+
+	/**
+	 * Moves the (movable) nodes within the given index range according to the
+	 * given forces.
+	 */
+	private void moveNodes(double[] forcesX, double[] forcesY,
+			double[] locationsX, double[] locationsY, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (movable[i]) {
 				double deltaX = sprMove * forcesX[i];
 				double deltaY = sprMove * forcesY[i];
 
@@ -648,6 +1182,31 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 		}
 	}
 
+	/**
+	 * Moves the (movable) nodes according to the given forces using the common
+	 * {@link ForkJoinPool}.
+	 */
+	private void moveNodesInParallel(final double[] forcesX,
+			final double[] forcesY, final double[] locationsX,
+			final double[] locationsY) {
+		final int n = entities.length;
+		final int chunks = Math.min(PARALLEL_CHUNKS, n);
+		invokeChunks(chunks, c -> moveNodes(forcesX, forcesY, locationsX,
+				locationsY, c * n / chunks, (c + 1) * n / chunks));
+	}
+
+	/**
+	 * Executes the given action for all chunk indices in
+	 * <code>[0, chunks)</code> using the common {@link ForkJoinPool}, and
+	 * waits for its completion.
+	 */
+	private static void invokeChunks(int chunks, IntConsumer action) {
+		if (chunks > 0) {
+			ForkJoinPool.commonPool()
+					.invoke(new ChunkAction(0, chunks, action));
+		}
+	}
+
 	private Rectangle getLayoutBounds() {
 		double minX, maxX, minY, maxY;
 		minX = minY = Double.POSITIVE_INFINITY;
@@ -696,4 +1255,34 @@ public class SpringLayoutAlgorithm implements ILayoutAlgorithm {
 			locationsY[i] -= moveY;
 		}
 	}
+
+	/**
+	 * A {@link RecursiveAction} that executes an {@link IntConsumer} for a
+	 * range of chunk indices, splitting the range in halves.
+	 */
+	private static class ChunkAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final IntConsumer action;
+
+		public ChunkAction(int from, int to, IntConsumer action) {
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				action.accept(from);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ChunkAction(from, mid, action),
+						new ChunkAction(mid, to, action));
+			}
+		}
+	}
 }
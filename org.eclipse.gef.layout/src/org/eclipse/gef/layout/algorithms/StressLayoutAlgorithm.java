@@ -0,0 +1,706 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.algorithms;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.eclipse.gef.geometry.planar.Rectangle;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
+import org.eclipse.gef.layout.LayoutContext;
+import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.LayoutSnapshot;
+
+/**
+ * The {@link StressLayoutAlgorithm} computes a layout in which the euclidean
+ * distances between nodes approximate their graph theoretic (shortest path)
+ * distances. It proceeds in two phases:
+ * <ol>
+ * <li>An initial layout is computed by pivot multidimensional scaling (Brandes
+ * and Pich, "Eigensolver Methods for Progressive Multidimensional Scaling of
+ * Large Data", 2006). The shortest path distances are only computed from a
+ * small number of pivot nodes (one breadth-first search per pivot), which are
+ * selected by a max/min strategy, so that they are spread evenly across the
+ * graph.
+ * <li>The initial layout is refined by sparse stress majorization (Ortmann,
+ * Klimenta, and Brandes, "A Sparse Stress Model", 2016), where the stress of
+ * every node is only evaluated with respect to its neighbors and the pivots.
+ * Each pivot represents the nodes that are closer to it than to any other
+ * pivot.
+ * </ol>
+ * Both phases need <code>O(k * (n + m))</code> time and <code>O(k * n)</code>
+ * space (for <code>k</code> pivots, <code>n</code> nodes, and <code>m</code>
+ * edges), and are computed on the primitive arrays of a {@link LayoutSnapshot}.
+ * The layout is deterministic, i.e. it only depends on the order of the nodes
+ * and edges. Edges are regarded as undirected, and disconnected components
+ * are placed at a distance slightly larger than the largest shortest path
+ * distance. Finally, the layout is scaled to fit the layout bounds.
+ * <p>
+ * If the graph contains pinned nodes (i.e. nodes that are not
+ * {@link LayoutProperties#isMovable(org.eclipse.gef.graph.Node) movable} but
+ * have a location), the initial layout is instead aligned to them by a
+ * similarity transformation (rotation, reflection, uniform scaling, and
+ * translation) that maps the initial positions of the pinned nodes onto their
+ * locations as closely as possible. The pinned nodes are then fixed at their
+ * locations during stress majorization, and the layout is not scaled to fit
+ * the layout bounds, so that the other nodes are placed consistently around
+ * the pinned ones.
+ */
+public class StressLayoutAlgorithm implements ICacheableLayoutAlgorithm {
+
+	/**
+	 * The default number of pivots.
+	 */
+	private static final int DEFAULT_PIVOT_COUNT = 50;
+
+	/**
+	 * The default (maximum) number of stress majorization iterations.
+	 */
+	private static final int DEFAULT_ITERATIONS = 100;
+
+	/**
+	 * The default tolerance, i.e. the average movement of the nodes (in edge
+	 * lengths) below which the iteration is stopped.
+	 */
+	private static final double DEFAULT_TOLERANCE = 1e-4;
+
+	/**
+	 * The number of power iterations used to compute the eigenvectors.
+	 */
+	private static final int POWER_ITERATIONS = 200;
+
+	private int pivotCount = DEFAULT_PIVOT_COUNT;
+	private int iterations = DEFAULT_ITERATIONS;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private boolean resize = false;
+
+	// the undirected adjacency (without self-loops and duplicates) in
+	// compressed sparse row format
+	private int[] neighborOffsets;
+	private int[] neighbors;
+	// the pivots, their distances to all nodes (pivot-major), and the number
+	// of nodes that are represented by each pivot
+	private int[] pivots;
+	private int[] distances;
+	private int[] regionSizes;
+
+	/**
+	 * Default constructor.
+	 */
+	public StressLayoutAlgorithm() {
+	}
+
+	public Object[] getLayoutParameters() {
+		return new Object[] { pivotCount, iterations, tolerance, resize };
+	}
+
+	public void applyLayout(LayoutContext layoutContext, boolean clean) {
+		if (!clean)
+			return;
+		LayoutSnapshot snapshot = layoutContext.createLayoutSnapshot();
+		int n = snapshot.getNodeCount();
+		if (n == 0) {
+			return;
+		}
+
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		boolean[] pinned = new boolean[n];
+		int pinnedCount = 0;
+		for (int i = 0; i < n; i++) {
+			pinned[i] = !snapshot.isMovable(i) && !Double.isNaN(x[i])
+					&& !Double.isNaN(y[i]);
+			if (pinned[i]) {
+				pinnedCount++;
+			}
+		}
+		Rectangle bounds = LayoutProperties
+				.getBounds(layoutContext.getGraph()).getCopy();
+		int insets = 4;
+		bounds.setX(bounds.getX() + insets);
+		bounds.setY(bounds.getY() + insets);
+		bounds.setWidth(bounds.getWidth() - 2 * insets);
+		bounds.setHeight(bounds.getHeight() - 2 * insets);
+
+		computeNeighbors(snapshot);
+		computePivots(n);
+		double[] px = new double[n];
+		double[] py = new double[n];
+		computePivotMDS(px, py);
+		scaleToStress(px, py);
+		double[] alignment = null;
+		if (pinnedCount > 0) {
+			alignment = computeAlignment(px, py, x, y, pinned, bounds);
+			// fix the pinned nodes at their locations (within the frame of
+			// the initial layout)
+			for (int i = 0; i < n; i++) {
+				if (pinned[i]) {
+					double u = x[i] - alignment[3];
+					double v = y[i] - alignment[4];
+					double scale = alignment[0] * alignment[0]
+							+ alignment[1] * alignment[1];
+					px[i] = (alignment[0] * u + alignment[1] * v) / scale;
+					py[i] = alignment[2]
+							* (alignment[0] * v - alignment[1] * u) / scale;
+				}
+			}
+		}
+		for (int i = 0; i < iterations; i++) {
+			double movement = majorize(px, py, pinned);
+			layoutContext.reportLayoutProgress((double) (i + 1) / iterations);
+			if (movement / n < tolerance) {
+				break;
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			if (snapshot.isMovable(i)) {
+				if (alignment == null) {
+					x[i] = px[i];
+					y[i] = py[i];
+				} else {
+					double v = alignment[2] * py[i];
+					x[i] = alignment[0] * px[i] - alignment[1] * v
+							+ alignment[3];
+					y[i] = alignment[1] * px[i] + alignment[0] * v
+							+ alignment[4];
+				}
+			}
+		}
+		if (resize)
+			AlgorithmHelper.maximizeSizes(snapshot);
+		if (alignment == null) {
+			AlgorithmHelper.fitWithinBounds(snapshot, bounds, resize);
+		}
+		snapshot.writeBack();
+
+		// release the memory of the intermediate results
+		neighborOffsets = null;
+		neighbors = null;
+		pivots = null;
+		distances = null;
+		regionSizes = null;
+	}
+
+	/**
+	 * Performs a breadth-first search from the given node, storing the
+	 * distances of all nodes within {@link #distances}, starting at the given
+	 * offset. Unreachable nodes get a distance of <code>-1</code>.
+	 */
+	private void breadthFirstSearch(int source, int offset, int n,
+			int[] queue) {
+		Arrays.fill(distances, offset, offset + n, -1);
+		distances[offset + source] = 0;
+		queue[0] = source;
+		int size = 1;
+		for (int head = 0; head < size; head++) {
+			int v = queue[head];
+			int distance = distances[offset + v] + 1;
+			for (int k = neighborOffsets[v]; k < neighborOffsets[v + 1]; k++) {
+				int w = neighbors[k];
+				if (distances[offset + w] == -1) {
+					distances[offset + w] = distance;
+					queue[size++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the similarity transformation that maps the given initial
+	 * positions of the pinned nodes onto their locations (least squares), and
+	 * returns it as <code>{a, b, r, tx, ty}</code>, so that a position
+	 * <code>(px, py)</code> is mapped to
+	 * <code>(a * px - b * r * py + tx, b * px + a * r * py + ty)</code>, where
+	 * <code>r = -1</code> indicates a reflection. If the pinned nodes do not
+	 * determine the scale (e.g. a single pinned node), the scale is chosen so
+	 * that the initial layout fits the given bounds.
+	 */
+	private double[] computeAlignment(double[] px, double[] py, double[] x,
+			double[] y, boolean[] pinned, Rectangle bounds) {
+		int n = px.length;
+		int count = 0;
+		double centerPX = 0;
+		double centerPY = 0;
+		double centerX = 0;
+		double centerY = 0;
+		for (int i = 0; i < n; i++) {
+			if (pinned[i]) {
+				count++;
+				centerPX += px[i];
+				centerPY += py[i];
+				centerX += x[i];
+				centerY += y[i];
+			}
+		}
+		centerPX /= count;
+		centerPY /= count;
+		centerX /= count;
+		centerY /= count;
+
+		// a + ib = sum(conj(p) * q) / sum(|p|^2) for the centered positions
+		// (with and without reflection)
+		double norm = 0;
+		double real = 0;
+		double imaginary = 0;
+		double reflectedReal = 0;
+		double reflectedImaginary = 0;
+		for (int i = 0; i < n; i++) {
+			if (pinned[i]) {
+				double u = px[i] - centerPX;
+				double v = py[i] - centerPY;
+				double qx = x[i] - centerX;
+				double qy = y[i] - centerY;
+				norm += u * u + v * v;
+				real += u * qx + v * qy;
+				imaginary += u * qy - v * qx;
+				reflectedReal += u * qx - v * qy;
+				reflectedImaginary += u * qy + v * qx;
+			}
+		}
+		double a;
+		double b;
+		double r = 1;
+		if (Math.hypot(reflectedReal, reflectedImaginary) > Math.hypot(real,
+				imaginary)) {
+			real = reflectedReal;
+			imaginary = reflectedImaginary;
+			r = -1;
+		}
+		if (norm > 0 && Math.hypot(real, imaginary) > 0) {
+			a = real / norm;
+			b = imaginary / norm;
+		} else {
+			// fit the initial layout within the bounds
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < n; i++) {
+				minX = Math.min(minX, px[i]);
+				minY = Math.min(minY, py[i]);
+				maxX = Math.max(maxX, px[i]);
+				maxY = Math.max(maxY, py[i]);
+			}
+			double scale = Math.min(bounds.getWidth() / (maxX - minX),
+					bounds.getHeight() / (maxY - minY));
+			if (Double.isNaN(scale) || Double.isInfinite(scale)
+					|| scale <= 0) {
+				scale = 1;
+			}
+			a = scale;
+			b = 0;
+			r = 1;
+		}
+		double v = r * centerPY;
+		return new double[] { a, b, r, centerX - (a * centerPX - b * v),
+				centerY - (b * centerPX + a * v) };
+	}
+
+	private void computeNeighbors(LayoutSnapshot snapshot) {
+		int n = snapshot.getNodeCount();
+		int[] sources = snapshot.getEdgeSources();
+		int[] targets = snapshot.getEdgeTargets();
+		int[] incidenceOffsets = snapshot.getIncidenceOffsets();
+		int[] incidentEdges = snapshot.getIncidentEdges();
+		neighborOffsets = new int[n + 1];
+		neighbors = new int[incidentEdges.length];
+		int[] mark = new int[n];
+		Arrays.fill(mark, -1);
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			mark[i] = i;
+			for (int k = incidenceOffsets[i]; k < incidenceOffsets[i
+					+ 1]; k++) {
+				int e = incidentEdges[k];
+				int j = sources[e] == i ? targets[e] : sources[e];
+				if (mark[j] != i) {
+					mark[j] = i;
+					neighbors[size++] = j;
+				}
+			}
+			neighborOffsets[i + 1] = size;
+		}
+	}
+
+	/**
+	 * Computes the pivot positions by classical multidimensional scaling of
+	 * the (double centered, squared) pivot distances, using the two principal
+	 * eigenvectors of the <code>k x k</code> matrix <code>C C^T</code>.
+	 */
+	private void computePivotMDS(double[] px, double[] py) {
+		int n = px.length;
+		int k = pivots.length;
+		double[] c = new double[k * n];
+		double[] rowMeans = new double[k];
+		double[] columnMeans = new double[n];
+		double grandMean = 0;
+		for (int p = 0; p < k; p++) {
+			for (int i = 0; i < n; i++) {
+				double d = distances[p * n + i];
+				c[p * n + i] = d * d;
+				rowMeans[p] += d * d;
+				columnMeans[i] += d * d;
+			}
+			grandMean += rowMeans[p];
+			rowMeans[p] /= n;
+		}
+		for (int i = 0; i < n; i++) {
+			columnMeans[i] /= k;
+		}
+		grandMean /= (double) k * n;
+		for (int p = 0; p < k; p++) {
+			for (int i = 0; i < n; i++) {
+				c[p * n + i] = -0.5 * (c[p * n + i] - rowMeans[p]
+						- columnMeans[i] + grandMean);
+			}
+		}
+
+		// b = c * c^T (symmetric)
+		double[] b = new double[k * k];
+		for (int p = 0; p < k; p++) {
+			for (int q = p; q < k; q++) {
+				double sum = 0;
+				for (int i = 0; i < n; i++) {
+					sum += c[p * n + i] * c[q * n + i];
+				}
+				b[p * k + q] = sum;
+				b[q * k + p] = sum;
+			}
+		}
+
+		// two principal eigenvectors by power iteration with deflation
+		Random random = new Random(0);
+		double[] first = new double[k];
+		double[] second = new double[k];
+		for (int p = 0; p < k; p++) {
+			first[p] = random.nextDouble() - 0.5;
+			second[p] = random.nextDouble() - 0.5;
+		}
+		double firstEigenvalue = powerIteration(b, first, null);
+		double secondEigenvalue = powerIteration(b, second, first);
+
+		// project the nodes onto the eigenvectors, so that the axes are scaled
+		// according to classical multidimensional scaling
+		double firstScale = firstEigenvalue > 0
+				? 1 / Math.pow(firstEigenvalue, 0.25) : 0;
+		double secondScale = secondEigenvalue > 0
+				? 1 / Math.pow(secondEigenvalue, 0.25) : 0;
+		for (int i = 0; i < n; i++) {
+			double sx = 0;
+			double sy = 0;
+			for (int p = 0; p < k; p++) {
+				sx += c[p * n + i] * first[p];
+				sy += c[p * n + i] * second[p];
+			}
+			// a small deterministic offset (along a golden angle spiral)
+			// separates nodes with identical pivot distances
+			double angle = i * 2.399963229728653;
+			double radius = 1e-3 * Math.sqrt(i + 1);
+			px[i] = sx * firstScale + radius * Math.cos(angle);
+			py[i] = sy * secondScale + radius * Math.sin(angle);
+		}
+	}
+
+	/**
+	 * Selects the pivots by a max/min strategy (the next pivot is the node
+	 * with the maximum distance to all previously selected pivots), computes
+	 * their distances to all nodes, and assigns each node to its closest
+	 * pivot.
+	 */
+	private void computePivots(int n) {
+		int k = Math.max(1, Math.min(pivotCount, n));
+		pivots = new int[k];
+		distances = new int[k * n];
+		int[] queue = new int[n];
+		int[] minDistances = new int[n];
+		Arrays.fill(minDistances, Integer.MAX_VALUE);
+		int maxDistance = 0;
+		int count = 0;
+		int next = 0;
+		while (count < k) {
+			pivots[count] = next;
+			breadthFirstSearch(next, count * n, n, queue);
+			int offset = count * n;
+			count++;
+			next = -1;
+			for (int i = 0; i < n; i++) {
+				int distance = distances[offset + i];
+				if (distance != -1) {
+					minDistances[i] = Math.min(minDistances[i], distance);
+					maxDistance = Math.max(maxDistance, distance);
+				}
+				if (minDistances[i] > 0
+						&& (next == -1 || minDistances[i] > minDistances[next])) {
+					next = i;
+				}
+			}
+			if (next == -1) {
+				// all nodes are pivots
+				break;
+			}
+		}
+		if (count < k) {
+			pivots = Arrays.copyOf(pivots, count);
+			distances = Arrays.copyOf(distances, count * n);
+			k = count;
+		}
+
+		// disconnected nodes are placed slightly further apart than the
+		// connected ones
+		for (int j = 0; j < distances.length; j++) {
+			if (distances[j] == -1) {
+				distances[j] = maxDistance + 1;
+			}
+		}
+
+		regionSizes = new int[k];
+		for (int i = 0; i < n; i++) {
+			int closest = 0;
+			for (int p = 1; p < k; p++) {
+				if (distances[p * n + i] < distances[closest * n + i]) {
+					closest = p;
+				}
+			}
+			regionSizes[closest]++;
+		}
+	}
+
+	/**
+	 * Returns the (maximum) number of stress majorization iterations.
+	 *
+	 * @return The number of iterations.
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Returns the number of pivots, i.e. the number of nodes from which the
+	 * shortest path distances are computed.
+	 *
+	 * @return The number of pivots.
+	 */
+	public int getPivotCount() {
+		return pivotCount;
+	}
+
+	/**
+	 * Returns the tolerance, i.e. the average movement of the nodes (measured
+	 * in edge lengths) below which the stress majorization is stopped.
+	 *
+	 * @return The tolerance.
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 *
+	 * @return true if this algorithm is set to resize elements
+	 */
+	public boolean isResizing() {
+		return resize;
+	}
+
+	/**
+	 * Performs one (Gauss-Seidel) stress majorization iteration, moving every
+	 * node to the weighted average of the positions that are proposed by its
+	 * neighbors and the pivots. Pinned nodes are not moved.
+	 *
+	 * @return The total movement of all nodes.
+	 */
+	private double majorize(double[] px, double[] py, boolean[] pinned) {
+		int n = px.length;
+		int k = pivots.length;
+		double movement = 0;
+		for (int i = 0; i < n; i++) {
+			if (pinned[i]) {
+				continue;
+			}
+			double weights = 0;
+			double sx = 0;
+			double sy = 0;
+			for (int l = neighborOffsets[i]; l < neighborOffsets[i + 1]; l++) {
+				int j = neighbors[l];
+				double dx = px[i] - px[j];
+				double dy = py[i] - py[j];
+				double distance = Math.sqrt(dx * dx + dy * dy);
+				double factor = distance > 0 ? 1 / distance : 0;
+				sx += px[j] + dx * factor;
+				sy += py[j] + dy * factor;
+				weights += 1;
+			}
+			for (int p = 0; p < k; p++) {
+				int j = pivots[p];
+				double d = distances[p * n + i];
+				if (j == i || d <= 1) {
+					// the pivot is the node itself or one of its neighbors
+					continue;
+				}
+				double weight = regionSizes[p] / (d * d);
+				double dx = px[i] - px[j];
+				double dy = py[i] - py[j];
+				double distance = Math.sqrt(dx * dx + dy * dy);
+				double factor = distance > 0 ? d / distance : 0;
+				sx += weight * (px[j] + dx * factor);
+				sy += weight * (py[j] + dy * factor);
+				weights += weight;
+			}
+			if (weights > 0) {
+				double x = sx / weights;
+				double y = sy / weights;
+				movement += Math.abs(x - px[i]) + Math.abs(y - py[i]);
+				px[i] = x;
+				py[i] = y;
+			}
+		}
+		return movement;
+	}
+
+	/**
+	 * Computes the dominant eigenvector of the given symmetric
+	 * <code>k x k</code> matrix in place, starting at the given vector. If an
+	 * orthogonal vector is specified, the iteration is restricted to its
+	 * orthogonal complement.
+	 *
+	 * @return The corresponding eigenvalue.
+	 */
+	private double powerIteration(double[] matrix, double[] vector,
+			double[] orthogonal) {
+		int k = vector.length;
+		double[] next = new double[k];
+		double eigenvalue = 0;
+		for (int iteration = 0; iteration < POWER_ITERATIONS; iteration++) {
+			if (orthogonal != null) {
+				double dot = 0;
+				for (int p = 0; p < k; p++) {
+					dot += vector[p] * orthogonal[p];
+				}
+				for (int p = 0; p < k; p++) {
+					vector[p] -= dot * orthogonal[p];
+				}
+			}
+			double norm = 0;
+			for (int p = 0; p < k; p++) {
+				double sum = 0;
+				for (int q = 0; q < k; q++) {
+					sum += matrix[p * k + q] * vector[q];
+				}
+				next[p] = sum;
+				norm += sum * sum;
+			}
+			norm = Math.sqrt(norm);
+			if (norm == 0) {
+				Arrays.fill(vector, 0);
+				return 0;
+			}
+			double change = 0;
+			for (int p = 0; p < k; p++) {
+				double value = next[p] / norm;
+				change += Math.abs(value - vector[p]);
+				vector[p] = value;
+			}
+			eigenvalue = norm;
+			if (change < 1e-10) {
+				break;
+			}
+		}
+		return eigenvalue;
+	}
+
+	/**
+	 * Scales the given positions by the factor that minimizes the (sparse)
+	 * stress, so that the majorization starts at the right scale.
+	 */
+	private void scaleToStress(double[] px, double[] py) {
+		int n = px.length;
+		int k = pivots.length;
+		double numerator = 0;
+		double denominator = 0;
+		for (int i = 0; i < n; i++) {
+			for (int l = neighborOffsets[i]; l < neighborOffsets[i + 1]; l++) {
+				int j = neighbors[l];
+				double distance = Math.hypot(px[i] - px[j], py[i] - py[j]);
+				numerator += distance;
+				denominator += distance * distance;
+			}
+			for (int p = 0; p < k; p++) {
+				int j = pivots[p];
+				double d = distances[p * n + i];
+				if (j != i && d > 1) {
+					double weight = regionSizes[p] / (d * d);
+					double distance = Math.hypot(px[i] - px[j],
+							py[i] - py[j]);
+					numerator += weight * d * distance;
+					denominator += weight * distance * distance;
+				}
+			}
+		}
+		if (numerator > 0 && denominator > 0) {
+			double scale = numerator / denominator;
+			for (int i = 0; i < n; i++) {
+				px[i] *= scale;
+				py[i] *= scale;
+			}
+		}
+	}
+
+	/**
+	 * Sets the (maximum) number of stress majorization iterations.
+	 *
+	 * @param iterations
+	 *            The number of iterations.
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Sets the number of pivots, i.e. the number of nodes from which the
+	 * shortest path distances are computed. More pivots result in a more
+	 * precise layout, but increase time and memory consumption linearly.
+	 *
+	 * @param pivotCount
+	 *            The number of pivots.
+	 */
+	public void setPivotCount(int pivotCount) {
+		if (pivotCount < 1) {
+			throw new IllegalArgumentException(
+					"Invalid pivot count: " + pivotCount);
+		}
+		this.pivotCount = pivotCount;
+	}
+
+	/**
+	 *
+	 * @param resizing
+	 *            true if this algorithm should resize elements (default is
+	 *            false)
+	 */
+	public void setResizing(boolean resizing) {
+		resize = resizing;
+	}
+
+	/**
+	 * Sets the tolerance, i.e. the average movement of the nodes (measured in
+	 * edge lengths) below which the stress majorization is stopped.
+	 *
+	 * @param tolerance
+	 *            The tolerance.
+	 */
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+}
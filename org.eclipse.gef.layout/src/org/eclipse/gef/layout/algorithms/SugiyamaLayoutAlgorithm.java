@@ -18,6 +18,7 @@
 package org.eclipse.gef.layout.algorithms;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -27,6 +28,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
 import java.util.Set;
 
@@ -35,7 +37,7 @@ import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
 import org.eclipse.gef.graph.Edge;
 import org.eclipse.gef.graph.Node;
-import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
 import org.eclipse.gef.layout.LayoutContext;
 import org.eclipse.gef.layout.LayoutProperties;
 
@@ -58,7 +60,7 @@ import org.eclipse.gef.layout.LayoutProperties;
  * @author Adam Kovacs
  * @author mwienand
  */
-public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
+public class SugiyamaLayoutAlgorithm implements ICacheableLayoutAlgorithm {
 
 	/**
 	 * Specifies the direction for the {@link SugiyamaLayoutAlgorithm}.
@@ -634,6 +636,339 @@ public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
 		}
 	}
 
+	/**
+	 * Implements the CrossingReducer interface. This algorithm performs
+	 * alternating top-down and bottom-up layer sweeps, ordering the nodes of
+	 * each layer by the barycenter of their neighbors in the previous layer.
+	 * After each sweep, the total number of crossings is counted using an
+	 * accumulator tree (Barth, Juenger, Mutzel: "Simple and Efficient Bilayer
+	 * Cross Counting", http://dx.doi.org/10.7155/jgaa.00088) in
+	 * <code>O(E log V)</code>, and the best ordering found is kept.
+	 * <p>
+	 * The adjacency between consecutive layers is computed once and stored in
+	 * integer arrays, so that the graph is not queried while sweeping.
+	 */
+	public static class LayerSweepCrossingReducer implements CrossingReducer {
+
+		private static final int MAX_SWEEPS = 24;
+
+		// sweeps without improvement after which to stop
+		private static final int MAX_SWEEPS_WITHOUT_IMPROVEMENT = 4;
+
+		private LayerAdjacency adjacency;
+
+		// buffers used for counting crossings
+		private int[] bucketStart = new int[0];
+		private int[] sequence = new int[0];
+		private int[] tree = new int[0];
+
+		/**
+		 * Returns the number of crossings between the edges connecting the
+		 * given layer and the next layer, using an accumulator tree.
+		 *
+		 * @param l
+		 *            The index of the upper layer.
+		 * @return The number of crossings between layer <code>l</code> and
+		 *         layer <code>l + 1</code>.
+		 */
+		private long countCrossings(int l) {
+			int[] upper = adjacency.order[l];
+			int[] lower = adjacency.order[l + 1];
+			if (upper.length < 2 || lower.length < 2) {
+				return 0;
+			}
+			int[] position = adjacency.position;
+			int[] succOffsets = adjacency.succOffsets;
+			int[] predOffsets = adjacency.predOffsets;
+			int[] predTargets = adjacency.predTargets;
+
+			// sort edges lexicographically by the positions of their upper and
+			// lower nodes (bucket sort over the lower layer)
+			if (bucketStart.length < upper.length + 1) {
+				bucketStart = new int[upper.length + 1];
+			}
+			bucketStart[0] = 0;
+			for (int p = 0; p < upper.length; p++) {
+				int u = upper[p];
+				bucketStart[p + 1] = bucketStart[p] + succOffsets[u + 1]
+						- succOffsets[u];
+			}
+			int edgeCount = bucketStart[upper.length];
+			if (sequence.length < edgeCount) {
+				sequence = new int[edgeCount];
+			}
+			for (int q = 0; q < lower.length; q++) {
+				int v = lower[q];
+				for (int k = predOffsets[v]; k < predOffsets[v + 1]; k++) {
+					sequence[bucketStart[position[predTargets[k]]]++] = q;
+				}
+			}
+
+			// count inversions of the lower positions using the accumulator
+			// tree
+			int firstIndex = 1;
+			while (firstIndex < lower.length) {
+				firstIndex *= 2;
+			}
+			int treeSize = 2 * firstIndex - 1;
+			firstIndex--;
+			if (tree.length < treeSize) {
+				tree = new int[treeSize];
+			} else {
+				Arrays.fill(tree, 0, treeSize, 0);
+			}
+			long crossings = 0;
+			for (int k = 0; k < edgeCount; k++) {
+				int index = sequence[k] + firstIndex;
+				tree[index]++;
+				while (index > 0) {
+					if ((index & 1) == 1) {
+						crossings += tree[index + 1];
+					}
+					index = (index - 1) / 2;
+					tree[index]++;
+				}
+			}
+			return crossings;
+		}
+
+		/**
+		 * Returns the total number of crossings of the current ordering.
+		 *
+		 * @return The total number of crossings.
+		 */
+		private long countCrossings() {
+			long crossings = 0;
+			for (int l = 0; l < adjacency.order.length - 1; l++) {
+				crossings += countCrossings(l);
+			}
+			return crossings;
+		}
+
+		/**
+		 * Orders the nodes of the given layer by the barycenter of the
+		 * positions of their neighbors as stored in the given adjacency. Nodes
+		 * without neighbors keep their position.
+		 */
+		private void sortByBarycenter(int l, int[] offsets, int[] targets) {
+			int[] layer = adjacency.order[l];
+			int[] position = adjacency.position;
+			final double[] barycenter = new double[layer.length];
+			Integer[] sorted = new Integer[layer.length];
+			for (int p = 0; p < layer.length; p++) {
+				int v = layer[p];
+				int degree = offsets[v + 1] - offsets[v];
+				if (degree == 0) {
+					barycenter[p] = p;
+				} else {
+					double sum = 0;
+					for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+						sum += position[targets[k]];
+					}
+					barycenter[p] = sum / degree;
+				}
+				sorted[p] = p;
+			}
+			Arrays.sort(sorted, new Comparator<Integer>() {
+				public int compare(Integer p1, Integer p2) {
+					return Double.compare(barycenter[p1], barycenter[p2]);
+				}
+			});
+			int[] reordered = new int[layer.length];
+			for (int p = 0; p < layer.length; p++) {
+				reordered[p] = layer[sorted[p]];
+				position[reordered[p]] = p;
+			}
+			adjacency.order[l] = reordered;
+		}
+
+		private static int[][] copyOrder(int[][] order) {
+			int[][] copy = new int[order.length][];
+			for (int l = 0; l < order.length; l++) {
+				copy[l] = order[l].clone();
+			}
+			return copy;
+		}
+
+		public void crossReduction(List<List<NodeWrapper>> nodes) {
+			adjacency = new LayerAdjacency(nodes);
+			int[][] order = adjacency.order;
+
+			long bestCrossings = countCrossings();
+			int[][] bestOrder = copyOrder(order);
+			int sweepsWithoutImprovement = 0;
+			for (int sweep = 0; sweep < MAX_SWEEPS && bestCrossings > 0
+					&& sweepsWithoutImprovement < MAX_SWEEPS_WITHOUT_IMPROVEMENT;
+					sweep++) {
+				if ((sweep & 1) == 0) {
+					// top-down: order by predecessors
+					for (int l = 1; l < order.length; l++)
+						sortByBarycenter(l, adjacency.predOffsets,
+								adjacency.predTargets);
+				} else {
+					// bottom-up: order by successors
+					for (int l = order.length - 2; l >= 0; l--)
+						sortByBarycenter(l, adjacency.succOffsets,
+								adjacency.succTargets);
+				}
+				long crossings = countCrossings();
+				if (crossings < bestCrossings) {
+					bestCrossings = crossings;
+					bestOrder = copyOrder(order);
+					sweepsWithoutImprovement = 0;
+				} else {
+					sweepsWithoutImprovement++;
+				}
+			}
+
+			// apply best ordering
+			for (int l = 0; l < bestOrder.length; l++) {
+				List<NodeWrapper> layer = nodes.get(l);
+				for (int p = 0; p < bestOrder[l].length; p++) {
+					NodeWrapper nw = adjacency.wrappers[bestOrder[l][p]];
+					nw.index = p;
+					layer.set(p, nw);
+				}
+			}
+			adjacency = null;
+		}
+	}
+
+	/**
+	 * Integer indexed representation of the layers and of the edges between
+	 * consecutive layers, which is computed once (from the predecessors and
+	 * successors of the {@link NodeWrapper}s as well as from the edges of the
+	 * graph), so that the graph does not need to be queried while processing
+	 * the layers. Edges within a layer or spanning multiple layers (without
+	 * dummies) are not represented.
+	 */
+	private static class LayerAdjacency {
+
+		final NodeWrapper[] wrappers;
+		// order[l][p] is the node at position p of layer l
+		final int[][] order;
+		final int[] position;
+		final int[] layer;
+
+		// predecessors (in the previous layer) of node i are stored at
+		// [predOffsets[i], predOffsets[i + 1]) within predTargets, successors
+		// (in the next layer) analogously within succTargets
+		final int[] predOffsets;
+		final int[] predTargets;
+		final int[] succOffsets;
+		final int[] succTargets;
+
+		LayerAdjacency(List<List<NodeWrapper>> layers) {
+			int n = 0;
+			for (List<NodeWrapper> l : layers) {
+				n += l.size();
+			}
+			wrappers = new NodeWrapper[n];
+			order = new int[layers.size()][];
+			position = new int[n];
+			layer = new int[n];
+			Map<NodeWrapper, Integer> ids = new IdentityHashMap<>();
+			Map<Node, Integer> nodeIds = new IdentityHashMap<>();
+			Node anyNode = null;
+			int id = 0;
+			for (int l = 0; l < layers.size(); l++) {
+				List<NodeWrapper> nodes = layers.get(l);
+				order[l] = new int[nodes.size()];
+				for (int p = 0; p < nodes.size(); p++) {
+					NodeWrapper nw = nodes.get(p);
+					wrappers[id] = nw;
+					order[l][p] = id;
+					position[id] = p;
+					layer[id] = l;
+					ids.put(nw, id);
+					if (nw.node != null) {
+						nodeIds.put(nw.node, id);
+						anyNode = nw.node;
+					}
+					id++;
+				}
+			}
+
+			// collect the (distinct) edges between consecutive layers as pairs
+			// of upper and lower node
+			Set<Long> edges = new HashSet<>();
+			List<int[]> pairs = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				for (NodeWrapper succ : wrappers[i].succ) {
+					Integer j = ids.get(succ);
+					if (j != null) {
+						addEdge(i, j, edges, pairs);
+					}
+				}
+				for (NodeWrapper pred : wrappers[i].pred) {
+					Integer j = ids.get(pred);
+					if (j != null) {
+						addEdge(j, i, edges, pairs);
+					}
+				}
+			}
+			if (anyNode != null && anyNode.getGraph() != null) {
+				for (Edge e : anyNode.getGraph().getEdges()) {
+					Integer i = nodeIds.get(e.getSource());
+					Integer j = nodeIds.get(e.getTarget());
+					if (i != null && j != null) {
+						addEdge(i, j, edges, pairs);
+					}
+				}
+			}
+
+			// store adjacency in compressed arrays
+			predOffsets = new int[n + 1];
+			succOffsets = new int[n + 1];
+			for (int[] pair : pairs) {
+				succOffsets[pair[0] + 1]++;
+				predOffsets[pair[1] + 1]++;
+			}
+			for (int i = 0; i < n; i++) {
+				succOffsets[i + 1] += succOffsets[i];
+				predOffsets[i + 1] += predOffsets[i];
+			}
+			succTargets = new int[pairs.size()];
+			predTargets = new int[pairs.size()];
+			int[] succFill = Arrays.copyOf(succOffsets, n);
+			int[] predFill = Arrays.copyOf(predOffsets, n);
+			for (int[] pair : pairs) {
+				succTargets[succFill[pair[0]]++] = pair[1];
+				predTargets[predFill[pair[1]]++] = pair[0];
+			}
+		}
+
+		/**
+		 * Records the edge between the given nodes (in any direction), if they
+		 * are on consecutive layers and the edge was not recorded before.
+		 */
+		private void addEdge(int i, int j, Set<Long> edges, List<int[]> pairs) {
+			int upper;
+			int lower;
+			if (layer[j] == layer[i] + 1) {
+				upper = i;
+				lower = j;
+			} else if (layer[i] == layer[j] + 1) {
+				upper = j;
+				lower = i;
+			} else {
+				return;
+			}
+			if (edges.add(((long) upper << 32) | lower)) {
+				pairs.add(new int[] { upper, lower });
+			}
+		}
+
+		/**
+		 * Returns the number of nodes.
+		 *
+		 * @return The number of nodes.
+		 */
+		int size() {
+			return wrappers.length;
+		}
+	}
+
 	/**
 	 * Structure to store nodes and their positions in the layers. Furthermore
 	 * predecessors and successors can be assigned to the nodes.
@@ -1210,16 +1545,1301 @@ public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
 
 	}
 
+	/**
+	 * Implements the LayerProvider interface. The graph is first converted into
+	 * an integer indexed directed acyclic graph, reversing the back edges of a
+	 * depth-first search (linear cycle breaking) and merging parallel edges.
+	 * Then, the nodes are ranked either by the length of the longest path from
+	 * a source ({@link Ranking#LONGEST_PATH}), or, starting from there, by the
+	 * network simplex algorithm of Gansner et al. ("A Technique for Drawing
+	 * Directed Graphs", http://dx.doi.org/10.1109/32.221135), which minimizes
+	 * the total edge length ({@link Ranking#NETWORK_SIMPLEX}). Edges spanning
+	 * multiple layers are split by dummies.
+	 */
+	public static class RankingLayerProvider implements LayerProvider {
+
+		/**
+		 * Specifies how the nodes are assigned to layers by the
+		 * {@link RankingLayerProvider}.
+		 */
+		public enum Ranking {
+			/**
+			 * Each node is assigned to the layer that corresponds to the length
+			 * of the longest path from a source to that node.
+			 */
+			LONGEST_PATH,
+
+			/**
+			 * The total length of all edges is minimized using the network
+			 * simplex algorithm.
+			 */
+			NETWORK_SIMPLEX
+		}
+
+		/**
+		 * The maximum number of network simplex iterations (i.e. exchanges of
+		 * tree edges), after which the ranking is accepted as is.
+		 */
+		private static final int MAX_NETWORK_SIMPLEX_ITERATIONS = 10000;
+
+		/**
+		 * The number of candidates among which the leaving edge is chosen.
+		 */
+		private static final int LEAVING_EDGE_SEARCH_SIZE = 30;
+
+		private final Ranking ranking;
+
+		// (merged) edges, directed from tail to head
+		private int edgeCount;
+		private int[] tails;
+		private int[] heads;
+		private int[] weights;
+
+		// incident edges of node i are stored at
+		// [outOffsets[i], outOffsets[i + 1]) within outEdges (tail is i) and
+		// analogously within inEdges (head is i)
+		private int[] outOffsets;
+		private int[] outEdges;
+		private int[] inOffsets;
+		private int[] inEdges;
+
+		private int[] rank;
+
+		// spanning forest used by the network simplex
+		private boolean[] treeEdge;
+		// tree edges incident to node i are stored at
+		// treeAdjacency[i][0, treeDegree[i])
+		private int[][] treeAdjacency;
+		private int[] treeDegree;
+		private int[] parent;
+		private int[] parentEdge;
+		private int[] low;
+		private int[] lim;
+		private int[] cutValue;
+		private int[] postOrder;
+		private int[] componentRoot;
+
+		/**
+		 * Constructs a new {@link RankingLayerProvider} that uses
+		 * {@link Ranking#NETWORK_SIMPLEX}.
+		 */
+		public RankingLayerProvider() {
+			this(Ranking.NETWORK_SIMPLEX);
+		}
+
+		/**
+		 * Constructs a new {@link RankingLayerProvider} that uses the given
+		 * {@link Ranking}.
+		 *
+		 * @param ranking
+		 *            The {@link Ranking} to use.
+		 */
+		public RankingLayerProvider(Ranking ranking) {
+			this.ranking = ranking;
+		}
+
+		public List<List<NodeWrapper>> calculateLayers(List<Node> nodes) {
+			int n = nodes.size();
+			if (n == 0) {
+				return new ArrayList<>();
+			}
+			initEdges(nodes);
+			assignLongestPathRanks(n);
+			if (ranking == Ranking.NETWORK_SIMPLEX) {
+				initFeasibleTree(n);
+				runNetworkSimplex(n);
+				normalizeRanks(n);
+			}
+			List<List<NodeWrapper>> layers = createLayers(nodes);
+
+			tails = heads = weights = null;
+			outOffsets = outEdges = inOffsets = inEdges = null;
+			rank = null;
+			treeEdge = null;
+			treeAdjacency = null;
+			treeDegree = null;
+			parent = parentEdge = componentRoot = null;
+			low = lim = postOrder = cutValue = null;
+			return layers;
+		}
+
+		/**
+		 * Collects the edges between the given nodes (ignoring self loops),
+		 * reverses the back edges of a depth-first search, so that the result
+		 * is acyclic, and merges parallel edges.
+		 */
+		private void initEdges(List<Node> nodes) {
+			int n = nodes.size();
+			Map<Node, Integer> ids = new IdentityHashMap<>();
+			for (int i = 0; i < n; i++) {
+				ids.put(nodes.get(i), i);
+			}
+			int[] edgeTails = new int[16];
+			int[] edgeHeads = new int[16];
+			int m = 0;
+			for (Node node : nodes) {
+				if (node.getGraph() == null) {
+					continue;
+				}
+				for (Edge e : node.getGraph().getEdges()) {
+					Integer tail = ids.get(e.getSource());
+					Integer head = ids.get(e.getTarget());
+					if (tail != null && head != null
+							&& tail.intValue() != head.intValue()) {
+						if (m == edgeTails.length) {
+							edgeTails = Arrays.copyOf(edgeTails, 2 * m);
+							edgeHeads = Arrays.copyOf(edgeHeads, 2 * m);
+						}
+						edgeTails[m] = tail;
+						edgeHeads[m] = head;
+						m++;
+					}
+				}
+				// all nodes are expected to belong to the same graph
+				break;
+			}
+
+			// reverse back edges
+			boolean[] reversed = findBackEdges(n, edgeTails, edgeHeads, m);
+			long[] keys = new long[m];
+			for (int e = 0; e < m; e++) {
+				int tail = reversed[e] ? edgeHeads[e] : edgeTails[e];
+				int head = reversed[e] ? edgeTails[e] : edgeHeads[e];
+				keys[e] = ((long) tail << 32) | head;
+			}
+
+			// merge parallel edges
+			Arrays.sort(keys);
+			tails = new int[m];
+			heads = new int[m];
+			weights = new int[m];
+			edgeCount = 0;
+			for (int e = 0; e < m; e++) {
+				if (e > 0 && keys[e] == keys[e - 1]) {
+					weights[edgeCount - 1]++;
+				} else {
+					tails[edgeCount] = (int) (keys[e] >>> 32);
+					heads[edgeCount] = (int) keys[e];
+					weights[edgeCount] = 1;
+					edgeCount++;
+				}
+			}
+			outOffsets = new int[n + 1];
+			inOffsets = new int[n + 1];
+			outEdges = new int[edgeCount];
+			inEdges = new int[edgeCount];
+			fillIncidence(n, tails, heads, edgeCount, outOffsets, outEdges,
+					inOffsets, inEdges);
+		}
+
+		private static void fillIncidence(int n, int[] tails, int[] heads,
+				int m, int[] outOffsets, int[] outEdges, int[] inOffsets,
+				int[] inEdges) {
+			for (int e = 0; e < m; e++) {
+				outOffsets[tails[e] + 1]++;
+				if (inOffsets != null) {
+					inOffsets[heads[e] + 1]++;
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				outOffsets[i + 1] += outOffsets[i];
+				if (inOffsets != null) {
+					inOffsets[i + 1] += inOffsets[i];
+				}
+			}
+			int[] outFill = Arrays.copyOf(outOffsets, n);
+			int[] inFill = inOffsets == null ? null
+					: Arrays.copyOf(inOffsets, n);
+			for (int e = 0; e < m; e++) {
+				outEdges[outFill[tails[e]]++] = e;
+				if (inOffsets != null) {
+					inEdges[inFill[heads[e]]++] = e;
+				}
+			}
+		}
+
+		/**
+		 * Determines the back edges of an (iterative) depth-first search,
+		 * which is started from the sources first.
+		 */
+		private static boolean[] findBackEdges(int n, int[] tails,
+				int[] heads, int m) {
+			int[] offsets = new int[n + 1];
+			int[] edges = new int[m];
+			fillIncidence(n, tails, heads, m, offsets, edges, null, null);
+			boolean[] hasIncoming = new boolean[n];
+			for (int e = 0; e < m; e++) {
+				hasIncoming[heads[e]] = true;
+			}
+
+			boolean[] reversed = new boolean[m];
+			// 0: unvisited, 1: on stack, 2: finished
+			byte[] state = new byte[n];
+			int[] stack = new int[n];
+			int[] cursor = new int[n];
+			for (int pass = 0; pass < 2; pass++) {
+				for (int start = 0; start < n; start++) {
+					if (state[start] != 0
+							|| (pass == 0 && hasIncoming[start])) {
+						continue;
+					}
+					int top = 0;
+					stack[top++] = start;
+					state[start] = 1;
+					cursor[start] = offsets[start];
+					while (top > 0) {
+						int v = stack[top - 1];
+						if (cursor[v] == offsets[v + 1]) {
+							state[v] = 2;
+							top--;
+							continue;
+						}
+						int e = edges[cursor[v]++];
+						int w = heads[e];
+						if (state[w] == 1) {
+							reversed[e] = true;
+						} else if (state[w] == 0) {
+							state[w] = 1;
+							cursor[w] = offsets[w];
+							stack[top++] = w;
+						}
+					}
+				}
+			}
+			return reversed;
+		}
+
+		/**
+		 * Assigns each node the length of the longest path from a source to
+		 * it.
+		 */
+		private void assignLongestPathRanks(int n) {
+			rank = new int[n];
+			int[] inDegree = new int[n];
+			for (int e = 0; e < edgeCount; e++) {
+				inDegree[heads[e]]++;
+			}
+			int[] queue = new int[n];
+			int head = 0;
+			int tail = 0;
+			for (int v = 0; v < n; v++) {
+				if (inDegree[v] == 0) {
+					queue[tail++] = v;
+				}
+			}
+			while (head < tail) {
+				int v = queue[head++];
+				for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+					int e = outEdges[k];
+					int w = heads[e];
+					rank[w] = Math.max(rank[w], rank[v] + 1);
+					if (--inDegree[w] == 0) {
+						queue[tail++] = w;
+					}
+				}
+			}
+		}
+
+		private int slack(int e) {
+			return rank[heads[e]] - rank[tails[e]] - 1;
+		}
+
+		/**
+		 * Computes a spanning forest of tight edges (i.e. edges of minimal
+		 * length), shifting the ranks of partial trees where needed. Boundary
+		 * edges are kept within priority queues, which are keyed so that
+		 * shifting a partial tree does not change their order.
+		 */
+		private void initFeasibleTree(int n) {
+			treeEdge = new boolean[edgeCount];
+			parent = new int[n];
+			parentEdge = new int[n];
+			componentRoot = new int[n];
+			Arrays.fill(parent, -1);
+			Arrays.fill(parentEdge, -1);
+			Arrays.fill(componentRoot, -1);
+
+			// rank of a tree node v is base[v] + shift
+			final int[] base = new int[n];
+			final long[] outKeys = new long[edgeCount];
+			final long[] inKeys = new long[edgeCount];
+			PriorityQueue<Integer> outgoing = new PriorityQueue<>(16,
+					new Comparator<Integer>() {
+						public int compare(Integer e1, Integer e2) {
+							return Long.compare(outKeys[e1], outKeys[e2]);
+						}
+					});
+			PriorityQueue<Integer> incoming = new PriorityQueue<>(16,
+					new Comparator<Integer>() {
+						public int compare(Integer e1, Integer e2) {
+							return Long.compare(inKeys[e1], inKeys[e2]);
+						}
+					});
+			int[] queue = new int[n];
+			int[] members = new int[n];
+			for (int root = 0; root < n; root++) {
+				if (componentRoot[root] != -1) {
+					continue;
+				}
+				int shift = 0;
+				int memberCount = 0;
+				outgoing.clear();
+				incoming.clear();
+				int next = root;
+				int nextParentEdge = -1;
+				while (next != -1) {
+					// add the node and all nodes reachable via tight edges
+					int head = 0;
+					int tail = 0;
+					queue[tail++] = next;
+					componentRoot[next] = root;
+					parentEdge[next] = nextParentEdge;
+					if (nextParentEdge != -1) {
+						treeEdge[nextParentEdge] = true;
+						parent[next] = tails[nextParentEdge] == next
+								? heads[nextParentEdge]
+								: tails[nextParentEdge];
+					}
+					while (head < tail) {
+						int v = queue[head++];
+						members[memberCount++] = v;
+						// the ranks of tree nodes are only updated when the
+						// component is complete (so that shifting is O(1))
+						base[v] = rank[v] - shift;
+						for (int k = outOffsets[v]; k < outOffsets[v
+								+ 1]; k++) {
+							int e = outEdges[k];
+							int w = heads[e];
+							if (componentRoot[w] != -1) {
+								continue;
+							}
+							if (slack(e) == 0) {
+								componentRoot[w] = root;
+								parent[w] = v;
+								parentEdge[w] = e;
+								treeEdge[e] = true;
+								queue[tail++] = w;
+							} else {
+								outKeys[e] = (long) rank[w] - base[v] - 1;
+								outgoing.add(e);
+							}
+						}
+						for (int k = inOffsets[v]; k < inOffsets[v + 1]; k++) {
+							int e = inEdges[k];
+							int w = tails[e];
+							if (componentRoot[w] != -1) {
+								continue;
+							}
+							if (slack(e) == 0) {
+								componentRoot[w] = root;
+								parent[w] = v;
+								parentEdge[w] = e;
+								treeEdge[e] = true;
+								queue[tail++] = w;
+							} else {
+								inKeys[e] = (long) base[v] - rank[w] - 1;
+								incoming.add(e);
+							}
+						}
+					}
+
+					// find boundary edge of minimal slack
+					while (!outgoing.isEmpty()
+							&& componentRoot[heads[outgoing.peek()]] != -1) {
+						outgoing.poll();
+					}
+					while (!incoming.isEmpty()
+							&& componentRoot[tails[incoming.peek()]] != -1) {
+						incoming.poll();
+					}
+					next = -1;
+					if (outgoing.isEmpty() && incoming.isEmpty()) {
+						break;
+					}
+					long outSlack = outgoing.isEmpty() ? Long.MAX_VALUE
+							: outKeys[outgoing.peek()] - shift;
+					long inSlack = incoming.isEmpty() ? Long.MAX_VALUE
+							: inKeys[incoming.peek()] + shift;
+					int e;
+					if (outSlack <= inSlack) {
+						// move tree towards the head
+						e = outgoing.poll();
+						shift += outSlack;
+						next = heads[e];
+					} else {
+						// move tree towards the tail
+						e = incoming.poll();
+						shift -= inSlack;
+						next = tails[e];
+					}
+					nextParentEdge = e;
+				}
+				for (int i = 0; i < memberCount; i++) {
+					rank[members[i]] = base[members[i]] + shift;
+				}
+			}
+		}
+
+		/**
+		 * Computes the parents, the low and lim (post-order) numbers, the
+		 * tight ranks, and the cut values for the initial spanning forest.
+		 */
+		private void initTree(int n) {
+			low = new int[n];
+			lim = new int[n];
+			postOrder = new int[n];
+			cutValue = new int[edgeCount];
+			treeAdjacency = new int[n][];
+			treeDegree = new int[n];
+			for (int v = 0; v < n; v++) {
+				treeAdjacency[v] = new int[2];
+			}
+			for (int e = 0; e < edgeCount; e++) {
+				if (treeEdge[e]) {
+					addTreeEdge(tails[e], e);
+					addTreeEdge(heads[e], e);
+				}
+			}
+			int count = 0;
+			for (int root = 0; root < n; root++) {
+				if (componentRoot[root] == root) {
+					count = numberSubtree(root, -1, count + 1, true);
+				}
+			}
+
+			// compute cut values bottom-up
+			for (int i = 0; i < n; i++) {
+				int c = postOrder[i];
+				int p = parent[c];
+				if (p == -1) {
+					continue;
+				}
+				int e = parentEdge[c];
+				boolean childIsTail = tails[e] == c;
+				int cut = weights[e];
+				for (int k = outOffsets[c]; k < outOffsets[c + 1]; k++) {
+					cut += getCutValueContribution(outEdges[k], p, true,
+							childIsTail);
+				}
+				for (int k = inOffsets[c]; k < inOffsets[c + 1]; k++) {
+					cut += getCutValueContribution(inEdges[k], p, false,
+							childIsTail);
+				}
+				cutValue[e] = cut;
+			}
+		}
+
+		private void addTreeEdge(int v, int e) {
+			if (treeDegree[v] == treeAdjacency[v].length) {
+				treeAdjacency[v] = Arrays.copyOf(treeAdjacency[v],
+						2 * treeDegree[v]);
+			}
+			treeAdjacency[v][treeDegree[v]++] = e;
+		}
+
+		private void removeTreeEdge(int v, int e) {
+			int[] edges = treeAdjacency[v];
+			for (int k = 0; k < treeDegree[v]; k++) {
+				if (edges[k] == e) {
+					edges[k] = edges[--treeDegree[v]];
+					return;
+				}
+			}
+		}
+
+		private int getCutValueContribution(int f, int p, boolean out,
+				boolean childIsTail) {
+			int other = out ? heads[f] : tails[f];
+			if (other == p) {
+				return 0;
+			}
+			boolean pointsToHead = out == childIsTail;
+			int contribution = pointsToHead ? weights[f] : -weights[f];
+			if (treeEdge[f]) {
+				// other is a child
+				contribution += pointsToHead ? -cutValue[f] : cutValue[f];
+			}
+			return contribution;
+		}
+
+		/**
+		 * Performs an (iterative) depth-first search over the tree edges,
+		 * starting at the given node and excluding the given parent edge, and
+		 * assigns parents as well as low and lim (post-order) numbers,
+		 * starting at the given low number. Optionally, the ranks are updated
+		 * so that all tree edges are tight.
+		 *
+		 * @return The lim number of the given node.
+		 */
+		private int numberSubtree(int root, int rootParentEdge, int rootLow,
+				boolean tighten) {
+			int[] stack = new int[16];
+			int[] cursor = new int[16];
+			int count = rootLow - 1;
+			int top = 0;
+			stack[top] = root;
+			cursor[top] = 0;
+			top++;
+			parentEdge[root] = rootParentEdge;
+			if (rootParentEdge == -1) {
+				parent[root] = -1;
+			}
+			low[root] = rootLow;
+			while (top > 0) {
+				int v = stack[top - 1];
+				int k = cursor[top - 1];
+				int child = -1;
+				while (child == -1 && k < treeDegree[v]) {
+					int e = treeAdjacency[v][k];
+					k++;
+					if (e != parentEdge[v]) {
+						child = tails[e] == v ? heads[e] : tails[e];
+						parent[child] = v;
+						parentEdge[child] = e;
+						if (tighten) {
+							rank[child] = tails[e] == v ? rank[v] + 1
+									: rank[v] - 1;
+						}
+					}
+				}
+				cursor[top - 1] = k;
+				if (child != -1) {
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * top);
+						cursor = Arrays.copyOf(cursor, 2 * top);
+					}
+					low[child] = count + 1;
+					stack[top] = child;
+					cursor[top] = 0;
+					top++;
+				} else {
+					lim[v] = ++count;
+					postOrder[count - 1] = v;
+					top--;
+				}
+			}
+			return count;
+		}
+
+		private boolean isDescendant(int v, int root) {
+			return low[root] <= lim[v] && lim[v] <= lim[root];
+		}
+
+		/**
+		 * Returns a tree edge with negative cut value, or <code>-1</code> if
+		 * there is none. The edges are searched cyclically from the given edge
+		 * index, and the most negative of the first
+		 * {@link #LEAVING_EDGE_SEARCH_SIZE} candidates is returned.
+		 */
+		private int findLeavingEdge(int start) {
+			int leaving = -1;
+			int candidates = 0;
+			for (int k = 0; k < edgeCount
+					&& candidates < LEAVING_EDGE_SEARCH_SIZE; k++) {
+				int e = (start + k) % edgeCount;
+				if (treeEdge[e] && cutValue[e] < 0) {
+					if (leaving == -1 || cutValue[e] < cutValue[leaving]) {
+						leaving = e;
+					}
+					candidates++;
+				}
+			}
+			return leaving;
+		}
+
+		/**
+		 * Returns a non-tree edge of minimal slack that reconnects the two
+		 * components that result from removing the given tree edge, or
+		 * <code>-1</code> if there is none.
+		 */
+		private int findEnteringEdge(int leaving) {
+			// the component below the leaving edge
+			int subtree = tails[leaving];
+			boolean flip = false;
+			if (lim[tails[leaving]] > lim[heads[leaving]]) {
+				subtree = heads[leaving];
+				flip = true;
+			}
+			int entering = -1;
+			int minSlack = Integer.MAX_VALUE;
+			for (int i = low[subtree] - 1; i < lim[subtree]
+					&& minSlack > 0; i++) {
+				int v = postOrder[i];
+				// consider edges entering (leaving) the subtree
+				int[] offsets = flip ? outOffsets : inOffsets;
+				int[] edges = flip ? outEdges : inEdges;
+				for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+					int f = edges[k];
+					int other = flip ? heads[f] : tails[f];
+					if (!isDescendant(other, subtree)) {
+						int slack = slack(f);
+						if (slack < minSlack) {
+							minSlack = slack;
+							entering = f;
+						}
+					}
+				}
+			}
+			return entering;
+		}
+
+		/**
+		 * Updates the cut values of the tree edges on the path from the given
+		 * node up to the first ancestor of both given nodes.
+		 *
+		 * @return The lowest common ancestor.
+		 */
+		private int updateCutValues(int v, int w, int cut, boolean dir) {
+			while (!isDescendant(w, v)) {
+				int e = parentEdge[v];
+				boolean d = v == tails[e] ? dir : !dir;
+				cutValue[e] += d ? cut : -cut;
+				v = parent[v];
+			}
+			return v;
+		}
+
+		/**
+		 * Replaces the given leaving tree edge by the given entering edge,
+		 * updating ranks, cut values, and numbering incrementally.
+		 */
+		private void exchange(int leaving, int entering) {
+			// move the component below the leaving edge, so that the entering
+			// edge becomes tight
+			int delta = slack(entering);
+			if (delta != 0) {
+				int subtree = tails[leaving];
+				if (lim[tails[leaving]] > lim[heads[leaving]]) {
+					subtree = heads[leaving];
+					delta = -delta;
+				}
+				for (int i = low[subtree] - 1; i < lim[subtree]; i++) {
+					rank[postOrder[i]] -= delta;
+				}
+			}
+
+			int cut = cutValue[leaving];
+			int lca = updateCutValues(tails[entering], heads[entering], cut,
+					true);
+			updateCutValues(heads[entering], tails[entering], cut, false);
+			cutValue[entering] = -cut;
+			cutValue[leaving] = 0;
+			treeEdge[leaving] = false;
+			treeEdge[entering] = true;
+			removeTreeEdge(tails[leaving], leaving);
+			removeTreeEdge(heads[leaving], leaving);
+			addTreeEdge(tails[entering], entering);
+			addTreeEdge(heads[entering], entering);
+			numberSubtree(lca, parentEdge[lca], low[lca], false);
+		}
+
+		/**
+		 * Exchanges tree edges with negative cut values against non-tree edges
+		 * until the ranking is optimal (or the maximum number of iterations is
+		 * reached).
+		 */
+		private void runNetworkSimplex(int n) {
+			initTree(n);
+			int start = 0;
+			for (int i = 0; i < MAX_NETWORK_SIMPLEX_ITERATIONS; i++) {
+				int leaving = findLeavingEdge(start);
+				if (leaving == -1) {
+					break;
+				}
+				int entering = findEnteringEdge(leaving);
+				if (entering == -1) {
+					break;
+				}
+				exchange(leaving, entering);
+				start = leaving + 1;
+			}
+		}
+
+		/**
+		 * Shifts the ranks of each connected component so that its minimum
+		 * rank is zero.
+		 */
+		private void normalizeRanks(int n) {
+			int[] minRank = new int[n];
+			Arrays.fill(minRank, Integer.MAX_VALUE);
+			for (int v = 0; v < n; v++) {
+				int root = componentRoot[v];
+				minRank[root] = Math.min(minRank[root], rank[v]);
+			}
+			for (int v = 0; v < n; v++) {
+				rank[v] -= minRank[componentRoot[v]];
+			}
+		}
+
+		/**
+		 * Wraps the nodes according to their ranks, inserting dummies for
+		 * edges that span multiple layers, and links all wrappers with their
+		 * predecessors and successors.
+		 */
+		private List<List<NodeWrapper>> createLayers(List<Node> nodes) {
+			int n = nodes.size();
+			int maxRank = 0;
+			for (int v = 0; v < n; v++) {
+				maxRank = Math.max(maxRank, rank[v]);
+			}
+			List<List<NodeWrapper>> layers = new ArrayList<>(maxRank + 1);
+			for (int l = 0; l <= maxRank; l++) {
+				layers.add(new ArrayList<NodeWrapper>());
+			}
+			NodeWrapper[] wrappers = new NodeWrapper[n];
+			for (int v = 0; v < n; v++) {
+				wrappers[v] = new NodeWrapper(nodes.get(v), rank[v]);
+				layers.get(rank[v]).add(wrappers[v]);
+			}
+			for (int e = 0; e < edgeCount; e++) {
+				NodeWrapper predecessor = wrappers[tails[e]];
+				NodeWrapper successor = wrappers[heads[e]];
+				for (int level = predecessor.layer
+						+ 1; level < successor.layer; level++) {
+					NodeWrapper dummy = new NodeWrapper(level);
+					dummy.addPredecessor(predecessor);
+					predecessor.addSuccessor(dummy);
+					layers.get(level).add(dummy);
+					predecessor = dummy;
+				}
+				successor.addPredecessor(predecessor);
+				predecessor.addSuccessor(successor);
+			}
+			for (List<NodeWrapper> layer : layers) {
+				for (int index = 0; index < layer.size(); index++)
+					layer.get(index).index = index;
+			}
+			return layers;
+		}
+	}
+
+	/**
+	 * An interface for assigning coordinates to the nodes once the layers and
+	 * the order of the nodes within the layers have been determined.
+	 */
+	public static interface CoordinateAssigner {
+
+		/**
+		 * Computes the locations of the nodes of the given layers and stores
+		 * them via {@link LayoutProperties#setLocation(Node, Point)}. Only the
+		 * wrapped {@link Node}s are to be changed (i.e. dummies are not
+		 * located).
+		 *
+		 * @param layers
+		 *            The layers of {@link NodeWrapper}s (ordered within each
+		 *            layer).
+		 * @param direction
+		 *            The {@link Direction} in which the layers are arranged.
+		 * @param bounds
+		 *            The area in which to place the nodes.
+		 */
+		void assignCoordinates(List<List<NodeWrapper>> layers,
+				Direction direction, Rectangle bounds);
+	}
+
+	/**
+	 * Implements the CoordinateAssigner interface. This algorithm divides the
+	 * given bounds into a uniform grid with one row (column) per layer and one
+	 * column (row) per position within the widest layer, and centers each node
+	 * within its cell.
+	 */
+	public static class GridCoordinateAssigner implements CoordinateAssigner {
+
+		public void assignCoordinates(List<List<NodeWrapper>> layers,
+				Direction direction, Rectangle bounds) {
+			int last = 0;
+			for (List<NodeWrapper> layer : layers) {
+				if (layer.size() > last)
+					last = layer.size();
+			}
+			double dx = bounds.getWidth() / layers.size();
+			double dy = bounds.getHeight() / (last + 1);
+			for (List<NodeWrapper> layer : layers) {
+				for (NodeWrapper nw : layer) {
+					if (nw.node == null)
+						continue;
+					if (direction == Direction.HORIZONTAL)
+						LayoutProperties.setLocation(nw.node, new Point(
+								(nw.layer + 0.5d) * dx, (nw.index + 0.5d) * dy));
+					else
+						LayoutProperties.setLocation(nw.node, new Point(
+								(nw.index + 0.5d) * dx, (nw.layer + 0.5d) * dy));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Implements the CoordinateAssigner interface using the linear time
+	 * algorithm of Brandes and Koepf ("Fast and Simple Horizontal Coordinate
+	 * Assignment", http://dx.doi.org/10.1007/3-540-45848-4_3, including the
+	 * corrections of http://arxiv.org/abs/2008.01252). Nodes are aligned with
+	 * their median neighbors into blocks, which are compacted in four
+	 * directions, and the results are balanced. The real sizes of the nodes
+	 * (see {@link LayoutProperties#getSize(Node)}) are respected, which leads
+	 * to compact drawings, while nodes without a size are treated like
+	 * dummies, i.e. like points. The nodes are placed starting at the top-left
+	 * corner of the given bounds.
+	 * <p>
+	 * Edges spanning multiple layers should be represented by dummies (as done
+	 * by the {@link SimpleLayerProvider}), so that they can be straightened.
+	 */
+	public static class BrandesKoepfCoordinateAssigner
+			implements CoordinateAssigner {
+
+		/**
+		 * The default spacing between neighboring nodes of the same layer.
+		 */
+		public static final double DEFAULT_NODE_SPACING = 20;
+
+		/**
+		 * The default spacing between consecutive layers.
+		 */
+		public static final double DEFAULT_LAYER_SPACING = 40;
+
+		private final double nodeSpacing;
+		private final double layerSpacing;
+
+		private LayerAdjacency adjacency;
+		// extent of the nodes within (across) the layer
+		private double[] extent;
+		private double[] thickness;
+		// type 1 conflicts, i.e. non-inner segments crossing inner segments
+		private Set<Long> conflicts;
+
+		// state of the current direction
+		private int[][] order;
+		private int[] position;
+		private int[] layerIndex;
+		private int[] upperOffsets;
+		private int[] upperNeighbors;
+		private int[] root;
+		private int[] align;
+		private int[] sink;
+		private double[] shift;
+		private double[] x;
+
+		/**
+		 * Constructs a new {@link BrandesKoepfCoordinateAssigner} using
+		 * {@link #DEFAULT_NODE_SPACING} and {@link #DEFAULT_LAYER_SPACING}.
+		 */
+		public BrandesKoepfCoordinateAssigner() {
+			this(DEFAULT_NODE_SPACING, DEFAULT_LAYER_SPACING);
+		}
+
+		/**
+		 * Constructs a new {@link BrandesKoepfCoordinateAssigner} using the
+		 * given spacings.
+		 *
+		 * @param nodeSpacing
+		 *            The spacing between neighboring nodes of the same layer.
+		 * @param layerSpacing
+		 *            The spacing between consecutive layers.
+		 */
+		public BrandesKoepfCoordinateAssigner(double nodeSpacing,
+				double layerSpacing) {
+			this.nodeSpacing = nodeSpacing;
+			this.layerSpacing = layerSpacing;
+		}
+
+		public void assignCoordinates(List<List<NodeWrapper>> layers,
+				Direction direction, Rectangle bounds) {
+			adjacency = new LayerAdjacency(layers);
+			int n = adjacency.size();
+			if (n == 0) {
+				adjacency = null;
+				return;
+			}
+			extent = new double[n];
+			thickness = new double[layers.size()];
+			for (int i = 0; i < n; i++) {
+				Node node = adjacency.wrappers[i].node;
+				Dimension size = node == null ? null
+						: LayoutProperties.getSize(node);
+				if (size != null) {
+					boolean vertical = direction != Direction.HORIZONTAL;
+					extent[i] = vertical ? size.width : size.height;
+					int l = adjacency.layer[i];
+					thickness[l] = Math.max(thickness[l],
+							vertical ? size.height : size.width);
+				}
+			}
+			markConflicts();
+
+			// compute the four extremal alignments (upper/lower, left/right)
+			double[][] xs = new double[4][];
+			double[] minX = new double[4];
+			double[] maxX = new double[4];
+			int smallest = 0;
+			for (int d = 0; d < 4; d++) {
+				boolean down = d < 2;
+				boolean right = (d & 1) == 1;
+				prepareDirection(down, right);
+				alignVertically();
+				compactHorizontally();
+				if (right) {
+					for (int i = 0; i < n; i++) {
+						x[i] = -x[i];
+					}
+				}
+				xs[d] = x;
+				minX[d] = Double.POSITIVE_INFINITY;
+				maxX[d] = Double.NEGATIVE_INFINITY;
+				for (int i = 0; i < n; i++) {
+					minX[d] = Math.min(minX[d], x[i] - extent[i] / 2);
+					maxX[d] = Math.max(maxX[d], x[i] + extent[i] / 2);
+				}
+				if (maxX[d] - minX[d] < maxX[smallest] - minX[smallest]) {
+					smallest = d;
+				}
+			}
+
+			// align to the smallest layout and balance (average median)
+			double[] balanced = new double[n];
+			double[] candidates = new double[4];
+			for (int i = 0; i < n; i++) {
+				for (int d = 0; d < 4; d++) {
+					double offset = (d & 1) == 0 ? minX[smallest] - minX[d]
+							: maxX[smallest] - maxX[d];
+					candidates[d] = xs[d][i] + offset;
+				}
+				Arrays.sort(candidates);
+				balanced[i] = (candidates[1] + candidates[2]) / 2;
+			}
+			// balancing may (rarely) violate the separation, so enforce it
+			for (int[] layer : adjacency.order) {
+				for (int p = 1; p < layer.length; p++) {
+					balanced[layer[p]] = Math.max(balanced[layer[p]],
+							balanced[layer[p - 1]]
+									+ getSeparation(layer[p - 1], layer[p]));
+				}
+			}
+			double left = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < n; i++) {
+				left = Math.min(left, balanced[i] - extent[i] / 2);
+			}
+
+			// compute layer coordinates and store locations
+			double[] layerCenter = new double[layers.size()];
+			double offset = 0;
+			for (int l = 0; l < layers.size(); l++) {
+				layerCenter[l] = offset + thickness[l] / 2;
+				offset += thickness[l] + layerSpacing;
+			}
+			for (int i = 0; i < n; i++) {
+				Node node = adjacency.wrappers[i].node;
+				if (node == null) {
+					continue;
+				}
+				double inLayer = balanced[i] - left;
+				double acrossLayer = layerCenter[adjacency.layer[i]];
+				if (direction == Direction.HORIZONTAL) {
+					LayoutProperties.setLocation(node,
+							new Point(bounds.getX() + acrossLayer,
+									bounds.getY() + inLayer));
+				} else {
+					LayoutProperties.setLocation(node,
+							new Point(bounds.getX() + inLayer,
+									bounds.getY() + acrossLayer));
+				}
+			}
+
+			adjacency = null;
+			extent = null;
+			conflicts = null;
+			order = null;
+			position = null;
+			layerIndex = null;
+			upperOffsets = null;
+			upperNeighbors = null;
+			root = null;
+			align = null;
+			sink = null;
+			shift = null;
+			x = null;
+		}
+
+		/**
+		 * Marks type 1 conflicts, i.e. non-inner segments that cross inner
+		 * segments (segments between two dummies), so that inner segments are
+		 * preferred when aligning.
+		 */
+		private void markConflicts() {
+			conflicts = new HashSet<>();
+			int[][] order = adjacency.order;
+			for (int l = 0; l < order.length - 1; l++) {
+				int[] upper = order[l];
+				int[] lower = order[l + 1];
+				int k0 = 0;
+				int scan = 0;
+				for (int l1 = 0; l1 < lower.length; l1++) {
+					int innerUpper = getInnerSegmentUpper(lower[l1]);
+					if (l1 == lower.length - 1 || innerUpper != -1) {
+						int k1 = innerUpper != -1
+								? adjacency.position[innerUpper]
+								: upper.length - 1;
+						for (; scan <= l1; scan++) {
+							int v = lower[scan];
+							int[] predOffsets = adjacency.predOffsets;
+							for (int k = predOffsets[v]; k < predOffsets[v
+									+ 1]; k++) {
+								int u = adjacency.predTargets[k];
+								int pos = adjacency.position[u];
+								if (pos < k0 || pos > k1) {
+									conflicts.add(((long) u << 32) | v);
+								}
+							}
+						}
+						k0 = k1;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the upper end of the inner segment (between two dummies)
+		 * incident to the given node, or <code>-1</code> if there is none.
+		 */
+		private int getInnerSegmentUpper(int v) {
+			if (!adjacency.wrappers[v].isDummy()) {
+				return -1;
+			}
+			for (int k = adjacency.predOffsets[v]; k < adjacency.predOffsets[v
+					+ 1]; k++) {
+				int u = adjacency.predTargets[k];
+				if (adjacency.wrappers[u].isDummy()) {
+					return u;
+				}
+			}
+			return -1;
+		}
+
+		private boolean isConflict(int u, int v) {
+			return conflicts.contains(((long) u << 32) | v)
+					|| conflicts.contains(((long) v << 32) | u);
+		}
+
+		/**
+		 * Prepares the layers, positions, and "upper" neighbors for the given
+		 * direction, so that the alignment and compaction can always proceed
+		 * top-down and left-to-right.
+		 */
+		private void prepareDirection(boolean down, boolean right) {
+			int[][] layers = adjacency.order;
+			int h = layers.length;
+			int n = adjacency.size();
+			order = new int[h][];
+			position = new int[n];
+			layerIndex = new int[n];
+			for (int l = 0; l < h; l++) {
+				int[] layer = layers[down ? l : h - 1 - l];
+				int[] ordered = new int[layer.length];
+				for (int p = 0; p < layer.length; p++) {
+					ordered[p] = layer[right ? layer.length - 1 - p : p];
+					position[ordered[p]] = p;
+					layerIndex[ordered[p]] = l;
+				}
+				order[l] = ordered;
+			}
+			int[] offsets = down ? adjacency.predOffsets
+					: adjacency.succOffsets;
+			int[] targets = down ? adjacency.predTargets
+					: adjacency.succTargets;
+			upperOffsets = offsets;
+			upperNeighbors = targets.clone();
+			// sort neighbors by position
+			for (int v = 0; v < n; v++) {
+				sortByPosition(upperNeighbors, offsets[v], offsets[v + 1]);
+			}
+		}
+
+		private void sortByPosition(int[] nodes, int from, int to) {
+			// insertion sort, as the number of neighbors is usually small
+			for (int i = from + 1; i < to; i++) {
+				int node = nodes[i];
+				int j = i - 1;
+				while (j >= from && position[nodes[j]] > position[node]) {
+					nodes[j + 1] = nodes[j];
+					j--;
+				}
+				nodes[j + 1] = node;
+			}
+		}
+
+		/**
+		 * Aligns each node with one of its median upper neighbors, forming
+		 * blocks of vertically aligned nodes.
+		 */
+		private void alignVertically() {
+			int n = adjacency.size();
+			root = new int[n];
+			align = new int[n];
+			for (int v = 0; v < n; v++) {
+				root[v] = v;
+				align[v] = v;
+			}
+			for (int l = 1; l < order.length; l++) {
+				int r = -1;
+				for (int v : order[l]) {
+					int from = upperOffsets[v];
+					int d = upperOffsets[v + 1] - from;
+					if (d == 0) {
+						continue;
+					}
+					for (int m = (d - 1) / 2; m <= d / 2; m++) {
+						if (align[v] == v) {
+							int u = upperNeighbors[from + m];
+							if (!isConflict(u, v) && r < position[u]) {
+								align[u] = v;
+								root[v] = root[u];
+								align[v] = root[v];
+								r = position[u];
+							}
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the minimum distance between the centers of the given node
+		 * and its left neighbor.
+		 */
+		private double getSeparation(int left, int v) {
+			return (extent[left] + extent[v]) / 2 + nodeSpacing;
+		}
+
+		/**
+		 * Places the blocks as far left as possible, first within classes
+		 * (blocks sharing the same sink), and then shifts the classes.
+		 */
+		private void compactHorizontally() {
+			int n = adjacency.size();
+			sink = new int[n];
+			shift = new double[n];
+			x = new double[n];
+			for (int v = 0; v < n; v++) {
+				sink[v] = v;
+				shift[v] = Double.POSITIVE_INFINITY;
+			}
+
+			// place blocks, after all blocks left of them (iteratively, in
+			// post-order of a depth-first search)
+			int[] stack = new int[n];
+			int[] cursor = new int[n];
+			boolean[] visited = new boolean[n];
+			for (int[] layer : order) {
+				for (int start : layer) {
+					if (root[start] != start || visited[start]) {
+						continue;
+					}
+					int top = 0;
+					stack[top++] = start;
+					visited[start] = true;
+					cursor[start] = start;
+					while (top > 0) {
+						int v = stack[top - 1];
+						int w = cursor[v];
+						boolean descended = false;
+						while (true) {
+							if (position[w] > 0) {
+								int u = root[order[layerIndex[w]][position[w]
+										- 1]];
+								if (!visited[u]) {
+									cursor[v] = w;
+									visited[u] = true;
+									cursor[u] = u;
+									stack[top++] = u;
+									descended = true;
+									break;
+								}
+							}
+							w = align[w];
+							if (w == v) {
+								break;
+							}
+						}
+						if (!descended) {
+							placeBlock(v);
+							top--;
+						}
+					}
+				}
+			}
+
+			// compute class shifts
+			for (int l = 0; l < order.length; l++) {
+				if (order[l].length == 0) {
+					continue;
+				}
+				int v = order[l][0];
+				if (sink[v] != v) {
+					continue;
+				}
+				if (shift[v] == Double.POSITIVE_INFINITY) {
+					shift[v] = 0;
+				}
+				int j = l;
+				int k = 0;
+				do {
+					v = order[j][k];
+					while (align[v] != root[v]) {
+						v = align[v];
+						j++;
+						if (position[v] > 0) {
+							int u = order[j][position[v] - 1];
+							shift[sink[u]] = Math.min(shift[sink[u]],
+									shift[sink[v]] + x[v]
+											- (x[u] + getSeparation(u, v)));
+						}
+					}
+					k = position[v] + 1;
+				} while (k < order[j].length && sink[order[j][k]] == sink[v]);
+			}
+
+			for (int v = 0; v < n; v++) {
+				double s = shift[sink[v]];
+				if (s != Double.POSITIVE_INFINITY) {
+					x[v] += s;
+				}
+			}
+		}
+
+		/**
+		 * Places the block of the given root relative to the (already placed)
+		 * blocks to its left.
+		 */
+		private void placeBlock(int v) {
+			x[v] = 0;
+			int w = v;
+			do {
+				if (position[w] > 0) {
+					int left = order[layerIndex[w]][position[w] - 1];
+					int u = root[left];
+					if (sink[v] == v) {
+						sink[v] = sink[u];
+					}
+					if (sink[v] == sink[u]) {
+						x[v] = Math.max(x[v], x[u] + getSeparation(left, w));
+					}
+				}
+				w = align[w];
+			} while (w != v);
+			// propagate location and sink to the whole block
+			for (w = align[v]; w != v; w = align[w]) {
+				x[w] = x[v];
+				sink[w] = sink[v];
+			}
+		}
+	}
+
 	private List<List<NodeWrapper>> layers = new ArrayList<>();
-	private Map<Node, NodeWrapper> map = new IdentityHashMap<>();
 	private final Direction direction;
 	private final Dimension dimension;
 
-	// index of the last element in a layer after padding process
-	private int last;
-
 	private LayerProvider layerProvider;
 	private CrossingReducer crossingReducer;
+	private CoordinateAssigner coordinateAssigner;
 
 	/**
 	 * Constructs a tree-like, layered layout of a directed graph.
@@ -1237,9 +2857,13 @@ public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
 	 * 
 	 * @param crossing
 	 *            - implementation of CrossingReducer interface
+	 * 
+	 * @param coordinates
+	 *            - implementation of CoordinateAssigner interface
 	 */
 	public SugiyamaLayoutAlgorithm(Direction dir, Dimension dim,
-			LayerProvider layering, CrossingReducer crossing) {
+			LayerProvider layering, CrossingReducer crossing,
+			CoordinateAssigner coordinates) {
 		direction = dir;
 		dimension = dim;
 
@@ -1247,6 +2871,31 @@ public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
 				: layering;
 		crossingReducer = (crossing == null) ? new BarycentricCrossingReducer()
 				: crossing;
+		coordinateAssigner = (coordinates == null)
+				? new GridCoordinateAssigner() : coordinates;
+	}
+
+	/**
+	 * Constructs a tree-like, layered layout of a directed graph, using a
+	 * {@link GridCoordinateAssigner}.
+	 * 
+	 * @param dir
+	 *            {@link Direction#HORIZONTAL}: left to right -
+	 *            {@link Direction#VERTICAL} : top to bottom
+	 * 
+	 * @param dim
+	 *            - desired size of the layout area. Uses the BOUNDS_PROPERTY of
+	 *            the LayoutContext if not set
+	 * 
+	 * @param layering
+	 *            - implementation of LayerProvider interface
+	 * 
+	 * @param crossing
+	 *            - implementation of CrossingReducer interface
+	 */
+	public SugiyamaLayoutAlgorithm(Direction dir, Dimension dim,
+			LayerProvider layering, CrossingReducer crossing) {
+		this(dir, dim, layering, crossing, null);
 	}
 
 	/**
@@ -1330,11 +2979,25 @@ public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
 		this(Direction.VERTICAL, null, null, null);
 	}
 
+	public Object[] getLayoutParameters() {
+		// the strategies contribute their classes, and the parameters of the
+		// provided strategies are added explicitly
+		Object ranking = layerProvider instanceof RankingLayerProvider
+				? ((RankingLayerProvider) layerProvider).ranking : null;
+		Object spacing = null;
+		if (coordinateAssigner instanceof BrandesKoepfCoordinateAssigner) {
+			BrandesKoepfCoordinateAssigner assigner = (BrandesKoepfCoordinateAssigner) coordinateAssigner;
+			spacing = new Dimension(assigner.nodeSpacing,
+					assigner.layerSpacing);
+		}
+		return new Object[] { direction, dimension, layerProvider, ranking,
+				crossingReducer, coordinateAssigner, spacing };
+	}
+
 	public void applyLayout(LayoutContext layoutContext, boolean clean) {
 		if (!clean)
 			return;
 		layers.clear();
-		map.clear();
 
 		ArrayList<Node> nodes = new ArrayList<>();
 		ArrayList<Node> nodes2 = new ArrayList<>();
@@ -1344,14 +3007,6 @@ public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
 		}
 		layers = layerProvider.calculateLayers(nodes);
 		crossingReducer.crossReduction(layers);
-
-		for (List<NodeWrapper> layer : layers) {
-			if (layer.size() > last)
-				last = layer.size();
-			for (NodeWrapper nw : layer) {
-				map.put(nw.node, nw);
-			}
-		}
 		calculatePositions(layoutContext);
 	}
 
@@ -1360,20 +3015,7 @@ public class SugiyamaLayoutAlgorithm implements ILayoutAlgorithm {
 		if (dimension != null)
 			boundary = new Rectangle(0, 0, dimension.getWidth(),
 					dimension.getHeight());
-		double dx = boundary.getWidth() / layers.size();
-		double dy = boundary.getHeight() / (last + 1);
-		if (direction == Direction.HORIZONTAL)
-			for (Node node : context.getNodes()) {
-				NodeWrapper nw = map.get(node);
-				LayoutProperties.setLocation(node, new Point(
-						(nw.layer + 0.5d) * dx, (nw.index + 0.5d) * dy));
-			}
-		else
-			for (Node node : context.getNodes()) {
-				NodeWrapper nw = map.get(node);
-				LayoutProperties.setLocation(node, new Point(
-						(nw.index + 0.5d) * dx, (nw.layer + 0.5d) * dy));
-			}
+		coordinateAssigner.assignCoordinates(layers, direction, boundary);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.layout.algorithms;
+
+import java.util.Arrays;
+
+import org.eclipse.gef.layout.LayoutSnapshot;
+
+/**
+ * The {@link TidyTree} computes a spanning forest of the nodes of a
+ * {@link LayoutSnapshot} and lays it out as a tidy tree, using the linear time
+ * variant of Walker's algorithm as presented by Buchheim, Jünger, and Leipert
+ * ("Improving Walker's Algorithm to Run in Linear Time", 2002).
+ * <p>
+ * The spanning forest is determined by a single breadth-first search along the
+ * (directed) edges of the snapshot. The roots of the forest are the nodes that
+ * are reached by continuously following the first predecessor of a node,
+ * either ending at a node without predecessors, or at the first node of a
+ * cycle. All trees are laid out as children of an artificial super root, so
+ * that they are placed next to each other.
+ * <p>
+ * All computations are performed on <code>int</code> and <code>double</code>
+ * arrays, and without recursion, so that deep trees are supported as well.
+ */
+class TidyTree {
+
+	private final int n;
+	// the nodes in breadth-first order, roots first
+	private final int[] order;
+	private final int[] parent;
+	private final int[] depth;
+	// the children of node v are stored at order[childStart[v]] to
+	// order[childStart[v] + childCount[v] - 1], the super root has index n
+	private final int[] childStart;
+	private final int[] childCount;
+	// the index of a node among its siblings
+	private final int[] number;
+	private int height;
+
+	/**
+	 * Computes the spanning forest of the nodes of the given
+	 * {@link LayoutSnapshot}.
+	 *
+	 * @param snapshot
+	 *            The {@link LayoutSnapshot} providing the nodes and edges.
+	 */
+	public TidyTree(LayoutSnapshot snapshot) {
+		n = snapshot.getNodeCount();
+		int[] sources = snapshot.getEdgeSources();
+		int[] targets = snapshot.getEdgeTargets();
+
+		// successors in compressed sparse row format (in edge order), and the
+		// first predecessor of each node
+		int[] successorOffsets = new int[n + 1];
+		int[] firstPredecessor = new int[n];
+		Arrays.fill(firstPredecessor, -1);
+		for (int e = 0; e < sources.length; e++) {
+			successorOffsets[sources[e] + 1]++;
+			if (firstPredecessor[targets[e]] == -1) {
+				firstPredecessor[targets[e]] = sources[e];
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			successorOffsets[i + 1] += successorOffsets[i];
+		}
+		int[] successors = new int[sources.length];
+		int[] fill = Arrays.copyOf(successorOffsets, n);
+		for (int e = 0; e < sources.length; e++) {
+			successors[fill[sources[e]]++] = targets[e];
+		}
+
+		order = new int[n];
+		parent = new int[n];
+		depth = new int[n];
+		childStart = new int[n + 1];
+		childCount = new int[n + 1];
+		number = new int[n];
+		boolean[] visited = new boolean[n];
+
+		// find roots, remembering the nodes of all walks, so that every node
+		// is walked over at most once (0 = unexplored, 1 = on the current
+		// walk, 2 = explored)
+		byte[] state = new byte[n];
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			int v = i;
+			while (state[v] == 0) {
+				state[v] = 1;
+				if (firstPredecessor[v] == -1) {
+					break;
+				}
+				v = firstPredecessor[v];
+			}
+			// a node on the current walk is a root (or the start of a cycle)
+			int root = state[v] == 1 ? v : -1;
+			for (int w = i; state[w] == 1; w = firstPredecessor[w]) {
+				state[w] = 2;
+				if (firstPredecessor[w] == -1) {
+					break;
+				}
+			}
+			if (root != -1) {
+				visited[root] = true;
+				parent[root] = n;
+				number[root] = size;
+				order[size++] = root;
+			}
+		}
+		childStart[n] = 0;
+		childCount[n] = size;
+
+		// breadth-first search from all roots
+		height = n == 0 ? 0 : 1;
+		for (int head = 0; head < size; head++) {
+			int v = order[head];
+			childStart[v] = size;
+			for (int k = successorOffsets[v]; k < successorOffsets[v
+					+ 1]; k++) {
+				int w = successors[k];
+				if (!visited[w]) {
+					visited[w] = true;
+					parent[w] = v;
+					depth[w] = depth[v] + 1;
+					height = Math.max(height, depth[w] + 1);
+					number[w] = size - childStart[v];
+					order[size++] = w;
+				}
+			}
+			childCount[v] = size - childStart[v];
+		}
+	}
+
+	private void apportion(int v, int[] ancestor, int[] thread, double[] prelim,
+			double[] mod, double[] change, double[] shift, double[] breadth,
+			double separation, int[] defaultAncestor) {
+		if (number[v] == 0) {
+			return;
+		}
+		int p = parent[v];
+		int vip = v;
+		int vop = v;
+		int vim = order[childStart[p] + number[v] - 1];
+		int vom = order[childStart[p]];
+		double sip = mod[vip];
+		double sop = mod[vop];
+		double sim = mod[vim];
+		double som = mod[vom];
+		int nextRightVim = nextRight(vim, thread);
+		int nextLeftVip = nextLeft(vip, thread);
+		while (nextRightVim != -1 && nextLeftVip != -1) {
+			vim = nextRightVim;
+			vip = nextLeftVip;
+			vom = nextLeft(vom, thread);
+			vop = nextRight(vop, thread);
+			ancestor[vop] = v;
+			double s = (prelim[vim] + sim) - (prelim[vip] + sip)
+					+ distance(vim, vip, breadth, separation);
+			if (s > 0) {
+				// the ancestor of vim that is a sibling of v
+				int wm = parent[ancestor[vim]] == p ? ancestor[vim]
+						: defaultAncestor[0];
+				double subtrees = number[v] - number[wm];
+				change[v] -= s / subtrees;
+				shift[v] += s;
+				change[wm] += s / subtrees;
+				prelim[v] += s;
+				mod[v] += s;
+				sip += s;
+				sop += s;
+			}
+			sim += mod[vim];
+			sip += mod[vip];
+			som += mod[vom];
+			sop += mod[vop];
+			nextRightVim = nextRight(vim, thread);
+			nextLeftVip = nextLeft(vip, thread);
+		}
+		if (nextRightVim != -1 && nextRight(vop, thread) == -1) {
+			thread[vop] = nextRightVim;
+			mod[vop] += sim - sop;
+		}
+		if (nextLeftVip != -1 && nextLeft(vom, thread) == -1) {
+			thread[vom] = nextLeftVip;
+			mod[vom] += sip - som;
+			defaultAncestor[0] = v;
+		}
+	}
+
+	private double distance(int v, int w, double[] breadth,
+			double separation) {
+		return (breadth[v] + breadth[w]) / 2 + separation;
+	}
+
+	/**
+	 * Returns the depth of the given node within its tree (<code>0</code> for
+	 * roots).
+	 *
+	 * @param node
+	 *            The id of the node.
+	 * @return The depth of the given node.
+	 */
+	public int getDepth(int node) {
+		return depth[node];
+	}
+
+	/**
+	 * Returns the number of levels of the forest, i.e. the maximum depth plus
+	 * one.
+	 *
+	 * @return The number of levels of the forest.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the parent of the given node within the spanning forest, or
+	 * <code>-1</code> if the node is a root.
+	 *
+	 * @param node
+	 *            The id of the node.
+	 * @return The parent of the given node, or <code>-1</code>.
+	 */
+	public int getParent(int node) {
+		return parent[node] == n ? -1 : parent[node];
+	}
+
+	/**
+	 * Computes the positions of the nodes along the breadth axis, i.e. the axis
+	 * that is perpendicular to the levels of the trees. Siblings (and
+	 * neighboring subtrees) are separated by the given separation plus half of
+	 * the breadths of the respective nodes, and parents are centered above
+	 * their children. The returned positions are shifted so that the minimum
+	 * position minus half of the breadth of the respective node is
+	 * <code>0</code>.
+	 *
+	 * @param breadth
+	 *            The extent of each node along the breadth axis.
+	 * @param separation
+	 *            The minimum gap between neighboring nodes.
+	 * @return The positions of the (centers of the) nodes along the breadth
+	 *         axis.
+	 */
+	public double[] layout(double[] breadth, double separation) {
+		int m = n + 1;
+		double[] prelim = new double[m];
+		double[] mod = new double[m];
+		double[] change = new double[m];
+		double[] shift = new double[m];
+		double[] midpoint = new double[m];
+		int[] thread = new int[m];
+		int[] ancestor = new int[m];
+		Arrays.fill(thread, -1);
+		for (int v = 0; v < m; v++) {
+			ancestor[v] = v;
+		}
+		double[] extendedBreadth = Arrays.copyOf(breadth, m);
+		int[] defaultAncestor = new int[1];
+
+		// first walk, children are processed before their parents
+		for (int k = n; k >= 0; k--) {
+			int v = k == 0 ? n : order[k - 1];
+			if (k == 0 && n == 0) {
+				break;
+			}
+			int count = childCount[v];
+			if (count == 0) {
+				midpoint[v] = 0;
+				continue;
+			}
+			// place the children next to each other and resolve conflicts
+			// between their subtrees
+			defaultAncestor[0] = order[childStart[v]];
+			for (int c = 0; c < count; c++) {
+				int w = order[childStart[v] + c];
+				if (c == 0) {
+					prelim[w] = midpoint[w];
+				} else {
+					int left = order[childStart[v] + c - 1];
+					prelim[w] = prelim[left]
+							+ distance(left, w, extendedBreadth, separation);
+					if (childCount[w] > 0) {
+						mod[w] = prelim[w] - midpoint[w];
+					}
+				}
+				apportion(w, ancestor, thread, prelim, mod, change, shift,
+						extendedBreadth, separation, defaultAncestor);
+			}
+			// execute the accumulated shifts of the children
+			double s = 0;
+			double c = 0;
+			for (int i = count - 1; i >= 0; i--) {
+				int w = order[childStart[v] + i];
+				prelim[w] += s;
+				mod[w] += s;
+				c += change[w];
+				s += shift[w] + c;
+			}
+			midpoint[v] = (prelim[order[childStart[v]]]
+					+ prelim[order[childStart[v] + count - 1]]) / 2;
+		}
+
+		// second walk, parents are processed before their children
+		double[] positions = new double[n];
+		double[] modSum = new double[m];
+		double min = Double.POSITIVE_INFINITY;
+		for (int k = 0; k < n; k++) {
+			int v = order[k];
+			double parentModSum = parent[v] == n ? 0
+					: modSum[parent[v]] + mod[parent[v]];
+			modSum[v] = parentModSum;
+			positions[v] = prelim[v] + parentModSum;
+			min = Math.min(min, positions[v] - breadth[v] / 2);
+		}
+		for (int v = 0; v < n; v++) {
+			positions[v] -= min;
+		}
+		return positions;
+	}
+
+	private int nextLeft(int v, int[] thread) {
+		return childCount[v] > 0 ? order[childStart[v]] : thread[v];
+	}
+
+	private int nextRight(int v, int[] thread) {
+		return childCount[v] > 0 ? order[childStart[v] + childCount[v] - 1]
+				: thread[v];
+	}
+
+}
@@ -14,16 +14,14 @@
  ******************************************************************************/
 package org.eclipse.gef.layout.algorithms;
 
-import java.util.Iterator;
+import java.util.Arrays;
 
 import org.eclipse.gef.geometry.planar.Dimension;
-import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
-import org.eclipse.gef.graph.Node;
-import org.eclipse.gef.layout.ILayoutAlgorithm;
+import org.eclipse.gef.layout.ICacheableLayoutAlgorithm;
 import org.eclipse.gef.layout.LayoutContext;
 import org.eclipse.gef.layout.LayoutProperties;
-import org.eclipse.gef.layout.algorithms.TreeLayoutHelper.TreeNode;
+import org.eclipse.gef.layout.LayoutSnapshot;
 
 /**
  * The TreeLayoutAlgorithm class implements a simple algorithm to arrange graph
@@ -37,7 +35,7 @@ import org.eclipse.gef.layout.algorithms.TreeLayoutHelper.TreeNode;
  * @author Miles Parker
  * @author mwienand
  */
-public class TreeLayoutAlgorithm implements ILayoutAlgorithm {
+public class TreeLayoutAlgorithm implements ICacheableLayoutAlgorithm {
 
 	/**
 	 * Tree direction constant for which root is placed at the top and branches
@@ -71,8 +69,6 @@ public class TreeLayoutAlgorithm implements ILayoutAlgorithm {
 
 	private double leafSize, layerSize;
 
-	private TreeLayoutHelper treeObserver;
-
 	private Dimension nodeSpace;
 
 	/**
@@ -165,20 +161,25 @@ public class TreeLayoutAlgorithm implements ILayoutAlgorithm {
 		resize = resizing;
 	}
 
+	public Object[] getLayoutParameters() {
+		return new Object[] { direction, resize, nodeSpace };
+	}
+
 	public void applyLayout(LayoutContext layoutContext, boolean clean) {
 		if (!clean)
 			return;
 
-		internalApplyLayout(layoutContext);
+		LayoutSnapshot snapshot = layoutContext.createLayoutSnapshot();
+		internalApplyLayout(layoutContext, snapshot);
 
-		Node[] entities = layoutContext.getNodes();
 		if (resize) {
-			AlgorithmHelper.maximizeSizes(entities);
+			AlgorithmHelper.maximizeSizes(snapshot);
 		}
-		scaleEntities(entities);
+		scaleEntities(snapshot);
+		snapshot.writeBack();
 	}
 
-	private void scaleEntities(Node[] entities) {
+	private void scaleEntities(LayoutSnapshot snapshot) {
 		if (nodeSpace == null) {
 			Rectangle resizedBounds = new Rectangle(bounds);
 			int insets = 4;
@@ -186,34 +187,66 @@ public class TreeLayoutAlgorithm implements ILayoutAlgorithm {
 			resizedBounds.setY(resizedBounds.getY() + insets);
 			resizedBounds.setWidth(resizedBounds.getWidth() - 2 * insets);
 			resizedBounds.setHeight(resizedBounds.getHeight() - 2 * insets);
-			AlgorithmHelper.fitWithinBounds(entities, resizedBounds, resize);
+			AlgorithmHelper.fitWithinBounds(snapshot, resizedBounds, resize);
 		}
 	}
 
 	/**
 	 * Performs a layout pass for the tree without scaling the entities to
-	 * maximum size / use the whole bounds.
+	 * maximum size / use the whole bounds. The computed locations are stored
+	 * within the given {@link LayoutSnapshot}, but are not written back.
+	 * <p>
+	 * The nodes are arranged as a tidy tree (see {@link TidyTree}), where every
+	 * node occupies one unit along the breadth axis, and every level occupies
+	 * one unit along the depth axis. The units are scaled to the layout bounds
+	 * or to the node space (if specified).
 	 * 
 	 * @param context
 	 *            The {@link LayoutContext} to use.
+	 * @param snapshot
+	 *            The {@link LayoutSnapshot} of the given context, in which the
+	 *            computed locations are stored.
 	 */
-	void internalApplyLayout(LayoutContext context) {
-		treeObserver = new TreeLayoutHelper(null);
-		treeObserver.computeTree(context.getNodes());
+	void internalApplyLayout(LayoutContext context, LayoutSnapshot snapshot) {
+		int n = snapshot.getNodeCount();
+		TidyTree tree = new TidyTree(snapshot);
+		double[] unitBreadth = new double[n];
+		Arrays.fill(unitBreadth, 1);
+		double[] breadthPositions = tree.layout(unitBreadth, 0);
+		double breadthUnits = 0;
+		for (int i = 0; i < n; i++) {
+			breadthUnits = Math.max(breadthUnits, breadthPositions[i] + 0.5);
+		}
 
-		TreeNode superRoot = treeObserver.getSuperRoot();
 		bounds = LayoutProperties.getBounds(context.getGraph());
-		updateLeafAndLayerSizes();
-		int leafCountSoFar = 0;
-		for (Iterator<TreeNode> iterator = superRoot.getChildren()
-				.iterator(); iterator.hasNext();) {
-			TreeNode rootInfo = iterator.next();
-			computePositionRecursively(rootInfo, leafCountSoFar);
-			leafCountSoFar = leafCountSoFar + rootInfo.numOfLeaves;
+		updateLeafAndLayerSizes(breadthUnits, tree.getHeight());
+		double[] x = snapshot.getX();
+		double[] y = snapshot.getY();
+		for (int i = 0; i < n; i++) {
+			double breadthPosition = breadthPositions[i] * leafSize;
+			double depthPosition = (tree.getDepth(i) + 0.5) * layerSize;
+			switch (direction) {
+			case TOP_DOWN:
+				x[i] = breadthPosition;
+				y[i] = depthPosition;
+				break;
+			case BOTTOM_UP:
+				x[i] = breadthPosition;
+				y[i] = bounds.getHeight() - depthPosition;
+				break;
+			case LEFT_RIGHT:
+				x[i] = depthPosition;
+				y[i] = breadthPosition;
+				break;
+			case RIGHT_LEFT:
+				x[i] = bounds.getWidth() - depthPosition;
+				y[i] = breadthPosition;
+				break;
+			}
 		}
 	}
 
-	private void updateLeafAndLayerSizes() {
+	private void updateLeafAndLayerSizes(double breadthUnits, int layers) {
 		if (nodeSpace != null) {
 			if (getDirection() == TOP_DOWN || getDirection() == BOTTOM_UP) {
 				leafSize = nodeSpace.getWidth();
@@ -223,55 +256,16 @@ public class TreeLayoutAlgorithm implements ILayoutAlgorithm {
 				layerSize = nodeSpace.getWidth();
 			}
 		} else {
-			TreeNode superRoot = treeObserver.getSuperRoot();
 			if (direction == TOP_DOWN || direction == BOTTOM_UP) {
-				leafSize = bounds.getWidth() / superRoot.numOfLeaves;
-				layerSize = bounds.getHeight() / superRoot.height;
+				leafSize = bounds.getWidth() / breadthUnits;
+				layerSize = bounds.getHeight() / layers;
 			} else {
-				leafSize = bounds.getHeight() / superRoot.numOfLeaves;
-				layerSize = bounds.getWidth() / superRoot.height;
+				leafSize = bounds.getHeight() / breadthUnits;
+				layerSize = bounds.getWidth() / layers;
 			}
 		}
 	}
 
-	/**
-	 * Computes positions recursively until the leaf nodes are reached.
-	 */
-	private void computePositionRecursively(TreeNode entityInfo,
-			int relativePosition) {
-		double breadthPosition = relativePosition
-				+ entityInfo.numOfLeaves / 2.0;
-		double depthPosition = (entityInfo.depth + 0.5);
-
-		switch (direction) {
-		case TOP_DOWN:
-			LayoutProperties.setLocation(entityInfo.getNode(), new Point(
-					breadthPosition * leafSize, depthPosition * layerSize));
-			break;
-		case BOTTOM_UP:
-			LayoutProperties.setLocation(entityInfo.getNode(),
-					new Point(breadthPosition * leafSize,
-							bounds.getHeight() - depthPosition * layerSize));
-			break;
-		case LEFT_RIGHT:
-			LayoutProperties.setLocation(entityInfo.getNode(), new Point(
-					depthPosition * layerSize, breadthPosition * leafSize));
-			break;
-		case RIGHT_LEFT:
-			LayoutProperties.setLocation(entityInfo.getNode(),
-					new Point(bounds.getWidth() - depthPosition * layerSize,
-							breadthPosition * leafSize));
-			break;
-		}
-
-		for (Iterator<TreeNode> iterator = entityInfo.children
-				.iterator(); iterator.hasNext();) {
-			TreeNode childInfo = iterator.next();
-			computePositionRecursively(childInfo, relativePosition);
-			relativePosition += childInfo.numOfLeaves;
-		}
-	}
-
 	@Override
 	public String toString() {
 		StringBuffer sb = new StringBuffer();
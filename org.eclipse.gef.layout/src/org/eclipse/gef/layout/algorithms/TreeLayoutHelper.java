@@ -13,11 +13,12 @@
  ******************************************************************************/
 package org.eclipse.gef.layout.algorithms;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
@@ -279,13 +280,13 @@ public class TreeLayoutHelper {
 		protected void findNewParent() {
 			if (parent != null)
 				parent.children.remove(this);
-			Node[] predecessingNodes = node.getAllPredecessorNodes()
-					.toArray(new Node[] {});
 			parent = null;
-			for (int i = 0; i < predecessingNodes.length; i++) {
+			for (Node predecessingNode : node.getAllPredecessorNodes()) {
 				TreeNode potentialParent = owner.layoutToTree
-						.get(predecessingNodes[i]);
-				if (!children.contains(potentialParent)
+						.get(predecessingNode);
+				// children always reference this node as their parent, so that
+				// no linear search within the children is needed
+				if (potentialParent != null && potentialParent.parent != this
 						&& isBetterParent(potentialParent))
 					parent = potentialParent;
 			}
@@ -457,8 +458,9 @@ public class TreeLayoutHelper {
 	 * @param nodes
 	 */
 	private void createTrees(Node[] nodes) {
-		HashSet<Node> alreadyVisited = new HashSet<>();
-		LinkedList<Object[]> nodesToAdd = new LinkedList<>();
+		Set<Node> alreadyVisited = Collections
+				.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		ArrayDeque<Object[]> nodesToAdd = new ArrayDeque<>();
 		for (int i = 0; i < nodes.length; i++) {
 			Node root = findRoot(nodes[i], alreadyVisited);
 			if (root != null) {
@@ -474,13 +476,9 @@ public class TreeLayoutHelper {
 			TreeNode currentRoot = (TreeNode) dequeued[1];
 
 			currentRoot.addChild(currentNode);
-			Node[] children = currentNode.node.getAllSuccessorNodes()
-					.toArray(new Node[] {});
-			for (int i = 0; i < children.length; i++) {
-				if (!alreadyVisited.contains(children[i])) {
-					alreadyVisited.add(children[i]);
-					nodesToAdd
-							.addLast(new Object[] { children[i], currentNode });
+			for (Node child : currentNode.node.getAllSuccessorNodes()) {
+				if (alreadyVisited.add(child)) {
+					nodesToAdd.addLast(new Object[] { child, currentNode });
 				}
 			}
 		}
@@ -502,17 +500,17 @@ public class TreeLayoutHelper {
 	 * @return
 	 */
 	private Node findRoot(Node nodeLayout, Set<Node> alreadyVisited) {
-		HashSet<Node> alreadyVisitedRoot = new HashSet<>();
+		Set<Node> alreadyVisitedRoot = Collections
+				.newSetFromMap(new IdentityHashMap<Node, Boolean>());
 		while (true) {
 			if (alreadyVisited.contains(nodeLayout))
 				return null;
-			if (alreadyVisitedRoot.contains(nodeLayout))
+			if (!alreadyVisitedRoot.add(nodeLayout))
 				return nodeLayout;
-			alreadyVisitedRoot.add(nodeLayout);
-			Node[] predecessingNodes = nodeLayout.getAllPredecessorNodes()
-					.toArray(new Node[] {});
-			if (predecessingNodes.length > 0) {
-				nodeLayout = predecessingNodes[0];
+			Iterator<Node> predecessingNodes = nodeLayout
+					.getAllPredecessorNodes().iterator();
+			if (predecessingNodes.hasNext()) {
+				nodeLayout = predecessingNodes.next();
 			} else {
 				return nodeLayout;
 			}
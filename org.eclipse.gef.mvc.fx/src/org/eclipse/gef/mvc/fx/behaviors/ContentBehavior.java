@@ -14,8 +14,11 @@
 package org.eclipse.gef.mvc.fx.behaviors;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,6 +39,7 @@ import com.google.common.collect.SetMultimap;
 
 import javafx.beans.property.ReadOnlyProperty;
 import javafx.collections.ListChangeListener;
+import javafx.collections.ListChangeListener.Change;
 import javafx.collections.MapChangeListener;
 import javafx.scene.Node;
 
@@ -55,25 +59,7 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 		public void onChanged(
 				ListChangeListener.Change<? extends Object> change) {
 			// System.out.println("Content changed " + change);
-			// XXX: An atomic operation (including setAll()) on the
-			// ObservableList will lead to an atomic change here; we do not have
-			// to iterate through the individual changes but may simply
-			// synchronize with the list as it emerges after the changes have
-			// been applied.
-			// while (change.next()) {
-			// if (change.wasRemoved()) {
-			// removeContentPartChildren(getHost(),
-			// ImmutableList.copyOf(change.getRemoved()));
-			// } else if (change.wasAdded()) {
-			// addContentPartChildren(getHost(),
-			// ImmutableList.copyOf(change.getAddedSubList()),
-			// change.getFrom());
-			// } else if (change.wasPermutated()) {
-			// throw new UnsupportedOperationException(
-			// "Reorder not yet implemented");
-			// }
-			// }
-			synchronizeContentPartChildren(getHost(), change.getList());
+			synchronizeContentPartChildren(getHost(), change);
 		}
 	};
 
@@ -83,27 +69,9 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 		public void onChanged(
 				final ListChangeListener.Change<? extends Object> change) {
 			// System.out.println("Content children changed " + change);
-			// XXX: An atomic operation (including setAll()) on the
-			// ObservableList will lead to an atomic change here; we do not have
-			// to iterate through the individual changes but may simply
-			// synchronize with the list as it emerges after the changes have
-			// been applied.
 			IContentPart<? extends Node> parent = (IContentPart<? extends Node>) ((ReadOnlyProperty<?>) change
 					.getList()).getBean();
-			// while (change.next()) {
-			// if (change.wasRemoved()) {
-			// removeContentPartChildren(parent,
-			// ImmutableList.copyOf(change.getRemoved()));
-			// } else if (change.wasAdded()) {
-			// addContentPartChildren(parent,
-			// ImmutableList.copyOf(change.getAddedSubList()),
-			// change.getFrom());
-			// } else if (change.wasPermutated()) {
-			// throw new UnsupportedOperationException(
-			// "Reorder not yet implemented");
-			// }
-			// }
-			synchronizeContentPartChildren(parent, change.getList());
+			synchronizeContentPartChildren(parent, change);
 		}
 	};
 
@@ -149,69 +117,112 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 		}
 	};
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Inserts the given content parts into the children of the given parent,
+	 * so that they are located in the given order directly behind the child
+	 * at the given index. Content parts that are not yet bound to a parent are
+	 * added (consecutive ones at once) and their children are synchronized.
+	 * Content parts that are already children of the given parent are kept in
+	 * place if they are contained in the given set of stable parts, and are
+	 * moved otherwise.
+	 *
+	 * @param parent
+	 *            The parent {@link IVisualPart}.
+	 * @param contentParts
+	 *            The {@link IContentPart}s in their designated order.
+	 * @param stable
+	 *            The {@link IContentPart} children that do not need to be
+	 *            moved, i.e. which are already in the designated relative
+	 *            order.
+	 * @param index
+	 *            The index of the child behind which to place the given
+	 *            content parts, or <code>-1</code> to place them at the front.
+	 * @return The list of all added content parts, including the children
+	 *         added to them.
+	 */
 	private List<IContentPart<? extends Node>> addAll(
 			IVisualPart<? extends Node> parent,
-			List<? extends Object> contentChildren) {
-		List<IContentPart<? extends Node>> childContentParts = PartUtils
-				.filterParts(parent.getChildrenUnmodifiable(),
-						IContentPart.class);
+			List<IContentPart<? extends Node>> contentParts,
+			Set<IContentPart<? extends Node>> stable, int index) {
+		List<? extends IVisualPart<? extends Node>> children = parent
+				.getChildrenUnmodifiable();
 		List<IContentPart<? extends Node>> added = new ArrayList<>();
-		// store the existing content parts in a map using the contents as keys
-		Map<Object, IContentPart<? extends Node>> contentPartMap = new HashMap<>();
-		// find all content parts for which no content element exists in
-		// contentChildren, and therefore have to be removed
-		for (IContentPart<? extends Node> contentPart : childContentParts) {
-			// store content part in map
-			contentPartMap.put(contentPart.getContent(), contentPart);
-		}
-		int contentChildrenSize = contentChildren.size();
-		int childContentPartsSize = childContentParts.size();
-		for (int i = 0; i < contentChildrenSize; i++) {
-			Object content = contentChildren.get(i);
-			// Do a quick check to see if the existing content part is at
-			// the correct location in the children list.
-			if (i < childContentPartsSize
-					&& childContentParts.get(i).getContent() == content) {
+		// consecutive new content parts are added to the parent at once
+		List<IContentPart<? extends Node>> toAdd = new ArrayList<>();
+		Set<Object> contents = new HashSet<>();
+		for (IContentPart<? extends Node> contentPart : contentParts) {
+			if (!contents.add(contentPart.getContent())
+					|| contentPart.getParent() != null
+							&& contentPart.getParent() != parent) {
+				// TODO: Up to now a model element may only be
+				// controlled by a single content part; unless we
+				// differentiate content elements by context (which is not
+				// covered by the current content part map implementation)
+				// it is an illegal state if we locate a content part, which
+				// is already bound to a parent and whose content is equal
+				// to the one we are processing here.
+				throw new IllegalStateException(
+						"Located a ContentPart which controls the same (or an equal) content element but is already bound to a parent. A content element may only be controlled by a single ContentPart.");
+			} else if (contentPart.getParent() == null) {
+				toAdd.add(contentPart);
 				continue;
 			}
-			// Look to see if the ContentPart is already around but in the
-			// wrong location.
-			IContentPart<? extends Node> contentPart = findOrCreatePartFor(
-					content);
-			if (contentPartMap.containsKey(content)) {
-				// Re-order the existing content part to its designated
-				// location in the children list.
-				// TODO: this is wrong, it has to take into consideration
-				// the visual parts in between
-				parent.reorderChild(contentPart, i);
+			index = addChildren(parent, toAdd, index, added);
+			if (stable.contains(contentPart)) {
+				// stable parts are located behind the current index
+				do {
+					index++;
+				} while (children.get(index) != contentPart);
 			} else {
-				// A ContentPart for this model does not exist yet. Create
-				// and insert one.
-				if (contentPart.getParent() != null) {
-					// TODO: Up to now a model element may only be
-					// controlled by a single content part; unless we
-					// differentiate content elements by context (which is not
-					// covered by the current content part map implementation)
-					// it is an illegal state if we locate a content part, which
-					// is already bound to a parent and whose content is equal
-					// to the one we are processing here.
-					throw new IllegalStateException(
-							"Located a ContentPart which controls the same (or an equal) content element but is already bound to a parent. A content element may only be controlled by a single ContentPart.");
+				// move the content part behind the current index
+				int oldIndex = children.indexOf(contentPart);
+				if (oldIndex > index) {
+					index++;
 				}
-				parent.addChild(contentPart, i);
-				added.add(contentPart);
-				added.addAll(addAll(contentPart,
-						contentPart.getContentChildrenUnmodifiable()));
+				parent.reorderChild(contentPart, index);
 			}
 		}
+		addChildren(parent, toAdd, index, added);
 		return added;
 	}
 
+	/**
+	 * Adds the given content parts to the given parent at once (directly
+	 * behind the child at the given index), synchronizes their children, and
+	 * clears the given list afterwards.
+	 *
+	 * @param parent
+	 *            The parent {@link IVisualPart}.
+	 * @param toAdd
+	 *            The {@link IContentPart}s to add.
+	 * @param index
+	 *            The index of the child behind which to add the content parts,
+	 *            or <code>-1</code> to add them at the front.
+	 * @param added
+	 *            The list to which all added content parts are appended.
+	 * @return The index of the last added content part.
+	 */
+	private int addChildren(IVisualPart<? extends Node> parent,
+			List<IContentPart<? extends Node>> toAdd, int index,
+			List<IContentPart<? extends Node>> added) {
+		if (toAdd.isEmpty()) {
+			return index;
+		}
+		parent.addChildren(toAdd, index + 1);
+		for (IContentPart<? extends Node> contentPart : toAdd) {
+			added.add(contentPart);
+			added.addAll(synchronize(contentPart,
+					contentPart.getContentChildrenUnmodifiable()));
+		}
+		index += toAdd.size();
+		toAdd.clear();
+		return index;
+	}
+
 	@SuppressWarnings("unchecked")
 	private List<IContentPart<? extends Node>> detachAll(
 			IVisualPart<? extends Node> parent,
-			final List<? extends Object> contentChildren) {
+			final Set<? extends Object> contentChildren) {
 		List<IContentPart<? extends Node>> toRemove = new ArrayList<>();
 		// only synchronize IContentPart children
 		// find all content parts for which no content element exists in
@@ -221,16 +232,30 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 						IContentPart.class)) {
 			// mark for removal
 			if (!contentChildren.contains(contentPart.getContent())) {
-				toRemove.addAll(
-						detachAll(contentPart, Collections.emptyList()));
-				toRemove.add(contentPart);
-				synchronizeContentPartAnchorages(contentPart,
-						HashMultimap.create());
+				toRemove.addAll(detach(contentPart));
 			}
 		}
 		return toRemove;
 	}
 
+	/**
+	 * Detaches the given content part and all its content part descendants
+	 * from their anchorages.
+	 *
+	 * @param contentPart
+	 *            The {@link IContentPart} to detach.
+	 * @return The list of detached content parts, in which descendants precede
+	 *         their ancestors.
+	 */
+	private List<IContentPart<? extends Node>> detach(
+			IContentPart<? extends Node> contentPart) {
+		List<IContentPart<? extends Node>> toRemove = detachAll(contentPart,
+				Collections.emptySet());
+		toRemove.add(contentPart);
+		synchronizeContentPartAnchorages(contentPart, HashMultimap.create());
+		return toRemove;
+	}
+
 	@Override
 	public void dispose() {
 		// the content part pool is shared by all content behaviors of a viewer,
@@ -288,7 +313,10 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 	 * content {@link Object} is stored in the {@link ContentPartPool}, then
 	 * this part is returned. Otherwise, the injected
 	 * {@link IContentPartFactory} is used to create a new {@link IContentPart}
-	 * for the given content {@link Object}.
+	 * for the given content {@link Object}. The {@link ContentPartPool} is
+	 * passed to the factory within the context map (using the
+	 * {@link ContentPartPool} class as key), so that it may recycle a free part
+	 * (see {@link ContentPartPool#acquire(Class)}).
 	 *
 	 * @param content
 	 *            The content {@link Object} for which the corresponding
@@ -308,11 +336,14 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 					.remove(content);
 			// If the part could not be revived, a new one is created
 			if (contentPart == null) {
-				// create part using the factory
+				// create part using the factory, which may recycle a part
+				// from the pool's free lists
 				// System.out.println("CREATE " + content);
 				IContentPartFactory contentPartFactory = getContentPartFactory();
+				Map<Object, Object> contextMap = new HashMap<>();
+				contextMap.put(ContentPartPool.class, getContentPartPool());
 				contentPart = contentPartFactory.createContentPart(content,
-						Collections.emptyMap());
+						contextMap);
 				if (contentPart == null) {
 					throw new IllegalStateException("IContentPartFactory '"
 							+ contentPartFactory.getClass().getSimpleName()
@@ -328,6 +359,20 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 		}
 	}
 
+	/**
+	 * Returns the {@link IContentPart} that controls the given content
+	 * {@link Object} within the current viewer.
+	 *
+	 * @param content
+	 *            The content {@link Object}.
+	 * @return The {@link IContentPart} for the given content, or
+	 *         <code>null</code> if there is none.
+	 */
+	private IContentPart<? extends Node> getContentPart(Object content) {
+		return getHost().getRoot().getViewer().getContentPartMap()
+				.get(content);
+	}
+
 	/**
 	 * Returns the {@link IContentPartFactory} of the current viewer.
 	 *
@@ -349,6 +394,100 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 				.getAdapter(ContentPartPool.class);
 	}
 
+	/**
+	 * Computes a longest strictly increasing subsequence of the given
+	 * sequence in O(n log n).
+	 *
+	 * @param sequence
+	 *            The sequence of (distinct) integers.
+	 * @return A {@link BitSet} containing the positions within the given
+	 *         sequence that form a longest increasing subsequence.
+	 */
+	private static BitSet getLongestIncreasingSubsequence(int[] sequence) {
+		// tails[l] is the position of the smallest tail of all increasing
+		// subsequences of length l + 1
+		int[] tails = new int[sequence.length];
+		int[] predecessors = new int[sequence.length];
+		int length = 0;
+		for (int i = 0; i < sequence.length; i++) {
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (sequence[tails[mid]] < sequence[i]) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			predecessors[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) {
+				length++;
+			}
+		}
+		BitSet lis = new BitSet(sequence.length);
+		for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+			lis.set(i);
+		}
+		return lis;
+	}
+
+	/**
+	 * Returns the index of the child of the given parent that controls the
+	 * content preceding the given index within the given content children.
+	 *
+	 * @param parent
+	 *            The parent {@link IVisualPart}.
+	 * @param contentChildren
+	 *            The list of content children.
+	 * @param index
+	 *            The index within the content children.
+	 * @return The index of the child that controls the preceding content, or
+	 *         <code>-1</code> if there is no preceding content.
+	 */
+	private int indexOfPredecessor(IVisualPart<? extends Node> parent,
+			List<? extends Object> contentChildren, int index) {
+		if (index == 0) {
+			return -1;
+		}
+		IContentPart<? extends Node> predecessor = getContentPart(
+				contentChildren.get(index - 1));
+		List<? extends IVisualPart<? extends Node>> children = parent
+				.getChildrenUnmodifiable();
+		// quick check if the parent only contains content part children
+		if (index - 1 < children.size()
+				&& children.get(index - 1) == predecessor) {
+			return index - 1;
+		}
+		return children.indexOf(predecessor);
+	}
+
+	/**
+	 * Removes the given content parts from their parents and disposes them if
+	 * they are obsolete. Consecutive siblings are removed from their parent at
+	 * once.
+	 *
+	 * @param toRemove
+	 *            The {@link IContentPart}s to remove, in which descendants
+	 *            precede their ancestors.
+	 */
+	private void removeAll(List<IContentPart<? extends Node>> toRemove) {
+		int runStart = 0;
+		for (int i = 1; i <= toRemove.size(); i++) {
+			if (i == toRemove.size() || toRemove.get(i)
+					.getParent() != toRemove.get(runStart).getParent()) {
+				List<IContentPart<? extends Node>> run = toRemove
+						.subList(runStart, i);
+				run.get(0).getParent().removeChildren(run);
+				for (IContentPart<? extends Node> contentPart : run) {
+					disposeIfObsolete(contentPart);
+				}
+				runStart = i;
+			}
+		}
+	}
+
 	/**
 	 * Updates the host {@link IVisualPart}'s {@link IContentPart} anchorages
 	 * (see {@link IVisualPart#getAnchoragesUnmodifiable()}) so that it is in
@@ -423,7 +562,10 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 	/**
 	 * Updates the host {@link IVisualPart}'s {@link IContentPart} children (see
 	 * {@link IVisualPart#getChildrenUnmodifiable()}) so that it is in sync with
-	 * the set of content children that is passed in.
+	 * the set of content children that is passed in. Content parts whose
+	 * content vanished are removed, content parts for new content children are
+	 * added, and the remaining content parts are moved as necessary to reflect
+	 * the order of the content children.
 	 *
 	 * @param parent
 	 *            The parent {@link IVisualPart} whose content part children to
@@ -445,18 +587,160 @@ public class ContentBehavior extends AbstractBehavior implements IDisposable {
 					"contentChildren may not be null");
 		}
 
-		List<IContentPart<? extends Node>> toRemove = detachAll(parent,
+		List<IContentPart<? extends Node>> added = synchronize(parent,
 				contentChildren);
-		for (IContentPart<? extends Node> contentPart : toRemove) {
-			contentPart.getParent().removeChild(contentPart);
-			disposeIfObsolete(contentPart);
+		for (IContentPart<? extends Node> cp : added) {
+			synchronizeContentPartAnchorages(cp,
+					cp.getContentAnchoragesUnmodifiable());
 		}
+	}
 
-		List<IContentPart<? extends Node>> added = addAll(parent,
-				contentChildren);
+	/**
+	 * Updates the {@link IContentPart} children of the given parent
+	 * {@link IVisualPart} according to the given {@link Change} of its content
+	 * children. In case the change only consists of additions, only of
+	 * removals, or only of permutations, the affected content parts are
+	 * directly added, removed, or moved. Otherwise, the content part children
+	 * are synchronized with the list of content children (see
+	 * {@link #synchronizeContentPartChildren(IVisualPart, List)}).
+	 *
+	 * @param parent
+	 *            The parent {@link IVisualPart} whose content part children to
+	 *            update.
+	 * @param change
+	 *            The {@link Change} of the content children.
+	 */
+	private void synchronizeContentPartChildren(
+			IVisualPart<? extends Node> parent,
+			Change<? extends Object> change) {
+		boolean wasAdded = false;
+		boolean wasRemoved = false;
+		boolean wasPermutated = false;
+		while (change.next()) {
+			if (change.wasPermutated()) {
+				wasPermutated = true;
+			} else {
+				wasAdded |= change.wasAdded();
+				wasRemoved |= change.wasRemoved();
+			}
+		}
+		change.reset();
+		if ((wasAdded ? 1 : 0) + (wasRemoved ? 1 : 0)
+				+ (wasPermutated ? 1 : 0) != 1) {
+			// XXX: replacements (including setAll()) are handled by computing
+			// the difference to the list as it emerges after the changes
+			// have been applied.
+			synchronizeContentPartChildren(parent, change.getList());
+			return;
+		}
+
+		List<? extends Object> contentChildren = change.getList();
+		List<IContentPart<? extends Node>> added = new ArrayList<>();
+		List<IContentPart<? extends Node>> toRemove = new ArrayList<>();
+		while (change.next()) {
+			int from = change.getFrom();
+			if (wasRemoved) {
+				for (Object content : change.getRemoved()) {
+					IContentPart<? extends Node> contentPart = getContentPart(
+							content);
+					if (contentPart != null
+							&& contentPart.getParent() == parent) {
+						toRemove.addAll(detach(contentPart));
+					}
+				}
+			} else if (wasAdded) {
+				List<IContentPart<? extends Node>> contentParts = new ArrayList<>();
+				for (Object content : change.getAddedSubList()) {
+					contentParts.add(findOrCreatePartFor(content));
+				}
+				added.addAll(addAll(parent, contentParts,
+						Collections.<IContentPart<? extends Node>> emptySet(),
+						indexOfPredecessor(parent, contentChildren, from)));
+			} else {
+				// the part previously at index i has to be moved to index
+				// getPermutation(i); parts whose designated indices form a
+				// longest increasing subsequence do not need to be moved
+				int to = change.getTo();
+				int[] designatedIndices = new int[to - from];
+				for (int i = from; i < to; i++) {
+					designatedIndices[i - from] = change.getPermutation(i);
+				}
+				BitSet lis = getLongestIncreasingSubsequence(
+						designatedIndices);
+				List<IContentPart<? extends Node>> contentParts = new ArrayList<>();
+				for (Object content : contentChildren.subList(from, to)) {
+					contentParts.add(getContentPart(content));
+				}
+				Set<IContentPart<? extends Node>> stable = Collections
+						.newSetFromMap(new IdentityHashMap<>());
+				for (int i = lis.nextSetBit(0); i >= 0; i = lis
+						.nextSetBit(i + 1)) {
+					stable.add(contentParts.get(designatedIndices[i] - from));
+				}
+				addAll(parent, contentParts, stable,
+						indexOfPredecessor(parent, contentChildren, from));
+			}
+		}
+		removeAll(toRemove);
 		for (IContentPart<? extends Node> cp : added) {
 			synchronizeContentPartAnchorages(cp,
 					cp.getContentAnchoragesUnmodifiable());
 		}
 	}
+
+	/**
+	 * Computes the difference between the content part children of the given
+	 * parent and the given content children, and removes, moves, and adds
+	 * content parts accordingly. Content children are indexed by hash, and
+	 * only those content parts that are not part of a longest increasing
+	 * subsequence of designated indices are moved, so that the number of
+	 * operations that are applied to the parent is proportional to the
+	 * difference.
+	 *
+	 * @param parent
+	 *            The parent {@link IVisualPart} whose content part children to
+	 *            synchronize against the given content children.
+	 * @param contentChildren
+	 *            The list of content children.
+	 * @return The list of all added content parts, including the children
+	 *         added to them.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<IContentPart<? extends Node>> synchronize(
+			IVisualPart<? extends Node> parent,
+			List<? extends Object> contentChildren) {
+		// index the content children
+		Map<Object, Integer> contentIndices = new HashMap<>();
+		for (int i = 0; i < contentChildren.size(); i++) {
+			contentIndices.put(contentChildren.get(i), i);
+		}
+
+		// remove the content parts whose content vanished
+		removeAll(detachAll(parent, contentIndices.keySet()));
+
+		// keep the remaining content parts that are already in the
+		// designated order
+		List<IContentPart<? extends Node>> childContentParts = PartUtils
+				.filterParts(parent.getChildrenUnmodifiable(),
+						IContentPart.class);
+		int[] designatedIndices = new int[childContentParts.size()];
+		for (int i = 0; i < designatedIndices.length; i++) {
+			designatedIndices[i] = contentIndices
+					.get(childContentParts.get(i).getContent());
+		}
+		BitSet lis = getLongestIncreasingSubsequence(designatedIndices);
+		Set<IContentPart<? extends Node>> stable = Collections
+				.newSetFromMap(new IdentityHashMap<>());
+		for (int i = lis.nextSetBit(0); i >= 0; i = lis.nextSetBit(i + 1)) {
+			stable.add(childContentParts.get(i));
+		}
+
+		// move the other content parts and add the missing ones
+		List<IContentPart<? extends Node>> contentParts = new ArrayList<>();
+		for (Object content : contentChildren) {
+			contentParts.add(findOrCreatePartFor(content));
+		}
+		return addAll(parent, contentParts, stable, -1);
+	}
+
 }
@@ -11,15 +11,26 @@
  *******************************************************************************/
 package org.eclipse.gef.mvc.fx.behaviors;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.gef.common.dispose.IDisposable;
 import org.eclipse.gef.mvc.fx.parts.IContentPart;
+import org.eclipse.gef.mvc.fx.parts.IContentPartFactory;
+
+import com.google.inject.Provider;
 
 import javafx.scene.Node;
+import javafx.scene.Parent;
 
 /**
  * A temporary store for {@link IContentPart}s that is used by
@@ -31,6 +42,19 @@ import javafx.scene.Node;
  * motivation behind recycling {@link IContentPart}s is that after an undo the
  * viewer is in the exact same state as before the execution of an operation
  * (which may be important for feedback or handles).
+ * <p>
+ * The pool is bounded by the number of pooled parts (see
+ * {@link #setMaxPooledParts(int)}) as well as by their estimated size (see
+ * {@link #setMaxPooledSize(long)} and {@link #estimateSize(IContentPart)}).
+ * When a bound is exceeded, the least recently added parts are evicted. An
+ * evicted part is kept in a free list for its type, if that free list
+ * contains less than {@link #getMaxFreePartsPerType()} parts, and is disposed
+ * otherwise. Parts within the free lists are no longer bound to a content
+ * element, but can be recycled for new content elements by an
+ * {@link IContentPartFactory} (see {@link #acquire(Class)}), which can
+ * retrieve the pool from the context map under the {@link ContentPartPool}
+ * class key. Free lists can also be filled in advance (see
+ * {@link #prewarm(Class, int, Provider)}).
  *
  * @author mwienand
  * @author anyssen
@@ -38,13 +62,60 @@ import javafx.scene.Node;
  */
 public class ContentPartPool implements IDisposable {
 
-	private Map<Object, IContentPart<? extends Node>> pool = new HashMap<>();
+	/**
+	 * The default maximum number of pooled parts.
+	 */
+	public static final int DEFAULT_MAX_POOLED_PARTS = 5000;
+
+	/**
+	 * The default maximum estimated size of all pooled parts.
+	 */
+	public static final long DEFAULT_MAX_POOLED_SIZE = 250000;
+
+	// parts by content in the order in which they were added
+	private LinkedHashMap<Object, IContentPart<? extends Node>> pool = new LinkedHashMap<>();
+	private Map<IContentPart<? extends Node>, Long> estimatedSizes = new IdentityHashMap<>();
+	private Map<Class<?>, Deque<IContentPart<? extends Node>>> freeParts = new HashMap<>();
+
+	private int maxPooledParts = DEFAULT_MAX_POOLED_PARTS;
+	private long maxPooledSize = DEFAULT_MAX_POOLED_SIZE;
+	private int maxFreePartsPerType = 0;
+	private long pooledSize;
+
+	private long hitCount;
+	private long missCount;
+	private long recycleCount;
+	private long evictionCount;
+
+	/**
+	 * Retrieves an {@link IContentPart} of the given type from the free list
+	 * for that type (i.e. a part that is not bound to any content element) and
+	 * removes it from the pool. The returned part may be recycled for a new
+	 * content element, and has to be fully refreshed when its content is set.
+	 *
+	 * @param <T>
+	 *            The type of the {@link IContentPart}.
+	 * @param type
+	 *            The exact type of the {@link IContentPart} to retrieve.
+	 * @return An {@link IContentPart} of the given type, or <code>null</code>
+	 *         if the free list for that type is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends IContentPart<? extends Node>> T acquire(Class<T> type) {
+		Deque<IContentPart<? extends Node>> free = freeParts.get(type);
+		if (free == null || free.isEmpty()) {
+			return null;
+		}
+		recycleCount++;
+		return (T) free.pop();
+	}
 
 	/**
 	 * Adds an {@link IContentPart} to this pool. The {@link IContentPart} will
 	 * be stored under its content element ({@link IContentPart#getContent()})
 	 * and may later be retrieved back via this content element (see
-	 * {@link #remove(Object)}.
+	 * {@link #remove(Object)}. In case the bounds of this pool are exceeded
+	 * afterwards, the least recently added parts are evicted.
 	 *
 	 * @param part
 	 *            The {@link IContentPart} to add to the pool.
@@ -54,14 +125,40 @@ public class ContentPartPool implements IDisposable {
 		// registered for the same content element in case we will enable this
 		// in the viewer (e.g. by adding context information to the content part
 		// map).
+		IContentPart<? extends Node> replaced = pool.remove(part.getContent());
+		if (replaced != null) {
+			pooledSize -= estimatedSizes.remove(replaced);
+		}
 		pool.put(part.getContent(), part);
+		long estimatedSize = estimateSize(part);
+		estimatedSizes.put(part, estimatedSize);
+		pooledSize += estimatedSize;
+		if (replaced != null && replaced != part) {
+			evict(replaced);
+		}
+		// evict the least recently added parts (but not the added part, which
+		// is still bound to its content element)
+		Iterator<IContentPart<? extends Node>> it = pool.values().iterator();
+		while (pool.size() > maxPooledParts || pooledSize > maxPooledSize) {
+			IContentPart<? extends Node> eldest = it.next();
+			if (eldest == part) {
+				break;
+			}
+			it.remove();
+			pooledSize -= estimatedSizes.remove(eldest);
+			evict(eldest);
+		}
 	}
 
 	/**
-	 * Clears the pool, that is removes all {@link IContentPart}s.
+	 * Clears the pool, that is removes all {@link IContentPart}s (including
+	 * those within the free lists).
 	 */
 	public void clear() {
 		pool.clear();
+		estimatedSizes.clear();
+		freeParts.clear();
+		pooledSize = 0;
 	}
 
 	@Override
@@ -69,9 +166,122 @@ public class ContentPartPool implements IDisposable {
 		for (IContentPart<? extends Node> cp : getPooled()) {
 			cp.dispose();
 		}
+		for (Deque<IContentPart<? extends Node>> free : freeParts.values()) {
+			for (IContentPart<? extends Node> cp : free) {
+				cp.dispose();
+			}
+		}
 		clear();
 	}
 
+	/**
+	 * Estimates the (memory) size of the given {@link IContentPart}, which is
+	 * used to bound the pool (see {@link #setMaxPooledSize(long)}). By default,
+	 * the number of {@link Node}s within the visual of the given part is
+	 * returned.
+	 *
+	 * @param part
+	 *            The {@link IContentPart} whose size to estimate.
+	 * @return The estimated size of the given {@link IContentPart}.
+	 */
+	protected long estimateSize(IContentPart<? extends Node> part) {
+		long size = 0;
+		List<Node> nodes = new ArrayList<>();
+		nodes.add(part.getVisual());
+		while (!nodes.isEmpty()) {
+			Node node = nodes.remove(nodes.size() - 1);
+			if (node != null) {
+				size++;
+				if (node instanceof Parent) {
+					nodes.addAll(((Parent) node).getChildrenUnmodifiable());
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Keeps the given evicted {@link IContentPart} in the free list for its
+	 * type if that is not full, or disposes it otherwise.
+	 *
+	 * @param part
+	 *            The evicted {@link IContentPart}.
+	 */
+	private void evict(IContentPart<? extends Node> part) {
+		evictionCount++;
+		Deque<IContentPart<? extends Node>> free = freeParts
+				.get(part.getClass());
+		if (free == null) {
+			free = new ArrayDeque<>();
+			freeParts.put(part.getClass(), free);
+		}
+		if (free.size() < maxFreePartsPerType) {
+			free.push(part);
+		} else {
+			part.dispose();
+		}
+	}
+
+	/**
+	 * Returns the number of parts that were evicted from this pool because its
+	 * bounds were exceeded.
+	 *
+	 * @return The number of evicted parts.
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Returns the number of parts that were retrieved for their content
+	 * element (see {@link #remove(Object)}).
+	 *
+	 * @return The number of hits.
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the maximum number of evicted parts that are kept in the free
+	 * list per part type.
+	 *
+	 * @return The maximum number of free parts per type.
+	 */
+	public int getMaxFreePartsPerType() {
+		return maxFreePartsPerType;
+	}
+
+	/**
+	 * Returns the maximum number of parts that are pooled for their content
+	 * elements.
+	 *
+	 * @return The maximum number of pooled parts.
+	 */
+	public int getMaxPooledParts() {
+		return maxPooledParts;
+	}
+
+	/**
+	 * Returns the maximum estimated size of the parts that are pooled for their
+	 * content elements.
+	 *
+	 * @return The maximum estimated size of the pooled parts.
+	 */
+	public long getMaxPooledSize() {
+		return maxPooledSize;
+	}
+
+	/**
+	 * Returns the number of content elements for which no part could be
+	 * retrieved (see {@link #remove(Object)}).
+	 *
+	 * @return The number of misses.
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
 	/**
 	 * Returns the {@link IContentPart}'s that are contained in this pool.
 	 *
@@ -82,6 +292,63 @@ public class ContentPartPool implements IDisposable {
 		return Collections.unmodifiableCollection(pool.values());
 	}
 
+	/**
+	 * Returns the estimated size of the parts that are pooled for their
+	 * content elements.
+	 *
+	 * @return The estimated size of the pooled parts.
+	 */
+	public long getPooledSize() {
+		return pooledSize;
+	}
+
+	/**
+	 * Returns the number of parts that were retrieved from a free list (see
+	 * {@link #acquire(Class)}).
+	 *
+	 * @return The number of recycled parts.
+	 */
+	public long getRecycleCount() {
+		return recycleCount;
+	}
+
+	/**
+	 * Fills the free list for the given type, so that it contains (at least)
+	 * the given number of parts, by creating parts using the given
+	 * {@link Provider}. The visuals of the created parts are created as well.
+	 * As this may take some time, it should be called off the critical path,
+	 * e.g. scheduled via <code>Platform.runLater()</code> when the viewer is
+	 * idle.
+	 *
+	 * @param <T>
+	 *            The type of the {@link IContentPart}s.
+	 * @param type
+	 *            The type of the {@link IContentPart}s to create.
+	 * @param count
+	 *            The number of parts that should be available for the given
+	 *            type.
+	 * @param provider
+	 *            The {@link Provider} that is used to create (and inject) the
+	 *            parts.
+	 */
+	public <T extends IContentPart<? extends Node>> void prewarm(Class<T> type,
+			int count, Provider<? extends T> provider) {
+		Deque<IContentPart<? extends Node>> free = freeParts.get(type);
+		if (free == null) {
+			free = new ArrayDeque<>();
+			freeParts.put(type, free);
+		}
+		while (free.size() < count) {
+			T part = provider.get();
+			if (part.getClass() != type) {
+				throw new IllegalArgumentException("The provider created a "
+						+ part.getClass() + " instead of a " + type + ".");
+			}
+			part.getVisual();
+			free.push(part);
+		}
+	}
+
 	/**
 	 * Retrieves an {@link IContentPart} for the given content element and
 	 * removes it from the pool.
@@ -94,7 +361,51 @@ public class ContentPartPool implements IDisposable {
 	 *         <code>null</code> if none could be found.
 	 */
 	public IContentPart<? extends Node> remove(Object content) {
-		return pool.remove(content);
+		IContentPart<? extends Node> part = pool.remove(content);
+		if (part == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		pooledSize -= estimatedSizes.remove(part);
+		return part;
+	}
+
+	/**
+	 * Sets the maximum number of evicted parts that are kept in the free list
+	 * per part type. Parts exceeding this number are disposed when they are
+	 * evicted. Defaults to <code>0</code>, i.e. evicted parts are disposed.
+	 *
+	 * @param maxFreePartsPerType
+	 *            The maximum number of free parts per type.
+	 */
+	public void setMaxFreePartsPerType(int maxFreePartsPerType) {
+		this.maxFreePartsPerType = maxFreePartsPerType;
+	}
+
+	/**
+	 * Sets the maximum number of parts that are pooled for their content
+	 * elements. Defaults to {@link #DEFAULT_MAX_POOLED_PARTS}. Takes effect
+	 * when the next part is added.
+	 *
+	 * @param maxPooledParts
+	 *            The maximum number of pooled parts.
+	 */
+	public void setMaxPooledParts(int maxPooledParts) {
+		this.maxPooledParts = maxPooledParts;
+	}
+
+	/**
+	 * Sets the maximum estimated size of the parts that are pooled for their
+	 * content elements. Defaults to {@link #DEFAULT_MAX_POOLED_SIZE}. Takes
+	 * effect when the next part is added.
+	 *
+	 * @param maxPooledSize
+	 *            The maximum estimated size of the pooled parts.
+	 * @see #estimateSize(IContentPart)
+	 */
+	public void setMaxPooledSize(long maxPooledSize) {
+		this.maxPooledSize = maxPooledSize;
 	}
 
-}
\ No newline at end of file
+}
@@ -14,12 +14,14 @@ package org.eclipse.gef.mvc.fx.behaviors;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
-import org.eclipse.gef.common.collections.CollectionUtils;
 import org.eclipse.gef.mvc.fx.models.SelectionModel;
+import org.eclipse.gef.mvc.fx.parts.BulkSelectionFeedbackPart;
 import org.eclipse.gef.mvc.fx.parts.IContentPart;
 import org.eclipse.gef.mvc.fx.parts.IFeedbackPartFactory;
 import org.eclipse.gef.mvc.fx.parts.IHandlePartFactory;
+import org.eclipse.gef.mvc.fx.parts.IVisualPart;
 import org.eclipse.gef.mvc.fx.viewer.IViewer;
 
 import javafx.collections.ListChangeListener;
@@ -28,6 +30,12 @@ import javafx.scene.Node;
 /**
  * The default selection behavior is responsible for creating and removing
  * selection feedback and handles.
+ * <p>
+ * If the number of selected parts exceeds the
+ * {@link #setBulkFeedbackThreshold(int) bulk feedback threshold}, feedback and
+ * handles are only generated for the primary selection, while the outlines of
+ * all other selected parts are rendered by a single
+ * {@link BulkSelectionFeedbackPart}, which is updated incrementally.
  *
  * @author anyssen
  * @author mwienand
@@ -47,18 +55,37 @@ public class SelectionBehavior extends AbstractBehavior {
 	 */
 	public static final String SELECTION_HANDLE_PART_FACTORY = "SELECTION_HANDLE_PART_FACTORY";
 
+	/**
+	 * The default number of selected parts above which bulk feedback is used
+	 * (see {@link #setBulkFeedbackThreshold(int)}).
+	 */
+	public static final int DEFAULT_BULK_FEEDBACK_THRESHOLD = 500;
+
+	private int bulkFeedbackThreshold = DEFAULT_BULK_FEEDBACK_THRESHOLD;
+
+	// in bulk mode, the feedback part that renders the outlines of all
+	// selected parts except the primary selection, for which individual
+	// feedback and handles are generated
+	private BulkSelectionFeedbackPart bulkFeedbackPart;
+	private IContentPart<? extends Node> bulkPrimarySelection;
+
 	private ListChangeListener<IContentPart<? extends Node>> selectionObserver = new ListChangeListener<IContentPart<? extends Node>>() {
 		@Override
 		public void onChanged(
 				ListChangeListener.Change<? extends IContentPart<? extends Node>> c) {
-			// order of selection should not be relevant for feedback and
-			// handles, as such we ignore permutations
-			List<IContentPart<? extends Node>> newSelection = new ArrayList<>(
-					c.getList());
-			List<? extends IContentPart<? extends Node>> oldSelection = CollectionUtils
-					.getPreviousContents(c);
-			removeFeedbackAndHandles(oldSelection);
-			addFeedbackAndHandles(newSelection);
+			// order of selection should not be relevant for feedback, as such
+			// we ignore permutations and only process the added and removed
+			// parts
+			List<IContentPart<? extends Node>> removed = new ArrayList<>();
+			List<IContentPart<? extends Node>> added = new ArrayList<>();
+			while (c.next()) {
+				if (c.wasPermutated()) {
+					continue;
+				}
+				removed.addAll(c.getRemoved());
+				added.addAll(c.getAddedSubList());
+			}
+			updateFeedbackAndHandles(removed, added, c.getList());
 		}
 	};
 
@@ -69,7 +96,15 @@ public class SelectionBehavior extends AbstractBehavior {
 	 */
 	protected void addFeedbackAndHandles(
 			List<? extends IContentPart<? extends Node>> selected) {
-		if (!selected.isEmpty()) {
+		if (selected.size() > bulkFeedbackThreshold) {
+			// individual feedback and handles for the primary selection only
+			bulkPrimarySelection = selected.get(0);
+			addFeedback(bulkPrimarySelection);
+			addHandles(bulkPrimarySelection);
+			bulkFeedbackPart = createBulkFeedbackPart();
+			bulkPrimarySelection.getRoot().addChild(bulkFeedbackPart);
+			bulkFeedbackPart.addTargets(selected.subList(1, selected.size()));
+		} else if (!selected.isEmpty()) {
 			// add feedback individually for the selected parts
 			for (IContentPart<? extends Node> sel : selected) {
 				addFeedback(sel);
@@ -87,6 +122,17 @@ public class SelectionBehavior extends AbstractBehavior {
 		}
 	}
 
+	/**
+	 * Creates the {@link BulkSelectionFeedbackPart} that is used to render the
+	 * outlines of the selected parts in case the number of selected parts
+	 * exceeds the {@link #getBulkFeedbackThreshold() bulk feedback threshold}.
+	 *
+	 * @return A new {@link BulkSelectionFeedbackPart}.
+	 */
+	protected BulkSelectionFeedbackPart createBulkFeedbackPart() {
+		return new BulkSelectionFeedbackPart();
+	}
+
 	@Override
 	protected void doActivate() {
 		// register
@@ -110,6 +156,16 @@ public class SelectionBehavior extends AbstractBehavior {
 				.removeListener(selectionObserver);
 	}
 
+	/**
+	 * Returns the number of selected parts above which bulk feedback is used
+	 * (see {@link #setBulkFeedbackThreshold(int)}).
+	 *
+	 * @return The number of selected parts above which bulk feedback is used.
+	 */
+	public int getBulkFeedbackThreshold() {
+		return bulkFeedbackThreshold;
+	}
+
 	@Override
 	protected IFeedbackPartFactory getFeedbackPartFactory(IViewer viewer) {
 		return getFeedbackPartFactory(viewer, SELECTION_FEEDBACK_PART_FACTORY);
@@ -140,7 +196,16 @@ public class SelectionBehavior extends AbstractBehavior {
 	 */
 	protected void removeFeedbackAndHandles(
 			List<? extends IContentPart<? extends Node>> selected) {
-		if (!selected.isEmpty()) {
+		if (bulkFeedbackPart != null) {
+			removeFeedback(bulkPrimarySelection);
+			removeHandles(bulkPrimarySelection);
+			bulkFeedbackPart.removeTargets(new ArrayList<>(
+					bulkFeedbackPart.getTargetsUnmodifiable()));
+			bulkFeedbackPart.getRoot().removeChild(bulkFeedbackPart);
+			bulkFeedbackPart.dispose();
+			bulkFeedbackPart = null;
+			bulkPrimarySelection = null;
+		} else if (!selected.isEmpty()) {
 			// remove feedback individually for all parts
 			for (IContentPart<? extends Node> sel : selected) {
 				removeFeedback(sel);
@@ -157,4 +222,133 @@ public class SelectionBehavior extends AbstractBehavior {
 			}
 		}
 	}
+
+	/**
+	 * Sets the number of selected parts above which bulk feedback is used. In
+	 * this case, feedback and handles are only generated for the primary
+	 * selection, while the outlines of all other selected parts are rendered
+	 * by a single {@link BulkSelectionFeedbackPart}. Per default, bulk feedback
+	 * is used for more than {@value #DEFAULT_BULK_FEEDBACK_THRESHOLD} selected
+	 * parts. The threshold should not be changed while this behavior is
+	 * active.
+	 *
+	 * @param bulkFeedbackThreshold
+	 *            The number of selected parts above which bulk feedback is
+	 *            used, or {@link Integer#MAX_VALUE} to disable bulk feedback.
+	 */
+	public void setBulkFeedbackThreshold(int bulkFeedbackThreshold) {
+		this.bulkFeedbackThreshold = bulkFeedbackThreshold;
+	}
+
+	/**
+	 * Updates the feedback and handles in response to a selection change, in
+	 * which the given removed and added {@link IContentPart}s were changed.
+	 * Feedback is only removed for (or added to) the parts that were
+	 * deselected (or selected), while the handles, which depend on the whole
+	 * selection, are re-generated.
+	 *
+	 * @param removed
+	 *            The {@link IContentPart}s that were removed from the
+	 *            selection (may include parts that were re-added).
+	 * @param added
+	 *            The {@link IContentPart}s that were added to the selection
+	 *            (may include parts that were selected before).
+	 * @param selection
+	 *            The current selection.
+	 */
+	protected void updateFeedbackAndHandles(
+			List<? extends IContentPart<? extends Node>> removed,
+			List<? extends IContentPart<? extends Node>> added,
+			List<? extends IContentPart<? extends Node>> selection) {
+		boolean bulk = selection.size() > bulkFeedbackThreshold;
+		if (bulk != (bulkFeedbackPart != null)) {
+			// switch between individual and bulk feedback
+			if (bulkFeedbackPart != null) {
+				removeFeedbackAndHandles(selection);
+			} else {
+				for (Set<IVisualPart<? extends Node>> targetSet : new ArrayList<>(
+						getHandlesPerTargetSet().keySet())) {
+					removeHandles(targetSet);
+				}
+				for (Set<IVisualPart<? extends Node>> targetSet : new ArrayList<>(
+						getFeedbackPerTargetSet().keySet())) {
+					removeFeedback(targetSet);
+				}
+			}
+			addFeedbackAndHandles(selection);
+			return;
+		}
+		if (bulk) {
+			updateBulkFeedbackAndHandles(removed, added, selection);
+			return;
+		}
+
+		// remove handles of the previous selection
+		for (Set<IVisualPart<? extends Node>> targetSet : new ArrayList<>(
+				getHandlesPerTargetSet().keySet())) {
+			removeHandles(targetSet);
+		}
+
+		// remove feedback of deselected parts, add feedback for newly selected
+		// parts
+		SelectionModel selectionModel = getSelectionModel();
+		for (IContentPart<? extends Node> p : removed) {
+			if (!selectionModel.isSelected(p) && hasFeedback(p)) {
+				removeFeedback(p);
+			}
+		}
+		for (IContentPart<? extends Node> p : added) {
+			if (!hasFeedback(p)) {
+				addFeedback(p);
+			}
+		}
+
+		// XXX: For a multi selection, handles are generated for the whole
+		// selection and not for each part individually. For a single
+		// selection, handles are generated for the only selected part.
+		if (selection.size() == 1) {
+			addHandles(selection.get(0));
+		} else if (!selection.isEmpty()) {
+			addHandles(selection);
+		}
+	}
+
+	/**
+	 * Updates the bulk feedback in response to a selection change, i.e.
+	 * removes the outlines of the deselected parts, adds the outlines of the
+	 * newly selected parts, and moves the individual feedback and handles to
+	 * the new primary selection if it changed.
+	 */
+	private void updateBulkFeedbackAndHandles(
+			List<? extends IContentPart<? extends Node>> removed,
+			List<? extends IContentPart<? extends Node>> added,
+			List<? extends IContentPart<? extends Node>> selection) {
+		SelectionModel selectionModel = getSelectionModel();
+		List<IContentPart<? extends Node>> bulkRemoved = new ArrayList<>();
+		List<IContentPart<? extends Node>> bulkAdded = new ArrayList<>();
+		IContentPart<? extends Node> primarySelection = selection.get(0);
+		if (primarySelection != bulkPrimarySelection) {
+			removeHandles(bulkPrimarySelection);
+			removeFeedback(bulkPrimarySelection);
+			if (selectionModel.isSelected(bulkPrimarySelection)) {
+				bulkAdded.add(bulkPrimarySelection);
+			}
+			bulkPrimarySelection = primarySelection;
+			bulkRemoved.add(primarySelection);
+			addFeedback(primarySelection);
+			addHandles(primarySelection);
+		}
+		for (IContentPart<? extends Node> p : removed) {
+			if (!selectionModel.isSelected(p)) {
+				bulkRemoved.add(p);
+			}
+		}
+		for (IContentPart<? extends Node> p : added) {
+			if (p != primarySelection) {
+				bulkAdded.add(p);
+			}
+		}
+		bulkFeedbackPart.removeTargets(bulkRemoved);
+		bulkFeedbackPart.addTargets(bulkAdded);
+	}
 }
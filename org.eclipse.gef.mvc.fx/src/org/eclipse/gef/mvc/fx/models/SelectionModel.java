@@ -17,7 +17,9 @@ package org.eclipse.gef.mvc.fx.models;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.gef.common.beans.property.ReadOnlyListWrapperEx;
 import org.eclipse.gef.common.collections.CollectionUtils;
@@ -38,6 +40,13 @@ import javafx.scene.Node;
  * It represents the selection as an ordered list of {@link IContentPart}s.
  * Thereby, it supports a multi-selection and allows to identify a primary
  * selection (the head element of the list) that may be treated specially.
+ * <p>
+ * In addition to the ordered list, the selected {@link IContentPart}s are
+ * stored within a hash index, so that {@link #isSelected(IContentPart)} is
+ * answered in constant time, and updates that add or remove k parts only
+ * perform O(k) membership checks. Whenever possible, the selection list is
+ * changed by a single addition or removal, so that listeners are notified
+ * about the added or removed parts only.
  *
  * @author anyssen
  * @author mwienand
@@ -58,6 +67,10 @@ public class SelectionModel
 	private ObservableList<IContentPart<? extends Node>> selection = CollectionUtils
 			.observableArrayList();
 
+	// hash index of the selection, which is updated before the selection list
+	// is changed, so that listeners can rely on isSelected()
+	private Set<IContentPart<? extends Node>> selectionIndex = new HashSet<>();
+
 	private ObservableList<IContentPart<? extends Node>> selectionUnmodifiable = FXCollections
 			.unmodifiableObservableList(selection);
 	private ReadOnlyListWrapper<IContentPart<? extends Node>> selectionUnmodifiableProperty = new ReadOnlyListWrapperEx<>(
@@ -71,7 +84,7 @@ public class SelectionModel
 			if (change.wasRemoved()) {
 				IVisualPart<? extends Node> valueRemoved = change
 						.getValueRemoved();
-				if (selection.contains(valueRemoved)) {
+				if (selectionIndex.remove(valueRemoved)) {
 					selection.remove(valueRemoved);
 				}
 			}
@@ -114,46 +127,79 @@ public class SelectionModel
 	 */
 	public void appendToSelection(
 			List<? extends IContentPart<? extends Node>> toBeAppended) {
-		List<IContentPart<? extends Node>> newSelection = getSelectionCopy();
-		newSelection.removeAll(toBeAppended);
-		for (IContentPart<? extends Node> p : toBeAppended) {
-			if (newSelection.contains(p)) {
-				throw new IllegalArgumentException("The content part " + p
-						+ " is provided more than once in the given list.");
+		Set<IContentPart<? extends Node>> appended = toSet(toBeAppended);
+		int size = selection.size();
+		int count = toBeAppended.size();
+		if (count <= size && selection.subList(size - count, size)
+				.equals(toBeAppended)) {
+			// already selected at the back
+			return;
+		}
+		if (!containsAny(appended)) {
+			add(size, toBeAppended);
+			return;
+		}
+		List<IContentPart<? extends Node>> newSelection = new ArrayList<>(
+				size + count);
+		for (IContentPart<? extends Node> p : selection) {
+			if (!appended.contains(p)) {
+				newSelection.add(p);
 			}
-			newSelection.add(p);
 		}
-		// XXX: ObservableList.setAll() is not properly guarded against not
-		// having an effect (and will always notify attached listeners)
-		if (!selection.equals(newSelection)) {
-			selection.setAll(newSelection);
+		newSelection.addAll(toBeAppended);
+		replace(newSelection);
+	}
+
+	/**
+	 * Adds the given {@link IContentPart}s, none of which may be selected yet,
+	 * at the given index of the selection.
+	 *
+	 * @param index
+	 *            The index at which to insert the given {@link IContentPart}s.
+	 * @param toBeAdded
+	 *            The {@link IContentPart}s to add.
+	 */
+	private void add(int index,
+			List<? extends IContentPart<? extends Node>> toBeAdded) {
+		if (toBeAdded.isEmpty()) {
+			return;
 		}
+		selectionIndex.addAll(toBeAdded);
+		selection.addAll(index, toBeAdded);
 	}
 
 	/**
 	 * Clears the current selection.
 	 */
 	public void clearSelection() {
+		selectionIndex.clear();
 		selection.clear();
 	}
 
 	/**
-	 * @since 1.1
+	 * Returns whether any of the given {@link IContentPart}s is selected.
+	 *
+	 * @param contentParts
+	 *            The {@link IContentPart}s to test.
+	 * @return <code>true</code> if at least one of the given
+	 *         {@link IContentPart}s is selected, otherwise <code>false</code>.
 	 */
-	@Override
-	public void dispose() {
-		// setAdaptable() already clears the selection
+	private boolean containsAny(
+			Collection<? extends IContentPart<? extends Node>> contentParts) {
+		for (IContentPart<? extends Node> p : contentParts) {
+			if (selectionIndex.contains(p)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
-	 * Returns a modifiable list of the currently selected {@link IContentPart}
-	 * s.
-	 *
-	 * @return A modifiable list of the currently selected {@link IContentPart}
-	 *         s.
+	 * @since 1.1
 	 */
-	private List<IContentPart<? extends Node>> getSelectionCopy() {
-		return new ArrayList<>(selection);
+	@Override
+	public void dispose() {
+		// setAdaptable() already clears the selection
 	}
 
 	/**
@@ -177,7 +223,7 @@ public class SelectionModel
 	 *         current selection.
 	 */
 	public boolean isSelected(IContentPart<? extends Node> contentPart) {
-		return selection.contains(contentPart);
+		return selectionIndex.contains(contentPart);
 	}
 
 	/**
@@ -216,19 +262,26 @@ public class SelectionModel
 	 */
 	public void prependToSelection(
 			List<? extends IContentPart<? extends Node>> toBePrepended) {
-		List<IContentPart<? extends Node>> newSelection = getSelectionCopy();
-		newSelection.removeAll(toBePrepended);
-		int i = 0;
-		for (IContentPart<? extends Node> p : toBePrepended) {
-			if (newSelection.contains(p)) {
-				throw new IllegalArgumentException("The content part " + p
-						+ " is provided more than once in the given list.");
-			}
-			newSelection.add(i++, p);
+		Set<IContentPart<? extends Node>> prepended = toSet(toBePrepended);
+		int count = toBePrepended.size();
+		if (count <= selection.size()
+				&& selection.subList(0, count).equals(toBePrepended)) {
+			// already selected at the front
+			return;
+		}
+		if (!containsAny(prepended)) {
+			add(0, toBePrepended);
+			return;
 		}
-		if (!selection.equals(newSelection)) {
-			selection.setAll(newSelection);
+		List<IContentPart<? extends Node>> newSelection = new ArrayList<>(
+				selection.size() + count);
+		newSelection.addAll(toBePrepended);
+		for (IContentPart<? extends Node> p : selection) {
+			if (!prepended.contains(p)) {
+				newSelection.add(p);
+			}
 		}
+		replace(newSelection);
 	}
 
 	/**
@@ -242,7 +295,18 @@ public class SelectionModel
 	 */
 	public void removeFromSelection(
 			Collection<? extends IContentPart<? extends Node>> contentParts) {
-		selection.removeAll(contentParts);
+		Set<IContentPart<? extends Node>> removed = new HashSet<>();
+		for (IContentPart<? extends Node> p : contentParts) {
+			if (selectionIndex.remove(p)) {
+				removed.add(p);
+			}
+		}
+		if (removed.size() == 1) {
+			selection.remove(removed.iterator().next());
+		} else if (!removed.isEmpty()) {
+			// removeAll() checks the containment of all selected parts
+			selection.removeAll(removed);
+		}
 	}
 
 	/**
@@ -254,7 +318,22 @@ public class SelectionModel
 	 *            selection.
 	 */
 	public void removeFromSelection(IContentPart<? extends Node> contentPart) {
-		selection.remove(contentPart);
+		if (selectionIndex.remove(contentPart)) {
+			selection.remove(contentPart);
+		}
+	}
+
+	/**
+	 * Replaces the selection with the given list of {@link IContentPart}s,
+	 * which may not contain duplicates.
+	 *
+	 * @param newSelection
+	 *            The new selection.
+	 */
+	private void replace(List<IContentPart<? extends Node>> newSelection) {
+		selectionIndex.clear();
+		selectionIndex.addAll(newSelection);
+		selection.setAll(newSelection);
 	}
 
 	/**
@@ -305,17 +384,55 @@ public class SelectionModel
 	 */
 	public void setSelection(
 			List<? extends IContentPart<? extends Node>> selection) {
-		List<IContentPart<? extends Node>> newSelection = new ArrayList<>();
-		int i = 0;
-		for (IContentPart<? extends Node> p : selection) {
-			if (newSelection.contains(p)) {
+		Set<IContentPart<? extends Node>> newSelection = toSet(selection);
+		if (this.selection.equals(selection)) {
+			return;
+		}
+
+		// determine whether the new selection consists of the retained parts
+		// (in their current order) followed by the added parts, in which case
+		// the change can be expressed as a single removal or addition
+		Set<IContentPart<? extends Node>> removed = new HashSet<>();
+		int retained = 0;
+		boolean ordered = true;
+		for (IContentPart<? extends Node> p : this.selection) {
+			if (!newSelection.contains(p)) {
+				removed.add(p);
+			} else if (ordered && selection.get(retained).equals(p)) {
+				retained++;
+			} else {
+				ordered = false;
+			}
+		}
+		if (ordered && removed.isEmpty()) {
+			add(this.selection.size(),
+					selection.subList(retained, selection.size()));
+		} else if (ordered && retained == selection.size()) {
+			removeFromSelection(removed);
+		} else {
+			replace(new ArrayList<IContentPart<? extends Node>>(selection));
+		}
+	}
+
+	/**
+	 * Returns a {@link Set} containing the given {@link IContentPart}s.
+	 *
+	 * @param contentParts
+	 *            The {@link IContentPart}s to add to the {@link Set}.
+	 * @return A {@link Set} containing the given {@link IContentPart}s.
+	 * @throws IllegalArgumentException
+	 *             if an {@link IContentPart} is contained more than once in
+	 *             the given list.
+	 */
+	private Set<IContentPart<? extends Node>> toSet(
+			List<? extends IContentPart<? extends Node>> contentParts) {
+		Set<IContentPart<? extends Node>> set = new HashSet<>();
+		for (IContentPart<? extends Node> p : contentParts) {
+			if (!set.add(p)) {
 				throw new IllegalArgumentException("The content part " + p
 						+ " is provided more than once in the given list.");
 			}
-			newSelection.add(i++, p);
-		}
-		if (!this.selection.equals(newSelection)) {
-			this.selection.setAll(newSelection);
 		}
+		return set;
 	}
 }
@@ -15,9 +15,10 @@
 package org.eclipse.gef.mvc.fx.parts;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.eclipse.gef.common.activate.ActivatableSupport;
@@ -184,20 +185,55 @@ public abstract class AbstractVisualPart<V extends Node>
 		addChildren(children, this.children.size());
 	}
 
+	/**
+	 * Adds the given children at the given index. In contrast to repeatedly
+	 * calling {@link #addChild(IVisualPart, int)}, the children list is
+	 * modified (and its listeners are notified) only once, this part's visual
+	 * is refreshed only once, and the children's visuals are added via a single
+	 * call to {@link #doAddChildVisuals(List, int)}. The children are activated
+	 * after all of them have been added.
+	 */
 	@Override
 	public void addChildren(
 			List<? extends IVisualPart<? extends Node>> children, int index) {
-		if (!Collections.disjoint(this.children, children)) {
-			List<? extends IVisualPart<? extends Node>> alreadyContainedChildren = new ArrayList<>(
-					children);
-			children.retainAll(this.children);
+		if (children.isEmpty()) {
+			return;
+		}
+		Set<IVisualPart<? extends Node>> newChildren = new HashSet<>(
+				children);
+		if (newChildren.size() != children.size()) {
+			throw new IllegalArgumentException("Cannot add " + children
+					+ " as children of " + this
+					+ " because the list contains duplicates.");
+		}
+		List<IVisualPart<? extends Node>> alreadyContainedChildren = new ArrayList<>();
+		for (IVisualPart<? extends Node> child : this.children) {
+			if (newChildren.contains(child)) {
+				alreadyContainedChildren.add(child);
+			}
+		}
+		if (!alreadyContainedChildren.isEmpty()) {
 			throw new IllegalArgumentException(
 					"Cannot add " + children + " as children of " + this
 							+ " because the following are already children: "
 							+ alreadyContainedChildren + ".");
 		}
-		for (int i = 0; i < children.size(); i++) {
-			addChild(children.get(i), index + i);
+
+		this.children.addAll(index, children);
+		for (IVisualPart<? extends Node> child : children) {
+			child.setParent(this);
+		}
+
+		refreshVisual();
+		doAddChildVisuals(children, index);
+		for (IVisualPart<? extends Node> child : children) {
+			child.refreshVisual();
+		}
+
+		if (isActive()) {
+			for (IVisualPart<? extends Node> child : children) {
+				child.activate();
+			}
 		}
 	}
 
@@ -432,6 +468,26 @@ public abstract class AbstractVisualPart<V extends Node>
 						+ this.getClass());
 	}
 
+	/**
+	 * Performs the addition of the <i>visuals</i> of the given children, which
+	 * have been inserted into the children list at the given index, to this
+	 * {@link IVisualPart}'s visual. Delegates to
+	 * {@link #doAddChildVisual(IVisualPart, int)} for each child by default.
+	 * Subclasses may override to insert all visuals at once.
+	 *
+	 * @param children
+	 *            The {@link IVisualPart}s being added.
+	 * @param index
+	 *            The position of the first child.
+	 * @see #addChildren(List, int)
+	 */
+	protected void doAddChildVisuals(
+			List<? extends IVisualPart<? extends Node>> children, int index) {
+		for (int i = 0; i < children.size(); i++) {
+			doAddChildVisual(children.get(i), index + i);
+		}
+	}
+
 	/**
 	 * Attaches this part's visual to the visual of the given anchorage.
 	 *
@@ -501,6 +557,30 @@ public abstract class AbstractVisualPart<V extends Node>
 						+ this.getClass());
 	}
 
+	/**
+	 * Removes the <i>visuals</i> of the given children from this
+	 * {@link IVisualPart}'s visual. The children are passed in the order in
+	 * which they are contained in the children list, which still contains them
+	 * when this method is called. Delegates to
+	 * {@link #doRemoveChildVisual(IVisualPart, int)} for each child (starting
+	 * with the last one) by default. Subclasses may override to remove all
+	 * visuals at once.
+	 *
+	 * @param children
+	 *            The {@link IVisualPart}s being removed.
+	 * @see #removeChildren(List)
+	 */
+	protected void doRemoveChildVisuals(
+			List<? extends IVisualPart<? extends Node>> children) {
+		int c = children.size() - 1;
+		for (int i = this.children.size() - 1; i >= 0 && c >= 0; i--) {
+			if (this.children.get(i) == children.get(c)) {
+				doRemoveChildVisual(children.get(c), i);
+				c--;
+			}
+		}
+	}
+
 	@Override
 	public IViewer getAdaptable() {
 		return viewerProperty.get();
@@ -704,22 +784,54 @@ public abstract class AbstractVisualPart<V extends Node>
 		children.remove(child);
 	}
 
+	/**
+	 * Removes the given children. In contrast to repeatedly calling
+	 * {@link #removeChild(IVisualPart)}, the children's visuals are removed via
+	 * a single call to {@link #doRemoveChildVisuals(List)}, and the children
+	 * list is modified (and its listeners are notified) only once.
+	 */
 	@Override
 	public void removeChildren(
 			List<? extends IVisualPart<? extends Node>> children) {
-		if (!this.children.containsAll(children)) {
+		if (children.isEmpty()) {
+			return;
+		}
+		Set<IVisualPart<? extends Node>> oldChildren = new HashSet<>(
+				children);
+		if (oldChildren.size() != children.size()) {
+			throw new IllegalArgumentException("Cannot remove " + children
+					+ " as children of " + this
+					+ " because the list contains duplicates.");
+		}
+		// collect the children to remove in the order of the children list
+		List<IVisualPart<? extends Node>> removed = new ArrayList<>();
+		for (IVisualPart<? extends Node> child : this.children) {
+			if (oldChildren.contains(child)) {
+				removed.add(child);
+			}
+		}
+		if (removed.size() != oldChildren.size()) {
 			List<? extends IVisualPart<? extends Node>> notContainedChildren = new ArrayList<>(
 					children);
-			notContainedChildren.removeAll(this.children);
+			notContainedChildren.removeAll(new HashSet<>(removed));
 			throw new IllegalArgumentException(
 					"Cannot remove " + children + " as children of " + this
 							+ " because the following are no children: "
 							+ notContainedChildren + ".");
 		}
-		// TODO: use children.removeAll and perform the de-registration here
-		for (IVisualPart<? extends Node> child : children) {
-			removeChild(child);
+
+		if (isActive()) {
+			for (IVisualPart<? extends Node> child : removed) {
+				child.deactivate();
+			}
+		}
+
+		doRemoveChildVisuals(removed);
+
+		for (IVisualPart<? extends Node> child : removed) {
+			child.setParent(null);
 		}
+		this.children.removeAll(oldChildren);
 	}
 
 	@Override
@@ -0,0 +1,387 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.mvc.fx.parts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.gef.common.adapt.AdapterKey;
+import org.eclipse.gef.fx.utils.Geometry2Shape;
+import org.eclipse.gef.fx.utils.NodeUtils;
+import org.eclipse.gef.geometry.planar.IGeometry;
+import org.eclipse.gef.mvc.fx.behaviors.SelectionBehavior;
+
+import com.google.common.reflect.TypeToken;
+import com.google.inject.Provider;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+
+/**
+ * The {@link BulkSelectionFeedbackPart} renders the selection outlines of an
+ * arbitrary number of target parts into a single {@link Path}, so that no
+ * scene graph nodes, anchorage links, or {@link IFeedbackPart}s need to be
+ * created per selected part. It is used by the {@link SelectionBehavior} for
+ * very large selections (see
+ * {@link SelectionBehavior#setBulkFeedbackThreshold(int)}).
+ * <p>
+ * The outlines are determined using the
+ * {@link DefaultSelectionFeedbackPartFactory#SELECTION_FEEDBACK_GEOMETRY_PROVIDER}
+ * of the target parts, and are rendered using the secondary selection color.
+ * Targets can be added and removed incrementally (see
+ * {@link #addTargets(Collection)} and {@link #removeTargets(Collection)}). In
+ * case the bounds of a target visual change within its parent, only the
+ * outline of that target is re-computed and replaced within the {@link Path}.
+ * In case the transformation of one of the ancestors changes (up to the first
+ * ancestor that also contains the {@link Path}), all outlines are
+ * re-computed. Both is done once per pulse. As most targets share their
+ * ancestors, only a few listeners need to be registered for the ancestors.
+ */
+public class BulkSelectionFeedbackPart extends AbstractFeedbackPart<Path> {
+
+	/**
+	 * The stroke width for selection feedback.
+	 */
+	protected static final double DEFAULT_STROKE_WIDTH = 1.5d;
+
+	// path elements of the outline per target (in insertion order)
+	private final Map<IVisualPart<? extends Node>, PathElement[]> outlines = new LinkedHashMap<>();
+	// observed ancestors per target, and the number of targets per observed
+	// ancestor
+	private final Map<IVisualPart<? extends Node>, Node[]> ancestors = new HashMap<>();
+	private final Map<Node, Integer> observedAncestors = new IdentityHashMap<>();
+	// the target per observed bounds, and the targets whose bounds changed
+	// since the last refresh
+	private final Map<Observable, IVisualPart<? extends Node>> boundsTargets = new IdentityHashMap<>();
+	private final Set<IVisualPart<? extends Node>> dirtyTargets = Collections
+			.newSetFromMap(new IdentityHashMap<IVisualPart<? extends Node>, Boolean>());
+	private boolean refreshScheduled;
+	private boolean fullRefresh;
+
+	private InvalidationListener boundsListener = new InvalidationListener() {
+		@Override
+		public void invalidated(Observable observable) {
+			IVisualPart<? extends Node> target = boundsTargets.get(observable);
+			if (target != null) {
+				dirtyTargets.add(target);
+				scheduleRefresh();
+			}
+		}
+	};
+
+	private InvalidationListener transformListener = new InvalidationListener() {
+		@Override
+		public void invalidated(Observable observable) {
+			fullRefresh = true;
+			scheduleRefresh();
+		}
+	};
+
+	/**
+	 * Default constructor.
+	 */
+	public BulkSelectionFeedbackPart() {
+		// the visual does not depend on anchorages
+		setRefreshVisual(true);
+	}
+
+	/**
+	 * Adds the given target parts (that are not yet contained) to this
+	 * {@link BulkSelectionFeedbackPart}, appending their outlines to the
+	 * {@link Path}. Needs to be called after this part was added to the root
+	 * part.
+	 *
+	 * @param targets
+	 *            The target parts to add.
+	 */
+	public void addTargets(
+			Collection<? extends IVisualPart<? extends Node>> targets) {
+		List<PathElement> added = new ArrayList<>();
+		Set<Node> pathAncestors = getPathAncestors();
+		for (IVisualPart<? extends Node> target : targets) {
+			if (outlines.containsKey(target)) {
+				continue;
+			}
+			PathElement[] outline = computeOutline(target);
+			outlines.put(target, outline);
+			added.addAll(Arrays.asList(outline));
+			boundsTargets.put(target.getVisual().boundsInParentProperty(),
+					target);
+			target.getVisual().boundsInParentProperty()
+					.addListener(boundsListener);
+			// validate the bounds, so that the next change is reported
+			target.getVisual().getBoundsInParent();
+			observeAncestors(target, pathAncestors);
+		}
+		if (!added.isEmpty()) {
+			getVisual().getElements().addAll(added);
+		}
+	}
+
+	/**
+	 * Computes the outline of the given target part within the coordinate
+	 * system of the parent of the {@link Path}.
+	 *
+	 * @param target
+	 *            The target part.
+	 * @return The {@link PathElement}s of the outline, which may be empty if
+	 *         no selection feedback geometry is provided by the target part.
+	 */
+	protected PathElement[] computeOutline(IVisualPart<? extends Node> target) {
+		@SuppressWarnings("serial")
+		Provider<? extends IGeometry> geometryProvider = target
+				.getAdapter(AdapterKey
+						.get(new TypeToken<Provider<? extends IGeometry>>() {
+						}, DefaultSelectionFeedbackPartFactory.SELECTION_FEEDBACK_GEOMETRY_PROVIDER));
+		Node parent = getVisual().getParent();
+		if (geometryProvider == null || parent == null
+				|| target.getVisual().getScene() == null) {
+			return new PathElement[0];
+		}
+		IGeometry geometry = geometryProvider.get();
+		if (geometry == null) {
+			return new PathElement[0];
+		}
+		IGeometry geometryInParent = NodeUtils.sceneToLocal(parent,
+				NodeUtils.localToScene(target.getVisual(), geometry));
+		return Geometry2Shape.toPathElements(geometryInParent.toPath());
+	}
+
+	/**
+	 * Returns the {@link Path} and its ancestors.
+	 */
+	private Set<Node> getPathAncestors() {
+		Set<Node> pathAncestors = Collections
+				.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		for (Node node = getVisual(); node != null; node = node.getParent()) {
+			pathAncestors.add(node);
+		}
+		return pathAncestors;
+	}
+
+	/**
+	 * Observes the transformations of the ancestors of the visual of the
+	 * given target part, up to (excluding) the first ancestor that also
+	 * contains the {@link Path}, as these transformations change the outline
+	 * of the target part relative to the {@link Path}.
+	 */
+	private void observeAncestors(IVisualPart<? extends Node> target,
+			Set<Node> pathAncestors) {
+		List<Node> observed = new ArrayList<>();
+		for (Node ancestor = target.getVisual()
+				.getParent(); ancestor != null && !pathAncestors
+						.contains(ancestor); ancestor = ancestor.getParent()) {
+			observed.add(ancestor);
+			Integer count = observedAncestors.get(ancestor);
+			if (count == null) {
+				ancestor.localToParentTransformProperty()
+						.addListener(transformListener);
+				count = 0;
+			}
+			observedAncestors.put(ancestor, count + 1);
+			// validate the transform, so that the next change is reported
+			ancestor.getLocalToParentTransform();
+		}
+		ancestors.put(target, observed.toArray(new Node[observed.size()]));
+	}
+
+	/**
+	 * Stops observing the ancestors that were observed for the given target
+	 * part (unless they are observed for other target parts).
+	 */
+	private void unobserveAncestors(IVisualPart<? extends Node> target) {
+		Node[] observed = ancestors.remove(target);
+		if (observed == null) {
+			return;
+		}
+		for (Node ancestor : observed) {
+			int count = observedAncestors.get(ancestor);
+			if (count == 1) {
+				observedAncestors.remove(ancestor);
+				ancestor.localToParentTransformProperty()
+						.removeListener(transformListener);
+			} else {
+				observedAncestors.put(ancestor, count - 1);
+			}
+		}
+	}
+
+	@Override
+	protected Path doCreateVisual() {
+		Path path = new Path();
+		path.setFill(null);
+		path.setMouseTransparent(true);
+		path.setManaged(false);
+		path.setStrokeWidth(DEFAULT_STROKE_WIDTH);
+		return path;
+	}
+
+	@Override
+	protected void doRefreshVisual(Path visual) {
+		visual.setStroke(getSecondarySelectionColor());
+		if (visual.getParent() == null) {
+			return;
+		}
+		dirtyTargets.clear();
+		fullRefresh = false;
+		List<PathElement> elements = new ArrayList<>();
+		for (Map.Entry<IVisualPart<? extends Node>, PathElement[]> entry : outlines
+				.entrySet()) {
+			PathElement[] outline = computeOutline(entry.getKey());
+			entry.setValue(outline);
+			elements.addAll(Arrays.asList(outline));
+			// validate the bounds, so that the next change is reported
+			entry.getKey().getVisual().getBoundsInParent();
+		}
+		for (Node ancestor : observedAncestors.keySet()) {
+			ancestor.getLocalToParentTransform();
+		}
+		visual.getElements().setAll(elements);
+	}
+
+	/**
+	 * Returns the secondary selection color.
+	 *
+	 * @return The secondary selection color.
+	 */
+	protected Color getSecondarySelectionColor() {
+		@SuppressWarnings("serial")
+		Provider<Color> connectedColorProvider = getViewer() == null ? null
+				: getViewer().getAdapter(
+						AdapterKey.get(new TypeToken<Provider<Color>>() {
+						}, DefaultSelectionFeedbackPartFactory.SECONDARY_SELECTION_FEEDBACK_COLOR_PROVIDER));
+		return connectedColorProvider == null
+				? DefaultSelectionFeedbackPartFactory.DEFAULT_SECONDARY_SELECTION_FEEDBACK_COLOR
+				: connectedColorProvider.get();
+	}
+
+	/**
+	 * Returns an unmodifiable set of the target parts of this
+	 * {@link BulkSelectionFeedbackPart}.
+	 *
+	 * @return An unmodifiable set of the target parts.
+	 */
+	public Set<IVisualPart<? extends Node>> getTargetsUnmodifiable() {
+		return Collections.unmodifiableSet(outlines.keySet());
+	}
+
+	/**
+	 * Re-computes the outlines of the targets whose bounds changed, and
+	 * replaces their {@link PathElement}s within the {@link Path}.
+	 */
+	private void refreshOutlines() {
+		if (dirtyTargets.isEmpty() || getVisual().getParent() == null) {
+			return;
+		}
+		// determine the offsets of the outlines within the path, and replace
+		// them back to front, so that the preceding offsets remain valid
+		List<IVisualPart<? extends Node>> changed = new ArrayList<>();
+		List<Integer> offsets = new ArrayList<>();
+		int offset = 0;
+		for (Map.Entry<IVisualPart<? extends Node>, PathElement[]> entry : outlines
+				.entrySet()) {
+			if (dirtyTargets.contains(entry.getKey())) {
+				changed.add(entry.getKey());
+				offsets.add(offset);
+			}
+			offset += entry.getValue().length;
+		}
+		dirtyTargets.clear();
+		List<PathElement> elements = getVisual().getElements();
+		for (int i = changed.size() - 1; i >= 0; i--) {
+			IVisualPart<? extends Node> target = changed.get(i);
+			int from = offsets.get(i);
+			PathElement[] oldOutline = outlines.get(target);
+			PathElement[] newOutline = computeOutline(target);
+			outlines.put(target, newOutline);
+			if (oldOutline.length == newOutline.length) {
+				for (int k = 0; k < newOutline.length; k++) {
+					elements.set(from + k, newOutline[k]);
+				}
+			} else {
+				elements.subList(from, from + oldOutline.length).clear();
+				elements.addAll(from, Arrays.asList(newOutline));
+			}
+			// validate the bounds, so that the next change is reported
+			target.getVisual().getBoundsInParent();
+		}
+	}
+
+	/**
+	 * Removes the given target parts from this
+	 * {@link BulkSelectionFeedbackPart}, removing their outlines from the
+	 * {@link Path}.
+	 *
+	 * @param targets
+	 *            The target parts to remove.
+	 */
+	public void removeTargets(
+			Collection<? extends IVisualPart<? extends Node>> targets) {
+		Set<PathElement> removed = new HashSet<>();
+		for (IVisualPart<? extends Node> target : targets) {
+			PathElement[] outline = outlines.remove(target);
+			if (outline != null) {
+				boundsTargets
+						.remove(target.getVisual().boundsInParentProperty());
+				target.getVisual().boundsInParentProperty()
+						.removeListener(boundsListener);
+				dirtyTargets.remove(target);
+				unobserveAncestors(target);
+				removed.addAll(Arrays.asList(outline));
+			}
+		}
+		if (!removed.isEmpty()) {
+			getVisual().getElements().removeAll(removed);
+		}
+	}
+
+	/**
+	 * Schedules a refresh of the outlines of the changed targets (or of all
+	 * outlines, if the transformation of an ancestor changed), which is
+	 * performed when the JavaFX application thread processes its next pulse,
+	 * so that changes of multiple targets are coalesced into a single refresh.
+	 */
+	private void scheduleRefresh() {
+		if (refreshScheduled) {
+			return;
+		}
+		refreshScheduled = true;
+		Platform.runLater(new Runnable() {
+			@Override
+			public void run() {
+				refreshScheduled = false;
+				if (outlines.isEmpty()) {
+					dirtyTargets.clear();
+					fullRefresh = false;
+				} else if (fullRefresh) {
+					refreshVisual();
+				} else {
+					refreshOutlines();
+				}
+			}
+		});
+	}
+}
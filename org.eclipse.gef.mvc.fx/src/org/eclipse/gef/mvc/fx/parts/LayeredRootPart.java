@@ -11,7 +11,10 @@
  *******************************************************************************/
 package org.eclipse.gef.mvc.fx.parts;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.gef.mvc.fx.viewer.IViewer;
 
@@ -177,6 +180,53 @@ public class LayeredRootPart extends AbstractVisualPart<Group>
 		}
 	}
 
+	@Override
+	protected void doAddChildVisuals(
+			List<? extends IVisualPart<? extends Node>> children, int index) {
+		// determine the layer indices of the first child
+		int contentLayerIndex = 0;
+		int feedbackLayerIndex = 0;
+		int handleLayerIndex = 0;
+		for (int i = 0; i < index
+				&& i < getChildrenUnmodifiable().size(); i++) {
+			IVisualPart<? extends Node> part = getChildrenUnmodifiable()
+					.get(i);
+			if (part instanceof IContentPart) {
+				contentLayerIndex++;
+			} else if (part instanceof IFeedbackPart) {
+				feedbackLayerIndex++;
+			} else if (part instanceof IHandlePart) {
+				handleLayerIndex++;
+			}
+		}
+		// partition the visuals by layer
+		List<Node> contentVisuals = new ArrayList<>();
+		List<Node> feedbackVisuals = new ArrayList<>();
+		List<Node> handleVisuals = new ArrayList<>();
+		for (IVisualPart<? extends Node> child : children) {
+			if (child instanceof IContentPart) {
+				contentVisuals.add(child.getVisual());
+			} else if (child instanceof IFeedbackPart) {
+				feedbackVisuals.add(child.getVisual());
+			} else {
+				handleVisuals.add(child.getVisual());
+			}
+		}
+		// add the visuals to each layer at once
+		if (!contentVisuals.isEmpty()) {
+			getContentLayer().getChildren().addAll(contentLayerIndex,
+					contentVisuals);
+		}
+		if (!feedbackVisuals.isEmpty()) {
+			getFeedbackLayer().getChildren().addAll(feedbackLayerIndex,
+					feedbackVisuals);
+		}
+		if (!handleVisuals.isEmpty()) {
+			getHandleLayer().getChildren().addAll(handleLayerIndex,
+					handleVisuals);
+		}
+	}
+
 	@Override
 	protected void doAttachToAnchorageVisual(
 			IVisualPart<? extends Node> anchorage, String role) {
@@ -249,6 +299,34 @@ public class LayeredRootPart extends AbstractVisualPart<Group>
 		}
 	}
 
+	@Override
+	protected void doRemoveChildVisuals(
+			List<? extends IVisualPart<? extends Node>> children) {
+		// partition the visuals by layer
+		Set<Node> contentVisuals = new HashSet<>();
+		Set<Node> feedbackVisuals = new HashSet<>();
+		Set<Node> handleVisuals = new HashSet<>();
+		for (IVisualPart<? extends Node> child : children) {
+			if (child instanceof IContentPart) {
+				contentVisuals.add(child.getVisual());
+			} else if (child instanceof IFeedbackPart) {
+				feedbackVisuals.add(child.getVisual());
+			} else {
+				handleVisuals.add(child.getVisual());
+			}
+		}
+		// remove the visuals from each layer at once
+		if (!contentVisuals.isEmpty()) {
+			getContentLayer().getChildren().removeAll(contentVisuals);
+		}
+		if (!feedbackVisuals.isEmpty()) {
+			getFeedbackLayer().getChildren().removeAll(feedbackVisuals);
+		}
+		if (!handleVisuals.isEmpty()) {
+			getHandleLayer().getChildren().removeAll(handleVisuals);
+		}
+	}
+
 	/**
 	 * Returns the content layer visual. The content layer visual is created in
 	 * case it was not created before.
@@ -13,6 +13,7 @@ package org.eclipse.gef.mvc.tests.fx;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -109,6 +110,36 @@ public class AbstractVisualPartTests {
 		Assert.assertEquals(2, parent.getChildrenUnmodifiable().size());
 	}
 
+	@Test
+	public void testAddChildren() {
+		AbstractVisualPartStub parent = new AbstractVisualPartStub();
+		AbstractVisualPartStub child1 = new AbstractVisualPartStub();
+		AbstractVisualPartStub child2 = new AbstractVisualPartStub();
+		AbstractVisualPartStub child3 = new AbstractVisualPartStub();
+		parent.addChild(child1);
+
+		// check that both children are added by a single change
+		ListChangeExpector<IVisualPart<? extends Object>> listChangeListener = new ListChangeExpector<>(
+				parent.getChildrenUnmodifiable());
+		parent.getChildrenUnmodifiable().addListener(listChangeListener);
+		listChangeListener.addExpectation(Collections.<IVisualPart<? extends Object>>emptyList(),
+				Arrays.<IVisualPart<? extends Object>>asList(child2, child3));
+		parent.addChildren(Arrays.asList(child2, child3), 0);
+		listChangeListener.check();
+		Assert.assertEquals(Arrays.asList(child2, child3, child1), parent.getChildrenUnmodifiable());
+		Assert.assertEquals(parent, child2.getParent());
+		Assert.assertEquals(parent, child3.getParent());
+
+		// check that children cannot be added twice
+		try {
+			parent.addChildren(Arrays.asList(new AbstractVisualPartStub(), child1));
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		Assert.assertEquals(3, parent.getChildrenUnmodifiable().size());
+	}
+
 	@Test
 	public void testRemoveChild() {
 		AbstractVisualPartStub parent = new AbstractVisualPartStub();
@@ -138,6 +169,36 @@ public class AbstractVisualPartTests {
 		Assert.assertEquals(0, parent.getChildrenUnmodifiable().size());
 	}
 
+	@Test
+	public void testRemoveChildren() {
+		AbstractVisualPartStub parent = new AbstractVisualPartStub();
+		AbstractVisualPartStub child1 = new AbstractVisualPartStub();
+		AbstractVisualPartStub child2 = new AbstractVisualPartStub();
+		AbstractVisualPartStub child3 = new AbstractVisualPartStub();
+		parent.addChildren(Arrays.asList(child1, child2, child3));
+
+		// check that children which are no children cannot be removed
+		try {
+			parent.removeChildren(Arrays.asList(child1, new AbstractVisualPartStub()));
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		Assert.assertEquals(3, parent.getChildrenUnmodifiable().size());
+
+		// check that both children are removed by a single change
+		ListChangeExpector<IVisualPart<? extends Object>> listChangeListener = new ListChangeExpector<>(
+				parent.getChildrenUnmodifiable());
+		parent.getChildrenUnmodifiable().addListener(listChangeListener);
+		listChangeListener.addExpectation(Arrays.<IVisualPart<? extends Object>>asList(child2, child3),
+				Collections.<IVisualPart<? extends Object>>emptyList());
+		parent.removeChildren(Arrays.asList(child3, child2));
+		listChangeListener.check();
+		Assert.assertEquals(Collections.singletonList(child1), parent.getChildrenUnmodifiable());
+		Assert.assertNull(child2.getParent());
+		Assert.assertNull(child3.getParent());
+	}
+
 	@Test
 	public void testReorderChild() {
 		AbstractVisualPartStub parent = new AbstractVisualPartStub();
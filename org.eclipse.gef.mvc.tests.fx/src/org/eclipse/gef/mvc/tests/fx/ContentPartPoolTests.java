@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.mvc.tests.fx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.gef.mvc.fx.behaviors.ContentPartPool;
+import org.eclipse.gef.mvc.fx.parts.IContentPart;
+import org.eclipse.gef.mvc.tests.fx.stubs.Cell;
+import org.eclipse.gef.mvc.tests.fx.stubs.CellContentPart;
+import org.junit.Test;
+
+import com.google.inject.Provider;
+
+import javafx.scene.Node;
+
+/**
+ * Tests for the {@link ContentPartPool}.
+ *
+ */
+public class ContentPartPoolTests {
+
+	private static CellContentPart createPart(String name) {
+		CellContentPart part = new CellContentPart();
+		part.setContent(new Cell(name));
+		return part;
+	}
+
+	@Test
+	public void evictLeastRecentlyAdded() {
+		ContentPartPool pool = new ContentPartPool();
+		pool.setMaxPooledParts(2);
+		CellContentPart a = createPart("a");
+		CellContentPart b = createPart("b");
+		CellContentPart c = createPart("c");
+		pool.add(a);
+		pool.add(b);
+		pool.add(c);
+		assertEquals(2, pool.getPooled().size());
+		assertEquals(1, pool.getEvictionCount());
+
+		// a was evicted
+		assertNull(pool.remove(a.getContent()));
+		assertSame(b, pool.remove(b.getContent()));
+		assertSame(c, pool.remove(c.getContent()));
+		assertEquals(2, pool.getHitCount());
+		assertEquals(1, pool.getMissCount());
+		assertEquals(0, pool.getPooledSize());
+	}
+
+	@Test
+	public void evictBySize() {
+		ContentPartPool pool = new ContentPartPool();
+		CellContentPart a = createPart("a");
+		CellContentPart b = createPart("b");
+		pool.add(a);
+		// the visual of a cell content part is a single rectangle
+		assertEquals(1, pool.getPooledSize());
+		pool.setMaxPooledSize(1);
+		pool.add(b);
+		assertEquals(1, pool.getEvictionCount());
+		assertEquals(1, pool.getPooledSize());
+		assertSame(b, pool.remove(b.getContent()));
+	}
+
+	@Test
+	public void prewarmAndAcquire() {
+		ContentPartPool pool = new ContentPartPool();
+		pool.prewarm(CellContentPart.class, 2, new Provider<CellContentPart>() {
+			@Override
+			public CellContentPart get() {
+				return new CellContentPart();
+			}
+		});
+		CellContentPart first = pool.acquire(CellContentPart.class);
+		assertNotNull(first);
+		assertNotNull(first.getVisual());
+		assertNotNull(pool.acquire(CellContentPart.class));
+		assertNull(pool.acquire(CellContentPart.class));
+		assertEquals(2, pool.getRecycleCount());
+	}
+
+	@Test
+	public void recycleEvicted() {
+		ContentPartPool pool = new ContentPartPool();
+		pool.setMaxPooledParts(1);
+		pool.setMaxFreePartsPerType(1);
+		CellContentPart a = createPart("a");
+		CellContentPart b = createPart("b");
+		CellContentPart c = createPart("c");
+		pool.add(a);
+		a.setContent(null);
+		pool.add(b);
+		b.setContent(null);
+		pool.add(c);
+		assertEquals(2, pool.getEvictionCount());
+
+		// a is kept in the free list, whereas b is disposed
+		IContentPart<? extends Node> recycled = pool.acquire(CellContentPart.class);
+		assertSame(a, recycled);
+		assertNull(pool.acquire(CellContentPart.class));
+		assertSame(c, pool.remove(c.getContent()));
+	}
+}
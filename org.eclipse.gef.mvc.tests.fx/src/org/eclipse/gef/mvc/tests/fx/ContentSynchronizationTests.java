@@ -15,7 +15,9 @@ package org.eclipse.gef.mvc.tests.fx;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +29,7 @@ import org.eclipse.gef.mvc.fx.behaviors.ContentBehavior;
 import org.eclipse.gef.mvc.fx.domain.IDomain;
 import org.eclipse.gef.mvc.fx.parts.IContentPart;
 import org.eclipse.gef.mvc.fx.parts.IContentPartFactory;
+import org.eclipse.gef.mvc.fx.parts.IVisualPart;
 import org.eclipse.gef.mvc.fx.viewer.IViewer;
 import org.eclipse.gef.mvc.tests.fx.rules.FXNonApplicationThreadRule;
 import org.eclipse.gef.mvc.tests.fx.stubs.Cell;
@@ -38,6 +41,7 @@ import org.junit.Test;
 
 import com.google.inject.Guice;
 
+import javafx.collections.FXCollections;
 import javafx.scene.Node;
 
 /**
@@ -81,6 +85,71 @@ public class ContentSynchronizationTests {
 		});
 	}
 
+	private List<Object> getContentPartChildrenContents() {
+		List<Object> contents = new ArrayList<>();
+		for (IVisualPart<? extends Node> part : viewer.getRootPart().getChildrenUnmodifiable()) {
+			if (part instanceof IContentPart) {
+				contents.add(((IContentPart<? extends Node>) part).getContent());
+			}
+		}
+		return contents;
+	}
+
+	/**
+	 * This scenario tests if the content parts are kept in the order of the
+	 * contents, and if existing content parts are retained, when contents are
+	 * replaced, added, removed, and permuted.
+	 */
+	@Test
+	public void reorderContents() throws Throwable {
+		Cell a = new Cell("a");
+		Cell b = new Cell("b");
+		Cell c = new Cell("c");
+		Cell d = new Cell("d");
+		Cell e = new Cell("e");
+		Cell f = new Cell("f");
+		Map<Object, IContentPart<? extends Node>> contentPartMap = viewer.getContentPartMap();
+
+		ctx.runAndWait(() -> {
+			viewer.getContents().setAll(Arrays.asList(a, b, c, d));
+		});
+		assertEquals(Arrays.asList(a, b, c, d), getContentPartChildrenContents());
+		IContentPart<? extends Node> aPart = contentPartMap.get(a);
+		IContentPart<? extends Node> bPart = contentPartMap.get(b);
+		IContentPart<? extends Node> dPart = contentPartMap.get(d);
+
+		// replace (remove, move, and add at once)
+		ctx.runAndWait(() -> {
+			viewer.getContents().setAll(Arrays.asList(d, b, e, a));
+		});
+		assertEquals(Arrays.asList(d, b, e, a), getContentPartChildrenContents());
+		assertNull(contentPartMap.get(c));
+		assertSame(aPart, contentPartMap.get(a));
+		assertSame(bPart, contentPartMap.get(b));
+		assertSame(dPart, contentPartMap.get(d));
+
+		// add
+		ctx.runAndWait(() -> {
+			viewer.getContents().add(1, f);
+		});
+		assertEquals(Arrays.asList(d, f, b, e, a), getContentPartChildrenContents());
+
+		// remove
+		ctx.runAndWait(() -> {
+			viewer.getContents().remove(b);
+		});
+		assertEquals(Arrays.asList(d, f, e, a), getContentPartChildrenContents());
+		assertNull(contentPartMap.get(b));
+
+		// permute
+		ctx.runAndWait(() -> {
+			FXCollections.sort(viewer.getContents(), (o1, o2) -> ((Cell) o1).name.compareTo(((Cell) o2).name));
+		});
+		assertEquals(Arrays.asList(a, d, e, f), getContentPartChildrenContents());
+		assertSame(aPart, contentPartMap.get(a));
+		assertSame(dPart, contentPartMap.get(d));
+	}
+
 	/**
 	 * This scenario tests if the synchronization works correctly, when the
 	 * contents are replaced with a previously nested content element.
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2018 itemis AG and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     itemis AG - initial API and implementation
+ *
+ *******************************************************************************/
+package org.eclipse.gef.mvc.tests.fx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.gef.common.adapt.AdapterKey;
+import org.eclipse.gef.common.adapt.inject.AdapterMaps;
+import org.eclipse.gef.mvc.fx.MvcFxModule;
+import org.eclipse.gef.mvc.fx.behaviors.SelectionBehavior;
+import org.eclipse.gef.mvc.fx.domain.IDomain;
+import org.eclipse.gef.mvc.fx.models.SelectionModel;
+import org.eclipse.gef.mvc.fx.parts.BulkSelectionFeedbackPart;
+import org.eclipse.gef.mvc.fx.parts.DefaultSelectionFeedbackPartFactory;
+import org.eclipse.gef.mvc.fx.parts.DefaultSelectionHandlePartFactory;
+import org.eclipse.gef.mvc.fx.parts.IContentPart;
+import org.eclipse.gef.mvc.fx.parts.IContentPartFactory;
+import org.eclipse.gef.mvc.fx.parts.IHandlePart;
+import org.eclipse.gef.mvc.fx.parts.IVisualPart;
+import org.eclipse.gef.mvc.fx.parts.LayeredRootPart;
+import org.eclipse.gef.mvc.fx.parts.SelectionFeedbackPart;
+import org.eclipse.gef.mvc.fx.providers.ShapeBoundsProvider;
+import org.eclipse.gef.mvc.fx.viewer.IViewer;
+import org.eclipse.gef.mvc.tests.fx.rules.FXNonApplicationThreadRule;
+import org.eclipse.gef.mvc.tests.fx.stubs.Cell;
+import org.eclipse.gef.mvc.tests.fx.stubs.CellContentPart;
+import org.eclipse.gef.mvc.tests.fx.stubs.CellContentPartFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.MapBinder;
+
+import javafx.scene.Node;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.PathElement;
+
+public class SelectionBehaviorTests {
+
+	private static class TestModule extends MvcFxModule {
+
+		@Override
+		protected void bindIDomainAdapters(MapBinder<AdapterKey<?>, Object> adapterMapBinder) {
+			bindContentIViewerAsIDomainAdapter(adapterMapBinder);
+		}
+
+		@Override
+		protected void configure() {
+			super.configure();
+			binder().bind(IContentPartFactory.class).to(CellContentPartFactory.class);
+			MapBinder<AdapterKey<?>, Object> adapterMapBinder = AdapterMaps.getAdapterMapBinder(binder(),
+					CellContentPart.class);
+			adapterMapBinder
+					.addBinding(AdapterKey.role(DefaultSelectionFeedbackPartFactory.SELECTION_FEEDBACK_GEOMETRY_PROVIDER))
+					.to(ShapeBoundsProvider.class);
+			adapterMapBinder
+					.addBinding(AdapterKey.role(DefaultSelectionHandlePartFactory.SELECTION_HANDLES_GEOMETRY_PROVIDER))
+					.to(ShapeBoundsProvider.class);
+		}
+	}
+
+	@Rule
+	public FXNonApplicationThreadRule ctx = new FXNonApplicationThreadRule();
+
+	@Inject
+	private IDomain domain;
+
+	private IViewer viewer;
+	private SelectionModel selectionModel;
+	private List<IContentPart<? extends Node>> parts = new ArrayList<>();
+
+	@Before
+	public void activate() throws Throwable {
+		Injector injector = Guice.createInjector(new TestModule());
+		injector.injectMembers(this);
+		viewer = domain.getAdapter(AdapterKey.get(IViewer.class, IDomain.CONTENT_VIEWER_ROLE));
+		ctx.createScene(viewer.getCanvas(), 400, 200);
+
+		List<Cell> contents = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			contents.add(new Cell("C" + i));
+		}
+		ctx.runAndWait(() -> {
+			domain.activate();
+			viewer.getContents().setAll(contents);
+			for (Cell cell : contents) {
+				parts.add(viewer.getContentPartMap().get(cell));
+			}
+			selectionModel = viewer.getAdapter(SelectionModel.class);
+			viewer.getRootPart().getAdapter(SelectionBehavior.class).setBulkFeedbackThreshold(3);
+		});
+	}
+
+	@After
+	public void deactivate() throws Throwable {
+		ctx.runAndWait(() -> {
+			viewer.getContents().setAll(Collections.emptyList());
+			domain.deactivate();
+		});
+	}
+
+	private BulkSelectionFeedbackPart getBulkFeedbackPart() {
+		List<BulkSelectionFeedbackPart> bulkParts = getRootChildren(BulkSelectionFeedbackPart.class);
+		assertTrue(bulkParts.size() <= 1);
+		return bulkParts.isEmpty() ? null : bulkParts.get(0);
+	}
+
+	private Set<IVisualPart<? extends Node>> getFeedbackTargets() {
+		Set<IVisualPart<? extends Node>> targets = new HashSet<>();
+		for (SelectionFeedbackPart feedbackPart : getRootChildren(SelectionFeedbackPart.class)) {
+			targets.addAll(feedbackPart.getAnchoragesUnmodifiable().keySet());
+		}
+		return targets;
+	}
+
+	private Set<IVisualPart<? extends Node>> getHandleTargets() {
+		Set<IVisualPart<? extends Node>> targets = new HashSet<>();
+		for (IHandlePart<?> handlePart : getRootChildren(IHandlePart.class)) {
+			targets.addAll(handlePart.getAnchoragesUnmodifiable().keySet());
+		}
+		return targets;
+	}
+
+	private <T> List<T> getRootChildren(Class<T> type) {
+		List<T> children = new ArrayList<>();
+		for (IVisualPart<? extends Node> child : viewer.getRootPart().getChildrenUnmodifiable()) {
+			if (type.isInstance(child)) {
+				children.add(type.cast(child));
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Checks that above the bulk feedback threshold, individual feedback and
+	 * handles are only generated for the primary selection, while the
+	 * outlines of all other selected parts are rendered by a single
+	 * {@link BulkSelectionFeedbackPart}.
+	 */
+	@Test
+	public void test_bulk_feedback() throws Throwable {
+		// at the threshold, feedback is generated individually
+		ctx.runAndWait(() -> {
+			selectionModel.setSelection(parts.subList(0, 3));
+			assertNull(getBulkFeedbackPart());
+			assertEquals(new HashSet<>(parts.subList(0, 3)), getFeedbackTargets());
+		});
+
+		// crossing the threshold switches to bulk feedback
+		final int[] outlineLength = new int[1];
+		ctx.runAndWait(() -> {
+			selectionModel.appendToSelection(parts.get(3));
+			BulkSelectionFeedbackPart bulkPart = getBulkFeedbackPart();
+			assertNotNull(bulkPart);
+			assertEquals(new HashSet<>(parts.subList(1, 4)), bulkPart.getTargetsUnmodifiable());
+			assertEquals(Collections.singleton(parts.get(0)), getFeedbackTargets());
+			assertEquals(Collections.singleton(parts.get(0)), getHandleTargets());
+			int elements = bulkPart.getVisual().getElements().size();
+			assertTrue(elements > 0);
+			assertEquals(0, elements % 3);
+			outlineLength[0] = elements / 3;
+		});
+
+		// outlines are added incrementally
+		ctx.runAndWait(() -> {
+			selectionModel.appendToSelection(parts.get(4));
+			BulkSelectionFeedbackPart bulkPart = getBulkFeedbackPart();
+			assertEquals(new HashSet<>(parts.subList(1, 5)), bulkPart.getTargetsUnmodifiable());
+			assertEquals(4 * outlineLength[0], bulkPart.getVisual().getElements().size());
+		});
+
+		// changing the primary selection moves the individual feedback and
+		// handles to the new primary selection
+		ctx.runAndWait(() -> {
+			selectionModel.prependToSelection(parts.get(5));
+			BulkSelectionFeedbackPart bulkPart = getBulkFeedbackPart();
+			assertEquals(new HashSet<>(parts.subList(0, 5)), bulkPart.getTargetsUnmodifiable());
+			assertFalse(bulkPart.getTargetsUnmodifiable().contains(parts.get(5)));
+			assertEquals(5 * outlineLength[0], bulkPart.getVisual().getElements().size());
+			assertEquals(Collections.singleton(parts.get(5)), getFeedbackTargets());
+			assertEquals(Collections.singleton(parts.get(5)), getHandleTargets());
+		});
+
+		// crossing the threshold again switches back to individual feedback
+		ctx.runAndWait(() -> {
+			selectionModel.removeFromSelection(parts.subList(1, 4));
+			assertNull(getBulkFeedbackPart());
+			assertEquals(new HashSet<>(Arrays.asList(parts.get(5), parts.get(0), parts.get(4))),
+					getFeedbackTargets());
+		});
+	}
+
+	/**
+	 * Checks that the outlines of the {@link BulkSelectionFeedbackPart} are
+	 * updated when an ancestor of the selected visuals is transformed.
+	 */
+	@Test
+	public void test_bulk_feedback_follows_ancestor_transform() throws Throwable {
+		final double[] x = new double[1];
+		ctx.runAndWait(() -> {
+			selectionModel.setSelection(parts);
+			x[0] = ((MoveTo) getBulkFeedbackPart().getVisual().getElements().get(0)).getX();
+			((LayeredRootPart) viewer.getRootPart()).getContentLayer().setTranslateX(50);
+		});
+		// the outlines are re-computed within the next pulse
+		ctx.runAndWait(() -> {
+			assertEquals(x[0] + 50, ((MoveTo) getBulkFeedbackPart().getVisual().getElements().get(0)).getX(), 1e-9);
+		});
+	}
+
+	/**
+	 * Checks that only the outline of a target whose bounds changed is
+	 * replaced within the {@link BulkSelectionFeedbackPart}.
+	 */
+	@Test
+	public void test_bulk_feedback_follows_target_bounds() throws Throwable {
+		final List<PathElement> elements = new ArrayList<>();
+		ctx.runAndWait(() -> {
+			selectionModel.setSelection(parts);
+			elements.addAll(getBulkFeedbackPart().getVisual().getElements());
+			parts.get(2).getVisual().setTranslateX(50);
+		});
+		// the outline of the second bulk target is replaced within the next
+		// pulse
+		ctx.runAndWait(() -> {
+			List<PathElement> refreshed = getBulkFeedbackPart().getVisual().getElements();
+			assertEquals(elements.size(), refreshed.size());
+			int outlineLength = elements.size() / 5;
+			for (int i = 0; i < elements.size(); i++) {
+				if (i / outlineLength == 1) {
+					assertNotSame(elements.get(i), refreshed.get(i));
+				} else {
+					assertSame(elements.get(i), refreshed.get(i));
+				}
+			}
+			assertEquals(((MoveTo) elements.get(outlineLength)).getX() + 50,
+					((MoveTo) refreshed.get(outlineLength)).getX(), 1e-9);
+		});
+	}
+}
@@ -190,6 +190,45 @@ public class SelectionModelTests {
 		listener.check();
 	}
 
+	@Test
+	public void testDeltaChangeEvents() {
+		SelectionModel selectionModel = new SelectionModel();
+		IContentPart<Node> c1 = new ContentPartStub();
+		IContentPart<Node> c2 = new ContentPartStub();
+		IContentPart<Node> c3 = new ContentPartStub();
+		IContentPart<Node> c4 = new ContentPartStub();
+		selectionModel.setSelection(Arrays.asList(c1, c2));
+		ListChangeExpector<IContentPart<? extends Node>> listener = new ListChangeExpector<>(
+				selectionModel.getSelectionUnmodifiable());
+		selectionModel.getSelectionUnmodifiable().addListener(listener);
+
+		// appending unselected parts only reports the added parts
+		listener.addExpectation(Collections.<IContentPart<? extends Node>>emptyList(), Arrays.asList(c3, c4));
+		selectionModel.appendToSelection(Arrays.asList(c3, c4));
+		listener.check();
+		Assert.assertTrue(selectionModel.isSelected(c4));
+
+		// setting a subset (in order) only reports the removed parts
+		listener.addExpectation(Arrays.asList(c2, c3), Collections.<IContentPart<? extends Node>>emptyList());
+		selectionModel.setSelection(Arrays.asList(c1, c4));
+		listener.check();
+		Assert.assertFalse(selectionModel.isSelected(c2));
+		Assert.assertFalse(selectionModel.isSelected(c3));
+
+		// setting a superset (in order) only reports the added parts
+		listener.addExpectation(Collections.<IContentPart<? extends Node>>emptyList(), Arrays.asList(c2));
+		selectionModel.setSelection(Arrays.asList(c1, c4, c2));
+		listener.check();
+
+		// removing multiple parts reports a single removal per run
+		listener.addExpectation(Arrays.asList(c1, c4), Collections.<IContentPart<? extends Node>>emptyList());
+		selectionModel.removeFromSelection(Arrays.asList(c1, c3, c4));
+		listener.check();
+		Assert.assertEquals(Arrays.asList(c2), selectionModel.getSelectionUnmodifiable());
+		Assert.assertTrue(selectionModel.isSelected(c2));
+		Assert.assertFalse(selectionModel.isSelected(c1));
+	}
+
 	@Test
 	public void testDeselect() {
 		SelectionModel selectionModel = new SelectionModel();
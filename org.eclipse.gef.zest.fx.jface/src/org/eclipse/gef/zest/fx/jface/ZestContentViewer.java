@@ -20,11 +20,13 @@ import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eclipse.gef.common.adapt.AdapterKey;
 import org.eclipse.gef.fx.swt.canvas.IFXCanvasFactory;
 import org.eclipse.gef.graph.Edge;
 import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.graph.GraphEditor;
 import org.eclipse.gef.graph.Node;
 import org.eclipse.gef.layout.ILayoutAlgorithm;
 import org.eclipse.gef.mvc.fx.domain.IDomain;
@@ -350,25 +352,32 @@ public class ZestContentViewer extends ContentViewer {
 	 *            Content elements which represent nodes that are to be created
 	 *            together with the edges between them.
 	 */
-	protected void createNodesAndEdges(IGraphContentProvider graphContentProvider, ILabelProvider labelProvider,
-			Graph graph, Object[] contentNodes) {
-		// create nodes
-		for (Object node : contentNodes) {
-			Node graphNode = createNode(node, graphContentProvider, labelProvider);
-			graph.getNodes().add(graphNode);
-		}
-		// create edges
-		for (Object contentSourceNode : contentNodes) {
-			Node sourceNode = contentNodeMap.get(contentSourceNode);
-			Object[] connectedTo = graphContentProvider.getAdjacentNodes(contentSourceNode);
-			if (connectedTo != null) {
-				for (Object contentTargetNode : connectedTo) {
-					Node targetNode = contentNodeMap.get(contentTargetNode);
-					Edge edge = createEdge(labelProvider, contentSourceNode, sourceNode, contentTargetNode, targetNode);
-					graph.getEdges().add(edge);
+	protected void createNodesAndEdges(final IGraphContentProvider graphContentProvider,
+			final ILabelProvider labelProvider, Graph graph, final Object[] contentNodes) {
+		// add all nodes and edges within a single update
+		graph.update(new Consumer<GraphEditor>() {
+			@Override
+			public void accept(GraphEditor editor) {
+				// create nodes
+				for (Object node : contentNodes) {
+					Node graphNode = createNode(node, graphContentProvider, labelProvider);
+					editor.addNode(graphNode);
+				}
+				// create edges
+				for (Object contentSourceNode : contentNodes) {
+					Node sourceNode = contentNodeMap.get(contentSourceNode);
+					Object[] connectedTo = graphContentProvider.getAdjacentNodes(contentSourceNode);
+					if (connectedTo != null) {
+						for (Object contentTargetNode : connectedTo) {
+							Node targetNode = contentNodeMap.get(contentTargetNode);
+							Edge edge = createEdge(labelProvider, contentSourceNode, sourceNode, contentTargetNode,
+									targetNode);
+							editor.addEdge(edge);
+						}
+					}
 				}
 			}
-		}
+		});
 	}
 
 	/**
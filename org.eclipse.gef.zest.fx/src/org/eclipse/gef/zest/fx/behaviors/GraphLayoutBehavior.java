@@ -12,36 +12,66 @@
  *******************************************************************************/
 package org.eclipse.gef.zest.fx.behaviors;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
+import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.gef.fx.nodes.InfiniteCanvas;
+import org.eclipse.gef.geometry.planar.AffineTransform;
+import org.eclipse.gef.geometry.planar.Dimension;
+import org.eclipse.gef.geometry.planar.Point;
 import org.eclipse.gef.geometry.planar.Rectangle;
 import org.eclipse.gef.graph.Edge;
 import org.eclipse.gef.graph.Graph;
+import org.eclipse.gef.layout.IIncrementalLayoutAlgorithm;
 import org.eclipse.gef.layout.ILayoutAlgorithm;
 import org.eclipse.gef.layout.ILayoutFilter;
+import org.eclipse.gef.layout.LayoutCache;
 import org.eclipse.gef.layout.LayoutContext;
 import org.eclipse.gef.layout.LayoutProperties;
+import org.eclipse.gef.layout.algorithms.ConstrainedSpringLayoutAlgorithm;
+import org.eclipse.gef.layout.algorithms.ConstrainedSpringLayoutAlgorithm.Relaxation;
+import org.eclipse.gef.mvc.fx.operations.ITransactionalOperation;
 import org.eclipse.gef.mvc.fx.parts.IContentPart;
 import org.eclipse.gef.mvc.fx.parts.IVisualPart;
 import org.eclipse.gef.mvc.fx.parts.PartUtils;
+import org.eclipse.gef.mvc.fx.policies.TransformPolicy;
 import org.eclipse.gef.mvc.fx.viewer.IViewer;
 import org.eclipse.gef.mvc.fx.viewer.InfiniteCanvasViewer;
 import org.eclipse.gef.zest.fx.ZestProperties;
 import org.eclipse.gef.zest.fx.models.HidingModel;
 import org.eclipse.gef.zest.fx.models.NavigationModel;
 import org.eclipse.gef.zest.fx.models.NavigationModel.ViewportState;
+import org.eclipse.gef.zest.fx.parts.EdgePart;
 import org.eclipse.gef.zest.fx.parts.GraphPart;
 import org.eclipse.gef.zest.fx.parts.NodePart;
 
+import com.google.inject.Inject;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ListChangeListener;
+import javafx.collections.MapChangeListener;
+import javafx.collections.ObservableMap;
 import javafx.collections.SetChangeListener;
 import javafx.geometry.Bounds;
 import javafx.scene.Node;
 import javafx.scene.Parent;
+import javafx.scene.transform.Affine;
+import javafx.util.Duration;
 
 /**
  * The {@link GraphLayoutBehavior} is responsible for initiating layout passes.
@@ -53,6 +83,76 @@ import javafx.scene.Parent;
 // only applicable for GraphPart (see #getHost())
 public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 
+	// the maximum number of visual transforms that are updated per frame of a
+	// layout transition
+	private static final int MAX_UPDATES_PER_FRAME = 2000;
+
+	/**
+	 * Interpolates the visual transforms of the nodes from their pre-layout
+	 * positions to their post-layout positions, and commits the layout (i.e.
+	 * executes the post-layout of all nodes and edges) when finished. All nodes are
+	 * updated by a single {@link AnimationTimer}, writing directly to the
+	 * visual transforms. At most {@link #MAX_UPDATES_PER_FRAME} transforms are
+	 * updated per frame (in a round-robin fashion), so that the costs per
+	 * frame are bounded for large graphs.
+	 */
+	private class LayoutTransition extends AnimationTimer {
+
+		private final Affine[] transforms;
+		private final double[] startX;
+		private final double[] startY;
+		private final double[] endX;
+		private final double[] endY;
+		private final long durationNanos;
+		private long startNanos = -1;
+		private int next;
+
+		public LayoutTransition(Affine[] transforms, double[] startX, double[] startY, double[] endX, double[] endY,
+				Duration duration) {
+			this.transforms = transforms;
+			this.startX = startX;
+			this.startY = startY;
+			this.endX = endX;
+			this.endY = endY;
+			this.durationNanos = (long) (duration.toMillis() * 1000000);
+		}
+
+		/**
+		 * Stops this transition and commits the layout.
+		 */
+		public void finish() {
+			stop();
+			if (layoutTransition == this) {
+				layoutTransition = null;
+			}
+			commitLayout();
+		}
+
+		@Override
+		public void handle(long now) {
+			if (startNanos < 0) {
+				startNanos = now;
+			}
+			double t = (double) (now - startNanos) / durationNanos;
+			if (t >= 1) {
+				finish();
+				return;
+			}
+			// ease in and out
+			double s = t * t * (3 - 2 * t);
+			int updates = Math.min(transforms.length, MAX_UPDATES_PER_FRAME);
+			for (int k = 0; k < updates; k++) {
+				int i = next;
+				next = next + 1 == transforms.length ? 0 : next + 1;
+				Affine transform = transforms[i];
+				// update translation with a single change notification
+				transform.setToTransform(transform.getMxx(), transform.getMxy(),
+						startX[i] + (endX[i] - startX[i]) * s, transform.getMyx(), transform.getMyy(),
+						startY[i] + (endY[i] - startY[i]) * s);
+			}
+		}
+	}
+
 	private Runnable postLayout = new Runnable() {
 		@Override
 		public void run() {
@@ -88,19 +188,94 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 	private ListChangeListener<IVisualPart<? extends Node>> childrenObserver = new ListChangeListener<IVisualPart<? extends Node>>() {
 		@Override
 		public void onChanged(ListChangeListener.Change<? extends IVisualPart<? extends Node>> c) {
-			applyLayout(true, null);
+			if (!incrementalLayout) {
+				applyLayout(true, null);
+				return;
+			}
+			while (c.next()) {
+				for (IVisualPart<? extends Node> added : c.getAddedSubList()) {
+					collectChangedNodes(added);
+				}
+				for (IVisualPart<? extends Node> removed : c.getRemoved()) {
+					collectChangedNodes(removed);
+				}
+			}
+			scheduleIncrementalLayout();
+		}
+	};
+
+	// the layout filter depends on the content parts (and whether they are
+	// active), and on the hiding model; changes of the layout irrelevant
+	// attribute have to be announced via
+	// LayoutContext#invalidateLayoutRelevance()
+	private InvalidationListener layoutRelevanceObserver = new InvalidationListener() {
+		@Override
+		public void invalidated(Observable observable) {
+			getLayoutContext().invalidateLayoutRelevance();
+		}
+	};
+
+	private MapChangeListener<Object, IContentPart<? extends Node>> contentPartMapObserver = new MapChangeListener<Object, IContentPart<? extends Node>>() {
+		@Override
+		public void onChanged(MapChangeListener.Change<? extends Object, ? extends IContentPart<? extends Node>> change) {
+			if (change.wasRemoved()) {
+				change.getValueRemoved().activeProperty().removeListener(layoutRelevanceObserver);
+			}
+			if (change.wasAdded()) {
+				change.getValueAdded().activeProperty().addListener(layoutRelevanceObserver);
+			}
+			getLayoutContext().invalidateLayoutRelevance();
 		}
 	};
 
 	private SetChangeListener<org.eclipse.gef.graph.Node> hidingModelObserver = new SetChangeListener<org.eclipse.gef.graph.Node>() {
 		@Override
 		public void onChanged(SetChangeListener.Change<? extends org.eclipse.gef.graph.Node> change) {
-			applyLayout(true, null);
+			getLayoutContext().invalidateLayoutRelevance();
+			if (!incrementalLayout) {
+				applyLayout(true, null);
+				return;
+			}
+			if (change.wasAdded()) {
+				changedNodes.add(change.getElementAdded());
+			}
+			if (change.wasRemoved()) {
+				changedNodes.add(change.getElementRemoved());
+			}
+			scheduleIncrementalLayout();
 		}
 	};
 
 	private boolean skipNextLayout;
 
+	private boolean asynchronousLayout = false;
+
+	private CompletableFuture<Void> asynchronousLayoutPass;
+
+	private boolean incrementalLayout = false;
+
+	// nodes changed since the last layout pass (incremental layout)
+	private Set<org.eclipse.gef.graph.Node> changedNodes = Collections
+			.newSetFromMap(new IdentityHashMap<org.eclipse.gef.graph.Node, Boolean>());
+
+	private boolean incrementalLayoutScheduled;
+
+	private boolean animatedLayout = false;
+
+	private Duration layoutTransitionDuration = Duration.millis(300);
+
+	private LayoutTransition layoutTransition;
+
+	private LayoutCache layoutCache;
+
+	// the relaxation of the neighborhood of the currently dragged nodes (if
+	// any), along with the dragged and relaxed node parts, and the transform
+	// policies of the relaxed node parts
+	private Relaxation relaxation;
+	private NodePart[] draggedParts;
+	private NodePart[] relaxedParts;
+	private TransformPolicy[] relaxedPolicies;
+
 	/**
 	 * Performs one layout pass using the static layout algorithm that is
 	 * configured for the layout context.
@@ -111,48 +286,223 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 	 *            An extra {@link Object} that is passed-on to the
 	 *            {@link ILayoutAlgorithm}.
 	 */
-	@SuppressWarnings("unchecked")
 	public void applyLayout(boolean clean, Object extra) {
-		// check child parts exist for all content children
-		if (getHost().getChildrenUnmodifiable().size() != getHost().getContentChildrenUnmodifiable().size()) {
+		LayoutContext layoutContext = prepareLayoutContext();
+		if (layoutContext == null) {
 			return;
+		}
+
+		// a full layout pass covers all pending changes
+		changedNodes.clear();
+
+		// apply layout (if no algorithm is set, will be a no-op); a layout
+		// that is stored within the layout cache is restored by the context
+		if (asynchronousLayout) {
+			asynchronousLayoutPass = layoutContext.applyLayoutAsync(true, getLayoutExecutor(), new Executor() {
+				@Override
+				public void execute(Runnable command) {
+					Platform.runLater(command);
+				}
+			}, null);
 		} else {
-			List<IContentPart<? extends Node>> childContentParts = PartUtils
-					.filterParts(getHost().getChildrenUnmodifiable(), IContentPart.class);
-			for (IContentPart<? extends Node> cp : childContentParts) {
-				if (!getHost().getContentChildrenUnmodifiable().contains(cp.getContent())) {
-					return;
+			layoutContext.applyLayout(true);
+		}
+	}
+
+	/**
+	 * Performs one incremental layout pass, laying out the given changed nodes
+	 * and their neighbors while keeping the locations of all other nodes (see
+	 * {@link LayoutContext#applyIncrementalLayout(Collection)}). Falls back to
+	 * a full layout pass if the layout algorithm is not an
+	 * {@link IIncrementalLayoutAlgorithm}.
+	 *
+	 * @param changedNodes
+	 *            The {@link org.eclipse.gef.graph.Node}s that changed since
+	 *            the last layout pass.
+	 */
+	public void applyIncrementalLayout(Collection<org.eclipse.gef.graph.Node> changedNodes) {
+		LayoutContext layoutContext = prepareLayoutContext();
+		if (layoutContext == null) {
+			return;
+		}
+		layoutContext.applyIncrementalLayout(changedNodes);
+	}
+
+	/**
+	 * Aborts the running relaxation (see {@link #startRelaxation(Collection)}),
+	 * i.e. rolls back the transform policies of the relaxed nodes, so that
+	 * their visuals are located at their (unchanged) positions again.
+	 */
+	public void abortRelaxation() {
+		if (relaxation == null) {
+			return;
+		}
+		for (int i = 0; i < relaxedParts.length; i++) {
+			if (relaxedParts[i].getViewer() != null) {
+				relaxedPolicies[i].rollback();
+			}
+		}
+		relaxation = null;
+		draggedParts = null;
+		relaxedParts = null;
+		relaxedPolicies = null;
+	}
+
+	/**
+	 * Commits the running relaxation (see {@link #startRelaxation(Collection)}),
+	 * i.e. commits the transform policies of the relaxed nodes and executes
+	 * the resulting operations on the domain, which transfers the relaxed
+	 * positions to the model. If called while an execution transaction is open
+	 * (e.g. at the end of a drag gesture), the operations are undone along
+	 * with the other operations of that transaction. The positions of the
+	 * dragged nodes are expected to be committed by the caller.
+	 */
+	public void commitRelaxation() {
+		if (relaxation == null) {
+			return;
+		}
+		for (int i = 0; i < relaxedParts.length; i++) {
+			if (relaxedParts[i].getViewer() == null) {
+				continue;
+			}
+			ITransactionalOperation operation = relaxedPolicies[i].commit();
+			if (operation != null && !operation.isNoOp()) {
+				try {
+					relaxedParts[i].getViewer().getDomain().execute(operation, null);
+				} catch (ExecutionException e) {
+					throw new RuntimeException("An exception occured when committing the relaxation.", e);
 				}
 			}
 		}
+		relaxation = null;
+		draggedParts = null;
+		relaxedParts = null;
+		relaxedPolicies = null;
+	}
 
-		if (skipNextLayout) {
-			skipNextLayout = false;
+	/**
+	 * Returns the {@link NodePart}s that are moved by the running relaxation
+	 * (see {@link #startRelaxation(Collection)}), or an empty list if no
+	 * relaxation is running.
+	 *
+	 * @return An unmodifiable list containing the relaxed {@link NodePart}s.
+	 */
+	public List<NodePart> getRelaxedParts() {
+		if (relaxedParts == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(Arrays.asList(relaxedParts));
+	}
+
+	/**
+	 * Relaxes the neighborhood of the dragged nodes (see
+	 * {@link #startRelaxation(Collection)}) with respect to the current
+	 * positions of their visuals. The relaxed locations are written to the
+	 * {@link LayoutProperties} of the relaxed nodes, and their visuals are
+	 * moved via their {@link TransformPolicy}s. Their positions (see
+	 * {@link ZestProperties#getPosition(org.eclipse.gef.graph.Node)}) are not
+	 * changed before {@link #commitRelaxation()} is called.
+	 */
+	public void relax() {
+		if (relaxation == null) {
 			return;
 		}
+		for (NodePart part : draggedParts) {
+			Dimension size = LayoutProperties.getSize(part.getContent());
+			Affine transform = part.getVisualTransform();
+			// location is center, position is top-left
+			relaxation.moveTo(part.getContent(), transform.getTx() + size.width / 2,
+					transform.getTy() + size.height / 2);
+		}
+		relaxation.relax();
+		for (int i = 0; i < relaxedParts.length; i++) {
+			Point location = LayoutProperties.getLocation(relaxedParts[i].getContent());
+			Dimension size = LayoutProperties.getSize(relaxedParts[i].getContent());
+			double[] matrix = relaxedPolicies[i].getInitialTransform().getMatrix();
+			matrix[4] = location.x - size.width / 2;
+			matrix[5] = location.y - size.height / 2;
+			relaxedPolicies[i].setTransform(new AffineTransform(matrix));
+		}
+	}
 
+	/**
+	 * Starts the interactive relaxation of the neighborhood of the given
+	 * dragged {@link NodePart}s, if the layout algorithm of the graph is a
+	 * {@link ConstrainedSpringLayoutAlgorithm} (see
+	 * {@link ConstrainedSpringLayoutAlgorithm#createRelaxation(LayoutContext, Collection)}).
+	 * While the nodes are dragged, {@link #relax()} should be called whenever
+	 * their visuals are moved, and the relaxation has to be finished by either
+	 * {@link #commitRelaxation()} or {@link #abortRelaxation()}. A pending
+	 * asynchronous layout pass is cancelled, so that it does not publish its
+	 * layout while the nodes are dragged.
+	 *
+	 * @param draggedParts
+	 *            The dragged {@link NodePart}s, which have to be children of
+	 *            the {@link #getHost() host}.
+	 * @return <code>true</code> if a relaxation was started, otherwise
+	 *         <code>false</code>.
+	 */
+	public boolean startRelaxation(Collection<NodePart> draggedParts) {
+		abortRelaxation();
 		Graph graph = getHost().getContent();
-
-		// update layout algorithm (apply layout will depend on it)
-		LayoutContext layoutContext = getLayoutContext();
 		ILayoutAlgorithm layoutAlgorithm = ZestProperties.getLayoutAlgorithm(graph);
-		if (layoutAlgorithm != null) {
-			if (layoutContext.getLayoutAlgorithm() != layoutAlgorithm) {
-				layoutContext.setLayoutAlgorithm(layoutAlgorithm);
-			}
-		} else {
-			if (layoutContext.getLayoutAlgorithm() != null) {
-				layoutContext.setLayoutAlgorithm(null);
-			}
+		LayoutContext layoutContext = getLayoutContext();
+		if (draggedParts.isEmpty() || !(layoutAlgorithm instanceof ConstrainedSpringLayoutAlgorithm)
+				|| layoutContext.getGraph() != graph) {
+			return false;
 		}
 
-		// update the graph
-		if (layoutContext.getGraph() != graph) {
-			layoutContext.setGraph(graph);
+		// a pending asynchronous layout pass would move the relaxed nodes
+		if (asynchronousLayoutPass != null) {
+			asynchronousLayoutPass.cancel(false);
+			asynchronousLayoutPass = null;
+		}
+
+		// synchronize the layout properties with the model
+		layoutContext.preLayout();
+
+		List<org.eclipse.gef.graph.Node> draggedNodes = new ArrayList<>();
+		for (NodePart part : draggedParts) {
+			draggedNodes.add(part.getContent());
 		}
+		relaxation = ((ConstrainedSpringLayoutAlgorithm) layoutAlgorithm).createRelaxation(layoutContext,
+				draggedNodes);
+		this.draggedParts = draggedParts.toArray(new NodePart[draggedParts.size()]);
+		Map<Object, IContentPart<? extends Node>> contentPartMap = getHost().getViewer().getContentPartMap();
+		List<NodePart> parts = new ArrayList<>();
+		List<TransformPolicy> policies = new ArrayList<>();
+		for (org.eclipse.gef.graph.Node node : relaxation.getRelaxedNodes()) {
+			IContentPart<? extends Node> part = contentPartMap.get(node);
+			TransformPolicy policy = part == null ? null : part.getAdapter(TransformPolicy.class);
+			if (part instanceof NodePart && policy != null) {
+				policy.init();
+				parts.add((NodePart) part);
+				policies.add(policy);
+			}
+		}
+		relaxedParts = parts.toArray(new NodePart[parts.size()]);
+		relaxedPolicies = policies.toArray(new TransformPolicy[policies.size()]);
+		return true;
+	}
 
-		// apply layout (if no algorithm is set, will be a no-op)
-		layoutContext.applyLayout(true);
+	/**
+	 * Records the content nodes that are affected by adding or removing the
+	 * given child part, i.e. the node of a {@link NodePart}, or the source and
+	 * target nodes of an {@link EdgePart}.
+	 *
+	 * @param child
+	 *            The child part that was added or removed.
+	 */
+	private void collectChangedNodes(IVisualPart<? extends Node> child) {
+		if (child instanceof NodePart) {
+			changedNodes.add(((NodePart) child).getContent());
+		} else if (child instanceof EdgePart) {
+			Edge edge = ((EdgePart) child).getContent();
+			if (edge != null) {
+				changedNodes.add(edge.getSource());
+				changedNodes.add(edge.getTarget());
+			}
+		}
 	}
 
 	/**
@@ -242,6 +592,14 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 			});
 			hidingModel.hiddenProperty().addListener(hidingModelObserver);
 		}
+		Map<Object, IContentPart<? extends Node>> contentPartMap = getHost().getViewer().getContentPartMap();
+		if (contentPartMap instanceof ObservableMap) {
+			for (IContentPart<? extends Node> part : contentPartMap.values()) {
+				part.activeProperty().addListener(layoutRelevanceObserver);
+			}
+			((ObservableMap<Object, IContentPart<? extends Node>>) contentPartMap).addListener(contentPartMapObserver);
+		}
+		getLayoutContext().invalidateLayoutRelevance();
 
 		// initially apply layout if no viewport state is saved for this graph,
 		// or we are nested inside a node, or the saved viewport is outdated
@@ -266,10 +624,31 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 	protected void doDeactivate() {
 		getHost().getChildrenUnmodifiable().removeListener(childrenObserver);
 
+		if (layoutTransition != null) {
+			layoutTransition.stop();
+			layoutTransition = null;
+		}
+		relaxation = null;
+		draggedParts = null;
+		relaxedParts = null;
+
+		if (asynchronousLayoutPass != null) {
+			asynchronousLayoutPass.cancel(false);
+			asynchronousLayoutPass = null;
+		}
+
 		final HidingModel hidingModel = getHost().getRoot().getViewer().getAdapter(HidingModel.class);
 		if (hidingModel != null) {
 			hidingModel.hiddenProperty().removeListener(hidingModelObserver);
 		}
+		Map<Object, IContentPart<? extends Node>> contentPartMap = getHost().getViewer().getContentPartMap();
+		if (contentPartMap instanceof ObservableMap) {
+			((ObservableMap<Object, IContentPart<? extends Node>>) contentPartMap)
+					.removeListener(contentPartMapObserver);
+			for (IContentPart<? extends Node> part : contentPartMap.values()) {
+				part.activeProperty().removeListener(layoutRelevanceObserver);
+			}
+		}
 
 		LayoutContext layoutContext = getLayoutContext();
 		layoutContext.unschedulePreLayoutPass(preLayout);
@@ -284,6 +663,134 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 		nestingVisual = null;
 	}
 
+	/**
+	 * Returns the duration of the transitions of animated layout passes.
+	 *
+	 * @return The {@link Duration} of a layout transition.
+	 * @see #setAnimatedLayout(boolean)
+	 */
+	public Duration getLayoutTransitionDuration() {
+		return layoutTransitionDuration;
+	}
+
+	/**
+	 * Returns whether the results of layout passes are animated.
+	 *
+	 * @return <code>true</code> if the results of layout passes are animated,
+	 *         otherwise <code>false</code>.
+	 */
+	public boolean isAnimatedLayout() {
+		return animatedLayout;
+	}
+
+	/**
+	 * Returns whether layout passes are performed asynchronously, i.e. whether
+	 * the layout algorithm is applied off the JavaFX application thread.
+	 *
+	 * @return <code>true</code> if layout passes are performed asynchronously,
+	 *         otherwise <code>false</code>.
+	 */
+	public boolean isAsynchronousLayout() {
+		return asynchronousLayout;
+	}
+
+	/**
+	 * Sets whether the results of layout passes are animated. If enabled, the
+	 * nodes are moved from their previous to their computed positions during
+	 * the {@link #setLayoutTransitionDuration(Duration) layout transition
+	 * duration}, by interpolating the visual transforms of all nodes using a
+	 * single {@link AnimationTimer}. The computed layout is transferred to the
+	 * model (and the visuals are refreshed) once the transition is finished.
+	 * A running transition is finished immediately when another layout pass is
+	 * initiated. Per default, the results of layout passes are applied
+	 * immediately.
+	 *
+	 * @param animatedLayout
+	 *            <code>true</code> to animate the results of layout passes,
+	 *            <code>false</code> to apply them immediately.
+	 */
+	public void setAnimatedLayout(boolean animatedLayout) {
+		this.animatedLayout = animatedLayout;
+	}
+
+	/**
+	 * Sets whether layout passes are performed asynchronously. If enabled, the
+	 * layout algorithm is applied to a snapshot of the graph using the
+	 * {@link #getLayoutExecutor() layout executor}, and the computed layout is
+	 * published on the JavaFX application thread afterwards, so that large
+	 * graphs stay interactive while the layout is computed (see
+	 * {@link LayoutContext#applyLayoutAsync(boolean, Executor, Executor, java.util.function.DoubleConsumer)}
+	 * ). A pending asynchronous layout pass is cancelled when another layout
+	 * pass is initiated. Per default, layout passes are performed
+	 * synchronously.
+	 *
+	 * @param asynchronousLayout
+	 *            <code>true</code> to perform layout passes asynchronously,
+	 *            <code>false</code> to perform them synchronously.
+	 */
+	public void setAsynchronousLayout(boolean asynchronousLayout) {
+		this.asynchronousLayout = asynchronousLayout;
+	}
+
+	/**
+	 * Returns whether changes of the children or of the hidden nodes are
+	 * processed incrementally.
+	 *
+	 * @return <code>true</code> if changes are processed incrementally,
+	 *         otherwise <code>false</code>.
+	 */
+	public boolean isIncrementalLayout() {
+		return incrementalLayout;
+	}
+
+	/**
+	 * Sets the {@link LayoutCache} that is used to store the results of full
+	 * layout passes, and to restore them instead of re-computing the layout,
+	 * e.g. when a graph is opened again, or when the viewport is resized to a
+	 * previous size. The {@link LayoutCache} is injected if a binding is
+	 * available (which should be a singleton, so that results are shared
+	 * between graphs and viewers). Per default, no {@link LayoutCache} is
+	 * used.
+	 *
+	 * @param layoutCache
+	 *            The {@link LayoutCache} to use, or <code>null</code> to
+	 *            always re-compute the layout.
+	 */
+	@Inject(optional = true)
+	public void setLayoutCache(LayoutCache layoutCache) {
+		this.layoutCache = layoutCache;
+	}
+
+	/**
+	 * Sets the duration of the transitions of animated layout passes (see
+	 * {@link #setAnimatedLayout(boolean)}). Per default, a layout transition
+	 * takes 300 milliseconds.
+	 *
+	 * @param layoutTransitionDuration
+	 *            The {@link Duration} of a layout transition.
+	 */
+	public void setLayoutTransitionDuration(Duration layoutTransitionDuration) {
+		this.layoutTransitionDuration = layoutTransitionDuration;
+	}
+
+	/**
+	 * Sets whether changes of the children or of the hidden nodes are
+	 * processed incrementally. If enabled, changes are coalesced until the
+	 * JavaFX application thread processes its next pulse, and only the
+	 * affected nodes (and their neighbors) are laid out, while the locations
+	 * of all other nodes are kept (see
+	 * {@link #applyIncrementalLayout(Collection)}). Otherwise, each change
+	 * immediately results in a full layout pass (default).
+	 *
+	 * @param incrementalLayout
+	 *            <code>true</code> to process changes incrementally,
+	 *            <code>false</code> to perform a full layout pass for each
+	 *            change.
+	 */
+	public void setIncrementalLayout(boolean incrementalLayout) {
+		this.incrementalLayout = incrementalLayout;
+	}
+
 	@Override
 	public GraphPart getHost() {
 		return (GraphPart) super.getHost();
@@ -305,6 +812,19 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 		return getHost().getAdapter(LayoutContext.class);
 	}
 
+	/**
+	 * Returns the {@link Executor} that is used to apply the layout algorithm
+	 * in case layout passes are performed asynchronously (see
+	 * {@link #setAsynchronousLayout(boolean)}). Per default, the common
+	 * {@link ForkJoinPool} is used.
+	 *
+	 * @return The {@link Executor} that is used to apply the layout algorithm
+	 *         asynchronously.
+	 */
+	protected Executor getLayoutExecutor() {
+		return ForkJoinPool.commonPool();
+	}
+
 	/**
 	 * Returns the {@link NodePart} that contains the nested graph to which the
 	 * behavior corresponds, if this behavior is related to a nested graph.
@@ -319,8 +839,32 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 		return null;
 	}
 
+	/**
+	 * Returns the {@link LayoutCache} that is used to store the results of
+	 * full layout passes, and to restore them instead of re-computing the
+	 * layout, or <code>null</code> if no {@link LayoutCache} is used.
+	 *
+	 * @return The {@link LayoutCache} that is used by this
+	 *         {@link GraphLayoutBehavior}, or <code>null</code>.
+	 */
+	public LayoutCache getLayoutCache() {
+		return layoutCache;
+	}
+
 	@Override
 	protected void postLayout() {
+		if (animatedLayout && layoutTransitionDuration.greaterThan(Duration.ZERO)) {
+			startLayoutTransition();
+		} else {
+			commitLayout();
+		}
+	}
+
+	/**
+	 * Executes the post-layout of all nodes and edges, i.e. transfers the
+	 * computed layout to the model and refreshes the visuals.
+	 */
+	private void commitLayout() {
 		// execute post-layout of all nodes and edges
 		for (IVisualPart<? extends Node> child : getHost().getChildrenUnmodifiable()) {
 			// FIXME: Layout should only be triggered when content-part-map
@@ -337,6 +881,11 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 
 	@Override
 	protected void preLayout() {
+		// the pre-layout depends on the committed result of a running transition
+		if (layoutTransition != null) {
+			layoutTransition.finish();
+		}
+
 		// execute pre-layout of all nodes and edges
 		for (IVisualPart<? extends Node> child : getHost().getChildrenUnmodifiable()) {
 			// FIXME: Layout should only be triggered when content-part-map
@@ -351,6 +900,131 @@ public class GraphLayoutBehavior extends AbstractLayoutBehavior {
 		}
 	}
 
+	/**
+	 * Checks that layout is possible (i.e. that child parts exist for all
+	 * content children) and updates the layout algorithm and graph of the
+	 * {@link LayoutContext} accordingly.
+	 *
+	 * @return The {@link LayoutContext} to use for the layout pass, or
+	 *         <code>null</code> if no layout pass should be performed.
+	 */
+	@SuppressWarnings("unchecked")
+	private LayoutContext prepareLayoutContext() {
+		// check child parts exist for all content children
+		if (getHost().getChildrenUnmodifiable().size() != getHost().getContentChildrenUnmodifiable().size()) {
+			return null;
+		} else {
+			List<IContentPart<? extends Node>> childContentParts = PartUtils
+					.filterParts(getHost().getChildrenUnmodifiable(), IContentPart.class);
+			for (IContentPart<? extends Node> cp : childContentParts) {
+				if (!getHost().getContentChildrenUnmodifiable().contains(cp.getContent())) {
+					return null;
+				}
+			}
+		}
+
+		if (skipNextLayout) {
+			skipNextLayout = false;
+			return null;
+		}
+
+		Graph graph = getHost().getContent();
+
+		// update layout algorithm (apply layout will depend on it)
+		LayoutContext layoutContext = getLayoutContext();
+		layoutContext.setLayoutCache(layoutCache);
+		ILayoutAlgorithm layoutAlgorithm = ZestProperties.getLayoutAlgorithm(graph);
+		if (layoutAlgorithm != null) {
+			if (layoutContext.getLayoutAlgorithm() != layoutAlgorithm) {
+				layoutContext.setLayoutAlgorithm(layoutAlgorithm);
+			}
+		} else {
+			if (layoutContext.getLayoutAlgorithm() != null) {
+				layoutContext.setLayoutAlgorithm(null);
+			}
+		}
+
+		// update the graph
+		if (layoutContext.getGraph() != graph) {
+			layoutContext.setGraph(graph);
+		}
+		return layoutContext;
+	}
+
+	/**
+	 * Schedules an incremental layout pass for the recorded changes, which is
+	 * performed when the JavaFX application thread processes its next pulse,
+	 * so that multiple changes are coalesced into a single layout pass.
+	 */
+	private void scheduleIncrementalLayout() {
+		if (incrementalLayoutScheduled) {
+			return;
+		}
+		incrementalLayoutScheduled = true;
+		Platform.runLater(new Runnable() {
+			@Override
+			public void run() {
+				incrementalLayoutScheduled = false;
+				if (!isActive() || changedNodes.isEmpty()) {
+					changedNodes.clear();
+					return;
+				}
+				List<org.eclipse.gef.graph.Node> changed = new ArrayList<>(changedNodes);
+				changedNodes.clear();
+				applyIncrementalLayout(changed);
+			}
+		});
+	}
+
+	/**
+	 * Starts a {@link LayoutTransition} for all nodes whose computed position
+	 * differs from the position of their visual, or commits the layout
+	 * immediately if no node is moved.
+	 */
+	private void startLayoutTransition() {
+		List<Affine> transforms = new ArrayList<>();
+		List<double[]> positions = new ArrayList<>();
+		for (IVisualPart<? extends Node> child : getHost().getChildrenUnmodifiable()) {
+			if (child.getViewer() == null || !(child instanceof NodePart)) {
+				continue;
+			}
+			org.eclipse.gef.graph.Node content = ((NodePart) child).getContent();
+			Point location = LayoutProperties.getLocation(content);
+			Dimension size = LayoutProperties.getSize(content);
+			if (location == null || size == null) {
+				continue;
+			}
+			// location is center, position is top-left
+			double x = location.x - size.width / 2;
+			double y = location.y - size.height / 2;
+			Affine transform = ((NodePart) child).getVisualTransform();
+			if (transform.getTx() != x || transform.getTy() != y) {
+				transforms.add(transform);
+				positions.add(new double[] { transform.getTx(), transform.getTy(), x, y });
+			}
+		}
+		if (transforms.isEmpty()) {
+			commitLayout();
+			return;
+		}
+
+		int n = transforms.size();
+		double[] startX = new double[n];
+		double[] startY = new double[n];
+		double[] endX = new double[n];
+		double[] endY = new double[n];
+		for (int i = 0; i < n; i++) {
+			double[] position = positions.get(i);
+			startX[i] = position[0];
+			startY[i] = position[1];
+			endX[i] = position[2];
+			endY[i] = position[3];
+		}
+		layoutTransition = new LayoutTransition(transforms.toArray(new Affine[n]), startX, startY, endX, endY,
+				layoutTransitionDuration);
+		layoutTransition.start();
+	}
+
 	/**
 	 * Updates the bounds property from the visual (viewport or nesting node)
 	 */
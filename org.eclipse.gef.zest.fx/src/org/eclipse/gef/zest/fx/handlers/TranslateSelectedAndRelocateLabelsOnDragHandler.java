@@ -12,14 +12,27 @@
  *******************************************************************************/
 package org.eclipse.gef.zest.fx.handlers;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.gef.geometry.planar.Dimension;
 import org.eclipse.gef.mvc.fx.handlers.TranslateSelectedOnDragHandler;
+import org.eclipse.gef.mvc.fx.parts.IContentPart;
+import org.eclipse.gef.mvc.fx.parts.IVisualPart;
+import org.eclipse.gef.zest.fx.behaviors.GraphLayoutBehavior;
+import org.eclipse.gef.zest.fx.parts.GraphPart;
+import org.eclipse.gef.zest.fx.parts.NodePart;
+
+import javafx.scene.Node;
 
 import javafx.scene.input.MouseEvent;
 
 /**
  * A specific {@link TranslateSelectedOnDragHandler} that includes dragging of
- * unselected label parts.
+ * unselected label parts. In case the layout algorithm of the graph supports
+ * interactive relaxation (see
+ * {@link GraphLayoutBehavior#startRelaxation(java.util.Collection)}), the
+ * neighborhood of the dragged nodes is relaxed during the drag.
  *
  * @author anyssen
  *
@@ -28,6 +41,8 @@ public class TranslateSelectedAndRelocateLabelsOnDragHandler extends TranslateSe
 
 	private LabelOffsetSupport labelOffsetsSupport;
 
+	private GraphLayoutBehavior relaxingLayoutBehavior;
+
 	@Override
 	public void abortDrag() {
 		if (labelOffsetsSupport != null) {
@@ -35,11 +50,18 @@ public class TranslateSelectedAndRelocateLabelsOnDragHandler extends TranslateSe
 		}
 		super.abortDrag();
 		labelOffsetsSupport = null;
+		if (relaxingLayoutBehavior != null) {
+			relaxingLayoutBehavior.abortRelaxation();
+			relaxingLayoutBehavior = null;
+		}
 	}
 
 	@Override
 	public void drag(MouseEvent e, Dimension delta) {
 		super.drag(e, delta);
+		if (relaxingLayoutBehavior != null) {
+			relaxingLayoutBehavior.relax();
+		}
 		if (labelOffsetsSupport != null) {
 			labelOffsetsSupport.preserveLabelOffsets();
 		}
@@ -52,14 +74,52 @@ public class TranslateSelectedAndRelocateLabelsOnDragHandler extends TranslateSe
 		}
 		super.endDrag(e, delta);
 		labelOffsetsSupport = null;
+		if (relaxingLayoutBehavior != null) {
+			relaxingLayoutBehavior.commitRelaxation();
+			relaxingLayoutBehavior = null;
+		}
+	}
+
+	/**
+	 * Starts the relaxation of the neighborhood of the dragged nodes, if all
+	 * dragged nodes belong to the same graph, and the layout algorithm of that
+	 * graph supports it.
+	 */
+	private void startRelaxation() {
+		List<NodePart> draggedParts = new ArrayList<>();
+		IVisualPart<? extends Node> graphPart = null;
+		for (IContentPart<? extends Node> part : getTargetParts()) {
+			if (!(part instanceof NodePart)) {
+				continue;
+			}
+			if (graphPart == null) {
+				graphPart = part.getParent();
+			} else if (graphPart != part.getParent()) {
+				return;
+			}
+			draggedParts.add((NodePart) part);
+		}
+		if (!(graphPart instanceof GraphPart)) {
+			return;
+		}
+		GraphLayoutBehavior layoutBehavior = graphPart.getAdapter(GraphLayoutBehavior.class);
+		if (layoutBehavior != null && layoutBehavior.startRelaxation(draggedParts)) {
+			relaxingLayoutBehavior = layoutBehavior;
+		}
 	}
 
 	@Override
 	public void startDrag(MouseEvent e) {
 		super.startDrag(e);
+		startRelaxation();
 		labelOffsetsSupport = getHost().getViewer().getAdapter(LabelOffsetSupport.class);
 		if (labelOffsetsSupport != null) {
-			labelOffsetsSupport.init(getTargetParts());
+			// the labels of relaxed nodes are relocated, too
+			List<IVisualPart<? extends Node>> parts = new ArrayList<>(getTargetParts());
+			if (relaxingLayoutBehavior != null) {
+				parts.addAll(relaxingLayoutBehavior.getRelaxedParts());
+			}
+			labelOffsetsSupport.init(parts);
 		}
 	}
 }
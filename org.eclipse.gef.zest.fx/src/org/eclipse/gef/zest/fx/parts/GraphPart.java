@@ -13,7 +13,9 @@
 package org.eclipse.gef.zest.fx.parts;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.gef.graph.Edge;
 import org.eclipse.gef.graph.Graph;
@@ -44,6 +46,11 @@ public class GraphPart extends AbstractContentPart<Group> {
 
 		@Override
 		public void onChanged(ListChangeListener.Change<? extends Object> c) {
+			// skip intermediate changes of a bulk update, the last change of
+			// the update will be notified after the graph finished updating
+			if (getContent().isUpdating()) {
+				return;
+			}
 			// synchronize children (triggered through content children)
 			refreshContentChildren();
 			refreshVisual();
@@ -62,6 +69,15 @@ public class GraphPart extends AbstractContentPart<Group> {
 		getVisual().getChildren().add(index, child.getVisual());
 	}
 
+	@Override
+	protected void doAddChildVisuals(List<? extends IVisualPart<? extends Node>> children, int index) {
+		List<Node> visuals = new ArrayList<>(children.size());
+		for (IVisualPart<? extends Node> child : children) {
+			visuals.add(child.getVisual());
+		}
+		getVisual().getChildren().addAll(index, visuals);
+	}
+
 	@Override
 	protected Group doCreateVisual() {
 		Group visual = new Group();
@@ -140,6 +156,15 @@ public class GraphPart extends AbstractContentPart<Group> {
 		getVisual().getChildren().remove(child.getVisual());
 	}
 
+	@Override
+	protected void doRemoveChildVisuals(List<? extends IVisualPart<? extends Node>> children) {
+		Set<Node> visuals = new HashSet<>();
+		for (IVisualPart<? extends Node> child : children) {
+			visuals.add(child.getVisual());
+		}
+		getVisual().getChildren().removeAll(visuals);
+	}
+
 	@Override
 	public Graph getContent() {
 		return (Graph) super.getContent();